@@ -19,9 +19,12 @@
 package org.xnio;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 
@@ -40,6 +43,43 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
     private static final State<?> ST_INITIAL = new InitialState<>();
     private static final State<?> ST_CANCELLED = new CancelledState<>();
 
+    // the first notifier is held by the future itself, rather than by a state of its own
+    private static final int SLOT_EMPTY = 0;
+    private static final int SLOT_CLAIMED = 1;
+    private static final int SLOT_SET = 2;
+    private static final int SLOT_FIRED = 3;
+
+    @SuppressWarnings("unchecked")
+    private static final AtomicIntegerFieldUpdater<AbstractIoFuture<?>> slotUpdater = AtomicIntegerFieldUpdater.newUpdater((Class<AbstractIoFuture<?>>) (Class<?>) AbstractIoFuture.class, "slot");
+
+    @SuppressWarnings("unused")
+    private volatile int slot;
+    private Notifier<? super T, Object> slotNotifier;
+    private Object slotAttachment;
+
+    /**
+     * Whether the subclasses leave the dispatch of notifiers to this class, so that they can be called without a
+     * runnable for each.
+     */
+    private static final ClassValue<Boolean> directNotifiers = new ClassValue<Boolean>() {
+        protected Boolean computeValue(final Class<?> type) {
+            try {
+                for (Class<?> clazz = type; clazz != AbstractIoFuture.class; clazz = clazz.getSuperclass()) {
+                    for (Method method : clazz.getDeclaredMethods()) {
+                        final String name = method.getName();
+                        if (name.equals("getNotifierExecutor") && method.getParameterCount() == 0
+                                || name.equals("runNotifier") && method.getParameterCount() == 1 && method.getParameterTypes()[0] == Runnable.class) {
+                            return Boolean.FALSE;
+                        }
+                    }
+                }
+                return Boolean.TRUE;
+            } catch (SecurityException e) {
+                return Boolean.FALSE;
+            }
+        }
+    };
+
     static abstract class State<T> {
         abstract Status getStatus();
 
@@ -264,7 +304,7 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
         }
 
         <A> State<T> withNotifier(final Executor executor, final AbstractIoFuture<T> future, final Notifier<? super T, A> notifier, final A attachment) {
-            future.runNotifier(new NotifierRunnable<T, A>(notifier, future, attachment));
+            future.callNotifier(notifier, attachment);
             return this;
         }
 
@@ -309,7 +349,7 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
         }
 
         <A> State<T> withNotifier(final Executor executor, final AbstractIoFuture<T> future, final Notifier<? super T, A> notifier, final A attachment) {
-            future.runNotifier(new NotifierRunnable<T, A>(notifier, future, attachment));
+            future.callNotifier(notifier, attachment);
             return this;
         }
 
@@ -351,7 +391,7 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
         }
 
         <A> State<T> withNotifier(final Executor executor, final AbstractIoFuture<T> future, final Notifier<? super T, A> notifier, final A attachment) {
-            future.runNotifier(new NotifierRunnable<T, A>(notifier, future, attachment));
+            future.callNotifier(notifier, attachment);
             return this;
         }
 
@@ -399,9 +439,45 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
         }
 
         private void doNotify(final AbstractIoFuture<T> future) {
-            future.runNotifier(new NotifierRunnable<T, A>(notifier, future, attachment));
+            future.callNotifier(notifier, attachment);
+        }
+
+        @Override
+        protected boolean isCancelRequested() {
+            return false;
+        }
+    }
+
+    static final class StageState<T> extends NestedState<T> {
+        final IoFutureStage<T> stage;
+
+        StageState(final State<T> next, final IoFutureStage<T> stage) {
+            super(next);
+            this.stage = stage;
+        }
+
+        Status getStatus() {
+            return Status.WAITING;
+        }
+
+        @Override
+        protected void doNotifyDone(final AbstractIoFuture<T> future, final T result) {
+            stage.complete(result);
+        }
+
+        @Override
+        protected void doNotifyFailed(final AbstractIoFuture<T> future, final IOException exception) {
+            stage.completeExceptionally(exception);
         }
 
+        @Override
+        protected void doNotifyCancelled(final AbstractIoFuture<T> future) {
+            stage.cancelled();
+        }
+
+        @Override
+        protected void doCancel() {}
+
         @Override
         protected boolean isCancelRequested() {
             return false;
@@ -699,7 +775,18 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
     /**
      * {@inheritDoc}
      */
+    @SuppressWarnings("unchecked")
     public <A> IoFuture<T> addNotifier(final Notifier<? super T, A> notifier, final A attachment) {
+        if (slot == SLOT_EMPTY && slotUpdater.compareAndSet(this, SLOT_EMPTY, SLOT_CLAIMED)) {
+            slotNotifier = (Notifier<? super T, Object>) notifier;
+            slotAttachment = attachment;
+            slot = SLOT_SET;
+            // either a completion which raced with us sees the notifier, or we see the completion
+            if (getState().getStatus() != Status.WAITING) {
+                fireSlot();
+            }
+            return this;
+        }
         State<T> oldState, newState;
         do {
             oldState = getState();
@@ -708,6 +795,24 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
         return this;
     }
 
+    /**
+     * {@inheritDoc}  The stage is linked into the state of this future, so it is completed without a notifier, and
+     * without going through the {@linkplain #getNotifierExecutor() notifier executor}.
+     */
+    public CompletionStage<T> toCompletionStage() {
+        final IoFutureStage<T> stage = new IoFutureStage<>(this);
+        State<T> oldState;
+        do {
+            oldState = getState();
+            switch (oldState.getStatus()) {
+                case DONE: stage.complete(oldState.getResult()); return stage;
+                case FAILED: stage.completeExceptionally(oldState.getException()); return stage;
+                case CANCELLED: stage.cancelled(); return stage;
+            }
+        } while (! compareAndSetState(oldState, new StageState<T>(oldState, stage)));
+        return stage;
+    }
+
     /**
      * Set the exception for this operation.  Any threads blocking on this instance will be unblocked.
      *
@@ -728,6 +833,7 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
                 }
             }
         }
+        fireSlot();
         oldState.notifyFailed(this, exception);
         return true;
     }
@@ -752,6 +858,7 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
                 }
             }
         }
+        fireSlot();
         oldState.notifyDone(this, result);
         return true;
     }
@@ -776,6 +883,7 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
                 }
             }
         }
+        fireSlot();
         oldState.notifyCancelled(this);
         return true;
     }
@@ -819,9 +927,40 @@ public abstract class AbstractIoFuture<T> implements IoFuture<T> {
         } while (! compareAndSetState(oldState, newState));
     }
 
+    /**
+     * Call the notifier held by the slot, unless it is not set yet, or was called already.
+     */
+    private void fireSlot() {
+        if (slot == SLOT_SET && slotUpdater.compareAndSet(this, SLOT_SET, SLOT_FIRED)) {
+            final Notifier<? super T, Object> notifier = slotNotifier;
+            final Object attachment = slotAttachment;
+            slotNotifier = null;
+            slotAttachment = null;
+            callNotifier(notifier, attachment);
+        }
+    }
+
+    /**
+     * Call a notifier.  Unless a subclass changed how notifiers are run, they are called directly, as the direct
+     * notifier executor would, without a runnable for each call.
+     */
+    <A> void callNotifier(final Notifier<? super T, A> notifier, final A attachment) {
+        if (directNotifiers.get(getClass()).booleanValue()) {
+            try {
+                notifier.notify(this, attachment);
+            } catch (Throwable t) {
+                futureMsg.notifierFailed(t, notifier, attachment);
+            }
+        } else {
+            runNotifier(new NotifierRunnable<T, A>(notifier, this, attachment));
+        }
+    }
+
     /**
      * Run a notifier.  Implementors will run the notifier, preferably in another thread.  The default implementation
-     * runs the notifier using the {@code Executor} retrieved via {@link #getNotifierExecutor()}.
+     * runs the notifier using the {@code Executor} retrieved via {@link #getNotifierExecutor()}.  Notifiers are only
+     * passed to this method if a subclass overrides it or {@link #getNotifierExecutor()}; otherwise they are called
+     * directly.
      *
      * @param runnable the runnable task
      */
@@ -32,5 +32,12 @@ public enum CompressionType {
      * GZIP compatible compression.
      */
     GZIP,
+    /**
+     * LZ4 frame format compression.  This trades compression ratio for much cheaper compression and decompression
+     * than {@link #DEFLATE}.
+     *
+     * @since 3.10
+     */
+    LZ4,
     ;
 }
@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+/**
+ * A listener for connection idleness events.  Idle listeners are configured using {@link Options#IDLE_LISTENER} and
+ * are always called from the connection's I/O thread, so they must not block.
+ *
+ * @since 3.10
+ */
+public interface IdleListener {
+
+    /**
+     * Handle an idleness event.  The event is raised again after each further idle period for as long as the
+     * connection stays idle.
+     *
+     * @param connection the idle connection
+     * @param state the kind of idleness which was detected
+     */
+    void handleIdle(StreamConnection connection, IdleState state);
+}
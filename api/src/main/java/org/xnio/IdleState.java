@@ -0,0 +1,40 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+/**
+ * The kinds of connection idleness which may be reported to an {@link IdleListener}.
+ *
+ * @since 3.10
+ */
+public enum IdleState {
+    /**
+     * Nothing was read for the period configured by {@link Options#READ_IDLE_TIMEOUT}.
+     */
+    READ_IDLE,
+    /**
+     * Nothing was written for the period configured by {@link Options#WRITE_IDLE_TIMEOUT}.
+     */
+    WRITE_IDLE,
+    /**
+     * Nothing was read or written for the period configured by {@link Options#IDLE_TIMEOUT}.
+     */
+    ALL_IDLE,
+    ;
+}
@@ -21,6 +21,7 @@ package org.xnio;
 import java.util.EventListener;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
 import java.io.IOException;
 
 /**
@@ -166,6 +167,24 @@ public interface IoFuture<T> extends Cancellable {
      */
     <A> IoFuture<T> addNotifier(Notifier<? super T, A> notifier, A attachment);
 
+    /**
+     * Get a completion stage which completes with this operation.  A failed operation completes the stage
+     * exceptionally with its {@code IOException}, and a cancelled operation cancels the stage; cancelling the stage
+     * through {@link CompletionStage#toCompletableFuture()} cancels this operation.  The stage is completed directly
+     * by the thread which completes the operation, so dependent actions which are not asynchronous run in that thread,
+     * which usually is an I/O thread, and must not block.
+     * <p>
+     * The default implementation adds a notifier to this operation.
+     *
+     * @return the completion stage
+     * @since 3.10
+     */
+    default CompletionStage<T> toCompletionStage() {
+        final IoFutureStage<T> stage = new IoFutureStage<>(this);
+        addNotifier(IoFutureStage.<T>notifier(), stage);
+        return stage;
+    }
+
     /**
      * A notifier that handles changes in the status of an {@code IoFuture}.
      *
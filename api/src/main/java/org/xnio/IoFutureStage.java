@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The completion stage of an {@link IoFuture}, which cancels the operation when it is cancelled.
+ *
+ * @param <T> the type of result that the operation produces
+ */
+final class IoFutureStage<T> extends CompletableFuture<T> {
+
+    private static final IoFuture.Notifier<Object, IoFutureStage<Object>> NOTIFIER = new IoFuture.HandlingNotifier<Object, IoFutureStage<Object>>() {
+        public void handleCancelled(final IoFutureStage<Object> stage) {
+            stage.cancelled();
+        }
+
+        public void handleFailed(final IOException exception, final IoFutureStage<Object> stage) {
+            stage.completeExceptionally(exception);
+        }
+
+        public void handleDone(final Object result, final IoFutureStage<Object> stage) {
+            stage.complete(result);
+        }
+    };
+
+    private final IoFuture<T> future;
+
+    IoFutureStage(final IoFuture<T> future) {
+        this.future = future;
+    }
+
+    /**
+     * Get the notifier which completes the stage given as attachment with the operation it is added to.
+     *
+     * @param <T> the type of result that the operation produces
+     * @return the notifier
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static <T> IoFuture.Notifier<T, IoFutureStage<T>> notifier() {
+        return (IoFuture.Notifier) NOTIFIER;
+    }
+
+    /**
+     * Cancel this stage, and the operation.
+     *
+     * @param mayInterruptIfRunning ignored
+     * @return {@code true} if this stage is cancelled
+     */
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        future.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    /**
+     * Cancel this stage because the operation was cancelled.
+     */
+    void cancelled() {
+        super.cancel(false);
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * A bounded cache of memory-mapped file regions, for serving the same files over and over.  A region which is sent
+ * through a channel that cannot transfer from a file directly, such as an SSL or a compressing channel, is then
+ * written from the mapped memory instead of being read into a buffer first.
+ * <p>
+ * Regions are keyed by file, position and length, and the least recently used regions are evicted once the mapped
+ * bytes exceed the limit of the cache.  A region which is {@linkplain #acquire(File, long, long) acquired} is
+ * counted as in use until it is {@linkplain Region#close() closed}; it is neither evicted nor unmapped meanwhile, so
+ * the cache may exceed its limit while all of its regions are in use.  A region which is invalidated or evicted while
+ * in use is unmapped once the last user closes it.
+ * <p>
+ * If the cache is given a {@link FileSystemWatcher}, it watches the directories of the files it maps, and invalidates
+ * the regions of a file once the watcher reports a change of that file.  Without a watcher, the regions of a changed
+ * file must be {@linkplain #invalidate(File) invalidated} by the user.  A watch covers the whole tree below its
+ * directory, so a directory is not watched if one of its ancestors is, and the watches of the directories below a
+ * newly watched one are dropped.  Each new watch scans and registers its whole tree, though: files mapped from
+ * directories high up in a large tree, such as a file system root, make the watcher register every directory below.
+ *
+ * @since 3.10
+ */
+public final class MappedRegionCache implements Closeable {
+
+    private static final MethodHandle INVOKE_CLEANER;
+
+    static {
+        MethodHandle invokeCleaner = null;
+        try {
+            // unmap eagerly where the platform allows it, and leave it to the garbage collector otherwise
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final Object unsafe = field.get(null);
+            invokeCleaner = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class)).bindTo(unsafe);
+        } catch (Throwable ignored) {
+        }
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final long maxBytes;
+    private final FileSystemWatcher watcher;
+    private final FileChangeCallback callback = new FileChangeCallback() {
+        public void handleChanges(final Collection<FileChangeEvent> changes) {
+            for (FileChangeEvent change : changes) {
+                invalidate(change.getFile());
+            }
+        }
+    };
+
+    // all guarded by this
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mappedBytes;
+    private long hits;
+    private long misses;
+    private boolean closed;
+
+    // guarded by itself, and held while calling the watcher, so that the watches are registered in order
+    private final Set<File> watchedDirectories = new HashSet<>();
+
+    /**
+     * Construct a new instance whose regions are only invalidated by the user.
+     *
+     * @param maxBytes the number of mapped bytes above which idle regions are evicted
+     */
+    public MappedRegionCache(final long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param maxBytes the number of mapped bytes above which idle regions are evicted
+     * @param watcher the watcher which reports the changes of the mapped files, or {@code null} for none
+     */
+    public MappedRegionCache(final long maxBytes, final FileSystemWatcher watcher) {
+        if (maxBytes < 0) {
+            throw msg.parameterOutOfRange("maxBytes");
+        }
+        this.maxBytes = maxBytes;
+        this.watcher = watcher;
+    }
+
+    /**
+     * Acquire a mapped region of a file, mapping it unless it is cached.  The region must be closed once it is no
+     * longer in use.
+     *
+     * @param file the file
+     * @param position the position of the region in the file
+     * @param length the length of the region
+     * @return the region
+     * @throws IOException if the file cannot be mapped
+     */
+    public Region acquire(final File file, final long position, final long length) throws IOException {
+        if (file == null) {
+            throw msg.nullParameter("file");
+        }
+        if (position < 0) {
+            throw msg.parameterOutOfRange("position");
+        }
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw msg.parameterOutOfRange("length");
+        }
+        final Key key = new Key(file.getAbsoluteFile(), position, length);
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                hits ++;
+                entry.refs ++;
+                return new Region(entry);
+            }
+            misses ++;
+        }
+        // map outside of the lock; a concurrent miss on the same region maps it twice, and keeps the first one
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(key.file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+        final Entry entry;
+        synchronized (this) {
+            final Entry existing = entries.get(key);
+            if (existing != null) {
+                existing.refs ++;
+                entry = existing;
+            } else {
+                entry = new Entry(key, buffer);
+                entry.refs = 1;
+                if (! closed && length <= maxBytes) {
+                    entry.cached = true;
+                    entries.put(key, entry);
+                    mappedBytes += length;
+                    evict();
+                }
+            }
+        }
+        if (entry.buffer != buffer) {
+            unmap(buffer);
+        } else if (entry.cached) {
+            watch(key.file.getParentFile());
+        }
+        return new Region(entry);
+    }
+
+    /**
+     * Invalidate the cached regions of a file.  A region which is still in use remains valid for its users, and is
+     * unmapped once the last of them closes it.
+     *
+     * @param file the file
+     */
+    public void invalidate(final File file) {
+        if (file == null) {
+            throw msg.nullParameter("file");
+        }
+        final File absoluteFile = file.getAbsoluteFile();
+        final ArrayList<Entry> idle = new ArrayList<>();
+        synchronized (this) {
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (entry.key.file.equals(absoluteFile)) {
+                    iterator.remove();
+                    if (uncache(entry)) {
+                        idle.add(entry);
+                    }
+                }
+            }
+        }
+        for (Entry entry : idle) {
+            unmap(entry.buffer);
+        }
+    }
+
+    /**
+     * Get the number of bytes which are mapped by the cached regions.
+     *
+     * @return the number of mapped bytes
+     */
+    public synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    /**
+     * Get the number of acquisitions which found their region in the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of acquisitions which had to map their region.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Close the cache.  All of its regions are invalidated, and it stops watching the mapped files.  Regions which are
+     * acquired later on are mapped for their user alone.
+     */
+    public void close() {
+        final ArrayList<Entry> idle = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Entry entry : entries.values()) {
+                if (uncache(entry)) {
+                    idle.add(entry);
+                }
+            }
+            entries.clear();
+        }
+        for (Entry entry : idle) {
+            unmap(entry.buffer);
+        }
+        synchronized (watchedDirectories) {
+            for (File directory : watchedDirectories) {
+                watcher.unwatchPath(directory, callback);
+            }
+            watchedDirectories.clear();
+        }
+    }
+
+    /**
+     * Evict the least recently used idle regions until the mapped bytes are within the limit.
+     */
+    private void evict() {
+        assert Thread.holdsLock(this);
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (mappedBytes > maxBytes && iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.refs == 0) {
+                iterator.remove();
+                uncache(entry);
+                // there are no users left to race with
+                unmap(entry.buffer);
+            }
+        }
+    }
+
+    /**
+     * Account for an entry which is removed from the cache.
+     *
+     * @param entry the entry
+     * @return {@code true} if the entry is not in use and must be unmapped by the caller
+     */
+    private boolean uncache(final Entry entry) {
+        assert Thread.holdsLock(this);
+        entry.cached = false;
+        mappedBytes -= entry.key.length;
+        return entry.refs == 0;
+    }
+
+    private void release(final Entry entry) {
+        synchronized (this) {
+            if (-- entry.refs > 0 || entry.cached) {
+                return;
+            }
+        }
+        unmap(entry.buffer);
+    }
+
+    private void watch(final File directory) {
+        if (watcher == null || directory == null) {
+            return;
+        }
+        synchronized (watchedDirectories) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            for (File dir = directory; dir != null; dir = dir.getParentFile()) {
+                if (watchedDirectories.contains(dir)) {
+                    return;
+                }
+            }
+            // the nested watches would share the keys of the new one, and take its events
+            final Iterator<File> iterator = watchedDirectories.iterator();
+            while (iterator.hasNext()) {
+                final File watched = iterator.next();
+                if (watched.toPath().startsWith(directory.toPath())) {
+                    iterator.remove();
+                    watcher.unwatchPath(watched, callback);
+                }
+            }
+            watchedDirectories.add(directory);
+            watcher.watchPath(directory, callback);
+        }
+    }
+
+    private static void unmap(final MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    /**
+     * A mapped region of a file, acquired from a {@link MappedRegionCache}.
+     */
+    public final class Region implements Closeable {
+        private final Entry entry;
+        private final ByteBuffer buffer;
+        private boolean closed;
+
+        Region(final Entry entry) {
+            this.entry = entry;
+            buffer = entry.buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * Get the mapped bytes of the region.  The buffer belongs to this user of the region, so its position and
+         * limit can be changed freely.  It must not be used after the region is closed.
+         *
+         * @return the read-only buffer of the mapped bytes
+         */
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        /**
+         * Close the region.  The region is unmapped once it is no longer cached, and no other user has it open.
+         */
+        public void close() {
+            if (! closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    static final class Entry {
+        final Key key;
+        final MappedByteBuffer buffer;
+        int refs;
+        boolean cached;
+
+        Entry(final Key key, final MappedByteBuffer buffer) {
+            this.key = key;
+            this.buffer = buffer;
+        }
+    }
+
+    static final class Key {
+        final File file;
+        final long position;
+        final long length;
+        private final int hashCode;
+
+        Key(final File file, final long position, final long length) {
+            this.file = file;
+            this.position = position;
+            this.length = length;
+            hashCode = (file.hashCode() * 31 + Long.hashCode(position)) * 31 + Long.hashCode(length);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            if (! (obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return position == other.position && length == other.length && file.equals(other.file);
+        }
+    }
+}
@@ -128,6 +128,42 @@ public final class Options {
      */
     public static final Option<Integer> WRITE_TIMEOUT = Option.simple(Options.class, "WRITE_TIMEOUT", Integer.class);
 
+    /**
+     * Configure a read idle timeout for a connection, in milliseconds.  If the given amount of time elapses without
+     * a successful read taking place, the connection's {@link #IDLE_LISTENER} is notified of
+     * {@link IdleState#READ_IDLE}; if no idle listener is set, the connection is closed.  Unlike {@link #READ_TIMEOUT},
+     * idleness is detected without any read being attempted.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> READ_IDLE_TIMEOUT = Option.simple(Options.class, "READ_IDLE_TIMEOUT", Integer.class);
+
+    /**
+     * Configure a write idle timeout for a connection, in milliseconds.  If the given amount of time elapses without
+     * a successful write taking place, the connection's {@link #IDLE_LISTENER} is notified of
+     * {@link IdleState#WRITE_IDLE}; if no idle listener is set, the connection is closed.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> WRITE_IDLE_TIMEOUT = Option.simple(Options.class, "WRITE_IDLE_TIMEOUT", Integer.class);
+
+    /**
+     * Configure an idle timeout for a connection, in milliseconds.  If the given amount of time elapses without
+     * a successful read or write taking place, the connection's {@link #IDLE_LISTENER} is notified of
+     * {@link IdleState#ALL_IDLE}; if no idle listener is set, the connection is closed.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> IDLE_TIMEOUT = Option.simple(Options.class, "IDLE_TIMEOUT", Integer.class);
+
+    /**
+     * The listener to notify when a connection becomes idle according to {@link #READ_IDLE_TIMEOUT},
+     * {@link #WRITE_IDLE_TIMEOUT} or {@link #IDLE_TIMEOUT}.  If not set, idle connections are closed.
+     *
+     * @since 3.10
+     */
+    public static final Option<IdleListener> IDLE_LISTENER = Option.simple(Options.class, "IDLE_LISTENER", IdleListener.class);
+
     /**
      * The maximum inbound message size.
      *
@@ -326,6 +362,41 @@ public final class Options {
      */
     public static final Option<Boolean> SSL_NON_BLOCKING_TRUST_MANAGER = Option.simple(Options.class, "SSL_NON_BLOCKING_TRUST_MANAGER", Boolean.class);
 
+    /**
+     * The number of threads of a dedicated, bounded executor which runs the delegated tasks of the SSL engine during
+     * handshakes.  If not given or zero, delegated tasks are run in the I/O thread.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> SSL_HANDSHAKE_THREADS = Option.simple(Options.class, "SSL_HANDSHAKE_THREADS", Integer.class);
+
+    /**
+     * The maximum number of SSL handshakes which may be in progress at once.  Further connections are parked, with
+     * their reads suspended, until a handshake completes.  If not given or zero, the number is unlimited.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> SSL_MAX_CONCURRENT_HANDSHAKES = Option.simple(Options.class, "SSL_MAX_CONCURRENT_HANDSHAKES", Integer.class);
+
+    /**
+     * Specify whether to collect SSL handshake statistics, including session resumption hits and misses, and to
+     * expose them as an MBean.  Statistics are always collected if {@link #SSL_HANDSHAKE_THREADS} or
+     * {@link #SSL_MAX_CONCURRENT_HANDSHAKES} is given.
+     *
+     * @since 3.10
+     */
+    public static final Option<Boolean> SSL_HANDSHAKE_STATISTICS = Option.simple(Options.class, "SSL_HANDSHAKE_STATISTICS", Boolean.class);
+
+    /**
+     * Specify the number of handshakes to run in memory between two SSL engines of the provider before the first SSL
+     * server accepts connections, so that the handshake code is compiled before the first peers connect.  The server
+     * engine must trust its own certificate for these handshakes to complete; otherwise the first one fails and
+     * no further handshake is run.  Defaults to 0, which disables pre-warming.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> SSL_PREWARM_HANDSHAKES = Option.simple(Options.class, "SSL_PREWARM_HANDSHAKES", Integer.class);
+
     /**
      * Specify whether direct buffers should be used for socket communications.
      *
@@ -553,6 +624,14 @@ public final class Options {
      */
     public static final Option<CompressionType> COMPRESSION_TYPE = Option.simple(Options.class, "COMPRESSION_TYPE", CompressionType.class);
 
+    /**
+     * The preset dictionary to use for {@link CompressionType#DEFLATE} and {@link CompressionType#GZIP} compression
+     * and decompression of streams and channels.  Both peers must be configured with the same dictionary.
+     *
+     * @since 3.10
+     */
+    public static final Option<ByteString> COMPRESSION_DICTIONARY = Option.simple(Options.class, "COMPRESSION_DICTIONARY", ByteString.class);
+
     /**
      * The number of balancing tokens, if connection-balancing is enabled.  Must be less than the number of I/O threads,
      * or 0 to disable balancing and just accept opportunistically.
@@ -568,4 +647,14 @@ public final class Options {
      * The poll interval for poll based file system watchers.  Defaults to 5000ms.  Ignored on Java 7 and later.
      */
     public static final Option<Integer> WATCHER_POLL_INTERVAL = Option.simple(Options.class, "WATCHER_POLL_INTERVAL", Integer.class);
+
+    /**
+     * The debounce interval in milliseconds for event based file system watchers.  The changes of a watched path are
+     * collected until none occurs for this interval, merged per file, and delivered in a single callback.  Defaults to
+     * 0, which delivers the changes as the file system reports them.  Ignored by poll based file system watchers,
+     * which deliver all the changes of a poll at once.
+     *
+     * @since 3.10
+     */
+    public static final Option<Integer> WATCHER_DEBOUNCE_INTERVAL = Option.simple(Options.class, "WATCHER_DEBOUNCE_INTERVAL", Integer.class);
 }
@@ -19,19 +19,26 @@ package org.xnio;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.xnio._private.Messages;
 
 /**
  * Polling based file system watcher service, for use on JDK6
+ * <p>
+ * The state of every watched tree is kept from one poll to the next, and each poll updates it in place.  A directory
+ * is only listed again if its modification time changed, and the modification times of its files are kept in a
+ * primitive array.  Independent watched trees are scanned in parallel on a fork-join pool.
  *
  * @author Stuart Douglas
  */
@@ -44,6 +51,7 @@ class PollingFileSystemWatcher implements FileSystemWatcher, Runnable {
 
     private final Thread watchThread;
     private final int pollInterval;
+    private ForkJoinPool scanPool;
 
     private volatile boolean stopped = false;
 
@@ -56,55 +64,70 @@ class PollingFileSystemWatcher implements FileSystemWatcher, Runnable {
 
     @Override
     public void run() {
-        while (!stopped) {
-            try {
-                doNotify();
-                Thread.sleep(pollInterval);
-            } catch (InterruptedException e) {
-                //ignore
+        try {
+            while (!stopped) {
+                try {
+                    doNotify();
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException e) {
+                    //ignore
+                }
+            }
+        } finally {
+            if (scanPool != null) {
+                scanPool.shutdownNow();
             }
         }
     }
 
     private void doNotify() {
-        for (Map.Entry<File, PollHolder> entry : files.entrySet()) {
-            Map<File, Long> result = doScan(entry.getKey());
-            List<FileChangeEvent> currentDiff = doDiff(result, entry.getValue().currentFileState);
-            if (!currentDiff.isEmpty()) {
-                entry.getValue().currentFileState = result;
-                for(FileChangeCallback callback : entry.getValue().callbacks) {
-                    invokeCallback(callback, currentDiff);
-                }
+        final List<PollHolder> holders;
+        synchronized (this) {
+            holders = new ArrayList<PollHolder>(files.values());
+        }
+        if (holders.isEmpty()) {
+            return;
+        }
+        final List<List<FileChangeEvent>> results = new ArrayList<List<FileChangeEvent>>(holders.size());
+        if (holders.size() == 1) {
+            results.add(holders.get(0).state.rescan());
+        } else {
+            // the trees are independent, so they are scanned in parallel; the callbacks are still called in order
+            ForkJoinPool scanPool = this.scanPool;
+            if (scanPool == null) {
+                this.scanPool = scanPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            }
+            final List<ForkJoinTask<List<FileChangeEvent>>> tasks = new ArrayList<ForkJoinTask<List<FileChangeEvent>>>(holders.size());
+            for (final PollHolder holder : holders) {
+                tasks.add(scanPool.submit(new Callable<List<FileChangeEvent>>() {
+                    public List<FileChangeEvent> call() {
+                        return holder.state.rescan();
+                    }
+                }));
+            }
+            for (ForkJoinTask<List<FileChangeEvent>> task : tasks) {
+                results.add(task.join());
             }
         }
-    }
-
-    private List<FileChangeEvent> doDiff(Map<File, Long> newFileState, Map<File, Long> currentFileState) {
-        final List<FileChangeEvent> results = new ArrayList<FileChangeEvent>();
-        final Map<File, Long> currentCopy = new HashMap<File, Long>(currentFileState);
-        for (Map.Entry<File, Long> newEntry : newFileState.entrySet()) {
-            Long old = currentCopy.remove(newEntry.getKey());
-            if (old == null) {
-                results.add(new FileChangeEvent(newEntry.getKey(), FileChangeEvent.Type.ADDED));
-            } else {
-                if (!old.equals(newEntry.getValue()) && !newEntry.getKey().isDirectory()) {
-                    //we don't add modified events for directories
-                    //as we will be generating modified events for the files in the dir anyway
-                    results.add(new FileChangeEvent(newEntry.getKey(), FileChangeEvent.Type.MODIFIED));
+        for (int i = 0; i < holders.size(); i ++) {
+            final List<FileChangeEvent> currentDiff = results.get(i);
+            if (!currentDiff.isEmpty()) {
+                final List<FileChangeCallback> callbacks;
+                synchronized (this) {
+                    callbacks = new ArrayList<FileChangeCallback>(holders.get(i).callbacks);
+                }
+                for(FileChangeCallback callback : callbacks) {
+                    invokeCallback(callback, currentDiff);
                 }
             }
         }
-        for (Map.Entry<File, Long> old : currentCopy.entrySet()) {
-            results.add(new FileChangeEvent(old.getKey(), FileChangeEvent.Type.REMOVED));
-        }
-        return results;
     }
 
     @Override
     public synchronized void watchPath(File file, FileChangeCallback callback) {
         PollHolder holder = files.get(file);
         if(holder == null) {
-            files.put(file, holder = new PollHolder(doScan(file)));
+            files.put(file, holder = new PollHolder(new TreeState(file)));
         }
         holder.callbacks.add(callback);
     }
@@ -128,36 +151,243 @@ class PollingFileSystemWatcher implements FileSystemWatcher, Runnable {
     }
 
     private class PollHolder {
-        Map<File, Long> currentFileState;
+        final TreeState state;
         final List<FileChangeCallback> callbacks = new ArrayList<FileChangeCallback>();
 
-        private PollHolder(Map<File, Long> currentFileState) {
-            this.currentFileState = currentFileState;
+        private PollHolder(TreeState state) {
+            this.state = state;
         }
     }
 
+    /**
+     * The state of a watched path, which is a file, a directory tree or nothing at all.  It is only ever scanned by one
+     * thread at a time.
+     */
+    static final class TreeState {
+        private final File root;
+        private long lastModified;
+        private boolean exists;
+        private DirectoryState directory;
 
+        TreeState(final File root) {
+            this.root = root;
+            scanRoot(null);
+        }
 
-    static Map<File, Long> doScan(File file) {
-        final Map<File, Long> results = new HashMap<File, Long>();
-
-        final Deque<File> toScan = new ArrayDeque<File>();
-        toScan.add(file);
-        while (!toScan.isEmpty()) {
-            File next = toScan.pop();
-            if (next.isDirectory()) {
-                results.put(next, next.lastModified());
-                File[] list = next.listFiles();
-                if (list != null) {
-                    for (File f : list) {
-                        toScan.push(new File(f.getAbsolutePath()));
+        /**
+         * Scan the path again, and update the state.
+         *
+         * @return the changes since the last scan
+         */
+        List<FileChangeEvent> rescan() {
+            final List<FileChangeEvent> events = new ArrayList<FileChangeEvent>();
+            if (directory != null) {
+                if (root.isDirectory()) {
+                    directory.rescan(events);
+                    return events;
+                }
+                directory.removed(events);
+                events.add(new FileChangeEvent(root, FileChangeEvent.Type.REMOVED));
+                directory = null;
+                exists = false;
+            } else if (exists) {
+                final long lastModified = root.lastModified();
+                if (lastModified != 0 && ! root.isDirectory()) {
+                    if (lastModified != this.lastModified) {
+                        this.lastModified = lastModified;
+                        events.add(new FileChangeEvent(root, FileChangeEvent.Type.MODIFIED));
                     }
+                    return events;
                 }
+                events.add(new FileChangeEvent(root, FileChangeEvent.Type.REMOVED));
+                exists = false;
+            }
+            scanRoot(events);
+            return events;
+        }
+
+        private void scanRoot(final List<FileChangeEvent> events) {
+            if (root.isDirectory()) {
+                directory = new DirectoryState(root, events);
+                exists = true;
             } else {
-                results.put(next, next.lastModified());
+                lastModified = root.lastModified();
+                exists = lastModified != 0 || root.exists();
+            }
+            if (exists && events != null) {
+                events.add(new FileChangeEvent(root, FileChangeEvent.Type.ADDED));
+            }
+        }
+    }
+
+    /**
+     * The state of a directory and of everything in it.  The children are kept sorted by name, and the modification
+     * times of the files among them are kept in a primitive array.
+     */
+    static final class DirectoryState {
+
+        // the resolution of the modification times of some file systems
+        private static final long GRANULARITY = 2000L;
+
+        private static final File[] NO_FILES = new File[0];
+        private static final Comparator<File> BY_NAME = new Comparator<File>() {
+            public int compare(final File o1, final File o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        };
+
+        private final File directory;
+        private long lastModified;
+        private long listedAt;
+        private File[] children;
+        /** the modification time of each child file, unused for child directories **/
+        private long[] lastModifieds;
+        /** the state of each child directory, or {@code null} for a child file **/
+        private DirectoryState[] directories;
+
+        /**
+         * Scan a directory which was not seen before.
+         *
+         * @param directory the directory
+         * @param events the list to add an event for every file and directory in the tree to, or {@code null} for none
+         */
+        DirectoryState(final File directory, final List<FileChangeEvent> events) {
+            this.directory = directory;
+            lastModified = directory.lastModified();
+            listedAt = System.currentTimeMillis();
+            final File[] children = list();
+            final int length = children.length;
+            final long[] lastModifieds = new long[length];
+            final DirectoryState[] directories = new DirectoryState[length];
+            for (int i = 0; i < length; i ++) {
+                final File child = children[i];
+                if (child.isDirectory()) {
+                    directories[i] = new DirectoryState(child, events);
+                } else {
+                    lastModifieds[i] = child.lastModified();
+                }
+                if (events != null) {
+                    events.add(new FileChangeEvent(child, FileChangeEvent.Type.ADDED));
+                }
+            }
+            this.children = children;
+            this.lastModifieds = lastModifieds;
+            this.directories = directories;
+        }
+
+        private File[] list() {
+            final String[] names = directory.list();
+            if (names == null) {
+                return NO_FILES;
+            }
+            final File[] children = new File[names.length];
+            for (int i = 0; i < names.length; i ++) {
+                children[i] = new File(directory, names[i]).getAbsoluteFile();
+            }
+            Arrays.sort(children, BY_NAME);
+            return children;
+        }
+
+        void rescan(final List<FileChangeEvent> events) {
+            final long lastModified = directory.lastModified();
+            // a listing taken within the resolution of the modification time may have missed a change
+            if (lastModified == this.lastModified && lastModified < listedAt - GRANULARITY) {
+                // no file was added or removed, so only the files themselves can have changed
+                final File[] children = this.children;
+                for (int i = 0; i < children.length; i ++) {
+                    final DirectoryState child = directories[i];
+                    if (child != null) {
+                        child.rescan(events);
+                    } else {
+                        final long childLastModified = children[i].lastModified();
+                        if (childLastModified == 0) {
+                            // removed after all, so list the directory again
+                            relist(lastModified, events);
+                            return;
+                        }
+                        if (childLastModified != lastModifieds[i]) {
+                            lastModifieds[i] = childLastModified;
+                            events.add(new FileChangeEvent(children[i], FileChangeEvent.Type.MODIFIED));
+                        }
+                    }
+                }
+                return;
+            }
+            relist(lastModified, events);
+        }
+
+        private void relist(final long lastModified, final List<FileChangeEvent> events) {
+            this.lastModified = lastModified;
+            listedAt = System.currentTimeMillis();
+            final File[] oldChildren = children;
+            final long[] oldLastModifieds = lastModifieds;
+            final DirectoryState[] oldDirectories = directories;
+            final File[] children = list();
+            final int length = children.length;
+            final long[] lastModifieds = new long[length];
+            final DirectoryState[] directories = new DirectoryState[length];
+            // both listings are sorted by name, so they are merged
+            int o = 0;
+            for (int i = 0; i < length; i ++) {
+                final File child = children[i];
+                int cmp = 1;
+                while (o < oldChildren.length && (cmp = BY_NAME.compare(oldChildren[o], child)) < 0) {
+                    removed(oldChildren[o], oldDirectories[o], events);
+                    o ++;
+                }
+                final boolean isDirectory = child.isDirectory();
+                if (cmp == 0 && isDirectory == (oldDirectories[o] != null)) {
+                    if (isDirectory) {
+                        directories[i] = oldDirectories[o];
+                        directories[i].rescan(events);
+                    } else {
+                        final long childLastModified = child.lastModified();
+                        lastModifieds[i] = childLastModified;
+                        if (childLastModified != oldLastModifieds[o]) {
+                            events.add(new FileChangeEvent(child, FileChangeEvent.Type.MODIFIED));
+                        }
+                    }
+                    o ++;
+                    continue;
+                }
+                if (cmp == 0) {
+                    // replaced by a child of the other kind
+                    removed(oldChildren[o], oldDirectories[o], events);
+                    o ++;
+                }
+                if (isDirectory) {
+                    directories[i] = new DirectoryState(child, events);
+                } else {
+                    lastModifieds[i] = child.lastModified();
+                }
+                events.add(new FileChangeEvent(child, FileChangeEvent.Type.ADDED));
+            }
+            while (o < oldChildren.length) {
+                removed(oldChildren[o], oldDirectories[o], events);
+                o ++;
+            }
+            this.children = children;
+            this.lastModifieds = lastModifieds;
+            this.directories = directories;
+        }
+
+        private static void removed(final File child, final DirectoryState directory, final List<FileChangeEvent> events) {
+            if (directory != null) {
+                directory.removed(events);
+            }
+            events.add(new FileChangeEvent(child, FileChangeEvent.Type.REMOVED));
+        }
+
+        /**
+         * Add an event for every file and directory in the tree, which was removed.
+         *
+         * @param events the list of events
+         */
+        void removed(final List<FileChangeEvent> events) {
+            for (int i = 0; i < children.length; i ++) {
+                removed(children[i], directories[i], events);
             }
         }
-        return results;
     }
 
     static void invokeCallback(FileChangeCallback callback, List<FileChangeEvent> results) {
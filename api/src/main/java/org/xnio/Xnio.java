@@ -44,6 +44,7 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
+import org.xnio.management.XnioFileSystemWatcherMXBean;
 import org.xnio.management.XnioProviderMXBean;
 import org.xnio.management.XnioServerMXBean;
 import org.xnio.management.XnioWorkerMXBean;
@@ -611,6 +612,23 @@ public abstract class Xnio {
         }
     }
 
+    /**
+     * Register an MBean.  If the MBean cannot be registered, this method will simply return.
+     *
+     * @param watcherMXBean the file system watcher MBean to register
+     * @return a handle which may be used to remove the registration
+     * @since 3.10
+     */
+    protected static Closeable register(XnioFileSystemWatcherMXBean watcherMXBean) {
+        try {
+            final ObjectName objectName = new ObjectName("org.xnio", ObjectProperties.properties(ObjectProperties.property("type", "Xnio"), ObjectProperties.property("provider", ObjectName.quote(watcherMXBean.getProviderName())), ObjectProperties.property("watcher", ObjectName.quote(watcherMXBean.getName()))));
+            MBeanHolder.MBEAN_SERVER.registerMBean(watcherMXBean, objectName);
+            return new MBeanCloseable(objectName);
+        } catch (Throwable ignored) {
+            return IoUtils.nullCloseable();
+        }
+    }
+
     static class MBeanCloseable extends AtomicBoolean implements Closeable {
 
         private final ObjectName objectName;
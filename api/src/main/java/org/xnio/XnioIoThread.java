@@ -44,6 +44,7 @@ public abstract class XnioIoThread extends Thread implements XnioExecutor, XnioI
     private static final InetSocketAddress ANY_INET_ADDRESS = new InetSocketAddress(0);
     private final XnioWorker worker;
     private final int number;
+    private ZlibPool zlibPool;
 
     /**
      * Construct a new instance.
@@ -145,6 +146,15 @@ public abstract class XnioIoThread extends Thread implements XnioExecutor, XnioI
         return worker;
     }
 
+    ZlibPool getZlibPool() {
+        assert currentThread() == this;
+        ZlibPool zlibPool = this.zlibPool;
+        if (zlibPool == null) {
+            zlibPool = this.zlibPool = new ZlibPool();
+        }
+        return zlibPool;
+    }
+
     public IoFuture<StreamConnection> acceptStreamConnection(SocketAddress destination, ChannelListener<? super StreamConnection> openListener, ChannelListener<? super BoundChannel> bindListener, OptionMap optionMap) {
         if (destination == null) {
             throw msg.nullParameter("destination");
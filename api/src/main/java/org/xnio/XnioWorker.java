@@ -61,6 +61,8 @@ import org.xnio.conduits.ConduitStreamSinkChannel;
 import org.xnio.conduits.ConduitStreamSourceChannel;
 import org.xnio.conduits.DeflatingStreamSinkConduit;
 import org.xnio.conduits.InflatingStreamSourceConduit;
+import org.xnio.conduits.Lz4StreamSinkConduit;
+import org.xnio.conduits.Lz4StreamSourceConduit;
 import org.xnio.conduits.StreamSinkChannelWrappingConduit;
 import org.xnio.conduits.StreamSourceChannelWrappingConduit;
 import org.xnio.management.XnioServerMXBean;
@@ -630,9 +632,21 @@ public abstract class XnioWorker extends AbstractExecutorService implements Conf
         switch (options.get(Options.COMPRESSION_TYPE, CompressionType.DEFLATE)) {
             case DEFLATE: nowrap = false; break;
             case GZIP: nowrap = true; break;
+            case LZ4: return new ConduitStreamSourceChannel(Configurable.EMPTY, new Lz4StreamSourceConduit(new StreamSourceChannelWrappingConduit(delegate)));
             default: throw msg.badCompressionFormat();
         }
-        return getInflatingChannel(delegate, new Inflater(nowrap));
+        final ByteString dictionary = options.get(Options.COMPRESSION_DICTIONARY);
+        final Inflater inflater = ZlibPool.allocateInflater(nowrap);
+        if (dictionary == null) {
+            return getInflatingChannel(delegate, inflater, null);
+        }
+        final byte[] bytes = dictionary.getBytes();
+        if (nowrap) {
+            // raw streams do not ask for the dictionary, so it is set up front
+            inflater.setDictionary(bytes);
+            return getInflatingChannel(delegate, inflater, null);
+        }
+        return getInflatingChannel(delegate, inflater, bytes);
     }
 
     /**
@@ -644,7 +658,20 @@ public abstract class XnioWorker extends AbstractExecutorService implements Conf
      * @throws IOException if the channel could not be constructed
      */
     protected StreamSourceChannel getInflatingChannel(final StreamSourceChannel delegate, final Inflater inflater) throws IOException {
-        return new ConduitStreamSourceChannel(Configurable.EMPTY, new InflatingStreamSourceConduit(new StreamSourceChannelWrappingConduit(delegate), inflater));
+        return getInflatingChannel(delegate, inflater, null);
+    }
+
+    /**
+     * Create a stream channel that decompresses the source data according to the configuration in the given inflater.
+     *
+     * @param delegate the compressed channel
+     * @param inflater the inflater to use
+     * @param dictionary the preset dictionary to supply when the compressed data requests one, or {@code null} for none
+     * @return a decompressed channel
+     * @throws IOException if the channel could not be constructed
+     */
+    protected StreamSourceChannel getInflatingChannel(final StreamSourceChannel delegate, final Inflater inflater, final byte[] dictionary) throws IOException {
+        return new ConduitStreamSourceChannel(Configurable.EMPTY, new InflatingStreamSourceConduit(new StreamSourceChannelWrappingConduit(delegate), inflater, ByteBufferPool.MEDIUM_DIRECT, dictionary));
     }
 
     /**
@@ -661,9 +688,15 @@ public abstract class XnioWorker extends AbstractExecutorService implements Conf
         switch (options.get(Options.COMPRESSION_TYPE, CompressionType.DEFLATE)) {
             case DEFLATE: nowrap = false; break;
             case GZIP: nowrap = true; break;
+            case LZ4: return new ConduitStreamSinkChannel(Configurable.EMPTY, new Lz4StreamSinkConduit(new StreamSinkChannelWrappingConduit(delegate), level));
             default: throw msg.badCompressionFormat();
         }
-        return getDeflatingChannel(delegate, new Deflater(level, nowrap));
+        final Deflater deflater = ZlibPool.allocateDeflater(level, nowrap);
+        final ByteString dictionary = options.get(Options.COMPRESSION_DICTIONARY);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary.getBytes());
+        }
+        return getDeflatingChannel(delegate, deflater);
     }
 
     /**
@@ -0,0 +1,217 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+import java.security.AccessController;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A pool of {@link Deflater} and {@link Inflater} instances.  Each zlib stream carries a sizable native state, so
+ * compressing and decompressing conduits take their instances from here and free them once the stream is done.
+ * Every I/O thread keeps its own small pool; instances which are allocated or freed on any other thread are simply
+ * created or ended.  Instances which were not allocated from this pool are left alone, and remain the responsibility of
+ * their creator.
+ *
+ * @since 3.10
+ */
+public final class ZlibPool {
+
+    private static final int POOL_SIZE;
+
+    static {
+        String value = AccessController.doPrivileged(new ReadPropertyAction("xnio.zlib.pool-size", "8"));
+        int val;
+        try {
+            val = Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+            val = 8;
+        }
+        POOL_SIZE = Math.max(0, val);
+    }
+
+    // indexed by compression level + 1 (-1 through 9) and nowrap
+    private final Deflater[][] deflaters = new Deflater[22][];
+    private final int[] deflaterCounts = new int[22];
+    // indexed by nowrap
+    private final Inflater[][] inflaters = new Inflater[2][];
+    private final int[] inflaterCounts = new int[2];
+
+    ZlibPool() {
+    }
+
+    /**
+     * Allocate a deflater.  The deflater should be given back with {@link #free(Deflater)} once it is no longer in use.
+     *
+     * @param level the compression level, from 0 to 9, or -1 for the default compression level
+     * @param nowrap {@code true} to produce raw deflate data without the ZLIB header and checksum fields
+     * @return the deflater
+     * @throws IllegalArgumentException if the compression level is invalid
+     */
+    public static Deflater allocateDeflater(final int level, final boolean nowrap) throws IllegalArgumentException {
+        final XnioIoThread thread = XnioIoThread.currentThread();
+        if (thread != null && level >= -1 && level <= 9) {
+            final Deflater deflater = thread.getZlibPool().pollDeflater(deflaterIndex(level, nowrap));
+            if (deflater != null) {
+                return deflater;
+            }
+        }
+        return new PooledDeflater(level, nowrap);
+    }
+
+    /**
+     * Allocate an inflater.  The inflater should be given back with {@link #free(Inflater)} once it is no longer in use.
+     *
+     * @param nowrap {@code true} to read raw deflate data without the ZLIB header and checksum fields
+     * @return the inflater
+     */
+    public static Inflater allocateInflater(final boolean nowrap) {
+        final XnioIoThread thread = XnioIoThread.currentThread();
+        if (thread != null) {
+            final Inflater inflater = thread.getZlibPool().pollInflater(nowrap ? 1 : 0);
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new PooledInflater(nowrap);
+    }
+
+    /**
+     * Free a deflater.  A deflater which was allocated from this pool is reset and kept for reuse if there is room for
+     * it in the current thread's pool, and ended otherwise; it must not be used after this call.  Any other deflater
+     * is left untouched.
+     *
+     * @param deflater the deflater to free
+     * @return {@code true} if the deflater was allocated from this pool, or {@code false} if it was left untouched
+     */
+    public static boolean free(final Deflater deflater) {
+        if (! (deflater instanceof PooledDeflater)) {
+            return false;
+        }
+        final XnioIoThread thread = XnioIoThread.currentThread();
+        if (thread != null) {
+            final PooledDeflater pooledDeflater = (PooledDeflater) deflater;
+            deflater.reset();
+            if (thread.getZlibPool().offerDeflater(deflaterIndex(pooledDeflater.level, pooledDeflater.nowrap), deflater)) {
+                return true;
+            }
+        }
+        deflater.end();
+        return true;
+    }
+
+    /**
+     * Free an inflater.  An inflater which was allocated from this pool is reset and kept for reuse if there is room for
+     * it in the current thread's pool, and ended otherwise; it must not be used after this call.  Any other inflater
+     * is left untouched.
+     *
+     * @param inflater the inflater to free
+     * @return {@code true} if the inflater was allocated from this pool, or {@code false} if it was left untouched
+     */
+    public static boolean free(final Inflater inflater) {
+        if (! (inflater instanceof PooledInflater)) {
+            return false;
+        }
+        final XnioIoThread thread = XnioIoThread.currentThread();
+        if (thread != null) {
+            inflater.reset();
+            if (thread.getZlibPool().offerInflater(((PooledInflater) inflater).nowrap ? 1 : 0, inflater)) {
+                return true;
+            }
+        }
+        inflater.end();
+        return true;
+    }
+
+    private static int deflaterIndex(final int level, final boolean nowrap) {
+        return (level + 1) << 1 | (nowrap ? 1 : 0);
+    }
+
+    private Deflater pollDeflater(final int idx) {
+        final int count = deflaterCounts[idx];
+        if (count == 0) {
+            return null;
+        }
+        final Deflater[] array = deflaters[idx];
+        final Deflater deflater = array[count - 1];
+        array[count - 1] = null;
+        deflaterCounts[idx] = count - 1;
+        return deflater;
+    }
+
+    private boolean offerDeflater(final int idx, final Deflater deflater) {
+        final int count = deflaterCounts[idx];
+        if (count == POOL_SIZE) {
+            return false;
+        }
+        Deflater[] array = deflaters[idx];
+        if (array == null) {
+            deflaters[idx] = array = new Deflater[POOL_SIZE];
+        }
+        array[count] = deflater;
+        deflaterCounts[idx] = count + 1;
+        return true;
+    }
+
+    private Inflater pollInflater(final int idx) {
+        final int count = inflaterCounts[idx];
+        if (count == 0) {
+            return null;
+        }
+        final Inflater[] array = inflaters[idx];
+        final Inflater inflater = array[count - 1];
+        array[count - 1] = null;
+        inflaterCounts[idx] = count - 1;
+        return inflater;
+    }
+
+    private boolean offerInflater(final int idx, final Inflater inflater) {
+        final int count = inflaterCounts[idx];
+        if (count == POOL_SIZE) {
+            return false;
+        }
+        Inflater[] array = inflaters[idx];
+        if (array == null) {
+            inflaters[idx] = array = new Inflater[POOL_SIZE];
+        }
+        array[count] = inflater;
+        inflaterCounts[idx] = count + 1;
+        return true;
+    }
+
+    static final class PooledDeflater extends Deflater {
+        final int level;
+        final boolean nowrap;
+
+        PooledDeflater(final int level, final boolean nowrap) {
+            super(level, nowrap);
+            this.level = level;
+            this.nowrap = nowrap;
+        }
+    }
+
+    static final class PooledInflater extends Inflater {
+        final boolean nowrap;
+
+        PooledInflater(final boolean nowrap) {
+            super(nowrap);
+            this.nowrap = nowrap;
+        }
+    }
+}
@@ -203,6 +203,15 @@ public interface Messages extends BasicLogger {
     @Message(id = 42, value = "Cannot add unresolved address '%s'")
     IllegalArgumentException addressUnresolved(InetSocketAddress bindAddress);
 
+    @Message(id = 43, value = "Publisher already has a subscriber")
+    IllegalStateException publisherSubscribed();
+
+    @Message(id = 44, value = "Requested a non-positive number of items (%d)")
+    IllegalArgumentException nonPositiveRequest(long n);
+
+    @Message(id = 45, value = "SSL peer verifiers require the conduit based SSL connections (org.xnio.ssl.new=true)")
+    IllegalArgumentException peerVerifierUnsupported();
+
     // HTTP upgrade
 
     @Message(id = 100, value = "'https' URL scheme chosen but no SSL provider given")
@@ -246,6 +255,9 @@ public interface Messages extends BasicLogger {
     @LogMessage(level = DEBUG)
     void failedToCloseSSLEngine(@Cause Throwable cause, Exception originalException);
 
+    @Message(id = 308, value = "SSL peer was rejected by the peer verifier")
+    SSLHandshakeException peerVerificationFailed(@Cause Throwable cause);
+
     // I/O errors
 
     @Message(id = 800, value = "Read timed out")
@@ -300,6 +312,15 @@ public interface Messages extends BasicLogger {
     @Message(id = 816, value = "Redirect encountered establishing connection")
     String redirect();
 
+    @Message(id = 817, value = "Invalid LZ4 frame: %s")
+    IOException invalidLz4Frame(String reason);
+
+    @Message(id = 818, value = "Unsupported LZ4 frame: %s")
+    IOException unsupportedLz4Frame(String reason);
+
+    @Message(id = 819, value = "This connection cannot take over the TLS records read before the upgrade")
+    IOException receivedRecordsUnsupported();
+
     // Unsupported implementation operations - cross-check with xnio-nio
 
     @Message(id = 900, value = "Method '%s' is not supported on this implementation")
@@ -349,6 +370,10 @@ public interface Messages extends BasicLogger {
     @Message(id = 1011, value = "%s, check for missing required intermediate / root certificates in a truststore")
     SSLHandshakeException wrapJDKException(String message, @Cause SSLHandshakeException reason);
 
+    @Message(id = 1012, value = "Failed to register MBean %s")
+    @LogMessage(level = DEBUG)
+    void mbeanRegistrationFailed(@Cause Throwable cause, Object objectName);
+
     // Trace
 
     @Message(value = "Closing resource %s")
@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.channels;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.xnio.ByteBufferPool;
+import org.xnio.ChannelListener;
+import org.xnio.ChannelListeners;
+
+/**
+ * A publisher of the bytes read from a stream channel or of the messages received from a message channel.  The
+ * demand of the subscriber drives the reads of the channel: reads are resumed when the subscriber requests items and
+ * suspended when its demand is exhausted.  All of the items requested at once are read and delivered by the read
+ * listener of the channel, on its read thread, without dispatching a task per item.
+ * <p>
+ * Every item is a buffer allocated from the pool given to the publisher and flipped for reading.  The buffer belongs
+ * to the subscriber, which should {@linkplain ByteBufferPool#free(ByteBuffer) free} it once it is consumed.  A message
+ * which does not fit in a buffer of the pool is truncated.
+ * <p>
+ * A channel can only be read once, so a publisher accepts only one subscriber.  The publisher takes over the read
+ * listener of the channel, but leaves the channel open when the subscription ends.
+ *
+ * @since 3.10
+ */
+public final class ChannelPublisher implements Flow.Publisher<ByteBuffer> {
+
+    // the number of reads done by one call of the read listener before yielding the read thread
+    private static final int MAX_READS = 16;
+
+    private final SuspendableReadChannel channel;
+    private final StreamSourceChannel streamChannel;
+    private final ReadableMessageChannel messageChannel;
+    private final ByteBufferPool pool;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private ChannelPublisher(final SuspendableReadChannel channel, final StreamSourceChannel streamChannel, final ReadableMessageChannel messageChannel, final ByteBufferPool pool) {
+        if (pool == null) {
+            throw msg.nullParameter("pool");
+        }
+        this.channel = channel;
+        this.streamChannel = streamChannel;
+        this.messageChannel = messageChannel;
+        this.pool = pool;
+    }
+
+    /**
+     * Create a publisher of the bytes read from a stream channel.  Each item holds the bytes of one read.
+     *
+     * @param channel the channel to read
+     * @param pool the pool of the buffers to read into
+     * @return the publisher
+     */
+    public static ChannelPublisher create(final StreamSourceChannel channel, final ByteBufferPool pool) {
+        if (channel == null) {
+            throw msg.nullParameter("channel");
+        }
+        return new ChannelPublisher(channel, channel, null, pool);
+    }
+
+    /**
+     * Create a publisher of the messages received from a message channel.  Each item holds one message.
+     *
+     * @param channel the channel to receive from
+     * @param pool the pool of the buffers to receive into
+     * @return the publisher
+     */
+    public static ChannelPublisher create(final ReadableMessageChannel channel, final ByteBufferPool pool) {
+        if (channel == null) {
+            throw msg.nullParameter("channel");
+        }
+        return new ChannelPublisher(channel, null, channel, pool);
+    }
+
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        // the reactive streams specification requires a NullPointerException here
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (! subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(EmptySubscription.INSTANCE);
+            subscriber.onError(msg.publisherSubscribed());
+            return;
+        }
+        final ReadSubscription subscription = new ReadSubscription(subscriber);
+        channel.getReadSetter().set(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private int read(final ByteBuffer buffer) throws IOException {
+        return streamChannel != null ? streamChannel.read(buffer) : messageChannel.receive(buffer);
+    }
+
+    private final class ReadSubscription implements Flow.Subscription, ChannelListener<Channel> {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        /** runs the read listener on the read thread of the channel **/
+        private final Runnable readTask;
+        /** the number of items requested but not yet delivered, or {@code Long.MAX_VALUE} if unbounded **/
+        private volatile long demand;
+        /** the argument of an invalid request to be reported by the read listener, or 1 if there was none **/
+        private volatile long badRequest = 1;
+        private volatile boolean done;
+
+        ReadSubscription(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+            readTask = ChannelListeners.getChannelListenerTask(channel, this);
+        }
+
+        public void request(final long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                // the error must be signalled by the thread which delivers the items
+                badRequest = n;
+                channel.getIoThread().execute(readTask);
+                return;
+            }
+            long oldVal, newVal;
+            do {
+                oldVal = demand;
+                if (oldVal == Long.MAX_VALUE) {
+                    return;
+                }
+                newVal = oldVal + n;
+                if (newVal < 0) {
+                    newVal = Long.MAX_VALUE;
+                }
+            } while (! demandUpdater.compareAndSet(this, oldVal, newVal));
+            if (oldVal == 0) {
+                channel.resumeReads();
+            }
+        }
+
+        public void cancel() {
+            done = true;
+            channel.suspendReads();
+        }
+
+        public void handleEvent(final Channel ignored) {
+            if (done) {
+                channel.suspendReads();
+                return;
+            }
+            final long badRequest = this.badRequest;
+            if (badRequest <= 0) {
+                terminate();
+                subscriber.onError(msg.nonPositiveRequest(badRequest));
+                return;
+            }
+            for (int i = 0; i < MAX_READS; i ++) {
+                final long demand = this.demand;
+                if (demand == 0) {
+                    channel.suspendReads();
+                    // a request may have come in before the reads were suspended
+                    if (this.demand == 0) {
+                        return;
+                    }
+                    channel.resumeReads();
+                    continue;
+                }
+                final ByteBuffer buffer = pool.allocate();
+                final int res;
+                try {
+                    res = read(buffer);
+                } catch (IOException e) {
+                    ByteBufferPool.free(buffer);
+                    terminate();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (res == -1) {
+                    ByteBufferPool.free(buffer);
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                } else if (res == 0) {
+                    // the reads stay resumed until the channel is readable again
+                    ByteBufferPool.free(buffer);
+                    return;
+                }
+                buffer.flip();
+                if (demand != Long.MAX_VALUE) {
+                    demandUpdater.decrementAndGet(this);
+                }
+                subscriber.onNext(buffer);
+                if (done) {
+                    return;
+                }
+            }
+            // let the other channels of the read thread have their turn
+            channel.getIoThread().execute(readTask);
+        }
+
+        private void terminate() {
+            done = true;
+            channel.suspendReads();
+        }
+    }
+
+    private static final AtomicLongFieldUpdater<ReadSubscription> demandUpdater = AtomicLongFieldUpdater.newUpdater(ReadSubscription.class, "demand");
+
+    /**
+     * The subscription of a subscriber which is rejected right away.
+     */
+    static final class EmptySubscription implements Flow.Subscription {
+        static final EmptySubscription INSTANCE = new EmptySubscription();
+
+        private EmptySubscription() {
+        }
+
+        public void request(final long n) {
+        }
+
+        public void cancel() {
+        }
+    }
+}
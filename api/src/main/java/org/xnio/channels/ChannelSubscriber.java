@@ -0,0 +1,247 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.channels;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.xnio.ByteBufferPool;
+import org.xnio.ChannelListener;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+
+/**
+ * A subscriber which writes the buffers it receives to a stream channel, or sends each of them as a message to a
+ * message channel.  At most {@code prefetch} buffers are requested ahead of the channel; more are requested in
+ * batches as the buffers are written, so that a channel which cannot keep up holds back its publisher.  A buffer
+ * which cannot be written at once is finished by the write listener of the channel, which the subscriber takes over.
+ * <p>
+ * The buffers are written by the thread which delivers them, or by the write thread of the channel, never by both
+ * at once.  Once the publisher completes, the channel is {@linkplain SuspendableWriteChannel#shutdownWrites() shut
+ * down} and flushed; if the publisher fails or the channel cannot be written, the channel is closed.  The outcome is
+ * reported by the {@linkplain #getIoFuture() future} of the subscriber.
+ *
+ * @since 3.10
+ */
+public final class ChannelSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+    private final SuspendableWriteChannel channel;
+    private final StreamSinkChannel streamChannel;
+    private final WritableMessageChannel messageChannel;
+    private final boolean freeBuffers;
+    private final int batch;
+    private final int prefetch;
+    private final ConcurrentLinkedQueue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    private final FutureResult<Void> result = new FutureResult<>();
+    private final ChannelListener<Channel> writeListener = new ChannelListener<Channel>() {
+        public void handleEvent(final Channel ignored) {
+            channel.suspendWrites();
+            drain();
+        }
+    };
+
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+    private volatile boolean completed;
+    /** the number of calls to drain which are pending, including the one which is running **/
+    @SuppressWarnings("unused")
+    private volatile int pending;
+
+    // owned by the thread which drains the queue
+
+    private boolean done;
+    private boolean shutdown;
+    private int written;
+
+    private static final AtomicIntegerFieldUpdater<ChannelSubscriber> pendingUpdater = AtomicIntegerFieldUpdater.newUpdater(ChannelSubscriber.class, "pending");
+
+    private ChannelSubscriber(final SuspendableWriteChannel channel, final StreamSinkChannel streamChannel, final WritableMessageChannel messageChannel, final int prefetch, final boolean freeBuffers) {
+        if (prefetch < 1) {
+            throw msg.parameterOutOfRange("prefetch");
+        }
+        this.channel = channel;
+        this.streamChannel = streamChannel;
+        this.messageChannel = messageChannel;
+        this.prefetch = prefetch;
+        this.freeBuffers = freeBuffers;
+        // request more once three quarters of the requested buffers are written
+        batch = prefetch - (prefetch >> 2);
+    }
+
+    /**
+     * Create a subscriber which writes to a stream channel.
+     *
+     * @param channel the channel to write
+     * @param prefetch the number of buffers to request ahead of the channel
+     * @param freeBuffers {@code true} to {@linkplain ByteBufferPool#free(ByteBuffer) free} each buffer once it is
+     *      written, as the buffers of a {@link ChannelPublisher} should be
+     * @return the subscriber
+     */
+    public static ChannelSubscriber create(final StreamSinkChannel channel, final int prefetch, final boolean freeBuffers) {
+        if (channel == null) {
+            throw msg.nullParameter("channel");
+        }
+        return new ChannelSubscriber(channel, channel, null, prefetch, freeBuffers);
+    }
+
+    /**
+     * Create a subscriber which sends each buffer as a message to a message channel.
+     *
+     * @param channel the channel to send to
+     * @param prefetch the number of buffers to request ahead of the channel
+     * @param freeBuffers {@code true} to {@linkplain ByteBufferPool#free(ByteBuffer) free} each buffer once it is
+     *      sent, as the buffers of a {@link ChannelPublisher} should be
+     * @return the subscriber
+     */
+    public static ChannelSubscriber create(final WritableMessageChannel channel, final int prefetch, final boolean freeBuffers) {
+        if (channel == null) {
+            throw msg.nullParameter("channel");
+        }
+        return new ChannelSubscriber(channel, null, channel, prefetch, freeBuffers);
+    }
+
+    /**
+     * Get the future of this subscriber, which is done once the channel is flushed after the publisher completed, and
+     * which fails if the publisher or the channel fails.
+     *
+     * @return the future
+     */
+    public IoFuture<Void> getIoFuture() {
+        return result.getIoFuture();
+    }
+
+    public void onSubscribe(final Flow.Subscription subscription) {
+        // the reactive streams specification requires a NullPointerException for a null signal
+        Objects.requireNonNull(subscription, "subscription");
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        channel.getWriteSetter().set(writeListener);
+        subscription.request(prefetch);
+    }
+
+    public void onNext(final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer");
+        queue.add(buffer);
+        drain();
+    }
+
+    public void onError(final Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable");
+        error = throwable;
+        drain();
+    }
+
+    public void onComplete() {
+        completed = true;
+        drain();
+    }
+
+    private void drain() {
+        if (pendingUpdater.getAndIncrement(this) != 0) {
+            // the running call writes on behalf of this one
+            return;
+        }
+        int missed = 1;
+        do {
+            if (! done) {
+                write();
+            } else {
+                // buffers delivered before the publisher saw the cancellation
+                discard();
+            }
+            missed = pendingUpdater.addAndGet(this, -missed);
+        } while (missed != 0);
+    }
+
+    private void write() {
+        try {
+            for (;;) {
+                final Throwable error = this.error;
+                if (error != null) {
+                    fail(error instanceof IOException ? (IOException) error : new IOException(error));
+                    return;
+                }
+                final ByteBuffer buffer = queue.peek();
+                if (buffer == null) {
+                    if (completed) {
+                        if (! shutdown) {
+                            channel.shutdownWrites();
+                            shutdown = true;
+                        }
+                        if (! channel.flush()) {
+                            channel.resumeWrites();
+                            return;
+                        }
+                        done = true;
+                        result.setResult(null);
+                    }
+                    return;
+                }
+                if (streamChannel != null) {
+                    streamChannel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        channel.resumeWrites();
+                        return;
+                    }
+                } else if (! messageChannel.send(buffer)) {
+                    channel.resumeWrites();
+                    return;
+                }
+                queue.poll();
+                if (freeBuffers) {
+                    ByteBufferPool.free(buffer);
+                }
+                if (++ written == batch) {
+                    written = 0;
+                    subscription.request(batch);
+                }
+            }
+        } catch (IOException e) {
+            subscription.cancel();
+            fail(e);
+        }
+    }
+
+    private void fail(final IOException exception) {
+        done = true;
+        discard();
+        IoUtils.safeClose(channel);
+        result.setException(exception);
+    }
+
+    private void discard() {
+        ByteBuffer buffer;
+        while ((buffer = queue.poll()) != null) {
+            if (freeBuffers) {
+                ByteBufferPool.free(buffer);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.xnio.channels;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOError;
@@ -37,6 +38,7 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.concurrent.TimeUnit;
 import org.xnio.ChannelListener;
+import org.xnio.MappedRegionCache;
 import org.xnio.Option;
 import org.xnio.XnioIoThread;
 
@@ -631,6 +633,31 @@ public final class Channels {
         }
     }
 
+    /**
+     * Transfer a region of a file to a channel from the memory it is mapped to, blocking if necessary.  The region is
+     * acquired from a cache, so that a hot file is mapped once instead of being read for every transfer; this pays off
+     * for channels which cannot transfer from a file directly, such as SSL or compressing channels.
+     *
+     * @param destination the destination channel
+     * @param cache the cache of the mapped regions
+     * @param file the source file
+     * @param startPosition the start position in the source file
+     * @param count the number of bytes to transfer
+     * @throws IOException if an I/O error occurs
+     * @since 3.10
+     */
+    public static void transferBlocking(StreamSinkChannel destination, MappedRegionCache cache, File file, long startPosition, final long count) throws IOException {
+        final MappedRegionCache.Region region = cache.acquire(file, startPosition, count);
+        try {
+            final ByteBuffer buffer = region.getBuffer();
+            while (buffer.hasRemaining()) {
+                writeBlocking(destination, buffer);
+            }
+        } finally {
+            region.close();
+        }
+    }
+
     /**
      * Transfer bytes between two channels efficiently, blocking if necessary.
      *
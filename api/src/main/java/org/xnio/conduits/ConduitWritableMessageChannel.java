@@ -148,6 +148,32 @@ public final class ConduitWritableMessageChannel implements WritableMessageChann
         return conduit.sendFinal(buffers, offs, len);
     }
 
+    /**
+     * Send a batch of complete messages, in order.  Each message is sent in its entirety or not at all.
+     *
+     * @param messages the messages to send, each given as an array of buffers
+     * @return the number of messages which were sent
+     * @throws IOException if an I/O error occurs
+     * @see MessageSinkConduit#sendBatch(ByteBuffer[][], int, int)
+     */
+    public int sendBatch(final ByteBuffer[][] messages) throws IOException {
+        return conduit.sendBatch(messages, 0, messages.length);
+    }
+
+    /**
+     * Send a batch of complete messages, in order.  Each message is sent in its entirety or not at all.
+     *
+     * @param messages the messages to send, each given as an array of buffers
+     * @param offs the offset into the message array of the first message
+     * @param len the number of messages to send
+     * @return the number of messages which were sent
+     * @throws IOException if an I/O error occurs
+     * @see MessageSinkConduit#sendBatch(ByteBuffer[][], int, int)
+     */
+    public int sendBatch(final ByteBuffer[][] messages, final int offs, final int len) throws IOException {
+        return conduit.sendBatch(messages, offs, len);
+    }
+
     public boolean flush() throws IOException {
         return conduit.flush();
     }
@@ -24,19 +24,25 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.zip.Deflater;
-import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
+import org.xnio.ZlibPool;
 import org.xnio.channels.StreamSourceChannel;
 
 /**
- * A filtering stream sink conduit which compresses the written data.
+ * A filtering stream sink conduit which compresses the written data.  The compressed output is staged in a buffer
+ * taken from a {@link ByteBufferPool}, which is allocated on the first write.  Once the compressed stream is finished
+ * and flushed (or the conduit is truncated), the buffer is returned to its pool and the deflater is freed
+ * with {@link ZlibPool#free(Deflater)}, or ended if it was not allocated from {@link ZlibPool}.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class DeflatingStreamSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> implements StreamSinkConduit {
 
-    private static final byte[] NO_BYTES = new byte[0];
+    private static final ByteBuffer EMPTY = ByteBuffer.allocateDirect(0);
     private final Deflater deflater;
-    private final ByteBuffer outBuffer;
+    private final ByteBufferPool pool;
+    private ByteBuffer outBuffer;
+    private boolean released;
 
     /**
      * Construct a new instance.
@@ -45,9 +51,20 @@ public final class DeflatingStreamSinkConduit extends AbstractStreamSinkConduit<
      * @param deflater the initialized deflater to use
      */
     public DeflatingStreamSinkConduit(final StreamSinkConduit next, final Deflater deflater) {
+        this(next, deflater, ByteBufferPool.MEDIUM_DIRECT);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param next the delegate conduit to set
+     * @param deflater the initialized deflater to use
+     * @param pool the pool from which the output buffer is allocated
+     */
+    public DeflatingStreamSinkConduit(final StreamSinkConduit next, final Deflater deflater, final ByteBufferPool pool) {
         super(next);
         this.deflater = deflater;
-        outBuffer = ByteBuffer.allocate(16384);
+        this.pool = pool;
     }
 
     public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
@@ -59,133 +76,101 @@ public final class DeflatingStreamSinkConduit extends AbstractStreamSinkConduit<
     }
 
     public int write(final ByteBuffer src) throws IOException {
-        final ByteBuffer outBuffer = this.outBuffer;
-        final byte[] outArray = outBuffer.array();
-        final Deflater deflater = this.deflater;
-        assert outBuffer.arrayOffset() == 0;
-        int cnt = 0;
-        int rem;
-        int c1, t;
-        int pos;
-        while ((rem = src.remaining()) > 0) {
-            if (! outBuffer.hasRemaining()) {
-                outBuffer.flip();
-                try {
-                    if (next.write(outBuffer) == 0) {
-                        return cnt;
-                    }
-                } finally {
-                    outBuffer.compact();
-                }
-            }
-            pos = src.position();
-            if (src.hasArray()) {
-                final byte[] array = src.array();
-                final int arrayOffset = src.arrayOffset();
-                deflater.setInput(array, arrayOffset + pos, rem);
-                c1 = deflater.getTotalIn();
-                final int dc = deflater.deflate(outArray, outBuffer.position(), outBuffer.remaining());
-                outBuffer.position(outBuffer.position() + dc);
-                t = deflater.getTotalIn() - c1;
-                src.position(pos + t);
-                cnt += t;
-            } else {
-                final byte[] bytes = Buffers.take(src);
-                deflater.setInput(bytes);
-                c1 = deflater.getTotalIn();
-                final int dc = deflater.deflate(outArray, outBuffer.position(), outBuffer.remaining());
-                outBuffer.position(outBuffer.position() + dc);
-                t = deflater.getTotalIn() - c1;
-                src.position(pos + t);
-                cnt += t;
-            }
+        final ByteBuffer outBuffer = getOutBuffer();
+        final int start = src.position();
+        try {
+            deflate(src, outBuffer);
+        } finally {
+            deflater.setInput(EMPTY);
         }
-        return cnt;
+        return src.position() - start;
     }
 
     public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
-        final ByteBuffer outBuffer = this.outBuffer;
-        final byte[] outArray = outBuffer.array();
-        final Deflater deflater = this.deflater;
-        assert outBuffer.arrayOffset() == 0;
+        final ByteBuffer outBuffer = getOutBuffer();
         long cnt = 0;
-        int rem;
-        int c1, t;
-        int pos;
-        for (int i = 0; i < length; i ++) {
-            final ByteBuffer src = srcs[i + offset];
-            while ((rem = src.remaining()) > 0) {
-                if (! outBuffer.hasRemaining()) {
-                    outBuffer.flip();
-                    try {
-                        if (next.write(outBuffer) == 0) {
-                            return cnt;
-                        }
-                    } finally {
-                        outBuffer.compact();
-                    }
-                }
-                pos = src.position();
-                if (src.hasArray()) {
-                    final byte[] array = src.array();
-                    final int arrayOffset = src.arrayOffset();
-                    deflater.setInput(array, arrayOffset + pos, rem);
-                    c1 = deflater.getTotalIn();
-                    final int dc = deflater.deflate(outArray, outBuffer.position(), outBuffer.remaining());
-                    outBuffer.position(outBuffer.position() + dc);
-                    t = deflater.getTotalIn() - c1;
-                    src.position(pos + t);
-                    cnt += t;
-                } else {
-                    final byte[] bytes = Buffers.take(src);
-                    deflater.setInput(bytes);
-                    c1 = deflater.getTotalIn();
-                    final int dc = deflater.deflate(outArray, outBuffer.position(), outBuffer.remaining());
-                    outBuffer.position(outBuffer.position() + dc);
-                    t = deflater.getTotalIn() - c1;
-                    src.position(pos + t);
-                    cnt += t;
+        try {
+            for (int i = 0; i < length; i ++) {
+                final ByteBuffer src = srcs[i + offset];
+                final int start = src.position();
+                final boolean done = deflate(src, outBuffer);
+                cnt += src.position() - start;
+                if (! done) {
+                    break;
                 }
             }
+        } finally {
+            deflater.setInput(EMPTY);
         }
         return cnt;
     }
 
+    private boolean deflate(final ByteBuffer src, final ByteBuffer outBuffer) throws IOException {
+        final Deflater deflater = this.deflater;
+        while (src.hasRemaining()) {
+            if (! outBuffer.hasRemaining() && ! drain(outBuffer)) {
+                return false;
+            }
+            // the deflater advances the position of src as it consumes it
+            deflater.setInput(src);
+            deflater.deflate(outBuffer);
+        }
+        return true;
+    }
+
+    private boolean drain(final ByteBuffer outBuffer) throws IOException {
+        outBuffer.flip();
+        try {
+            return next.write(outBuffer) > 0;
+        } finally {
+            outBuffer.compact();
+        }
+    }
+
+    private ByteBuffer getOutBuffer() throws IOException {
+        ByteBuffer outBuffer = this.outBuffer;
+        if (outBuffer == null) {
+            if (released) {
+                throw msg.streamClosed();
+            }
+            outBuffer = this.outBuffer = pool.allocate();
+        }
+        return outBuffer;
+    }
+
+    private void release() {
+        if (! released) {
+            released = true;
+            final ByteBuffer outBuffer = this.outBuffer;
+            if (outBuffer != null) {
+                this.outBuffer = null;
+                ByteBufferPool.free(outBuffer);
+            }
+            if (! ZlibPool.free(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
     public boolean flush() throws IOException {
-        final ByteBuffer outBuffer = this.outBuffer;
-        final byte[] outArray = outBuffer.array();
+        if (released) {
+            return next.flush();
+        }
+        final ByteBuffer outBuffer = getOutBuffer();
         final Deflater deflater = this.deflater;
-        assert outBuffer.arrayOffset() == 0;
-        int res;
-        int rem;
-        int pos;
-        deflater.setInput(NO_BYTES);
         for (;;) {
-            rem = outBuffer.remaining();
-            pos = outBuffer.position();
-            res = deflater.deflate(outArray, pos, rem, Deflater.SYNC_FLUSH);
-            if (pos == 0 && res == rem) {
-                // hmm, we're stuck (shouldn't be possible)
-                throw msg.flushSmallBuffer();
-            } else {
-                if (res > 0) {
-                    outBuffer.flip();
-                    try {
-                        if (next.write(outBuffer) == 0) {
-                            return false;
-                        }
-                    } finally {
-                        outBuffer.compact();
-                    }
-                } else if (deflater.needsInput() && pos == 0) {
-                    if (deflater.finished()) {
-                        // idempotent
-                        next.terminateWrites();
-                    }
-                    return next.flush();
-                } else {
-                    throw msg.deflaterState();
+            deflater.deflate(outBuffer, Deflater.SYNC_FLUSH);
+            if (outBuffer.position() == 0) {
+                // all pending output has been written
+                if (deflater.finished()) {
+                    release();
+                    // idempotent
+                    next.terminateWrites();
                 }
+                return next.flush();
+            }
+            if (! drain(outBuffer)) {
+                return false;
             }
         }
     }
@@ -203,11 +188,13 @@ public final class DeflatingStreamSinkConduit extends AbstractStreamSinkConduit<
     }
 
     public void terminateWrites() throws IOException {
-        deflater.finish();
+        if (! released) {
+            deflater.finish();
+        }
     }
 
     public void truncateWrites() throws IOException {
-        deflater.finish();
+        release();
         next.truncateWrites();
     }
 }
@@ -0,0 +1,388 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
+import org.xnio.IoUtils;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+import org.xnio.channels.StreamSourceChannel;
+
+/**
+ * A stream sink conduit which writes to a file without blocking its write thread.  A write of the conduit only copies
+ * into a buffer taken from a pool; a full buffer is written to the file on an offload executor while the next one is
+ * filled, and a write returns 0 once both buffers are full.  Once the file write completes, a resumed conduit calls its
+ * write ready handler on the write thread, as a socket conduit does when its socket becomes writable.
+ * <p>
+ * The offload executor should be a bounded pool dedicated to file I/O, so that slow disks hold up neither the I/O
+ * threads nor the worker tasks.  A pool of direct buffers avoids a copy in the file channel.  The conduit owns the
+ * file, which is closed once writes are terminated and flushed.
+ *
+ * @since 3.10
+ */
+public final class FileStreamSinkConduit implements StreamSinkConduit {
+
+    private final FileChannel file;
+    private final XnioIoThread writeThread;
+    private final Executor offload;
+    private final ByteBufferPool pool;
+    private final Runnable writeTask = new Runnable() {
+        public void run() {
+            writeFile();
+        }
+    };
+    private final Runnable readyTask = new Runnable() {
+        public void run() {
+            ready();
+        }
+    };
+
+    // all guarded by this
+
+    /** the position of the next byte to write to the file **/
+    private long position;
+    /** the buffer which is filled by the writer, or {@code null} if none was taken from the pool yet **/
+    private ByteBuffer staging;
+    /** the buffer which is being written to the file, or {@code null} if there is none **/
+    private ByteBuffer inFlight;
+    private boolean flushing;
+    private boolean shutdown;
+    private boolean closed;
+    private IOException failure;
+    private WriteReadyHandler writeReadyHandler;
+    /** whether a call of the write ready handler is queued on the write thread **/
+    private boolean readyQueued;
+
+    private volatile boolean resumed;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param file the file to write
+     * @param position the position to write the first byte at
+     * @param writeThread the write thread for this conduit
+     * @param offload the executor which writes the file
+     * @param pool the pool of the buffers to stage the bytes in
+     */
+    public FileStreamSinkConduit(final FileChannel file, final long position, final XnioIoThread writeThread, final Executor offload, final ByteBufferPool pool) {
+        if (file == null) {
+            throw msg.nullParameter("file");
+        }
+        if (writeThread == null) {
+            throw msg.nullParameter("writeThread");
+        }
+        if (offload == null) {
+            throw msg.nullParameter("offload");
+        }
+        if (pool == null) {
+            throw msg.nullParameter("pool");
+        }
+        if (position < 0) {
+            throw msg.parameterOutOfRange("position");
+        }
+        this.file = file;
+        this.position = position;
+        this.writeThread = writeThread;
+        this.offload = offload;
+        this.pool = pool;
+    }
+
+    public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
+        return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+    }
+
+    public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
+        return Conduits.transfer(source, count, throughBuffer, this);
+    }
+
+    public int write(final ByteBuffer src) throws IOException {
+        synchronized (this) {
+            final ByteBuffer staging = staging();
+            final int cnt = Buffers.copy(staging, src);
+            if (! staging.hasRemaining()) {
+                startWrite();
+            }
+            return cnt;
+        }
+    }
+
+    public long write(final ByteBuffer[] srcs, final int offs, final int len) throws IOException {
+        synchronized (this) {
+            final ByteBuffer staging = staging();
+            final int cnt = Buffers.copy(staging, srcs, offs, len);
+            if (! staging.hasRemaining()) {
+                startWrite();
+            }
+            return cnt;
+        }
+    }
+
+    public int writeFinal(final ByteBuffer src) throws IOException {
+        return Conduits.writeFinalBasic(this, src);
+    }
+
+    public long writeFinal(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+        return Conduits.writeFinalBasic(this, srcs, offset, length);
+    }
+
+    private ByteBuffer staging() throws IOException {
+        assert Thread.holdsLock(this);
+        if (shutdown) {
+            throw msg.writeShutDown();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        ByteBuffer staging = this.staging;
+        if (staging == null) {
+            this.staging = staging = pool.allocate();
+        }
+        return staging;
+    }
+
+    private void startWrite() {
+        assert Thread.holdsLock(this);
+        final ByteBuffer staging = this.staging;
+        if (inFlight != null || staging == null || staging.position() == 0 || failure != null) {
+            return;
+        }
+        staging.flip();
+        inFlight = staging;
+        this.staging = null;
+        try {
+            offload.execute(writeTask);
+        } catch (RejectedExecutionException e) {
+            inFlight = null;
+            ByteBufferPool.free(staging);
+            failure = new IOException(e);
+        }
+    }
+
+    /**
+     * Write the in-flight buffer to the file.  Called on the offload executor.
+     */
+    private void writeFile() {
+        final ByteBuffer buffer;
+        long position;
+        synchronized (this) {
+            buffer = inFlight;
+            position = this.position;
+        }
+        IOException failure = null;
+        try {
+            while (buffer.hasRemaining()) {
+                position += file.write(buffer, position);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        synchronized (this) {
+            this.position = position;
+            inFlight = null;
+            ByteBufferPool.free(buffer);
+            if (failure != null) {
+                if (this.failure == null) {
+                    this.failure = failure;
+                }
+            } else if (staging != null && (flushing || ! staging.hasRemaining())) {
+                startWrite();
+            }
+            notifyAll();
+        }
+        if (resumed) {
+            queueReady();
+        }
+    }
+
+    /**
+     * Call the write ready handler if writes are resumed.  Called on the write thread.
+     */
+    private void ready() {
+        final WriteReadyHandler handler;
+        synchronized (this) {
+            readyQueued = false;
+            handler = writeReadyHandler;
+        }
+        if (resumed && handler != null) {
+            handler.writeReady();
+            // like a selector, keep calling the handler while the conduit is writable and resumed
+            if (resumed && isWritable()) {
+                queueReady();
+            }
+        }
+    }
+
+    /**
+     * Queue a call of the write ready handler on the write thread, unless one is queued already.
+     */
+    private void queueReady() {
+        synchronized (this) {
+            if (readyQueued) {
+                return;
+            }
+            readyQueued = true;
+        }
+        writeThread.execute(readyTask);
+    }
+
+    private synchronized boolean isWritable() {
+        return inFlight == null || staging == null || staging.hasRemaining() || failure != null;
+    }
+
+    public boolean flush() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return true;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            flushing = true;
+            startWrite();
+            if (inFlight != null || staging != null && staging.position() > 0) {
+                return false;
+            }
+            flushing = false;
+            if (! shutdown) {
+                return true;
+            }
+        }
+        close();
+        return true;
+    }
+
+    public synchronized boolean isWriteShutdown() {
+        return shutdown;
+    }
+
+    public void resumeWrites() {
+        resumed = true;
+        if (isWritable()) {
+            queueReady();
+        }
+    }
+
+    public void suspendWrites() {
+        resumed = false;
+    }
+
+    public void wakeupWrites() {
+        resumed = true;
+        queueReady();
+    }
+
+    public boolean isWriteResumed() {
+        return resumed;
+    }
+
+    public void awaitWritable() throws IOException {
+        synchronized (this) {
+            while (! isWritable()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw msg.interruptedIO();
+                }
+            }
+        }
+    }
+
+    public void awaitWritable(final long time, final TimeUnit timeUnit) throws IOException {
+        final long remaining = timeUnit.toNanos(time);
+        synchronized (this) {
+            final long start = System.nanoTime();
+            long elapsed = 0;
+            while (! isWritable() && elapsed < remaining) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining - elapsed);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw msg.interruptedIO();
+                }
+                elapsed = System.nanoTime() - start;
+            }
+        }
+    }
+
+    public void terminateWrites() throws IOException {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            if (inFlight != null || staging != null && staging.position() > 0) {
+                // the file is closed by the flush which writes the rest
+                return;
+            }
+        }
+        close();
+    }
+
+    public void truncateWrites() throws IOException {
+        synchronized (this) {
+            shutdown = true;
+        }
+        close();
+    }
+
+    private void close() {
+        final WriteReadyHandler handler;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            shutdown = true;
+            if (staging != null) {
+                ByteBufferPool.free(staging);
+                staging = null;
+            }
+            handler = writeReadyHandler;
+            notifyAll();
+        }
+        // a write which is still in flight fails and releases its own buffer
+        IoUtils.safeClose(file);
+        if (handler != null) {
+            handler.terminated();
+        }
+    }
+
+    public XnioIoThread getWriteThread() {
+        return writeThread;
+    }
+
+    public synchronized void setWriteReadyHandler(final WriteReadyHandler handler) {
+        writeReadyHandler = handler;
+    }
+
+    public XnioWorker getWorker() {
+        return writeThread.getWorker();
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
+import org.xnio.IoUtils;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+import org.xnio.channels.StreamSinkChannel;
+
+/**
+ * A stream source conduit which reads a region of a file without blocking its read thread.  The file is read on an
+ * offload executor, ahead of the reader, into buffers taken from a pool; a read of the conduit only copies out of the
+ * buffers which are already filled, and returns 0 while the next one is still being read.  Once a buffer is filled,
+ * a resumed conduit calls its read ready handler on the read thread, as a socket conduit does when its socket becomes
+ * readable.
+ * <p>
+ * The offload executor should be a bounded pool dedicated to file I/O, so that slow disks hold up neither the I/O
+ * threads nor the worker tasks.  A pool of direct buffers avoids a copy in the file channel.  The conduit owns the
+ * file, which is closed when reads are terminated.
+ *
+ * @since 3.10
+ */
+public final class FileStreamSourceConduit implements StreamSourceConduit {
+
+    // the number of filled buffers to keep ahead of the reader
+    private static final int READ_AHEAD = 2;
+
+    private final FileChannel file;
+    private final XnioIoThread readThread;
+    private final Executor offload;
+    private final ByteBufferPool pool;
+    private final ArrayDeque<ByteBuffer> filled = new ArrayDeque<>(READ_AHEAD);
+    private final Runnable fillTask = new Runnable() {
+        public void run() {
+            fill();
+        }
+    };
+    private final Runnable readyTask = new Runnable() {
+        public void run() {
+            ready();
+        }
+    };
+
+    // all guarded by this
+
+    /** the position of the next byte to read from the file **/
+    private long position;
+    /** the number of bytes which are still to be read from the file **/
+    private long remaining;
+    private boolean filling;
+    private boolean eof;
+    private boolean shutdown;
+    private IOException failure;
+    private ReadReadyHandler readReadyHandler;
+    /** whether a call of the read ready handler is queued on the read thread **/
+    private boolean readyQueued;
+
+    private volatile boolean resumed;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param file the file to read
+     * @param position the position of the first byte to read
+     * @param count the number of bytes to read, or {@code Long.MAX_VALUE} to read to the end of the file
+     * @param readThread the read thread for this conduit
+     * @param offload the executor which reads the file
+     * @param pool the pool of the buffers to read the file into
+     */
+    public FileStreamSourceConduit(final FileChannel file, final long position, final long count, final XnioIoThread readThread, final Executor offload, final ByteBufferPool pool) {
+        if (file == null) {
+            throw msg.nullParameter("file");
+        }
+        if (readThread == null) {
+            throw msg.nullParameter("readThread");
+        }
+        if (offload == null) {
+            throw msg.nullParameter("offload");
+        }
+        if (pool == null) {
+            throw msg.nullParameter("pool");
+        }
+        if (position < 0) {
+            throw msg.parameterOutOfRange("position");
+        }
+        if (count < 0) {
+            throw msg.parameterOutOfRange("count");
+        }
+        this.file = file;
+        this.position = position;
+        this.remaining = count;
+        this.readThread = readThread;
+        this.offload = offload;
+        this.pool = pool;
+        eof = count == 0;
+    }
+
+    public long transferTo(final long position, final long count, final FileChannel target) throws IOException {
+        return target.transferFrom(new ConduitReadableByteChannel(this), position, count);
+    }
+
+    public long transferTo(final long count, final ByteBuffer throughBuffer, final StreamSinkChannel target) throws IOException {
+        return Conduits.transfer(this, count, throughBuffer, target);
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        synchronized (this) {
+            ByteBuffer buffer = filled.peek();
+            if (buffer == null) {
+                return empty();
+            }
+            int cnt = 0;
+            while (buffer != null && dst.hasRemaining()) {
+                cnt += Buffers.copy(dst, buffer);
+                buffer = consumed(buffer);
+            }
+            startFill();
+            return cnt;
+        }
+    }
+
+    public long read(final ByteBuffer[] dsts, final int offs, final int len) throws IOException {
+        synchronized (this) {
+            ByteBuffer buffer = filled.peek();
+            if (buffer == null) {
+                return empty();
+            }
+            long cnt = 0;
+            while (buffer != null && Buffers.hasRemaining(dsts, offs, len)) {
+                cnt += Buffers.copy(dsts, offs, len, buffer);
+                buffer = consumed(buffer);
+            }
+            startFill();
+            return cnt;
+        }
+    }
+
+    /**
+     * Get the result of a read when no buffer is filled.
+     *
+     * @return -1 if the whole region was read, or 0 if the next buffer is not filled yet
+     * @throws IOException if the file could not be read
+     */
+    private int empty() throws IOException {
+        assert Thread.holdsLock(this);
+        if (shutdown || eof) {
+            return -1;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        startFill();
+        return 0;
+    }
+
+    /**
+     * Release the head buffer if it was read completely.
+     *
+     * @param buffer the head buffer
+     * @return the buffer to read next, or {@code null} if none is filled
+     */
+    private ByteBuffer consumed(final ByteBuffer buffer) {
+        assert Thread.holdsLock(this);
+        if (buffer.hasRemaining()) {
+            return buffer;
+        }
+        filled.poll();
+        ByteBufferPool.free(buffer);
+        return filled.peek();
+    }
+
+    private void startFill() {
+        assert Thread.holdsLock(this);
+        if (filling || eof || shutdown || failure != null || filled.size() >= READ_AHEAD) {
+            return;
+        }
+        filling = true;
+        try {
+            offload.execute(fillTask);
+        } catch (RejectedExecutionException e) {
+            filling = false;
+            failure = new IOException(e);
+        }
+    }
+
+    /**
+     * Fill a buffer from the file.  Called on the offload executor.
+     */
+    private void fill() {
+        final long position;
+        final long remaining;
+        synchronized (this) {
+            if (shutdown) {
+                filling = false;
+                return;
+            }
+            position = this.position;
+            remaining = this.remaining;
+        }
+        final ByteBuffer buffer = pool.allocate();
+        if (buffer.remaining() > remaining) {
+            buffer.limit((int) remaining);
+        }
+        int res;
+        IOException failure = null;
+        try {
+            res = file.read(buffer, position);
+        } catch (IOException e) {
+            res = -1;
+            failure = e;
+        }
+        synchronized (this) {
+            filling = false;
+            if (shutdown || res <= 0) {
+                ByteBufferPool.free(buffer);
+                if (failure != null) {
+                    this.failure = failure;
+                } else if (res == -1) {
+                    eof = true;
+                }
+            } else {
+                buffer.flip();
+                filled.add(buffer);
+                this.position = position + res;
+                if (this.remaining != Long.MAX_VALUE && (this.remaining -= res) == 0) {
+                    eof = true;
+                }
+                startFill();
+            }
+            notifyAll();
+        }
+        if (resumed) {
+            queueReady();
+        }
+    }
+
+    /**
+     * Call the read ready handler if reads are resumed.  Called on the read thread.
+     */
+    private void ready() {
+        final ReadReadyHandler handler;
+        synchronized (this) {
+            readyQueued = false;
+            handler = readReadyHandler;
+        }
+        if (resumed && handler != null) {
+            handler.readReady();
+            // like a selector, keep calling the handler while the conduit is readable and resumed
+            if (resumed && isReadable()) {
+                queueReady();
+            }
+        }
+    }
+
+    /**
+     * Queue a call of the read ready handler on the read thread, unless one is queued already.
+     */
+    private void queueReady() {
+        synchronized (this) {
+            if (readyQueued) {
+                return;
+            }
+            readyQueued = true;
+        }
+        readThread.execute(readyTask);
+    }
+
+    private synchronized boolean isReadable() {
+        return ! filled.isEmpty() || eof || shutdown || failure != null;
+    }
+
+    public synchronized boolean isReadShutdown() {
+        return shutdown;
+    }
+
+    public void resumeReads() {
+        resumed = true;
+        synchronized (this) {
+            if (! isReadable()) {
+                startFill();
+                return;
+            }
+        }
+        queueReady();
+    }
+
+    public void suspendReads() {
+        resumed = false;
+    }
+
+    public void wakeupReads() {
+        resumed = true;
+        queueReady();
+    }
+
+    public boolean isReadResumed() {
+        return resumed;
+    }
+
+    public void awaitReadable() throws IOException {
+        synchronized (this) {
+            startFill();
+            while (! isReadable()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw msg.interruptedIO();
+                }
+            }
+        }
+    }
+
+    public void awaitReadable(final long time, final TimeUnit timeUnit) throws IOException {
+        long remaining = timeUnit.toNanos(time);
+        synchronized (this) {
+            startFill();
+            final long start = System.nanoTime();
+            long elapsed = 0;
+            while (! isReadable() && elapsed < remaining) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining - elapsed);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw msg.interruptedIO();
+                }
+                elapsed = System.nanoTime() - start;
+            }
+        }
+    }
+
+    public void terminateReads() throws IOException {
+        final ReadReadyHandler handler;
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            ByteBuffer buffer;
+            while ((buffer = filled.poll()) != null) {
+                ByteBufferPool.free(buffer);
+            }
+            handler = readReadyHandler;
+            notifyAll();
+        }
+        IoUtils.safeClose(file);
+        if (handler != null) {
+            handler.terminated();
+        }
+    }
+
+    public XnioIoThread getReadThread() {
+        return readThread;
+    }
+
+    public synchronized void setReadReadyHandler(final ReadReadyHandler handler) {
+        readReadyHandler = handler;
+    }
+
+    public XnioWorker getWorker() {
+        return readThread.getWorker();
+    }
+}
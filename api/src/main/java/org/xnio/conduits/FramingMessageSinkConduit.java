@@ -22,6 +22,7 @@ import static org.xnio._private.Messages.msg;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.xnio.Buffers;
 import org.xnio.Pooled;
 
@@ -32,8 +33,13 @@ import org.xnio.Pooled;
  */
 public final class FramingMessageSinkConduit extends AbstractSinkConduit<StreamSinkConduit> implements MessageSinkConduit {
 
-    private final boolean longLengths;
+    private static final int MAX_BATCH = 128;
+
+    private final LengthPrefix lengthPrefix;
     private final Pooled<ByteBuffer> transmitBuffer;
+    // length fields of a batch, as views of a single buffer
+    private ByteBuffer[] lengthFields;
+    private ByteBuffer[] gather;
 
     /**
      * Construct a new instance.
@@ -43,8 +49,20 @@ public final class FramingMessageSinkConduit extends AbstractSinkConduit<StreamS
      * @param transmitBuffer the transmit buffer to use
      */
     public FramingMessageSinkConduit(final StreamSinkConduit next, final boolean longLengths, final Pooled<ByteBuffer> transmitBuffer) {
+        this(next, longLengths ? LengthPrefix.FOUR_BYTES : LengthPrefix.TWO_BYTES, transmitBuffer);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param next the delegate conduit to set
+     * @param lengthPrefix the format of the length field which precedes each message
+     * @param transmitBuffer the transmit buffer to use
+     * @since 3.10
+     */
+    public FramingMessageSinkConduit(final StreamSinkConduit next, final LengthPrefix lengthPrefix, final Pooled<ByteBuffer> transmitBuffer) {
         super(next);
-        this.longLengths = longLengths;
+        this.lengthPrefix = lengthPrefix;
         this.transmitBuffer = transmitBuffer;
     }
 
@@ -55,19 +73,15 @@ public final class FramingMessageSinkConduit extends AbstractSinkConduit<StreamS
         }
         final ByteBuffer transmitBuffer = this.transmitBuffer.getResource();
         final int remaining = src.remaining();
-        final boolean longLengths = this.longLengths;
-        final int lengthFieldSize = longLengths ? 4 : 2;
-        if (remaining > transmitBuffer.capacity() - lengthFieldSize || ! longLengths && remaining > 65535) {
+        final LengthPrefix lengthPrefix = this.lengthPrefix;
+        final int lengthFieldSize = lengthPrefix.getSize(remaining);
+        if (remaining > lengthPrefix.getMaxLength() || remaining > transmitBuffer.capacity() - lengthFieldSize) {
             throw msg.txMsgTooLarge();
         }
         if (transmitBuffer.remaining() < lengthFieldSize + remaining && ! writeBuffer()) {
             return false;
         }
-        if (longLengths) {
-            transmitBuffer.putInt(remaining);
-        } else {
-            transmitBuffer.putShort((short) remaining);
-        }
+        lengthPrefix.write(transmitBuffer, remaining);
         transmitBuffer.put(src);
         writeBuffer();
         return true;
@@ -81,24 +95,127 @@ public final class FramingMessageSinkConduit extends AbstractSinkConduit<StreamS
         }
         final ByteBuffer transmitBuffer = this.transmitBuffer.getResource();
         final long remaining = Buffers.remaining(srcs, offs, len);
-        final boolean longLengths = this.longLengths;
-        final int lengthFieldSize = longLengths ? 4 : 2;
-        if (remaining > transmitBuffer.capacity() - lengthFieldSize || ! longLengths && remaining > 65535) {
+        final LengthPrefix lengthPrefix = this.lengthPrefix;
+        if (remaining > lengthPrefix.getMaxLength() || remaining > transmitBuffer.capacity() - lengthPrefix.getSize((int) remaining)) {
             throw msg.txMsgTooLarge();
         }
+        final int lengthFieldSize = lengthPrefix.getSize((int) remaining);
         if (transmitBuffer.remaining() < lengthFieldSize + remaining && ! writeBuffer()) {
             return false;
         }
-        if (longLengths) {
-            transmitBuffer.putInt((int) remaining);
-        } else {
-            transmitBuffer.putShort((short) remaining);
-        }
+        lengthPrefix.write(transmitBuffer, (int) remaining);
         Buffers.copy(transmitBuffer, srcs, offs, len);
         writeBuffer();
         return true;
     }
 
+    /**
+     * Send a batch of complete messages.  The length fields and the message payloads are sent with a single gathering
+     * write, without copying the payloads.  If the write is partial, the remainder of the message which was cut short
+     * is copied to the transmit buffer and that message is counted as sent.
+     *
+     * @param messages the messages to send, each given as an array of buffers
+     * @param offs the offset into the message array of the first message
+     * @param len the number of messages to send
+     * @return the number of messages which were sent
+     * @throws IOException if an I/O error occurs
+     */
+    public int sendBatch(final ByteBuffer[][] messages, final int offs, final int len) throws IOException {
+        if (! writeBuffer()) {
+            return 0;
+        }
+        final ByteBuffer transmitBuffer = this.transmitBuffer.getResource();
+        final LengthPrefix lengthPrefix = this.lengthPrefix;
+        final int lengthFieldSize = lengthPrefix.getMaxSize();
+        final long maxLength = Math.min(lengthPrefix.getMaxLength(), transmitBuffer.capacity() - lengthFieldSize);
+        ByteBuffer[] lengthFields = this.lengthFields;
+        if (lengthFields == null) {
+            final ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH * lengthFieldSize);
+            lengthFields = this.lengthFields = new ByteBuffer[MAX_BATCH];
+            for (int i = 0; i < MAX_BATCH; i ++) {
+                buffer.limit((i + 1) * lengthFieldSize).position(i * lengthFieldSize);
+                lengthFields[i] = buffer.slice();
+            }
+            gather = new ByteBuffer[MAX_BATCH * 2];
+        }
+        int sent = 0;
+        while (sent < len) {
+            ByteBuffer[] gather = this.gather;
+            int cnt = 0;
+            int bufCnt = 0;
+            long total = 0;
+            boolean stop = false;
+            while (cnt < MAX_BATCH && sent + cnt < len) {
+                final ByteBuffer[] message = messages[offs + sent + cnt];
+                final long remaining = Buffers.remaining(message);
+                if (remaining == 0) {
+                    // no zero messages
+                    stop = true;
+                    break;
+                }
+                if (remaining > maxLength) {
+                    throw msg.txMsgTooLarge();
+                }
+                if (bufCnt + 1 + message.length > gather.length) {
+                    gather = this.gather = Arrays.copyOf(gather, Math.max(gather.length * 2, bufCnt + 1 + message.length));
+                }
+                final ByteBuffer lengthField = lengthFields[cnt ++];
+                lengthField.clear();
+                lengthPrefix.write(lengthField, (int) remaining);
+                lengthField.flip();
+                gather[bufCnt ++] = lengthField;
+                System.arraycopy(message, 0, gather, bufCnt, message.length);
+                bufCnt += message.length;
+                total += lengthField.limit() + remaining;
+            }
+            try {
+                long written = 0;
+                while (written < total) {
+                    final long res = next.write(gather, 0, bufCnt);
+                    if (res == 0) {
+                        break;
+                    }
+                    written += res;
+                }
+                if (written < total) {
+                    return sent + keepPartialMessage(messages, offs + sent, cnt);
+                }
+            } finally {
+                Arrays.fill(gather, 0, bufCnt, null);
+            }
+            sent += cnt;
+            if (stop) {
+                break;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Find the first message of a partially written batch which was not written in full, and copy its remainder to the
+     * transmit buffer if it was started.
+     *
+     * @return the number of messages which were sent in full or are completed by the transmit buffer
+     */
+    private int keepPartialMessage(final ByteBuffer[][] messages, final int offs, final int cnt) {
+        final ByteBuffer[] lengthFields = this.lengthFields;
+        for (int i = 0; i < cnt; i ++) {
+            final ByteBuffer lengthField = lengthFields[i];
+            final ByteBuffer[] message = messages[offs + i];
+            if (lengthField.hasRemaining() || Buffers.hasRemaining(message)) {
+                if (lengthField.position() == 0) {
+                    // not started
+                    return i;
+                }
+                final ByteBuffer transmitBuffer = this.transmitBuffer.getResource();
+                Buffers.copy(transmitBuffer, lengthField);
+                Buffers.copy(transmitBuffer, message, 0, message.length);
+                return i + 1;
+            }
+        }
+        return cnt;
+    }
+
     @Override
     public boolean sendFinal(ByteBuffer src) throws IOException {
         //TODO: non-naive implementation
@@ -112,7 +229,7 @@ public final class FramingMessageSinkConduit extends AbstractSinkConduit<StreamS
 
     private boolean writeBuffer() throws IOException {
         final ByteBuffer buffer = transmitBuffer.getResource();
-        if (buffer.position() > 0) buffer.flip();
+        buffer.flip();
         try {
             while (buffer.hasRemaining()) {
                 final int res = next.write(buffer);
@@ -20,30 +20,70 @@ package org.xnio.conduits;
 
 import static org.xnio._private.Messages.msg;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.xnio.Buffers;
 import org.xnio.Pooled;
 
 /**
- * A message source conduit which implements a simple message framing protocol over a stream conduit.
+ * A message source conduit which implements a simple message framing protocol over a stream conduit.  Each message is
+ * preceded by a length field in one of the {@linkplain LengthPrefix supported formats}.
+ * <p>
+ * Messages may either be copied out with {@link #receive(ByteBuffer)} or obtained as read-only views of the receive
+ * buffer with {@link #receiveView()}, which avoids the copy.  The receive buffer is not compacted while any view is
+ * outstanding, so views should be closed as soon as the message is processed.  A view may be closed from any thread;
+ * if the receive buffer was full of pinned messages, closing the last view wakes up reads which are resumed.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class FramingMessageSourceConduit extends AbstractSourceConduit<StreamSourceConduit> implements MessageSourceConduit {
     private final Pooled<ByteBuffer> receiveBuffer;
+    private final LengthPrefix lengthPrefix;
+    private final int maxMessageSize;
     private boolean ready;
+    private boolean eof;
+    private boolean endOfStream;
+    private volatile boolean pinned;
+    private volatile int views;
+
+    private static final AtomicIntegerFieldUpdater<FramingMessageSourceConduit> viewsUpdater = AtomicIntegerFieldUpdater.newUpdater(FramingMessageSourceConduit.class, "views");
 
     /**
-     * Construct a new instance.
+     * Construct a new instance which uses 4-byte lengths.
      *
      * @param next the delegate conduit to set
      * @param receiveBuffer the transmit buffer to use
      */
     public FramingMessageSourceConduit(final StreamSourceConduit next, final Pooled<ByteBuffer> receiveBuffer) {
+        this(next, receiveBuffer, LengthPrefix.FOUR_BYTES, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Construct a new instance.  A message which is larger than the maximum message size or which would not fit in the
+     * receive buffer is rejected as soon as its length field is read.
+     *
+     * @param next the delegate conduit to set
+     * @param receiveBuffer the receive buffer to use
+     * @param lengthPrefix the format of the length field which precedes each message
+     * @param maxMessageSize the maximum message size, typically the value of {@link org.xnio.Options#MAX_INBOUND_MESSAGE_SIZE}
+     * @since 3.10
+     */
+    public FramingMessageSourceConduit(final StreamSourceConduit next, final Pooled<ByteBuffer> receiveBuffer, final LengthPrefix lengthPrefix, final int maxMessageSize) {
         super(next);
+        if (maxMessageSize < 0) {
+            throw msg.parameterOutOfRange("maxMessageSize");
+        }
         this.receiveBuffer = receiveBuffer;
+        this.lengthPrefix = lengthPrefix;
+        final ByteBuffer buffer = receiveBuffer.getResource();
+        final int capacity = buffer.capacity();
+        this.maxMessageSize = Math.min(maxMessageSize, Math.min(lengthPrefix.getMaxLength(), capacity - lengthPrefix.getSize(capacity)));
+        // the receive buffer is kept ready for reading
+        buffer.flip();
     }
 
     public void resumeReads() {
@@ -64,95 +104,200 @@ public final class FramingMessageSourceConduit extends AbstractSourceConduit<Str
     }
 
     public int receive(final ByteBuffer dst) throws IOException {
-        final ByteBuffer receiveBuffer = this.receiveBuffer.getResource();
-        int res;
-        do {
-            res = next.read(receiveBuffer);
-        } while (res > 0);
-        if (receiveBuffer.position() < 4) {
-            if (res == -1) {
-                receiveBuffer.clear();
-            }
-            ready = false;
-            return res;
+        final ByteBuffer buffer = receiveBuffer.getResource();
+        final int length = nextMessage(buffer);
+        if (length < 0) {
+            return length == -1 ? 0 : -1;
         }
-        receiveBuffer.flip();
-        try {
-            final int length = receiveBuffer.getInt();
-            if (length < 0 || length > receiveBuffer.capacity() - 4) {
-                Buffers.unget(receiveBuffer, 4);
-                throw msg.recvInvalidMsgLength(length);
-            }
-            if (receiveBuffer.remaining() < length) {
-                if (res == -1) {
-                    receiveBuffer.clear();
-                } else {
-                    Buffers.unget(receiveBuffer, 4);
-                }
+        final int end = buffer.position() + length;
+        final int res = dst.hasRemaining() ? Buffers.copy(length, dst, buffer) : 0;
+        // anything which did not fit is dropped
+        buffer.position(end);
+        updateReady(buffer);
+        return res;
+    }
+
+    public long receive(final ByteBuffer[] dsts, final int offs, final int len) throws IOException {
+        final ByteBuffer buffer = receiveBuffer.getResource();
+        final int length = nextMessage(buffer);
+        if (length < 0) {
+            return length == -1 ? 0 : -1;
+        }
+        final int end = buffer.position() + length;
+        final int res = Buffers.hasRemaining(dsts, offs, len) ? Buffers.copy(length, dsts, offs, len, buffer) : 0;
+        buffer.position(end);
+        updateReady(buffer);
+        return res;
+    }
+
+    /**
+     * Receive a message without copying it.  The message is returned as a read-only view of the receive buffer, which
+     * remains valid until it is closed or reads are terminated.
+     *
+     * @return the message, or {@code null} if no complete message is available or the end of the stream was reached
+     * @throws IOException if an I/O error occurs
+     * @see #isEndOfStream()
+     * @since 3.10
+     */
+    public MessageView receiveView() throws IOException {
+        final ByteBuffer buffer = receiveBuffer.getResource();
+        final int length = nextMessage(buffer);
+        if (length < 0) {
+            return null;
+        }
+        final int end = buffer.position() + length;
+        final ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.limit(end);
+        buffer.position(end);
+        updateReady(buffer);
+        viewsUpdater.incrementAndGet(this);
+        return new MessageView(this, view.slice());
+    }
+
+    /**
+     * Determine whether the end of the stream was reached and every complete message was received.
+     *
+     * @return {@code true} if no more messages will be received
+     * @since 3.10
+     */
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    /**
+     * Find the next complete message, reading more data if needed.
+     *
+     * @return the message length with the buffer positioned at the start of the message, -1 if no complete message is
+     * available, or -2 if the end of the stream was reached
+     */
+    private int nextMessage(final ByteBuffer buffer) throws IOException {
+        int length = parseMessage(buffer);
+        if (length == -1) {
+            final int res = fill(buffer);
+            length = parseMessage(buffer);
+            if (length == -1) {
                 ready = false;
-                // must be <= 0
-                return res;
-            }
-            if (dst.hasRemaining()) {
-                return Buffers.copy(length, dst, receiveBuffer);
-            } else {
-                Buffers.skip(receiveBuffer, length);
-                return 0;
-            }
-        } finally {
-            if (res != -1) {
-                receiveBuffer.compact();
-                if (receiveBuffer.position() >= 4 && receiveBuffer.position() >= 4 + receiveBuffer.getInt(0)) {
-                    // there's another packet ready to go
-                    ready = true;
+                if (res == -1) {
+                    // a partial message is dropped
+                    buffer.position(buffer.limit());
+                    endOfStream = true;
+                    return -2;
                 }
             }
         }
+        return length;
     }
 
-    public long receive(final ByteBuffer[] dsts, final int offs, final int len) throws IOException {
-        final ByteBuffer receiveBuffer = this.receiveBuffer.getResource();
-        int res;
-        do {
-            res = next.read(receiveBuffer);
-        } while (res > 0);
-        if (receiveBuffer.position() < 4) {
-            if (res == -1) {
-                receiveBuffer.clear();
-            }
-            ready = false;
-            return res;
+    /**
+     * Parse the length field of the next message.  The length is checked as soon as the field is complete, whether or
+     * not the rest of the message has arrived.
+     *
+     * @return the message length with the buffer positioned at the start of the message, or -1 if the message is not
+     * completely buffered
+     */
+    private int parseMessage(final ByteBuffer buffer) throws IOException {
+        final int pos = buffer.position();
+        final int length = lengthPrefix.read(buffer);
+        if (length == -1) {
+            return -1;
+        }
+        if (length > maxMessageSize) {
+            buffer.position(pos);
+            throw msg.recvInvalidMsgLength(length);
+        }
+        if (buffer.remaining() < length) {
+            buffer.position(pos);
+            return -1;
         }
-        receiveBuffer.flip();
+        return length;
+    }
+
+    private void updateReady(final ByteBuffer buffer) {
+        final int pos = buffer.position();
         try {
-            final int length = receiveBuffer.getInt();
-            if (length < 0 || length > receiveBuffer.capacity() - 4) {
-                Buffers.unget(receiveBuffer, 4);
-                throw msg.recvInvalidMsgLength(length);
-            }
-            if (receiveBuffer.remaining() < length) {
-                if (res == -1) {
-                    receiveBuffer.clear();
-                } else {
-                    Buffers.unget(receiveBuffer, 4);
-                }
-                ready = false;
-                // must be <= 0
-                return res;
-            }
-            if (Buffers.hasRemaining(dsts, offs, len)) {
-                return Buffers.copy(length, dsts, offs, len, receiveBuffer);
-            } else {
-                Buffers.skip(receiveBuffer, length);
-                return 0;
-            }
+            ready = parseMessage(buffer) != -1;
+        } catch (IOException e) {
+            // the next receive reports it
+            ready = true;
+        }
+        buffer.position(pos);
+    }
+
+    private int fill(final ByteBuffer buffer) throws IOException {
+        if (eof) {
+            return -1;
+        }
+        int views = this.views;
+        if (views != 0 && buffer.limit() == buffer.capacity()) {
+            // there is no room left behind the views, so the last view to be closed must wake up reads; check the views
+            // again after pinning, in case it was closed meanwhile
+            pinned = true;
+            views = this.views;
+        }
+        final int start;
+        if (views == 0) {
+            pinned = false;
+            buffer.compact();
+            start = 0;
+        } else {
+            // outstanding views must not move, so only the free space at the end can be used
+            start = buffer.position();
+            buffer.position(buffer.limit()).limit(buffer.capacity());
+        }
+        int res = 0;
+        try {
+            while (buffer.hasRemaining() && (res = next.read(buffer)) > 0) {}
         } finally {
-            if (res != -1) {
-                receiveBuffer.compact();
-                if (receiveBuffer.position() >= 4 && receiveBuffer.position() >= 4 + receiveBuffer.getInt(0)) {
-                    // there's another packet ready to go
-                    ready = true;
-                }
+            buffer.limit(buffer.position()).position(start);
+        }
+        if (res == -1) {
+            eof = true;
+        }
+        return res;
+    }
+
+    private void viewClosed() {
+        if (viewsUpdater.decrementAndGet(this) == 0 && pinned && next.isReadResumed()) {
+            next.wakeupReads();
+        }
+    }
+
+    /**
+     * A message which was received without copying it, as a read-only view of the receive buffer of its conduit.
+     *
+     * @since 3.10
+     */
+    public static final class MessageView implements Closeable {
+        private final FramingMessageSourceConduit conduit;
+        private volatile ByteBuffer buffer;
+
+        private static final AtomicReferenceFieldUpdater<MessageView, ByteBuffer> bufferUpdater = AtomicReferenceFieldUpdater.newUpdater(MessageView.class, ByteBuffer.class, "buffer");
+
+        MessageView(final FramingMessageSourceConduit conduit, final ByteBuffer buffer) {
+            this.conduit = conduit;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Get the message.
+         *
+         * @return the read-only buffer of the message
+         * @throws IllegalStateException if the view was closed
+         */
+        public ByteBuffer getBuffer() throws IllegalStateException {
+            final ByteBuffer buffer = this.buffer;
+            if (buffer == null) {
+                throw msg.bufferFreed();
+            }
+            return buffer;
+        }
+
+        /**
+         * Close the view, so that the space of its message can be reused.  The view may be closed from any thread.
+         */
+        public void close() {
+            if (bufferUpdater.getAndSet(this, null) != null) {
+                conduit.viewClosed();
             }
         }
     }
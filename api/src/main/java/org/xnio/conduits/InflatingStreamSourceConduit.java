@@ -26,17 +26,25 @@ import java.nio.channels.FileChannel;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
+import org.xnio.ByteBufferPool;
+import org.xnio.ZlibPool;
 import org.xnio.channels.StreamSinkChannel;
 
 /**
- * A filtering stream source conduit which decompresses the source data.
+ * A filtering stream source conduit which decompresses the source data.  The compressed input is read into a buffer
+ * taken from a {@link ByteBufferPool}, which is allocated on the first read.  When reads are terminated, the buffer is
+ * returned to its pool and the inflater is freed with {@link ZlibPool#free(Inflater)}, or ended if it was not
+ * allocated from {@link ZlibPool}.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class InflatingStreamSourceConduit extends AbstractStreamSourceConduit<StreamSourceConduit> implements StreamSourceConduit {
 
     private final Inflater inflater;
-    private final ByteBuffer buffer;
+    private final ByteBufferPool pool;
+    private final byte[] dictionary;
+    private ByteBuffer buffer;
+    private boolean released;
 
     /**
      * Construct a new instance.
@@ -45,9 +53,22 @@ public final class InflatingStreamSourceConduit extends AbstractStreamSourceCond
      * @param inflater the initialized inflater to use
      */
     public InflatingStreamSourceConduit(final StreamSourceConduit next, final Inflater inflater) {
+        this(next, inflater, ByteBufferPool.MEDIUM_DIRECT, null);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param next the underlying conduit for this channel
+     * @param inflater the initialized inflater to use
+     * @param pool the pool from which the input buffer is allocated
+     * @param dictionary the preset dictionary to supply when the compressed stream requests one, or {@code null} for none
+     */
+    public InflatingStreamSourceConduit(final StreamSourceConduit next, final Inflater inflater, final ByteBufferPool pool, final byte[] dictionary) {
         super(next);
         this.inflater = inflater;
-        buffer = ByteBuffer.allocate(16384);
+        this.pool = pool;
+        this.dictionary = dictionary;
     }
 
     public long transferTo(final long position, final long count, final FileChannel target) throws IOException {
@@ -59,59 +80,41 @@ public final class InflatingStreamSourceConduit extends AbstractStreamSourceCond
     }
 
     public int read(final ByteBuffer dst) throws IOException {
-        final int remaining = dst.remaining();
-        final int position = dst.position();
+        if (released) {
+            return -1;
+        }
+        if (! dst.hasRemaining()) {
+            return 0;
+        }
         final Inflater inflater = this.inflater;
         int res;
-        if (dst.hasArray()) {
-            // fast path
-            final byte[] array = dst.array();
-            final int off = dst.arrayOffset();
-            for (;;) {
-                try {
-                    res = inflater.inflate(array, off + position, remaining);
-                } catch (DataFormatException e) {
-                    throw new IOException(e);
-                }
-                if (res > 0) {
-                    dst.position(position + res);
-                    return res;
-                }
-                if (inflater.needsDictionary()) {
-                    throw msg.inflaterNeedsDictionary();
-                }
-                final ByteBuffer buffer = this.buffer;
-                buffer.clear();
-                res = next.read(buffer);
-                if (res > 0) {
-                    inflater.setInput(buffer.array(), buffer.arrayOffset(), res);
-                } else {
-                    return res;
-                }
+        for (;;) {
+            try {
+                res = inflater.inflate(dst);
+            } catch (DataFormatException e) {
+                throw new IOException(e);
             }
-        } else {
-            final byte[] space = new byte[remaining];
-            for (;;) {
-                try {
-                    res = inflater.inflate(space);
-                } catch (DataFormatException e) {
-                    throw new IOException(e);
-                }
-                if (res > 0) {
-                    dst.put(space, 0, res);
-                    return res;
-                }
-                if (inflater.needsDictionary()) {
+            if (res > 0) {
+                return res;
+            }
+            if (inflater.needsDictionary()) {
+                if (dictionary == null) {
                     throw msg.inflaterNeedsDictionary();
                 }
-                final ByteBuffer buffer = this.buffer;
-                buffer.clear();
-                res = next.read(buffer);
-                if (res > 0) {
-                    inflater.setInput(buffer.array(), buffer.arrayOffset(), res);
-                } else {
-                    return res;
-                }
+                inflater.setDictionary(dictionary);
+                continue;
+            }
+            ByteBuffer buffer = this.buffer;
+            if (buffer == null) {
+                buffer = this.buffer = pool.allocate();
+            }
+            buffer.clear();
+            res = next.read(buffer);
+            if (res > 0) {
+                buffer.flip();
+                inflater.setInput(buffer);
+            } else {
+                return res;
             }
         }
     }
@@ -131,19 +134,29 @@ public final class InflatingStreamSourceConduit extends AbstractStreamSourceCond
     }
 
     public void terminateReads() throws IOException {
-        inflater.end();
+        if (! released) {
+            released = true;
+            final ByteBuffer buffer = this.buffer;
+            if (buffer != null) {
+                this.buffer = null;
+                ByteBufferPool.free(buffer);
+            }
+            if (! ZlibPool.free(inflater)) {
+                inflater.end();
+            }
+        }
         next.terminateReads();
     }
 
     public void awaitReadable() throws IOException {
-        if (! inflater.needsInput()) {
+        if (released || ! inflater.needsInput()) {
             return;
         }
         next.awaitReadable();
     }
 
     public void awaitReadable(final long time, final TimeUnit timeUnit) throws IOException {
-        if (! inflater.needsInput()) {
+        if (released || ! inflater.needsInput()) {
             return;
         }
         next.awaitReadable(time, timeUnit);
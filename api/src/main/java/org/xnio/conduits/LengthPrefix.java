@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The format of the length field which precedes each message of the framing conduits.
+ *
+ * @see FramingMessageSinkConduit
+ * @see FramingMessageSourceConduit
+ * @since 3.10
+ */
+public enum LengthPrefix {
+    /**
+     * A one-byte length, for messages of up to 255 bytes.
+     */
+    ONE_BYTE(1),
+    /**
+     * A two-byte big-endian length, for messages of up to 65535 bytes.
+     */
+    TWO_BYTES(2),
+    /**
+     * A three-byte big-endian length, for messages of up to 16 MiB less one byte.
+     */
+    THREE_BYTES(3),
+    /**
+     * A four-byte big-endian length.
+     */
+    FOUR_BYTES(4),
+    /**
+     * A variable length unsigned integer of one to five bytes, least significant group first, seven bits per byte
+     * with the high bit set on every byte but the last.  Messages of up to 127 bytes need a single byte of framing.
+     */
+    VARINT(5),
+    ;
+
+    private final int maxSize;
+
+    LengthPrefix(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the largest size of the length field.
+     *
+     * @return the largest size of the length field, in bytes
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the largest message length which can be represented.
+     *
+     * @return the largest message length
+     */
+    public int getMaxLength() {
+        return this == FOUR_BYTES || this == VARINT ? Integer.MAX_VALUE : (1 << (maxSize << 3)) - 1;
+    }
+
+    /**
+     * Get the size of the length field for a message of the given length.
+     *
+     * @param length the message length
+     * @return the size of the length field, in bytes
+     */
+    public int getSize(final int length) {
+        if (this != VARINT) {
+            return maxSize;
+        }
+        return length < 1 << 7 ? 1 : length < 1 << 14 ? 2 : length < 1 << 21 ? 3 : length < 1 << 28 ? 4 : 5;
+    }
+
+    void write(final ByteBuffer buffer, final int length) {
+        switch (this) {
+            case ONE_BYTE: buffer.put((byte) length); break;
+            case TWO_BYTES: buffer.putShort((short) length); break;
+            case THREE_BYTES: buffer.put((byte) (length >>> 16)).putShort((short) length); break;
+            case FOUR_BYTES: buffer.putInt(length); break;
+            default: {
+                int val = length;
+                while ((val & ~0x7F) != 0) {
+                    buffer.put((byte) (val | 0x80));
+                    val >>>= 7;
+                }
+                buffer.put((byte) val);
+            }
+        }
+    }
+
+    /**
+     * Read a length field.  If the field is complete, the buffer is positioned just after it; otherwise the position
+     * of the buffer is left unchanged.
+     *
+     * @param buffer the buffer to read from
+     * @return the length, or -1 if the length field is incomplete
+     * @throws IOException if the length field is malformed
+     */
+    int read(final ByteBuffer buffer) throws IOException {
+        final int pos = buffer.position();
+        final int rem = buffer.limit() - pos;
+        switch (this) {
+            case ONE_BYTE: {
+                if (rem < 1) return -1;
+                buffer.position(pos + 1);
+                return buffer.get(pos) & 0xFF;
+            }
+            case TWO_BYTES: {
+                if (rem < 2) return -1;
+                buffer.position(pos + 2);
+                return buffer.getShort(pos) & 0xFFFF;
+            }
+            case THREE_BYTES: {
+                if (rem < 3) return -1;
+                buffer.position(pos + 3);
+                return (buffer.get(pos) & 0xFF) << 16 | buffer.getShort(pos + 1) & 0xFFFF;
+            }
+            case FOUR_BYTES: {
+                if (rem < 4) return -1;
+                final int length = buffer.getInt(pos);
+                if (length < 0) {
+                    throw msg.recvInvalidMsgLength(length);
+                }
+                buffer.position(pos + 4);
+                return length;
+            }
+            default: {
+                int length = 0;
+                for (int i = 0; i < 5; i ++) {
+                    if (i == rem) {
+                        return -1;
+                    }
+                    final int b = buffer.get(pos + i);
+                    if (i == 4 && (b & 0xF8) != 0) {
+                        // more than 31 bits
+                        throw msg.recvInvalidMsgLength(-1);
+                    }
+                    length |= (b & 0x7F) << 7 * i;
+                    if (b >= 0) {
+                        buffer.position(pos + i + 1);
+                        return length;
+                    }
+                }
+                throw new IllegalStateException();
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The LZ4 block codec and the XXH32 checksum used by the LZ4 frame format.
+ */
+final class Lz4 {
+
+    static final int MAGIC = 0x184D2204;
+    static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+    static final int FLG_VERSION = 0x40;
+    static final int FLG_BLOCK_INDEPENDENCE = 0x20;
+    static final int FLG_BLOCK_CHECKSUM = 0x10;
+    static final int FLG_CONTENT_SIZE = 0x08;
+    static final int FLG_CONTENT_CHECKSUM = 0x04;
+    static final int FLG_DICT_ID = 0x01;
+
+    static final int BD_64KB = 4 << 4;
+    static final int BD_256KB = 5 << 4;
+
+    static final int UNCOMPRESSED_BLOCK = 0x80000000;
+    static final int MAX_DISTANCE = 0xFFFF;
+    static final int HASH_SIZE = 1 << 12;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Lz4() {
+    }
+
+    static int readInt(final byte[] b, final int off) {
+        return (int) INT.get(b, off);
+    }
+
+    static void writeInt(final byte[] b, final int off, final int val) {
+        INT.set(b, off, val);
+    }
+
+    /**
+     * Get the largest size that the given amount of data may have once compressed.
+     *
+     * @param length the uncompressed length
+     * @return the largest compressed length
+     */
+    static int maxCompressedLength(final int length) {
+        return length + length / 255 + 16;
+    }
+
+    private static int hash(final int seq) {
+        return (seq * -1640531535) >>> 20;
+    }
+
+    /**
+     * Compress a single independent block.  The destination must have room for
+     * {@link #maxCompressedLength(int) maxCompressedLength(srcLen)} bytes.
+     *
+     * @param src the source array
+     * @param srcOff the source offset
+     * @param srcLen the source length
+     * @param dst the destination array
+     * @param dstOff the destination offset
+     * @param table the hash table, of {@link #HASH_SIZE} entries
+     * @param acceleration the acceleration factor; larger values trade compression ratio for speed
+     * @return the compressed length
+     */
+    static int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstOff, final int[] table, final int acceleration) {
+        final int srcEnd = srcOff + srcLen;
+        int ip = srcOff;
+        int anchor = srcOff;
+        int op = dstOff;
+        if (srcLen > MF_LIMIT) {
+            final int mfLimit = srcEnd - MF_LIMIT;
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            Arrays.fill(table, -1);
+            while (ip < mfLimit) {
+                final int seq = readInt(src, ip);
+                final int h = hash(seq);
+                int ref = table[h];
+                table[h] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != seq) {
+                    // the longer we go without a match, the faster we skip ahead
+                    ip += acceleration + ((ip - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip --;
+                    ref --;
+                }
+                final int matchLen = MIN_MATCH + count(src, ip + MIN_MATCH, ref + MIN_MATCH, matchLimit);
+                op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLen);
+                ip += matchLen;
+                anchor = ip;
+                if (ip < mfLimit) {
+                    table[hash(readInt(src, ip - 2))] = ip - 2;
+                }
+            }
+        }
+        // last literals
+        final int litLen = srcEnd - anchor;
+        final int token = op ++;
+        if (litLen >= 15) {
+            dst[token] = (byte) 0xF0;
+            op = writeLength(dst, op, litLen - 15);
+        } else {
+            dst[token] = (byte) (litLen << 4);
+        }
+        System.arraycopy(src, anchor, dst, op, litLen);
+        return op + litLen - dstOff;
+    }
+
+    private static int count(final byte[] src, int a, int b, final int limit) {
+        final int start = a;
+        while (a <= limit - 8) {
+            final long diff = (long) LONG.get(src, a) ^ (long) LONG.get(src, b);
+            if (diff != 0) {
+                return a - start + (Long.numberOfTrailingZeros(diff) >>> 3);
+            }
+            a += 8;
+            b += 8;
+        }
+        while (a < limit && src[a] == src[b]) {
+            a ++;
+            b ++;
+        }
+        return a - start;
+    }
+
+    private static int writeSequence(final byte[] src, final int litOff, final int litLen, final byte[] dst, int op, final int offset, final int matchLen) {
+        final int token = op ++;
+        int tokenVal;
+        if (litLen >= 15) {
+            tokenVal = 0xF0;
+            op = writeLength(dst, op, litLen - 15);
+        } else {
+            tokenVal = litLen << 4;
+        }
+        System.arraycopy(src, litOff, dst, op, litLen);
+        op += litLen;
+        dst[op ++] = (byte) offset;
+        dst[op ++] = (byte) (offset >>> 8);
+        final int ml = matchLen - MIN_MATCH;
+        if (ml >= 15) {
+            tokenVal |= 0x0F;
+            op = writeLength(dst, op, ml - 15);
+        } else {
+            tokenVal |= ml;
+        }
+        dst[token] = (byte) tokenVal;
+        return op;
+    }
+
+    private static int writeLength(final byte[] dst, int op, int len) {
+        while (len >= 255) {
+            dst[op ++] = (byte) 255;
+            len -= 255;
+        }
+        dst[op ++] = (byte) len;
+        return op;
+    }
+
+    /**
+     * Decompress a single block.  Matches may refer back as far as {@code dstStart}, which allows the data preceding
+     * {@code dstOff} to serve as the history of linked blocks.
+     *
+     * @param src the source array
+     * @param srcOff the source offset
+     * @param srcLen the source length
+     * @param dst the destination array
+     * @param dstStart the start of the history in the destination array
+     * @param dstOff the destination offset
+     * @param dstLimit the destination limit
+     * @return the decompressed length
+     * @throws IOException if the block is malformed
+     */
+    static int decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dst, final int dstStart, final int dstOff, final int dstLimit) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        int ip = srcOff;
+        int op = dstOff;
+        for (;;) {
+            if (ip == srcEnd) {
+                throw msg.invalidLz4Frame("truncated block");
+            }
+            final int token = src[ip ++] & 0xFF;
+            int litLen = token >>> 4;
+            if (litLen == 15) {
+                int b;
+                do {
+                    if (ip == srcEnd) {
+                        throw msg.invalidLz4Frame("truncated block");
+                    }
+                    b = src[ip ++] & 0xFF;
+                    litLen += b;
+                } while (b == 255);
+            }
+            if (litLen > srcEnd - ip || litLen > dstLimit - op) {
+                throw msg.invalidLz4Frame("literal length out of bounds");
+            }
+            System.arraycopy(src, ip, dst, op, litLen);
+            ip += litLen;
+            op += litLen;
+            if (ip == srcEnd) {
+                // the last sequence has no match
+                return op - dstOff;
+            }
+            if (srcEnd - ip < 2) {
+                throw msg.invalidLz4Frame("truncated block");
+            }
+            final int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+            ip += 2;
+            final int ref = op - offset;
+            if (offset == 0 || ref < dstStart) {
+                throw msg.invalidLz4Frame("match offset out of bounds");
+            }
+            int matchLen = token & 0x0F;
+            if (matchLen == 15) {
+                int b;
+                do {
+                    if (ip == srcEnd) {
+                        throw msg.invalidLz4Frame("truncated block");
+                    }
+                    b = src[ip ++] & 0xFF;
+                    matchLen += b;
+                } while (b == 255);
+            }
+            matchLen += MIN_MATCH;
+            if (matchLen > dstLimit - op) {
+                throw msg.invalidLz4Frame("match length out of bounds");
+            }
+            if (offset >= matchLen) {
+                System.arraycopy(dst, ref, dst, op, matchLen);
+            } else {
+                // overlapping match, which repeats the last offset bytes
+                for (int i = 0; i < matchLen; i ++) {
+                    dst[op + i] = dst[ref + i];
+                }
+            }
+            op += matchLen;
+        }
+    }
+
+    // XXH32
+
+    private static final int PRIME1 = 0x9E3779B1;
+    private static final int PRIME2 = 0x85EBCA77;
+    private static final int PRIME3 = 0xC2B2AE3D;
+    private static final int PRIME4 = 0x27D4EB2F;
+    private static final int PRIME5 = 0x165667B1;
+
+    private static int round(final int acc, final int input) {
+        return Integer.rotateLeft(acc + input * PRIME2, 13) * PRIME1;
+    }
+
+    private static int tail(int h, final byte[] b, int off, final int end) {
+        while (off <= end - 4) {
+            h = Integer.rotateLeft(h + readInt(b, off) * PRIME3, 17) * PRIME4;
+            off += 4;
+        }
+        while (off < end) {
+            h = Integer.rotateLeft(h + (b[off] & 0xFF) * PRIME5, 11) * PRIME1;
+            off ++;
+        }
+        h ^= h >>> 15;
+        h *= PRIME2;
+        h ^= h >>> 13;
+        h *= PRIME3;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Compute the XXH32 checksum of the given bytes, with a seed of zero.
+     *
+     * @param b the array
+     * @param off the offset
+     * @param len the length
+     * @return the checksum
+     */
+    static int xxh32(final byte[] b, int off, final int len) {
+        final int end = off + len;
+        int h;
+        if (len >= 16) {
+            int v1 = PRIME1 + PRIME2;
+            int v2 = PRIME2;
+            int v3 = 0;
+            int v4 = -PRIME1;
+            do {
+                v1 = round(v1, readInt(b, off));
+                v2 = round(v2, readInt(b, off + 4));
+                v3 = round(v3, readInt(b, off + 8));
+                v4 = round(v4, readInt(b, off + 12));
+                off += 16;
+            } while (off <= end - 16);
+            h = Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+        } else {
+            h = PRIME5;
+        }
+        return tail(h + len, b, off, end);
+    }
+
+    /**
+     * An incremental XXH32 checksum, with a seed of zero.
+     */
+    static final class Xxh32 {
+        private final byte[] buffer = new byte[16];
+        private int buffered;
+        private long length;
+        private int v1 = PRIME1 + PRIME2;
+        private int v2 = PRIME2;
+        private int v3 = 0;
+        private int v4 = -PRIME1;
+
+        void update(final byte[] b, int off, int len) {
+            length += len;
+            if (buffered > 0) {
+                final int cnt = Math.min(len, 16 - buffered);
+                System.arraycopy(b, off, buffer, buffered, cnt);
+                buffered += cnt;
+                off += cnt;
+                len -= cnt;
+                if (buffered < 16) {
+                    return;
+                }
+                stripe(buffer, 0);
+                buffered = 0;
+            }
+            while (len >= 16) {
+                stripe(b, off);
+                off += 16;
+                len -= 16;
+            }
+            System.arraycopy(b, off, buffer, 0, len);
+            buffered = len;
+        }
+
+        private void stripe(final byte[] b, final int off) {
+            v1 = round(v1, readInt(b, off));
+            v2 = round(v2, readInt(b, off + 4));
+            v3 = round(v3, readInt(b, off + 8));
+            v4 = round(v4, readInt(b, off + 12));
+        }
+
+        int digest() {
+            final int h;
+            if (length >= 16) {
+                h = Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+            } else {
+                h = PRIME5;
+            }
+            return tail(h + (int) length, buffer, 0, buffered);
+        }
+    }
+}
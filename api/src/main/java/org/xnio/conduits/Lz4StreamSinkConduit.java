@@ -0,0 +1,256 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
+import org.xnio.channels.StreamSourceChannel;
+
+/**
+ * A filtering stream sink conduit which compresses the written data into the LZ4 frame format.  Data is compressed in
+ * independent blocks of up to 256 KiB; each flush emits the data written so far as a (possibly shorter) block.  The
+ * frame is completed once writes are terminated and the conduit is flushed.
+ * <p>
+ * Both the pending input and the compressed output are staged in a single {@linkplain ByteBufferPool#LARGE_HEAP large
+ * pooled buffer}, which is allocated on the first write and released once the frame is complete.
+ */
+public final class Lz4StreamSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> implements StreamSinkConduit {
+
+    static final int BLOCK_SIZE = 0x40000;
+    private static final int HEADER_SIZE = 7;
+
+    private final int acceleration;
+    private ByteBuffer pooled;
+    private ByteBuffer inBuffer;
+    private ByteBuffer outBuffer;
+    private int[] table;
+    private boolean headerWritten;
+    private boolean finishing;
+    private boolean endMarkWritten;
+    private boolean released;
+
+    /**
+     * Construct a new instance.  The compression level follows the conventions of {@link java.util.zip.Deflater}:
+     * level 0 stores the data without compressing it, level 9 gives the best compression and lower levels trade
+     * compression ratio for speed.  Level -1 selects the default, which is the same as level 9 since LZ4 is already
+     * fast at its best ratio.
+     *
+     * @param next the delegate conduit to set
+     * @param level the compression level, from 0 to 9, or -1 for the default
+     */
+    public Lz4StreamSinkConduit(final StreamSinkConduit next, final int level) {
+        super(next);
+        if (level < -1 || level > 9) {
+            throw msg.parameterOutOfRange("level");
+        }
+        acceleration = level == -1 ? 1 : level == 0 ? 0 : 10 - level;
+    }
+
+    public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
+        return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+    }
+
+    public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
+        return Conduits.transfer(source, count, throughBuffer, this);
+    }
+
+    public int write(final ByteBuffer src) throws IOException {
+        checkWritable();
+        final ByteBuffer inBuffer = this.inBuffer;
+        int cnt = 0;
+        for (;;) {
+            cnt += Buffers.copy(inBuffer, src);
+            if (! src.hasRemaining() || ! emitBlock()) {
+                return cnt;
+            }
+        }
+    }
+
+    public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+        checkWritable();
+        final ByteBuffer inBuffer = this.inBuffer;
+        long cnt = 0;
+        for (;;) {
+            cnt += Buffers.copy(inBuffer, srcs, offset, length);
+            if (! Buffers.hasRemaining(srcs, offset, length) || ! emitBlock()) {
+                return cnt;
+            }
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (released || finishing) {
+            throw msg.streamClosed();
+        }
+        allocate();
+    }
+
+    private void allocate() {
+        if (pooled == null) {
+            final ByteBuffer pooled = this.pooled = ByteBufferPool.LARGE_HEAP.allocate();
+            pooled.limit(BLOCK_SIZE);
+            inBuffer = pooled.slice();
+            pooled.clear().position(BLOCK_SIZE);
+            outBuffer = pooled.slice();
+            pooled.clear();
+            if (acceleration > 0) {
+                table = new int[Lz4.HASH_SIZE];
+            }
+        }
+    }
+
+    /**
+     * Compress the full input buffer once the previous block is written out.
+     *
+     * @return {@code true} if the input buffer was emptied, {@code false} if the next conduit is not accepting writes
+     */
+    private boolean emitBlock() throws IOException {
+        if (! drain()) {
+            return false;
+        }
+        compressBlock();
+        return true;
+    }
+
+    private boolean drain() throws IOException {
+        final ByteBuffer outBuffer = this.outBuffer;
+        if (outBuffer.position() == 0) {
+            return true;
+        }
+        outBuffer.flip();
+        try {
+            while (outBuffer.hasRemaining()) {
+                if (next.write(outBuffer) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            outBuffer.compact();
+        }
+    }
+
+    private void compressBlock() {
+        final ByteBuffer inBuffer = this.inBuffer;
+        final ByteBuffer outBuffer = this.outBuffer;
+        final byte[] in = inBuffer.array();
+        final int inOff = inBuffer.arrayOffset();
+        final int len = inBuffer.position();
+        final byte[] out = outBuffer.array();
+        int op = outBuffer.arrayOffset() + outBuffer.position();
+        if (! headerWritten) {
+            op = writeHeader(out, op);
+        }
+        final int sizeOff = op;
+        op += 4;
+        final int compressedLen = acceleration == 0 ? len : Lz4.compress(in, inOff, len, out, op, table, acceleration);
+        if (compressedLen < len) {
+            Lz4.writeInt(out, sizeOff, compressedLen);
+            op += compressedLen;
+        } else {
+            // not worth it
+            Lz4.writeInt(out, sizeOff, len | Lz4.UNCOMPRESSED_BLOCK);
+            System.arraycopy(in, inOff, out, op, len);
+            op += len;
+        }
+        outBuffer.position(op - outBuffer.arrayOffset());
+        inBuffer.clear();
+    }
+
+    private int writeHeader(final byte[] out, final int op) {
+        Lz4.writeInt(out, op, Lz4.MAGIC);
+        out[op + 4] = (byte) (Lz4.FLG_VERSION | Lz4.FLG_BLOCK_INDEPENDENCE);
+        out[op + 5] = (byte) Lz4.BD_256KB;
+        out[op + 6] = (byte) (Lz4.xxh32(out, op + 4, 2) >>> 8);
+        headerWritten = true;
+        return op + HEADER_SIZE;
+    }
+
+    public boolean flush() throws IOException {
+        if (released) {
+            return next.flush();
+        }
+        if (pooled == null && ! finishing) {
+            return next.flush();
+        }
+        allocate();
+        for (;;) {
+            if (! drain()) {
+                return false;
+            }
+            if (inBuffer.position() > 0) {
+                compressBlock();
+            } else if (! finishing) {
+                return next.flush();
+            } else if (! endMarkWritten) {
+                final ByteBuffer outBuffer = this.outBuffer;
+                final byte[] out = outBuffer.array();
+                int op = outBuffer.arrayOffset() + outBuffer.position();
+                if (! headerWritten) {
+                    op = writeHeader(out, op);
+                }
+                Lz4.writeInt(out, op, 0);
+                outBuffer.position(op + 4 - outBuffer.arrayOffset());
+                endMarkWritten = true;
+            } else {
+                release();
+                next.terminateWrites();
+                return next.flush();
+            }
+        }
+    }
+
+    @Override
+    public int writeFinal(ByteBuffer src) throws IOException {
+        return Conduits.writeFinalBasic(this, src);
+    }
+
+    @Override
+    public long writeFinal(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        return Conduits.writeFinalBasic(this, srcs, offset, length);
+    }
+
+    public void terminateWrites() throws IOException {
+        if (! released) {
+            finishing = true;
+        }
+    }
+
+    public void truncateWrites() throws IOException {
+        release();
+        next.truncateWrites();
+    }
+
+    private void release() {
+        released = true;
+        final ByteBuffer pooled = this.pooled;
+        if (pooled != null) {
+            this.pooled = null;
+            inBuffer = outBuffer = null;
+            table = null;
+            ByteBufferPool.free(pooled);
+        }
+    }
+}
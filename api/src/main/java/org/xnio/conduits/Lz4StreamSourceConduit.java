@@ -0,0 +1,339 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.xnio.ByteBufferPool;
+import org.xnio.channels.StreamSinkChannel;
+
+/**
+ * A filtering stream source conduit which decompresses source data in the LZ4 frame format.  Concatenated frames and
+ * skippable frames are supported, as are block and content checksums.  Frames with a maximum block size above 256 KiB
+ * or with a dictionary ID are rejected.
+ * <p>
+ * The compressed input and the decompressed output are each staged in a {@linkplain ByteBufferPool#LARGE_HEAP large
+ * pooled buffer}, which are allocated on the first read and released when reads are terminated.
+ */
+public final class Lz4StreamSourceConduit extends AbstractStreamSourceConduit<StreamSourceConduit> implements StreamSourceConduit {
+
+    private static final int HISTORY_SIZE = 0x10000;
+
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_SKIP = 1;
+    private static final int STATE_BLOCK_SIZE = 2;
+    private static final int STATE_BLOCK = 3;
+    private static final int STATE_CONTENT_CHECKSUM = 4;
+
+    private ByteBuffer inBuffer;
+    private ByteBuffer outBuffer;
+    private int state = STATE_HEADER;
+    private int flags;
+    private int maxBlockSize;
+    private int blockSize;
+    private boolean uncompressedBlock;
+    private long skipRemaining;
+    private int historySize;
+    private int lastBlockSize;
+    private Lz4.Xxh32 contentChecksum;
+    private boolean eof;
+    private boolean released;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param next the underlying conduit for this channel
+     */
+    public Lz4StreamSourceConduit(final StreamSourceConduit next) {
+        super(next);
+    }
+
+    public long transferTo(final long position, final long count, final FileChannel target) throws IOException {
+        return target.transferFrom(new ConduitReadableByteChannel(this), position, count);
+    }
+
+    public long transferTo(final long count, final ByteBuffer throughBuffer, final StreamSinkChannel target) throws IOException {
+        return Conduits.transfer(this, count, throughBuffer, target);
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        if (released) {
+            return -1;
+        }
+        if (! dst.hasRemaining()) {
+            return 0;
+        }
+        if (inBuffer == null) {
+            allocate();
+        }
+        final ByteBuffer outBuffer = this.outBuffer;
+        for (;;) {
+            if (outBuffer.hasRemaining()) {
+                final int cnt = Math.min(dst.remaining(), outBuffer.remaining());
+                final int pos = outBuffer.position();
+                dst.put(outBuffer.array(), outBuffer.arrayOffset() + pos, cnt);
+                outBuffer.position(pos + cnt);
+                return cnt;
+            }
+            if (! advance()) {
+                if (eof) {
+                    if (state == STATE_HEADER && ! inBuffer.hasRemaining()) {
+                        return -1;
+                    }
+                    throw msg.connectionClosedEarly();
+                }
+                return 0;
+            }
+        }
+    }
+
+    public long read(final ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    public long read(final ByteBuffer[] dsts, final int offset, final int length) throws IOException {
+        for (int i = 0; i < length; i ++) {
+            final ByteBuffer buffer = dsts[i + offset];
+            if (buffer.hasRemaining()) {
+                return read(buffer);
+            }
+        }
+        return 0L;
+    }
+
+    private void allocate() {
+        final ByteBuffer inBuffer = this.inBuffer = ByteBufferPool.LARGE_HEAP.allocate();
+        inBuffer.flip();
+        final ByteBuffer outBuffer = this.outBuffer = ByteBufferPool.LARGE_HEAP.allocate();
+        outBuffer.position(HISTORY_SIZE).flip();
+        outBuffer.position(HISTORY_SIZE);
+    }
+
+    /**
+     * Make sure that the given number of bytes is available in the input buffer.
+     *
+     * @param cnt the number of bytes
+     * @return {@code true} if the bytes are available, {@code false} otherwise
+     */
+    private boolean ensure(final int cnt) throws IOException {
+        final ByteBuffer inBuffer = this.inBuffer;
+        if (inBuffer.remaining() >= cnt) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        inBuffer.compact();
+        try {
+            while (inBuffer.position() < cnt) {
+                final int res = next.read(inBuffer);
+                if (res == -1) {
+                    eof = true;
+                    return false;
+                } else if (res == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            inBuffer.flip();
+        }
+    }
+
+    /**
+     * Process the input until a block is decompressed.
+     *
+     * @return {@code true} if a block is available in the output buffer, {@code false} if more input is needed
+     */
+    private boolean advance() throws IOException {
+        final ByteBuffer inBuffer = this.inBuffer;
+        for (;;) switch (state) {
+            case STATE_HEADER: {
+                if (! ensure(4)) {
+                    return false;
+                }
+                final byte[] in = inBuffer.array();
+                final int magic = Lz4.readInt(in, inBuffer.arrayOffset() + inBuffer.position());
+                if ((magic & Lz4.SKIPPABLE_MAGIC_MASK) == Lz4.SKIPPABLE_MAGIC) {
+                    if (! ensure(8)) {
+                        return false;
+                    }
+                    skipRemaining = Lz4.readInt(in, inBuffer.arrayOffset() + inBuffer.position() + 4) & 0xFFFFFFFFL;
+                    inBuffer.position(inBuffer.position() + 8);
+                    state = STATE_SKIP;
+                    break;
+                }
+                if (magic != Lz4.MAGIC) {
+                    throw msg.invalidLz4Frame("bad magic number");
+                }
+                if (! ensure(7)) {
+                    return false;
+                }
+                int off = inBuffer.arrayOffset() + inBuffer.position();
+                final int flg = in[off + 4] & 0xFF;
+                final int bd = in[off + 5] & 0xFF;
+                if ((flg & 0xC2) != Lz4.FLG_VERSION || (bd & 0x8F) != 0) {
+                    throw msg.invalidLz4Frame("bad frame descriptor");
+                }
+                if ((flg & Lz4.FLG_DICT_ID) != 0) {
+                    throw msg.unsupportedLz4Frame("dictionary ID");
+                }
+                if (bd == Lz4.BD_64KB) {
+                    maxBlockSize = 0x10000;
+                } else if (bd == Lz4.BD_256KB) {
+                    maxBlockSize = 0x40000;
+                } else {
+                    throw msg.unsupportedLz4Frame("block maximum size");
+                }
+                final int descriptorSize = (flg & Lz4.FLG_CONTENT_SIZE) != 0 ? 10 : 2;
+                if (! ensure(5 + descriptorSize)) {
+                    return false;
+                }
+                off = inBuffer.arrayOffset() + inBuffer.position();
+                if ((in[off + 4 + descriptorSize] & 0xFF) != (Lz4.xxh32(in, off + 4, descriptorSize) >>> 8 & 0xFF)) {
+                    throw msg.invalidLz4Frame("header checksum mismatch");
+                }
+                inBuffer.position(inBuffer.position() + 5 + descriptorSize);
+                flags = flg;
+                contentChecksum = (flg & Lz4.FLG_CONTENT_CHECKSUM) != 0 ? new Lz4.Xxh32() : null;
+                historySize = 0;
+                lastBlockSize = 0;
+                state = STATE_BLOCK_SIZE;
+                break;
+            }
+            case STATE_SKIP: {
+                while (skipRemaining > 0) {
+                    if (! inBuffer.hasRemaining() && ! ensure(1)) {
+                        return false;
+                    }
+                    final int cnt = (int) Math.min(skipRemaining, inBuffer.remaining());
+                    inBuffer.position(inBuffer.position() + cnt);
+                    skipRemaining -= cnt;
+                }
+                state = STATE_HEADER;
+                break;
+            }
+            case STATE_BLOCK_SIZE: {
+                if (! ensure(4)) {
+                    return false;
+                }
+                final int size = Lz4.readInt(inBuffer.array(), inBuffer.arrayOffset() + inBuffer.position());
+                inBuffer.position(inBuffer.position() + 4);
+                if (size == 0) {
+                    // the end mark
+                    state = contentChecksum == null ? STATE_HEADER : STATE_CONTENT_CHECKSUM;
+                    break;
+                }
+                uncompressedBlock = (size & Lz4.UNCOMPRESSED_BLOCK) != 0;
+                blockSize = size & ~Lz4.UNCOMPRESSED_BLOCK;
+                if (blockSize > maxBlockSize) {
+                    throw msg.invalidLz4Frame("block too large");
+                }
+                state = STATE_BLOCK;
+                break;
+            }
+            case STATE_BLOCK: {
+                final boolean blockChecksum = (flags & Lz4.FLG_BLOCK_CHECKSUM) != 0;
+                if (! ensure(blockChecksum ? blockSize + 4 : blockSize)) {
+                    return false;
+                }
+                final byte[] in = inBuffer.array();
+                final int off = inBuffer.arrayOffset() + inBuffer.position();
+                if (blockChecksum && Lz4.readInt(in, off + blockSize) != Lz4.xxh32(in, off, blockSize)) {
+                    throw msg.invalidLz4Frame("block checksum mismatch");
+                }
+                decodeBlock(in, off);
+                inBuffer.position(inBuffer.position() + (blockChecksum ? blockSize + 4 : blockSize));
+                state = STATE_BLOCK_SIZE;
+                return true;
+            }
+            case STATE_CONTENT_CHECKSUM: {
+                if (! ensure(4)) {
+                    return false;
+                }
+                if (Lz4.readInt(inBuffer.array(), inBuffer.arrayOffset() + inBuffer.position()) != contentChecksum.digest()) {
+                    throw msg.invalidLz4Frame("content checksum mismatch");
+                }
+                inBuffer.position(inBuffer.position() + 4);
+                contentChecksum = null;
+                state = STATE_HEADER;
+                break;
+            }
+            default: throw new IllegalStateException();
+        }
+    }
+
+    private void decodeBlock(final byte[] in, final int off) throws IOException {
+        final ByteBuffer outBuffer = this.outBuffer;
+        final byte[] out = outBuffer.array();
+        final int base = outBuffer.arrayOffset() + HISTORY_SIZE;
+        final int historyStart;
+        if ((flags & Lz4.FLG_BLOCK_INDEPENDENCE) == 0) {
+            // linked blocks may refer to the last 64 KiB of data, which is kept just before the block
+            final int historySize = this.historySize = Math.min(HISTORY_SIZE, this.historySize + lastBlockSize);
+            System.arraycopy(out, base + lastBlockSize - historySize, out, base - historySize, historySize);
+            historyStart = base - historySize;
+        } else {
+            historyStart = base;
+        }
+        final int len;
+        if (uncompressedBlock) {
+            System.arraycopy(in, off, out, base, blockSize);
+            len = blockSize;
+        } else {
+            len = Lz4.decompress(in, off, blockSize, out, historyStart, base, base + maxBlockSize);
+        }
+        if (contentChecksum != null) {
+            contentChecksum.update(out, base, len);
+        }
+        lastBlockSize = len;
+        outBuffer.limit(HISTORY_SIZE + len).position(HISTORY_SIZE);
+    }
+
+    public void terminateReads() throws IOException {
+        if (! released) {
+            released = true;
+            if (inBuffer != null) {
+                ByteBufferPool.free(inBuffer);
+                ByteBufferPool.free(outBuffer);
+                inBuffer = outBuffer = null;
+            }
+        }
+        next.terminateReads();
+    }
+
+    public void awaitReadable() throws IOException {
+        if (released || outBuffer != null && outBuffer.hasRemaining()) {
+            return;
+        }
+        next.awaitReadable();
+    }
+
+    public void awaitReadable(final long time, final TimeUnit timeUnit) throws IOException {
+        if (released || outBuffer != null && outBuffer.hasRemaining()) {
+            return;
+        }
+        next.awaitReadable(time, timeUnit);
+    }
+}
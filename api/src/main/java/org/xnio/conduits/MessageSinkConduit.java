@@ -68,4 +68,28 @@ public interface MessageSinkConduit extends SinkConduit {
      * @throws IOException if an I/O error occurs
      */
     boolean sendFinal(ByteBuffer[] srcs, int offs, int len) throws IOException;
+
+    /**
+     * Send a batch of complete messages, in order.  Each message is sent in its entirety or not at all; the number
+     * of messages sent is returned, which is less than {@code len} if sending another message would block.
+     * Implementations may send the whole batch with a single gathering write.
+     * <p>
+     * The default implementation sends each message with {@link #send(ByteBuffer[], int, int)}.
+     *
+     * @param messages the messages to send, each given as an array of buffers
+     * @param offs the offset into the message array of the first message
+     * @param len the number of messages to send
+     * @return the number of messages which were sent
+     * @throws IOException if an I/O error occurs
+     * @since 3.10
+     */
+    default int sendBatch(ByteBuffer[][] messages, int offs, int len) throws IOException {
+        for (int i = 0; i < len; i ++) {
+            final ByteBuffer[] message = messages[offs + i];
+            if (! send(message, 0, message.length)) {
+                return i;
+            }
+        }
+        return len;
+    }
 }
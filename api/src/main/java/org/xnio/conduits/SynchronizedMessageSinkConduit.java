@@ -71,4 +71,10 @@ public final class SynchronizedMessageSinkConduit extends AbstractSynchronizedSi
             return next.sendFinal(srcs, offs, len);
         }
     }
+
+    public int sendBatch(final ByteBuffer[][] messages, final int offs, final int len) throws IOException {
+        synchronized (lock) {
+            return next.sendBatch(messages, offs, len);
+        }
+    }
 }
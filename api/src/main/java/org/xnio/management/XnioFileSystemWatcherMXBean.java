@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.management;
+
+/**
+ * Metrics of a file system watcher.  A watcher which provides them is registered as an MBean while it is open, and
+ * the {@link org.xnio.FileSystemWatcher} returned by the provider implements this interface.
+ *
+ * @since 3.10
+ */
+public interface XnioFileSystemWatcherMXBean {
+    /**
+     * Get the name of the provider.
+     *
+     * @return the name of the provider
+     */
+    String getProviderName();
+
+    /**
+     * Get the name of the watcher, which is the name of its thread.
+     *
+     * @return the name of the watcher
+     */
+    String getName();
+
+    /**
+     * Get the number of events which were reported by the file system.
+     *
+     * @return the number of raw events
+     */
+    long getRawEventCount();
+
+    /**
+     * Get the number of events which were delivered to the callbacks, after removing the duplicates and merging the
+     * debounced events.  An event which is delivered to several callbacks of a path is counted once.
+     *
+     * @return the number of delivered events
+     */
+    long getDeliveredEventCount();
+}
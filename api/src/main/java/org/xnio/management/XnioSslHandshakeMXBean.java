@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.management;
+
+/**
+ * Metrics of the SSL handshakes of an SSL provider.
+ *
+ * @since 3.10
+ */
+public interface XnioSslHandshakeMXBean {
+    /**
+     * Get the name of the provider.
+     *
+     * @return the name of the provider
+     */
+    String getProviderName();
+
+    /**
+     * Get the number of threads of the handshake executor.
+     *
+     * @return the number of threads, or 0 if delegated tasks are run in the I/O thread
+     */
+    int getHandshakeThreads();
+
+    /**
+     * Get the maximum number of concurrent handshakes.
+     *
+     * @return the maximum number of concurrent handshakes, or 0 if unlimited
+     */
+    int getMaxConcurrentHandshakes();
+
+    /**
+     * Get an estimate of the number of handshakes in progress.
+     *
+     * @return an estimate of the number of handshakes in progress
+     */
+    int getActiveHandshakeCount();
+
+    /**
+     * Get an estimate of the number of connections waiting for a handshake to complete before starting their own.
+     *
+     * @return an estimate of the number of parked connections
+     */
+    int getParkedHandshakeCount();
+
+    /**
+     * Get the number of completed handshakes.
+     *
+     * @return the number of completed handshakes
+     */
+    long getCompletedHandshakeCount();
+
+    /**
+     * Get the number of completed handshakes which resumed a cached session or a session ticket.
+     *
+     * @return the number of resumed handshakes
+     */
+    long getResumptionHitCount();
+
+    /**
+     * Get the number of completed handshakes which established a new session.
+     *
+     * @return the number of full handshakes
+     */
+    long getResumptionMissCount();
+
+    /**
+     * Get the number of handshakes completed during the last full second.
+     *
+     * @return the handshake rate, per second
+     */
+    long getHandshakeRate();
+
+    /**
+     * Get the average duration of a handshake, from admission to completion.
+     *
+     * @return the average handshake duration, in microseconds
+     */
+    long getAverageHandshakeTime();
+
+    /**
+     * Get the longest duration of a handshake, from admission to completion.
+     *
+     * @return the longest handshake duration, in microseconds
+     */
+    long getMaxHandshakeTime();
+
+    /**
+     * Get the number of delegated tasks which were run by the handshake executor.
+     *
+     * @return the number of delegated tasks
+     */
+    long getDelegatedTaskCount();
+
+    /**
+     * Get an estimate of the number of delegated tasks waiting for a thread of the handshake executor.
+     *
+     * @return the number of queued delegated tasks
+     */
+    int getDelegatedTaskQueueSize();
+
+    /**
+     * Get the average time a delegated task waits for a thread of the handshake executor.
+     *
+     * @return the average queue time, in microseconds
+     */
+    long getAverageDelegatedTaskQueueTime();
+}
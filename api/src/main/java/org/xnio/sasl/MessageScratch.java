@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.sasl;
+
+import java.nio.ByteBuffer;
+
+import org.xnio.Buffers;
+
+/**
+ * A per-conduit array into which the messages which a SASL mechanism cannot read in place are gathered.  SASL
+ * mechanisms only accept arrays, so a message held by a single heap buffer is passed to them as is, while a message
+ * spread over several buffers or held by a direct buffer is copied here once instead of into a new array.  The array
+ * grows to the size of the largest message and is reused for every later message.
+ */
+final class MessageScratch {
+    private byte[] array = SaslUtils.EMPTY_BYTES;
+
+    /**
+     * Determine whether a message has to be gathered before it is passed to the mechanism.
+     *
+     * @param srcs the buffers of the message
+     * @param offs the offset into the buffer array
+     * @param len the number of buffers
+     * @return {@code true} if the message must be gathered, {@code false} if its only buffer can be read in place
+     */
+    static boolean needsGather(final ByteBuffer[] srcs, final int offs, final int len) {
+        return len != 1 || ! srcs[offs].hasArray();
+    }
+
+    /**
+     * Gather a message, consuming its buffers.
+     *
+     * @param srcs the buffers of the message
+     * @param offs the offset into the buffer array
+     * @param len the number of buffers
+     * @return the size of the message, which starts at offset zero of {@link #array()}
+     */
+    int gather(final ByteBuffer[] srcs, final int offs, final int len) {
+        final int size = (int) Buffers.remaining(srcs, offs, len);
+        Buffers.copy(ByteBuffer.wrap(array(size), 0, size), srcs, offs, len);
+        return size;
+    }
+
+    /**
+     * Gather a message, consuming its buffer.
+     *
+     * @param src the buffer of the message
+     * @return the size of the message, which starts at offset zero of {@link #array()}
+     */
+    int gather(final ByteBuffer src) {
+        final int size = src.remaining();
+        src.get(array(size), 0, size);
+        return size;
+    }
+
+    /**
+     * Get the array holding the last gathered message.  The array is overwritten by the next message, so it must not
+     * be retained.
+     *
+     * @return the array
+     */
+    byte[] array() {
+        return array;
+    }
+
+    private byte[] array(final int size) {
+        byte[] array = this.array;
+        if (array.length < size) {
+            this.array = array = new byte[size];
+        }
+        return array;
+    }
+}
@@ -20,7 +20,6 @@ package org.xnio.sasl;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import org.xnio.Buffers;
 import org.xnio.conduits.AbstractMessageSinkConduit;
 import org.xnio.conduits.Conduits;
 import org.xnio.conduits.MessageSinkConduit;
@@ -31,6 +30,7 @@ import org.xnio.conduits.MessageSinkConduit;
 public final class SaslUnwrappingConduit extends AbstractMessageSinkConduit<MessageSinkConduit> implements MessageSinkConduit {
     private final SaslWrapper wrapper;
     private ByteBuffer buffer;
+    private final MessageScratch scratch = new MessageScratch();
 
     public SaslUnwrappingConduit(final MessageSinkConduit next, final SaslWrapper wrapper) {
         super(next);
@@ -41,7 +41,7 @@ public final class SaslUnwrappingConduit extends AbstractMessageSinkConduit<Mess
         if (! doSend()) {
             return false;
         }
-        ByteBuffer wrapped = ByteBuffer.wrap(wrapper.unwrap(src));
+        ByteBuffer wrapped = ByteBuffer.wrap(src.hasArray() ? wrapper.unwrap(src) : wrapper.unwrap(scratch.array(), 0, scratch.gather(src)));
         if (! next.send(wrapped)) {
             buffer = wrapped;
         }
@@ -52,8 +52,13 @@ public final class SaslUnwrappingConduit extends AbstractMessageSinkConduit<Mess
         if (! doSend()) {
             return false;
         }
-        final byte[] bytes = Buffers.take(srcs, offs, len);
-        final ByteBuffer wrapped = ByteBuffer.wrap(wrapper.unwrap(bytes));
+        final byte[] bytes;
+        if (MessageScratch.needsGather(srcs, offs, len)) {
+            bytes = wrapper.unwrap(scratch.array(), 0, scratch.gather(srcs, offs, len));
+        } else {
+            bytes = wrapper.unwrap(srcs[offs]);
+        }
+        final ByteBuffer wrapped = ByteBuffer.wrap(bytes);
         if (! next.send(wrapped)) {
             this.buffer = wrapped;
         }
@@ -282,7 +282,7 @@ public final class SaslUtils {
             result = client.wrap(EMPTY_BYTES, 0, len);
         } else if (source.hasArray()) {
             final byte[] array = source.array();
-            final int offs = source.arrayOffset();
+            final int offs = source.arrayOffset() + source.position();
             source.position(source.position() + len);
             result = client.wrap(array, offs, len);
         } else {
@@ -328,7 +328,7 @@ public final class SaslUtils {
             result = server.wrap(EMPTY_BYTES, 0, len);
         } else if (source.hasArray()) {
             final byte[] array = source.array();
-            final int offs = source.arrayOffset();
+            final int offs = source.arrayOffset() + source.position();
             source.position(source.position() + len);
             result = server.wrap(array, offs, len);
         } else {
@@ -374,7 +374,7 @@ public final class SaslUtils {
             result = client.unwrap(EMPTY_BYTES, 0, len);
         } else if (source.hasArray()) {
             final byte[] array = source.array();
-            final int offs = source.arrayOffset();
+            final int offs = source.arrayOffset() + source.position();
             source.position(source.position() + len);
             result = client.unwrap(array, offs, len);
         } else {
@@ -420,7 +420,7 @@ public final class SaslUtils {
             result = server.unwrap(EMPTY_BYTES, 0, len);
         } else if (source.hasArray()) {
             final byte[] array = source.array();
-            final int offs = source.arrayOffset();
+            final int offs = source.arrayOffset() + source.position();
             source.position(source.position() + len);
             result = server.unwrap(array, offs, len);
         } else {
@@ -20,7 +20,7 @@ package org.xnio.sasl;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import org.xnio.Buffers;
+import javax.security.sasl.SaslException;
 import org.xnio.conduits.AbstractMessageSinkConduit;
 import org.xnio.conduits.Conduits;
 import org.xnio.conduits.MessageSinkConduit;
@@ -31,6 +31,11 @@ import org.xnio.conduits.MessageSinkConduit;
 public final class SaslWrappingConduit extends AbstractMessageSinkConduit<MessageSinkConduit> implements MessageSinkConduit {
     private final SaslWrapper wrapper;
     private ByteBuffer buffer;
+    // wrapped messages of a batch which have yet to be sent
+    private ByteBuffer[][] batch;
+    private int batchPos;
+    private int batchEnd;
+    private final MessageScratch scratch = new MessageScratch();
 
     public SaslWrappingConduit(final MessageSinkConduit next, final SaslWrapper wrapper) {
         super(next);
@@ -41,7 +46,7 @@ public final class SaslWrappingConduit extends AbstractMessageSinkConduit<Messag
         if (! doSend()) {
             return false;
         }
-        ByteBuffer wrapped = ByteBuffer.wrap(wrapper.wrap(src));
+        ByteBuffer wrapped = ByteBuffer.wrap(src.hasArray() ? wrapper.wrap(src) : wrapper.wrap(scratch.array(), 0, scratch.gather(src)));
         if (! next.send(wrapped)) {
             buffer = wrapped;
         }
@@ -52,13 +57,39 @@ public final class SaslWrappingConduit extends AbstractMessageSinkConduit<Messag
         if (! doSend()) {
             return false;
         }
-        final ByteBuffer wrapped = ByteBuffer.wrap(wrapper.wrap(Buffers.take(srcs, offs, len)));
+        final ByteBuffer wrapped = ByteBuffer.wrap(wrap(srcs, offs, len));
         if (! next.send(wrapped)) {
             this.buffer = wrapped;
         }
         return true;
     }
 
+    public int sendBatch(final ByteBuffer[][] messages, final int offs, final int len) throws IOException {
+        if (! doSend()) {
+            return 0;
+        }
+        final ByteBuffer[][] wrapped = new ByteBuffer[len][];
+        for (int i = 0; i < len; i ++) {
+            final ByteBuffer[] message = messages[offs + i];
+            wrapped[i] = new ByteBuffer[] { ByteBuffer.wrap(wrap(message, 0, message.length)) };
+        }
+        final int sent = next.sendBatch(wrapped, 0, len);
+        if (sent < len) {
+            // the messages are consumed, so keep the rest until the next send or flush
+            batch = wrapped;
+            batchPos = sent;
+            batchEnd = len;
+        }
+        return len;
+    }
+
+    private byte[] wrap(final ByteBuffer[] srcs, final int offs, final int len) throws SaslException {
+        if (MessageScratch.needsGather(srcs, offs, len)) {
+            return wrapper.wrap(scratch.array(), 0, scratch.gather(srcs, offs, len));
+        }
+        return wrapper.wrap(srcs[offs]);
+    }
+
     @Override
     public boolean sendFinal(ByteBuffer src) throws IOException {
         return Conduits.sendFinalBasic(this, src);
@@ -71,11 +102,21 @@ public final class SaslWrappingConduit extends AbstractMessageSinkConduit<Messag
 
     private boolean doSend() throws IOException {
         final ByteBuffer buffer = this.buffer;
-        if (buffer != null && next.send(buffer)) {
+        if (buffer != null) {
+            if (! next.send(buffer)) {
+                return false;
+            }
             this.buffer = null;
-            return true;
         }
-        return false;
+        final ByteBuffer[][] batch = this.batch;
+        if (batch != null) {
+            batchPos += next.sendBatch(batch, batchPos, batchEnd - batchPos);
+            if (batchPos < batchEnd) {
+                return false;
+            }
+            this.batch = null;
+        }
+        return true;
     }
 
     public boolean flush() throws IOException {
@@ -32,7 +32,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
-import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 
 import org.xnio.ByteBufferPool;
@@ -56,7 +55,7 @@ import org.xnio.channels.ConnectedChannel;
  * @author <a href="mailto:flavia.rainone@jboss.com">Flavia Rainone</a>
  */
 abstract class AbstractAcceptingSslChannel<C extends ConnectedChannel, S extends ConnectedChannel> implements AcceptingChannel<C> {
-    private final SSLContext sslContext;
+    private final SslEngineFactory engineFactory;
     private final AcceptingChannel<? extends S> tcpServer;
 
     private volatile SslClientAuthMode clientAuthMode;
@@ -83,9 +82,9 @@ abstract class AbstractAcceptingSslChannel<C extends ConnectedChannel, S extends
     protected final ByteBufferPool applicationBufferPool;
 
 
-    AbstractAcceptingSslChannel(final SSLContext sslContext, final AcceptingChannel<? extends S> tcpServer, final OptionMap optionMap, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final boolean startTls) {
+    AbstractAcceptingSslChannel(final SslEngineFactory engineFactory, final AcceptingChannel<? extends S> tcpServer, final OptionMap optionMap, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final boolean startTls) {
         this.tcpServer = tcpServer;
-        this.sslContext = sslContext;
+        this.engineFactory = engineFactory;
         this.socketBufferPool = socketBufferPool;
         this.applicationBufferPool = applicationBufferPool;
         this.startTls = startTls;
@@ -140,8 +139,29 @@ abstract class AbstractAcceptingSslChannel<C extends ConnectedChannel, S extends
         if (tcpConnection == null) {
             return null;
         }
-        final InetSocketAddress peerAddress = tcpConnection.getPeerAddress(InetSocketAddress.class);
-        final SSLEngine engine = sslContext.createSSLEngine(peerAddress.getHostString(), peerAddress.getPort());
+        return accept(tcpConnection, tcpConnection.getPeerAddress(InetSocketAddress.class));
+    }
+
+    /**
+     * Wrap an accepted connection.  By default, the SSL engine of the connection is created right away.
+     *
+     * @param tcpConnection the accepted connection
+     * @param peerAddress the address of the peer
+     * @return the wrapped connection
+     * @throws IOException if the connection could not be wrapped
+     */
+    C accept(final S tcpConnection, final InetSocketAddress peerAddress) throws IOException {
+        return accept(tcpConnection, createEngine(peerAddress));
+    }
+
+    /**
+     * Create the SSL engine of a connection, configured from the options of this server.
+     *
+     * @param peerAddress the address of the peer
+     * @return the SSL engine
+     */
+    SSLEngine createEngine(final InetSocketAddress peerAddress) {
+        final SSLEngine engine = engineFactory.createSSLEngine(peerAddress.getHostString(), peerAddress.getPort());
         final boolean clientMode = useClientMode != 0;
         engine.setUseClientMode(clientMode);
         if (! clientMode) {
@@ -183,7 +203,7 @@ abstract class AbstractAcceptingSslChannel<C extends ConnectedChannel, S extends
             }
             engine.setEnabledProtocols(finalList.toArray(new String[finalList.size()]));
         }
-        return accept(tcpConnection, engine);
+        return engine;
     }
 
     protected abstract C accept(S tcpServer, SSLEngine sslEngine) throws IOException;
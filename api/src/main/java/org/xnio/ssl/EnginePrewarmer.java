@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import static org.xnio._private.Messages.msg;
+
+import java.nio.ByteBuffer;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import org.xnio.Buffers;
+
+/**
+ * Runs handshakes between a client and a server engine of an engine factory, passing the records between them in
+ * memory, so that the handshake code is compiled before the first connection needs it.
+ */
+final class EnginePrewarmer {
+
+    // a handshake takes a handful of flights; anything more means that neither engine can make progress
+    private static final int MAX_STEPS = 64;
+
+    private EnginePrewarmer() {
+    }
+
+    /**
+     * Run the given number of handshakes, stopping at the first one which fails.
+     *
+     * @param engineFactory the engine factory
+     * @param handshakes the number of handshakes to run
+     * @return the number of completed handshakes
+     */
+    static int prewarm(final SslEngineFactory engineFactory, final int handshakes) {
+        final long start = System.nanoTime();
+        int completed = 0;
+        try {
+            while (completed < handshakes && handshake(engineFactory)) {
+                completed ++;
+            }
+        } catch (SSLException | RuntimeException e) {
+            msg.debugf(e, "SSL engine pre-warming stopped after %d handshakes", Integer.valueOf(completed));
+        }
+        msg.debugf("SSL engine pre-warming ran %d handshakes in %d ms", Integer.valueOf(completed), Long.valueOf((System.nanoTime() - start) / 1_000_000L));
+        return completed;
+    }
+
+    private static boolean handshake(final SslEngineFactory engineFactory) throws SSLException {
+        // no peer host, so that the client does not cache the session and every handshake is a full one
+        final SSLEngine client = engineFactory.createSSLEngine(null, -1);
+        final SSLEngine server = engineFactory.createSSLEngine(null, -1);
+        client.setUseClientMode(true);
+        server.setUseClientMode(false);
+        final SSLSession session = client.getSession();
+        final int packetBufferSize = session.getPacketBufferSize();
+        final int applicationBufferSize = session.getApplicationBufferSize();
+        final ByteBuffer clientToServer = ByteBuffer.allocate(packetBufferSize << 2);
+        final ByteBuffer serverToClient = ByteBuffer.allocate(packetBufferSize << 2);
+        final ByteBuffer clientData = ByteBuffer.allocate(applicationBufferSize);
+        final ByteBuffer serverData = ByteBuffer.allocate(applicationBufferSize);
+        try {
+            client.beginHandshake();
+            server.beginHandshake();
+            for (int i = 0; i < MAX_STEPS; i ++) {
+                step(client, serverToClient, clientToServer, clientData);
+                step(server, clientToServer, serverToClient, serverData);
+                if (isDone(client) && isDone(server)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            client.closeOutbound();
+            server.closeOutbound();
+        }
+    }
+
+    private static boolean isDone(final SSLEngine engine) {
+        final HandshakeStatus status = engine.getHandshakeStatus();
+        return status == HandshakeStatus.NOT_HANDSHAKING || status == HandshakeStatus.FINISHED;
+    }
+
+    /**
+     * Let an engine make as much progress as it can with the records it received so far.
+     */
+    private static void step(final SSLEngine engine, final ByteBuffer in, final ByteBuffer out, final ByteBuffer data) throws SSLException {
+        for (;;) {
+            final SSLEngineResult result;
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK: {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    continue;
+                }
+                case NEED_WRAP: {
+                    result = engine.wrap(Buffers.EMPTY_BYTE_BUFFER, out);
+                    break;
+                }
+                case NEED_UNWRAP: {
+                    in.flip();
+                    try {
+                        data.clear();
+                        result = engine.unwrap(in, data);
+                    } finally {
+                        in.compact();
+                    }
+                    break;
+                }
+                default: {
+                    return;
+                }
+            }
+            if (result.getStatus() != SSLEngineResult.Status.OK) {
+                // the buffers are full or empty; let the other side go on
+                return;
+            }
+        }
+    }
+}
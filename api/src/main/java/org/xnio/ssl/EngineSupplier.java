@@ -0,0 +1,35 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import javax.net.ssl.SSLEngine;
+
+/**
+ * The source of the configured SSL engine of a connection which does not need it yet.  A STARTTLS connection only
+ * creates its engine once it is upgraded, since many of them never are.
+ */
+interface EngineSupplier {
+
+    /**
+     * Create the SSL engine of the connection, configured from the options of its provider.
+     *
+     * @return the SSL engine
+     */
+    SSLEngine createEngine();
+}
@@ -0,0 +1,392 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import static java.security.AccessController.doPrivileged;
+import static org.xnio._private.Messages.msg;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.net.ssl.SSLSession;
+
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.management.XnioSslHandshakeMXBean;
+
+/**
+ * The handshake executor and handshake admission control of an SSL provider.  Delegated tasks of the SSL engine are
+ * run by a bounded pool of daemon threads; once its queue is full, they are run by the submitting thread instead.
+ * Connections which begin a handshake while the limit of concurrent handshakes is reached are parked, and admitted
+ * in order as other handshakes complete.  The peer of a connection whose handshake finished is verified by the
+ * {@link SslPeerVerifier} of the provider, if any, before the connection may carry application data.
+ * <p>
+ * The controller is registered as an MBean while it is open; {@link #close()} removes the registration and shuts down
+ * the handshake executor.
+ */
+final class HandshakeController implements Executor, Closeable, XnioSslHandshakeMXBean {
+
+    private static final AtomicInteger seq = new AtomicInteger(1);
+    private static final String FINISHED_MARKER = HandshakeController.class.getName() + ".finished";
+
+    private final String providerName;
+    private final int threads;
+    private final int maxHandshakes;
+    private final SslPeerVerifier peerVerifier;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger activeHandshakes = new AtomicInteger();
+    private final ConcurrentLinkedQueue<JsseStreamConduit> parked = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger parkedCount = new AtomicInteger();
+    private volatile Closeable mbeanHandle = IoUtils.nullCloseable();
+
+    private final LongAdder handshakeCount = new LongAdder();
+    private final LongAdder resumedCount = new LongAdder();
+    private final LongAdder handshakeNanos = new LongAdder();
+    private final AtomicLong maxHandshakeNanos = new AtomicLong();
+    private final LongAdder taskCount = new LongAdder();
+    private final LongAdder taskQueueNanos = new LongAdder();
+
+    // handshakes completed per second, protected by {@code this}
+    private long rateSecond;
+    private long rateCount;
+    private long lastRate;
+
+    HandshakeController(final String providerName, final int threads, final int maxHandshakes) {
+        this(providerName, threads, maxHandshakes, null);
+    }
+
+    HandshakeController(final String providerName, final int threads, final int maxHandshakes, final SslPeerVerifier peerVerifier) {
+        this.providerName = providerName;
+        this.threads = threads;
+        this.maxHandshakes = maxHandshakes;
+        this.peerVerifier = peerVerifier;
+        if (threads > 0) {
+            final String prefix = "xnio-ssl-handshake-" + seq.getAndIncrement() + "-";
+            final ThreadFactory threadFactory = new ThreadFactory() {
+                private final AtomicInteger threadSeq = new AtomicInteger(1);
+
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, prefix + threadSeq.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(threads << 8), threadFactory, new RejectedExecutionHandler() {
+                public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                    // unlike CallerRunsPolicy, also run the tasks of handshakes which outlive the controller
+                    r.run();
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Create the handshake controller which is configured by the given options.
+     *
+     * @param providerName the name of the provider, for the MBean
+     * @param optionMap the SSL provider options
+     * @return the handshake controller, or {@code null} if no handshake executor, handshake limit or handshake
+     *         statistics are configured
+     */
+    static HandshakeController create(final String providerName, final OptionMap optionMap) {
+        return create(providerName, optionMap, null);
+    }
+
+    /**
+     * Create the handshake controller which is configured by the given options and peer verifier.
+     *
+     * @param providerName the name of the provider, for the MBean
+     * @param optionMap the SSL provider options
+     * @param peerVerifier the peer verifier, or {@code null} for none
+     * @return the handshake controller, or {@code null} if no handshake executor, handshake limit, handshake
+     *         statistics or peer verifier are configured
+     */
+    static HandshakeController create(final String providerName, final OptionMap optionMap, final SslPeerVerifier peerVerifier) {
+        final int threads = Math.max(0, optionMap.get(Options.SSL_HANDSHAKE_THREADS, 0));
+        final int maxHandshakes = Math.max(0, optionMap.get(Options.SSL_MAX_CONCURRENT_HANDSHAKES, 0));
+        if (threads == 0 && maxHandshakes == 0 && peerVerifier == null && ! optionMap.get(Options.SSL_HANDSHAKE_STATISTICS, false)) {
+            return null;
+        }
+        final HandshakeController controller = new HandshakeController(providerName, threads, maxHandshakes, peerVerifier);
+        controller.register();
+        return controller;
+    }
+
+    private void register() {
+        final String name = "org.xnio:type=Xnio,provider=" + ObjectName.quote(providerName) + ",ssl=" + ObjectName.quote("handshake-" + seq.getAndIncrement());
+        try {
+            final MBeanServer server = doPrivileged(new PrivilegedAction<MBeanServer>() {
+                public MBeanServer run() {
+                    return ManagementFactory.getPlatformMBeanServer();
+                }
+            });
+            final ObjectName objectName = new ObjectName(name);
+            server.registerMBean(this, objectName);
+            mbeanHandle = new Closeable() {
+                public void close() {
+                    try {
+                        server.unregisterMBean(objectName);
+                    } catch (JMException | SecurityException e) {
+                        msg.debugf(e, "Failed to unregister MBean %s", objectName);
+                    }
+                }
+            };
+        } catch (JMException | SecurityException e) {
+            msg.mbeanRegistrationFailed(e, name);
+        }
+    }
+
+    /**
+     * Close the controller.  Its MBean is unregistered, and its handshake executor finishes the queued tasks and then
+     * terminates.
+     */
+    public void close() {
+        final Closeable mbeanHandle = this.mbeanHandle;
+        this.mbeanHandle = IoUtils.nullCloseable();
+        IoUtils.safeClose(mbeanHandle);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    boolean hasExecutor() {
+        return executor != null;
+    }
+
+    /**
+     * Get the peer verifier.
+     *
+     * @return the peer verifier, or {@code null} if the peers are not verified
+     */
+    SslPeerVerifier getPeerVerifier() {
+        return peerVerifier;
+    }
+
+    /**
+     * Run a delegated task on the handshake executor.
+     *
+     * @param task the delegated task
+     */
+    public void execute(final Runnable task) {
+        final long queued = System.nanoTime();
+        executor.execute(new Runnable() {
+            public void run() {
+                taskQueueNanos.add(System.nanoTime() - queued);
+                taskCount.increment();
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Try to admit a handshake.
+     *
+     * @return {@code true} if the handshake may start, {@code false} if the limit is reached
+     */
+    boolean tryAdmit() {
+        final int max = maxHandshakes;
+        int active;
+        do {
+            active = activeHandshakes.get();
+            if (max > 0 && active >= max) {
+                return false;
+            }
+        } while (! activeHandshakes.compareAndSet(active, active + 1));
+        return true;
+    }
+
+    /**
+     * Park a connection which was not admitted.  The connection is notified by {@link JsseStreamConduit#handshakeAdmitted()}
+     * once it holds a permit.
+     *
+     * @param conduit the parked connection
+     */
+    void park(final JsseStreamConduit conduit) {
+        parked.add(conduit);
+        parkedCount.incrementAndGet();
+        // a handshake may have completed since the admission attempt
+        admitParked();
+    }
+
+    /**
+     * Remove a parked connection which is closed.
+     *
+     * @param conduit the parked connection
+     * @return {@code true} if it was removed, {@code false} if it was admitted already
+     */
+    boolean unpark(final JsseStreamConduit conduit) {
+        if (parked.remove(conduit)) {
+            parkedCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determine whether a finished handshake resumed a session, and mark the session as finished by a handshake.  A
+     * handshake resumed a session if it ended with a session which existed before the handshake began, that is a
+     * session created before the engine was created or before its previous handshake finished, or which an earlier
+     * handshake already finished with.  The creation time is what tells a session decoded from a stateless session
+     * ticket apart, since it is a new instance which keeps the creation time of the original session but none of its
+     * values.  This must be called once per finished handshake.
+     *
+     * @param session the session of the finished handshake
+     * @param since the {@link System#currentTimeMillis()} of the creation of the engine, or of the end of its
+     *      previous handshake
+     * @return {@code true} if the handshake resumed a session
+     */
+    static boolean isResumed(final SSLSession session, final long since) {
+        if (session.getValue(FINISHED_MARKER) != null) {
+            return true;
+        }
+        session.putValue(FINISHED_MARKER, Boolean.TRUE);
+        return session.getCreationTime() < since;
+    }
+
+    /**
+     * Record a completed handshake and release its permit.
+     *
+     * @param startTime the {@link System#nanoTime()} of the admission of the handshake
+     * @param resumed {@code true} if the handshake resumed a session
+     */
+    void handshakeFinished(final long startTime, final boolean resumed) {
+        final long nanos = System.nanoTime() - startTime;
+        handshakeCount.increment();
+        if (resumed) {
+            resumedCount.increment();
+        }
+        handshakeNanos.add(nanos);
+        long max;
+        do {
+            max = maxHandshakeNanos.get();
+        } while (nanos > max && ! maxHandshakeNanos.compareAndSet(max, nanos));
+        final long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        synchronized (this) {
+            if (second != rateSecond) {
+                lastRate = second == rateSecond + 1 ? rateCount : 0L;
+                rateSecond = second;
+                rateCount = 0L;
+            }
+            rateCount ++;
+        }
+        release();
+    }
+
+    /**
+     * Release the permit of a handshake which did not complete.
+     */
+    void release() {
+        activeHandshakes.decrementAndGet();
+        admitParked();
+    }
+
+    private void admitParked() {
+        while (! parked.isEmpty() && tryAdmit()) {
+            final JsseStreamConduit conduit = parked.poll();
+            if (conduit == null) {
+                // lost the race for the last parked connection; the permit goes back
+                activeHandshakes.decrementAndGet();
+                continue;
+            }
+            parkedCount.decrementAndGet();
+            conduit.handshakeAdmitted();
+        }
+    }
+
+    // MXBean
+
+    public String getProviderName() {
+        return providerName;
+    }
+
+    public int getHandshakeThreads() {
+        return threads;
+    }
+
+    public int getMaxConcurrentHandshakes() {
+        return maxHandshakes;
+    }
+
+    public int getActiveHandshakeCount() {
+        return activeHandshakes.get();
+    }
+
+    public int getParkedHandshakeCount() {
+        return parkedCount.get();
+    }
+
+    public long getCompletedHandshakeCount() {
+        return handshakeCount.sum();
+    }
+
+    public long getResumptionHitCount() {
+        return resumedCount.sum();
+    }
+
+    public long getResumptionMissCount() {
+        return handshakeCount.sum() - resumedCount.sum();
+    }
+
+    public long getHandshakeRate() {
+        final long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        synchronized (this) {
+            return second == rateSecond ? lastRate : second == rateSecond + 1 ? rateCount : 0L;
+        }
+    }
+
+    public long getAverageHandshakeTime() {
+        final long count = handshakeCount.sum();
+        return count == 0L ? 0L : TimeUnit.NANOSECONDS.toMicros(handshakeNanos.sum() / count);
+    }
+
+    public long getMaxHandshakeTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxHandshakeNanos.get());
+    }
+
+    public long getDelegatedTaskCount() {
+        return taskCount.sum();
+    }
+
+    public int getDelegatedTaskQueueSize() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    public long getAverageDelegatedTaskQueueTime() {
+        final long count = taskCount.sum();
+        return count == 0L ? 0L : TimeUnit.NANOSECONDS.toMicros(taskQueueNanos.sum() / count);
+    }
+}
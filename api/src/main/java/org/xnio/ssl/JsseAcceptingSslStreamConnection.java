@@ -19,8 +19,8 @@
 package org.xnio.ssl;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 
-import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 
 import org.xnio.ByteBufferPool;
@@ -37,8 +37,24 @@ import org.xnio.channels.AcceptingChannel;
  */
 final class JsseAcceptingSslStreamConnection extends AbstractAcceptingSslChannel<SslConnection, StreamConnection> {
 
-    JsseAcceptingSslStreamConnection(final SSLContext sslContext, final AcceptingChannel<? extends StreamConnection> tcpServer, final OptionMap optionMap, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final boolean startTls) {
-        super(sslContext, tcpServer, optionMap, socketBufferPool, applicationBufferPool, startTls);
+    private final HandshakeController handshakeController;
+
+    JsseAcceptingSslStreamConnection(final SslEngineFactory engineFactory, final AcceptingChannel<? extends StreamConnection> tcpServer, final OptionMap optionMap, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final boolean startTls, final HandshakeController handshakeController) {
+        super(engineFactory, tcpServer, optionMap, socketBufferPool, applicationBufferPool, startTls);
+        this.handshakeController = handshakeController;
+    }
+
+    @Override
+    SslConnection accept(final StreamConnection tcpConnection, final InetSocketAddress peerAddress) throws IOException {
+        if (! JsseXnioSsl.NEW_IMPL || ! startTls) {
+            return super.accept(tcpConnection, peerAddress);
+        }
+        // most STARTTLS connections are never upgraded, so their engine is only created once they are
+        return new JsseSslConnection(tcpConnection, new EngineSupplier() {
+            public SSLEngine createEngine() {
+                return JsseAcceptingSslStreamConnection.this.createEngine(peerAddress);
+            }
+        }, socketBufferPool, applicationBufferPool, handshakeController);
     }
 
     @Override
@@ -46,7 +62,7 @@ final class JsseAcceptingSslStreamConnection extends AbstractAcceptingSslChannel
         if (! JsseXnioSsl.NEW_IMPL) {
             return new JsseSslStreamConnection(tcpConnection, engine, socketBufferPool, applicationBufferPool, startTls);
         }
-        JsseSslConnection connection = new JsseSslConnection(tcpConnection, engine, socketBufferPool, applicationBufferPool);
+        JsseSslConnection connection = new JsseSslConnection(tcpConnection, engine, socketBufferPool, applicationBufferPool, handshakeController);
         if (!startTls) {
             try {
                 connection.startHandshake();
@@ -84,16 +84,26 @@ final class JsseSslConduitEngine {
     // final fields
     /** The SSL engine. */
     private final SSLEngine engine;
+    /** The pool of the receive and send buffers. */
+    private final ByteBufferPool socketBufferPool;
+    /** The pool of the read buffer. */
+    private final ByteBufferPool applicationBufferPool;
+    /** The lock which protects the send buffer. */
+    private final Object wrapLock = new Object();
+    /** The lock which protects the receive and read buffers. */
+    private final Object unwrapLock = new Object();
+
+    // the buffers are only held while they contain data, so an idle connection holds none of them
     /** The buffer into which incoming SSL data is written. */
-    private final ByteBuffer receiveBuffer;
+    private ByteBuffer receiveBuffer;
     /** The buffer from which outbound SSL data is sent. */
-    private final ByteBuffer sendBuffer;
+    private ByteBuffer sendBuffer;
     /** An expanded non-final buffer from which outbound SSL data is sent when
      * large fragments handling is enabled in the underlying SSL Engine. When
      * this happens, we need a specific buffer with expanded capacity. */
     private  ByteBuffer expandedSendBuffer;
     /** The buffer into which inbound clear data is written. */
-    private final ByteBuffer readBuffer;
+    private ByteBuffer readBuffer;
 
     // the next conduits
     private final StreamSinkConduit sinkConduit;
@@ -111,6 +121,11 @@ final class JsseSslConduitEngine {
     private volatile Thread writeWaiter;
     private static final AtomicReferenceFieldUpdater<JsseSslConduitEngine, Thread> readWaiterUpdater = AtomicReferenceFieldUpdater.newUpdater(JsseSslConduitEngine.class, Thread.class, "readWaiter");
     private static final AtomicReferenceFieldUpdater<JsseSslConduitEngine, Thread> writeWaiterUpdater = AtomicReferenceFieldUpdater.newUpdater(JsseSslConduitEngine.class, Thread.class, "writeWaiter");
+    // the Flight Recorder event of the handshake in progress, if it is enabled
+    private volatile SslEvents.Handshake handshakeEvent;
+    /** the time of the creation of this engine or of the end of its last handshake, see {@link HandshakeController#isResumed} **/
+    private volatile long lastHandshakeTime;
+    private static final AtomicReferenceFieldUpdater<JsseSslConduitEngine, SslEvents.Handshake> handshakeEventUpdater = AtomicReferenceFieldUpdater.newUpdater(JsseSslConduitEngine.class, SslEvents.Handshake.class, "handshakeEvent");
 
     /**
      * Construct a new instance.
@@ -145,26 +160,15 @@ final class JsseSslConduitEngine {
         this.sinkConduit = sinkConduit;
         this.sourceConduit = sourceConduit;
         this.engine = engine;
+        this.lastHandshakeTime = System.currentTimeMillis();
         this.state = FIRST_HANDSHAKE;
+        this.socketBufferPool = socketBufferPool;
+        this.applicationBufferPool = applicationBufferPool;
         final SSLSession session = engine.getSession();
         final int packetBufferSize = session.getPacketBufferSize();
-        boolean ok = false;
-        receiveBuffer = socketBufferPool.allocate();
-        try {
-            receiveBuffer.flip();
-            sendBuffer = socketBufferPool.allocate();
-            try {
-                if (receiveBuffer.capacity() < packetBufferSize || sendBuffer.capacity() < packetBufferSize) {
-                    // create expanded send buffer
-                    expandedSendBuffer = ByteBuffer.allocate(packetBufferSize);
-                }
-                readBuffer = applicationBufferPool.allocate();
-                ok = true;
-            } finally {
-                if (! ok) ByteBufferPool.free(sendBuffer);
-            }
-        } finally {
-            if (! ok) ByteBufferPool.free(receiveBuffer);
+        if (socketBufferPool.getSize() < packetBufferSize) {
+            // create expanded send buffer
+            expandedSendBuffer = ByteBuffer.allocate(packetBufferSize);
         }
     }
 
@@ -174,9 +178,42 @@ final class JsseSslConduitEngine {
      * @throws IOException if an I/O error occurs
      */
     public void beginHandshake() throws IOException {
+        beginHandshakeEvent();
         engine.beginHandshake();
     }
 
+    /**
+     * Takes over the SSL records which were read from the connection before the handshake was started.  The records
+     * are appended to the {@link #getUnwrapBuffer() unwrap buffer}, so that they are unwrapped before anything else
+     * is read.
+     *
+     * @param received the records which were read
+     */
+    public void receive(final ByteBuffer received) {
+        synchronized (getUnwrapLock()) {
+            ByteBuffer receiveBuffer = getReceiveBuffer();
+            if (receiveBuffer.capacity() - receiveBuffer.remaining() < received.remaining()) {
+                // leave room for the rest of a trailing partial record, which is completed from the connection
+                final ByteBuffer expanded = ByteBuffer.allocate(receiveBuffer.remaining() + received.remaining() + engine.getSession().getPacketBufferSize());
+                expanded.put(receiveBuffer).flip();
+                ByteBufferPool.free(receiveBuffer);
+                receiveBuffer = this.receiveBuffer = expanded;
+            }
+            receiveBuffer.compact();
+            receiveBuffer.put(received);
+            receiveBuffer.flip();
+        }
+    }
+
+    private void beginHandshakeEvent() {
+        if (handshakeEvent == null) {
+            final SslEvents.Handshake event = SslEvents.beginHandshake();
+            if (event != null) {
+                handshakeEventUpdater.compareAndSet(this, null, event);
+            }
+        }
+    }
+
     /**
      * Returns the engine's session.
      */
@@ -264,7 +301,24 @@ final class JsseSslConduitEngine {
     public ByteBuffer getWrappedBuffer() {
         assert Thread.holdsLock(getWrapLock());
         assert ! Thread.holdsLock(getUnwrapLock());
-        return allAreSet(stateUpdater.get(this), ENGINE_CLOSED)? Buffers.EMPTY_BYTE_BUFFER: getSendBuffer();
+        if (allAreSet(stateUpdater.get(this), ENGINE_CLOSED) || expandedSendBuffer == null && sendBuffer == null) {
+            return Buffers.EMPTY_BYTE_BUFFER;
+        }
+        return getSendBuffer();
+    }
+
+    /**
+     * Returns the {@link #getWrappedBuffer() wrapped buffer} to its pool if it holds no data.
+     * <p>
+     * This method should always be invoked inside the {@link #getWrapLock() wrap lock}.
+     */
+    public void releaseWrappedBuffer() {
+        assert Thread.holdsLock(getWrapLock());
+        final ByteBuffer sendBuffer = this.sendBuffer;
+        if (sendBuffer != null && sendBuffer.position() == 0) {
+            this.sendBuffer = null;
+            ByteBufferPool.free(sendBuffer);
+        }
     }
 
     /**
@@ -277,7 +331,7 @@ final class JsseSslConduitEngine {
      * @return lock for protecting access to the unwrapped buffer
      */
     public Object getWrapLock() {
-        return sendBuffer;
+        return wrapLock;
     }
 
     /**
@@ -381,6 +435,7 @@ final class JsseSslConduitEngine {
             case BUFFER_OVERFLOW: {
                 assert result.bytesConsumed() == 0;
                 assert result.bytesProduced() == 0;
+                SslEvents.bufferRetry("wrap", result.getStatus());
                 final ByteBuffer buffer = getSendBuffer();
                 if (buffer.position() == 0) {
                     final int bufferSize = engine.getSession().getPacketBufferSize();
@@ -450,11 +505,21 @@ final class JsseSslConduitEngine {
                 }
             }
         }
+        if (handshakeEvent == null && result.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING && result.getHandshakeStatus() != HandshakeStatus.FINISHED) {
+            // the peer started the handshake
+            beginHandshakeEvent();
+        }
         boolean newResult = false;
         for (;;) {
             switch (result.getHandshakeStatus()) {
                 case FINISHED: {
                     clearNeedUnwrap();
+                    final SslEvents.Handshake event = handshakeEventUpdater.getAndSet(this, null);
+                    final long handshakeTime = lastHandshakeTime;
+                    lastHandshakeTime = System.currentTimeMillis();
+                    if (event != null) {
+                        SslEvents.endHandshake(event, engine, HandshakeController.isResumed(engine.getSession(), handshakeTime));
+                    }
                     connection.handleHandshakeFinished();
                     // Operation can continue immediately
                     return true;
@@ -471,7 +536,6 @@ final class JsseSslConduitEngine {
                     if (write) {
                         return true;
                     }
-                    final ByteBuffer buffer = getSendBuffer();
                     // else, trigger a write call
                     // Needs wrap, so we wrap (if possible)...
                     synchronized (getWrapLock()) {
@@ -481,7 +545,7 @@ final class JsseSslConduitEngine {
                             if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
                                 return false;
                             }
-                            if (!handleWrapResult(result = engineWrap(Buffers.EMPTY_BYTE_BUFFER, buffer), true) || !doFlush()) {
+                            if (!handleWrapResult(result = engineWrap(Buffers.EMPTY_BYTE_BUFFER, getSendBuffer()), true) || !doFlush()) {
                                 needWrap();
                                 return false;
                             }
@@ -506,15 +570,21 @@ final class JsseSslConduitEngine {
                         // there could be unflushed data from a previous wrap, make sure everything is flushed at this point
                         doFlush();
                     }
-                    final ByteBuffer buffer = receiveBuffer;
-                    final ByteBuffer unwrappedBuffer = readBuffer;
                     // FIXME this if block is a workaround for a bug in SSLEngine
                    if (result.getHandshakeStatus() == HandshakeStatus.NEED_UNWRAP && engine.isOutboundDone()) {
                         synchronized (getUnwrapLock()) {
+                            final ByteBuffer buffer = getReceiveBuffer();
+                            final boolean received;
                             buffer.compact();
-                            sourceConduit.read(buffer);
-                            buffer.flip();
-                            if (buffer.hasRemaining() && sourceConduit.isReadResumed()) {
+                            try {
+                                sourceConduit.read(buffer);
+                            } finally {
+                                buffer.flip();
+                                // the buffer may go back to the pool, so it must not be read after the release
+                                received = buffer.hasRemaining();
+                                releaseUnwrapBuffers();
+                            }
+                            if (received && sourceConduit.isReadResumed()) {
                                 sourceConduit.wakeupReads();
                             }
                             return false;
@@ -522,8 +592,16 @@ final class JsseSslConduitEngine {
                     }
                     synchronized (getUnwrapLock()) {
                         // attempt to unwrap
-                        int unwrapResult = handleUnwrapResult(result = engineUnwrap(buffer, unwrappedBuffer));
-                        if (buffer.hasRemaining() && sourceConduit.isReadResumed()) {
+                        final ByteBuffer buffer = getReceiveBuffer();
+                        final int unwrapResult;
+                        final boolean received;
+                        try {
+                            unwrapResult = handleUnwrapResult(result = engineUnwrap(buffer, getReadBuffer()));
+                        } finally {
+                            received = buffer.hasRemaining();
+                            releaseUnwrapBuffers();
+                        }
+                        if (received && sourceConduit.isReadResumed()) {
                             sourceConduit.wakeupReads();
                         }
                         if (unwrapResult >= 0) {
@@ -552,7 +630,7 @@ final class JsseSslConduitEngine {
                         // run the tasks needed for handshaking
                         while ((task = engine.getDelegatedTask()) != null) {
                             try {
-                                task.run();
+                                SslEvents.runTask(task);
                             } catch (Exception e) {
                                 throw new IOException(e);
                             }
@@ -612,12 +690,11 @@ final class JsseSslConduitEngine {
             return 0L;
         }
         clearFlags(FIRST_HANDSHAKE | BUFFER_UNDERFLOW);
-        final ByteBuffer buffer = receiveBuffer;
-        final ByteBuffer unwrappedBuffer = readBuffer;
         long total = 0;
         SSLEngineResult result;
         synchronized(getUnwrapLock()) {
-            if (unwrappedBuffer.position() > 0) {
+            final ByteBuffer unwrappedBuffer = readBuffer;
+            if (unwrappedBuffer != null && unwrappedBuffer.position() > 0) {
                 total += (long) copyUnwrappedData(dsts, offset, length, unwrappedBuffer);
             }
         }
@@ -626,16 +703,21 @@ final class JsseSslConduitEngine {
             do {
                 synchronized (getUnwrapLock()) {
                     if (! Buffers.hasRemaining(dsts, offset, length)) {
-                        if (unwrappedBuffer.hasRemaining() && sourceConduit.isReadResumed()) {
+                        if (readBuffer != null && readBuffer.hasRemaining() && sourceConduit.isReadResumed()) {
                             sourceConduit.wakeupReads();
                         }
                         return total;
                     }
-                    res = handleUnwrapResult(result = engineUnwrap(buffer, unwrappedBuffer));
-                    if (unwrappedBuffer.position() > 0) { // test the position of the buffer instead of the
-                        // the amount of produced bytes, because in a concurrent scenario, during this loop,
-                        // another thread could read more bytes as a side effect of a need unwrap
-                        total += (long) copyUnwrappedData(dsts, offset, length, unwrappedBuffer);
+                    final ByteBuffer unwrappedBuffer = getReadBuffer();
+                    try {
+                        res = handleUnwrapResult(result = engineUnwrap(getReceiveBuffer(), unwrappedBuffer));
+                        if (unwrappedBuffer.position() > 0) { // test the position of the buffer instead of the
+                            // the amount of produced bytes, because in a concurrent scenario, during this loop,
+                            // another thread could read more bytes as a side effect of a need unwrap
+                            total += (long) copyUnwrappedData(dsts, offset, length, unwrappedBuffer);
+                        }
+                    } finally {
+                        releaseUnwrapBuffers();
                     }
                 }
             } while ((handleHandshake(result, false) || res > 0));
@@ -672,7 +754,38 @@ final class JsseSslConduitEngine {
     public ByteBuffer getUnwrapBuffer() {
         assert Thread.holdsLock(getUnwrapLock());
         assert ! Thread.holdsLock(getWrapLock());
-        return receiveBuffer;
+        return getReceiveBuffer();
+    }
+
+    /**
+     * Indicates if the {@link #getUnwrapBuffer() unwrap buffer} holds data which was not unwrapped yet.
+     * <p>
+     * This method should always be invoked inside the {@link #getUnwrapLock() unwrap lock}.
+     *
+     * @return {@code true} if there is data to be unwrapped
+     */
+    public boolean hasUnwrapData() {
+        assert Thread.holdsLock(getUnwrapLock());
+        return receiveBuffer != null && receiveBuffer.hasRemaining();
+    }
+
+    /**
+     * Returns the unwrap and read buffers to their pools if they hold no data.
+     * <p>
+     * This method should always be invoked inside the {@link #getUnwrapLock() unwrap lock}.
+     */
+    public void releaseUnwrapBuffers() {
+        assert Thread.holdsLock(getUnwrapLock());
+        final ByteBuffer receiveBuffer = this.receiveBuffer;
+        if (receiveBuffer != null && ! receiveBuffer.hasRemaining()) {
+            this.receiveBuffer = null;
+            ByteBufferPool.free(receiveBuffer);
+        }
+        final ByteBuffer readBuffer = this.readBuffer;
+        if (readBuffer != null && readBuffer.position() == 0) {
+            this.readBuffer = null;
+            ByteBufferPool.free(readBuffer);
+        }
     }
 
     /**
@@ -685,7 +798,7 @@ final class JsseSslConduitEngine {
      * @return lock for protecting access to the unwrap buffer
      */
     public Object getUnwrapLock() {
-        return receiveBuffer;
+        return unwrapLock;
     }
 
     /**
@@ -749,14 +862,16 @@ final class JsseSslConduitEngine {
             case BUFFER_OVERFLOW: {
                 assert result.bytesConsumed() == 0;
                 assert result.bytesProduced() == 0;
+                SslEvents.bufferRetry("unwrap", result.getStatus());
                 // not enough space in destination buffer; caller should flush & retry
                 return 0;
             }
             case BUFFER_UNDERFLOW: {
                 assert result.bytesConsumed() == 0;
                 assert result.bytesProduced() == 0;
+                SslEvents.bufferRetry("unwrap", result.getStatus());
                 // fill the rest of the buffer, then retry!
-                final ByteBuffer buffer = receiveBuffer;
+                final ByteBuffer buffer = getReceiveBuffer();
                 synchronized (getUnwrapLock()) {
                     buffer.compact();
                     try {
@@ -876,6 +991,7 @@ final class JsseSslConduitEngine {
         } finally {
             buffer.compact();
         }
+        releaseWrappedBuffer();
         return sinkConduit.flush();
     }
 
@@ -901,9 +1017,22 @@ final class JsseSslConduitEngine {
             sinkConduit.terminateWrites();
             connection.readClosed();
             connection.writeClosed();
-            ByteBufferPool.free(readBuffer);
-            ByteBufferPool.free(receiveBuffer);
-            ByteBufferPool.free(sendBuffer);
+            synchronized (getUnwrapLock()) {
+                if (readBuffer != null) {
+                    ByteBufferPool.free(readBuffer);
+                    readBuffer = null;
+                }
+                if (receiveBuffer != null) {
+                    ByteBufferPool.free(receiveBuffer);
+                    receiveBuffer = null;
+                }
+            }
+            synchronized (getWrapLock()) {
+                if (sendBuffer != null) {
+                    ByteBufferPool.free(sendBuffer);
+                    sendBuffer = null;
+                }
+            }
         }
     }
 
@@ -1227,14 +1356,41 @@ final class JsseSslConduitEngine {
     public boolean isDataAvailable() {
         synchronized (getUnwrapLock()) {
             try {
-                return readBuffer.position() > 0 || (receiveBuffer.hasRemaining() && !isUnderflow());
+                return readBuffer != null && readBuffer.position() > 0 || (hasUnwrapData() && !isUnderflow());
             } catch (IllegalStateException ignored) {
                 return false;
             }
         }
     }
 
-    private final ByteBuffer getSendBuffer() {
-        return expandedSendBuffer != null? expandedSendBuffer : sendBuffer;
+    private ByteBuffer getSendBuffer() {
+        assert Thread.holdsLock(getWrapLock());
+        if (expandedSendBuffer != null) {
+            return expandedSendBuffer;
+        }
+        ByteBuffer sendBuffer = this.sendBuffer;
+        if (sendBuffer == null) {
+            sendBuffer = this.sendBuffer = socketBufferPool.allocate();
+        }
+        return sendBuffer;
+    }
+
+    private ByteBuffer getReceiveBuffer() {
+        assert Thread.holdsLock(getUnwrapLock());
+        ByteBuffer receiveBuffer = this.receiveBuffer;
+        if (receiveBuffer == null) {
+            receiveBuffer = this.receiveBuffer = socketBufferPool.allocate();
+            receiveBuffer.limit(0);
+        }
+        return receiveBuffer;
+    }
+
+    private ByteBuffer getReadBuffer() {
+        assert Thread.holdsLock(getUnwrapLock());
+        ByteBuffer readBuffer = this.readBuffer;
+        if (readBuffer == null) {
+            readBuffer = this.readBuffer = applicationBufferPool.allocate();
+        }
+        return readBuffer;
     }
 }
@@ -2,6 +2,7 @@ package org.xnio.ssl;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.util.Set;
 
 import javax.net.ssl.SSLEngine;
@@ -25,9 +26,22 @@ public final class JsseSslConnection extends SslConnection {
     }
 
     JsseSslConnection(final StreamConnection streamConnection, final SSLEngine engine, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool) {
+        this(streamConnection, engine, socketBufferPool, applicationBufferPool, null);
+    }
+
+    JsseSslConnection(final StreamConnection streamConnection, final SSLEngine engine, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final HandshakeController handshakeController) {
         super(streamConnection.getIoThread());
         this.streamConnection = streamConnection;
-        conduit = new JsseStreamConduit(this, engine, streamConnection.getSourceChannel().getConduit(), streamConnection.getSinkChannel().getConduit(), socketBufferPool, applicationBufferPool);
+        conduit = new JsseStreamConduit(this, engine, streamConnection.getSourceChannel().getConduit(), streamConnection.getSinkChannel().getConduit(), socketBufferPool, applicationBufferPool, handshakeController);
+        setSourceConduit(conduit);
+        setSinkConduit(conduit);
+    }
+
+    // the engine is created once the handshake is started
+    JsseSslConnection(final StreamConnection streamConnection, final EngineSupplier engineSupplier, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final HandshakeController handshakeController) {
+        super(streamConnection.getIoThread());
+        this.streamConnection = streamConnection;
+        conduit = new JsseStreamConduit(this, engineSupplier, streamConnection.getSourceChannel().getConduit(), streamConnection.getSinkChannel().getConduit(), socketBufferPool, applicationBufferPool, handshakeController);
         setSourceConduit(conduit);
         setSinkConduit(conduit);
     }
@@ -36,6 +50,11 @@ public final class JsseSslConnection extends SslConnection {
         conduit.beginHandshake();
     }
 
+    @Override
+    public void startHandshake(final ByteBuffer received) throws IOException {
+        conduit.beginHandshake(received);
+    }
+
     public SSLSession getSslSession() {
         return conduit.getSslSession();
     }
@@ -19,6 +19,7 @@ package org.xnio.ssl;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
@@ -101,6 +102,18 @@ public final class JsseSslStreamConnection extends SslConnection {
         sslConduitEngine.beginHandshake();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void startHandshake(final ByteBuffer received) throws IOException {
+        if (received.hasRemaining()) {
+            if (tls) {
+                throw new IllegalStateException();
+            }
+            sslConduitEngine.receive(received);
+        }
+        startHandshake();
+    }
+
     /** {@inheritDoc} */
     @Override
     public SocketAddress getPeerAddress() {
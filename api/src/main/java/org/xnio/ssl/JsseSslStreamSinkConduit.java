@@ -202,26 +202,30 @@ final class JsseSslStreamSinkConduit extends AbstractStreamSinkConduit<StreamSin
     private boolean writeWrappedBuffer(boolean writeFinal) throws IOException {
         synchronized (sslEngine.getWrapLock()) {
             final ByteBuffer wrapBuffer = sslEngine.getWrappedBuffer();
-            for (;;) {
-                try {
-                    if (!wrapBuffer.flip().hasRemaining()) {
-                        if (writeFinal) {
-                            terminateWrites();
-                        }
-                        return true;
-                    }
-                    if(writeFinal) {
-                        if (super.writeFinal(wrapBuffer) == 0) {
-                            return false;
+            try {
+                for (;;) {
+                    try {
+                        if (!wrapBuffer.flip().hasRemaining()) {
+                            if (writeFinal) {
+                                terminateWrites();
+                            }
+                            return true;
                         }
-                    } else {
-                        if (super.write(wrapBuffer) == 0) {
-                            return false;
+                        if(writeFinal) {
+                            if (super.writeFinal(wrapBuffer) == 0) {
+                                return false;
+                            }
+                        } else {
+                            if (super.write(wrapBuffer) == 0) {
+                                return false;
+                            }
                         }
+                    } finally {
+                        wrapBuffer.compact();
                     }
-                } finally {
-                    wrapBuffer.compact();
                 }
+            } finally {
+                sslEngine.releaseWrappedBuffer();
             }
         }
     }
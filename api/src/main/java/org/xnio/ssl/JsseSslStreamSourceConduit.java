@@ -81,7 +81,7 @@ final class JsseSslStreamSourceConduit extends AbstractStreamSourceConduit<Strea
         }
         final boolean attemptToUnwrapFirst;
         synchronized(sslEngine.getUnwrapLock()) {
-            attemptToUnwrapFirst = sslEngine.getUnwrapBuffer().remaining() > 0;
+            attemptToUnwrapFirst = sslEngine.hasUnwrapData();
         }
         if (attemptToUnwrapFirst) {
             final int unwrapResult = sslEngine.unwrap(dst);
@@ -96,6 +96,7 @@ final class JsseSslStreamSourceConduit extends AbstractStreamSourceConduit<Strea
                 readResult = super.read(unwrapBuffer);
             } finally {
                 unwrapBuffer.flip();
+                sslEngine.releaseUnwrapBuffers();
             }
         }
         final int unwrapResult = sslEngine.unwrap(dst);
@@ -130,6 +131,7 @@ final class JsseSslStreamSourceConduit extends AbstractStreamSourceConduit<Strea
                 readResult = super.read(unwrapBuffer);
             } finally {
                 unwrapBuffer.flip();
+                sslEngine.releaseUnwrapBuffers();
             }
         }
         unwrapResult = sslEngine.unwrap(dsts, offs, len);
@@ -186,7 +188,7 @@ final class JsseSslStreamSourceConduit extends AbstractStreamSourceConduit<Strea
             return;
         }
         synchronized (sslEngine.getUnwrapLock()) {
-            if(sslEngine.getUnwrapBuffer().hasRemaining()) {
+            if(sslEngine.hasUnwrapData()) {
                 return;
             }
         }
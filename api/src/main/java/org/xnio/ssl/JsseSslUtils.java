@@ -141,7 +141,20 @@ public final class JsseSslUtils {
      * @return the configured SSL engine
      */
     public static SSLEngine createSSLEngine(SSLContext sslContext, OptionMap optionMap, InetSocketAddress peerAddress) {
-        final SSLEngine engine = sslContext.createSSLEngine(
+        return createSSLEngine(SslEngineFactory.of(sslContext), optionMap, peerAddress);
+    }
+
+    /**
+     * Create a new client mode SSL engine, configured from an option map.
+     *
+     * @param engineFactory the SSL engine factory
+     * @param optionMap the SSL options
+     * @param peerAddress the peer address of the connection
+     * @return the configured SSL engine
+     * @since 3.10
+     */
+    public static SSLEngine createSSLEngine(SslEngineFactory engineFactory, OptionMap optionMap, InetSocketAddress peerAddress) {
+        final SSLEngine engine = engineFactory.createSSLEngine(
                 optionMap.get(Options.SSL_PEER_HOST_NAME, peerAddress.getHostString()),
                 optionMap.get(Options.SSL_PEER_PORT, peerAddress.getPort())
         );
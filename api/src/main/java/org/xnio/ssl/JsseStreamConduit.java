@@ -19,6 +19,7 @@
 package org.xnio.ssl;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Thread.currentThread;
 import static org.xnio.Bits.allAreClear;
 import static org.xnio.Bits.allAreSet;
@@ -44,12 +45,12 @@ import javax.net.ssl.SSLSession;
 
 import org.xnio.ByteBufferPool;
 import org.xnio.Buffers;
+import org.xnio.IoFuture;
 import org.xnio.XnioIoThread;
 import org.xnio.XnioWorker;
 import org.xnio.channels.StreamSinkChannel;
 import org.xnio.channels.StreamSourceChannel;
 import org.xnio.conduits.ConduitReadableByteChannel;
-import org.xnio.conduits.ConduitWritableByteChannel;
 import org.xnio.conduits.Conduits;
 import org.xnio.conduits.ReadReadyHandler;
 import org.xnio.conduits.StreamSinkConduit;
@@ -67,15 +68,12 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     //================================================================
 
     private final JsseSslConnection connection;
-    private final SSLEngine engine;
+    private final EngineSupplier engineSupplier;
     private final StreamSourceConduit sourceConduit;
     private final StreamSinkConduit sinkConduit;
-    /** The buffer into which incoming SSL data is written. */
-    private final ByteBuffer receiveBuffer;
-    /** The buffer from which outbound SSL data is sent. */
-    private final ByteBuffer sendBuffer;
-    /** The buffer into which inbound clear data is written. */
-    private final ByteBuffer readBuffer;
+    private final ByteBufferPool socketBufferPool;
+    private final ByteBufferPool applicationBufferPool;
+    private final HandshakeController handshakeController;
 
     //================================================================
     //
@@ -83,63 +81,73 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     //
     //================================================================
 
-    // always inline tasks, for now
-    private int state = FLAG_INLINE_TASKS;
+    // tasks are inlined unless there is a handshake executor
+    private int state;
+
+    // created by the engine supplier once TLS is started, if it was not given - creation is guarded by {@code this}
+    private volatile SSLEngine engine;
 
     // tasks counter - protected by {@code this}
     private int tasks;
 
+    // handshake admission state, see ADMISSION_*; changes are notified on {@code this}
+    private volatile int admission;
+    // the admission time of the handshake
+    private long handshakeStart;
+    // peer verification state, see VERIFICATION_*; changes are notified on {@code this}
+    private volatile int verification;
+    // the reason why the peer verifier rejected the peer
+    private IOException verificationFailure;
+    // the Flight Recorder event of the handshake in progress, if it is enabled
+    private SslEvents.Handshake handshakeEvent;
+    /** the time of the creation of the engine or of the end of its last handshake, see {@link HandshakeController#isResumed} **/
+    private long lastHandshakeTime;
+    // the traffic of the connection, for its Flight Recorder event
+    private long wrappedBytes;
+    private long wrappedRecordBytes;
+    private long unwrappedBytes;
+    private long unwrappedRecordBytes;
+
     private ReadReadyHandler readReadyHandler;
     private WriteReadyHandler writeReadyHandler;
 
+    // the buffers are only held while they contain data, so an idle connection holds none of them
+    /** The buffer into which incoming SSL data is written. */
+    private ByteBuffer receiveBuffer;
+    /** The buffer from which outbound SSL data is sent. */
+    private ByteBuffer sendBuffer;
+    /** The buffer into which inbound clear data is written. */
+    private ByteBuffer readBuffer;
+    /** The TLS records which were read before the upgrade, which are unwrapped in place before the receive buffer. */
+    private ByteBuffer received;
+    // set while performIO runs, since a handshake listener may re-enter it
+    private boolean performingIO;
+
     //================================================================
     //
     // Constructors
     //
     //================================================================
 
-    JsseStreamConduit(final JsseSslConnection connection, final SSLEngine engine, final StreamSourceConduit sourceConduit, final StreamSinkConduit sinkConduit, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool) {
-        ByteBuffer receiveBuffer;
-        ByteBuffer sendBuffer;
-        ByteBuffer readBuffer;
-        boolean ok = false;
-        final SSLSession session = engine.getSession();
-        final int packetBufferSize = session.getPacketBufferSize();
-        receiveBuffer = socketBufferPool.allocate();
-        try {
-            receiveBuffer.flip();
-            sendBuffer = socketBufferPool.allocate();
-            try {
-                if (receiveBuffer.capacity() < packetBufferSize || sendBuffer.capacity() < packetBufferSize) {
-                    throw msg.socketBufferTooSmall();
-                }
-                final int applicationBufferSize = session.getApplicationBufferSize();
-                readBuffer = applicationBufferPool.allocate();
-                try {
-                    if (readBuffer.capacity() < applicationBufferSize) {
-                        throw msg.appBufferTooSmall();
-                    }
-                    ok = true;
-                } finally {
-                    if (! ok) ByteBufferPool.free(readBuffer);
-                }
-            } finally {
-                if (! ok) ByteBufferPool.free(sendBuffer);
-            }
-        } finally {
-            if (! ok) ByteBufferPool.free(receiveBuffer);
-        }
-        this.receiveBuffer = receiveBuffer;
-        this.sendBuffer = sendBuffer;
-        this.readBuffer = readBuffer;
-        receiveBuffer.clear().limit(0);
+    JsseStreamConduit(final JsseSslConnection connection, final SSLEngine engine, final StreamSourceConduit sourceConduit, final StreamSinkConduit sinkConduit, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final HandshakeController handshakeController) {
+        this(connection, (EngineSupplier) null, sourceConduit, sinkConduit, socketBufferPool, applicationBufferPool, handshakeController);
+        checkBufferSizes(engine.getSession());
+        lastHandshakeTime = System.currentTimeMillis();
+        this.engine = engine;
+    }
+
+    JsseStreamConduit(final JsseSslConnection connection, final EngineSupplier engineSupplier, final StreamSourceConduit sourceConduit, final StreamSinkConduit sinkConduit, final ByteBufferPool socketBufferPool, final ByteBufferPool applicationBufferPool, final HandshakeController handshakeController) {
+        this.engineSupplier = engineSupplier;
+        this.socketBufferPool = socketBufferPool;
+        this.applicationBufferPool = applicationBufferPool;
         if (sourceConduit.getReadThread() != sinkConduit.getWriteThread()) {
             throw new IllegalArgumentException("Source and sink thread mismatch");
         }
         this.connection = connection;
-        this.engine = engine;
         this.sourceConduit = sourceConduit;
         this.sinkConduit = sinkConduit;
+        this.handshakeController = handshakeController;
+        state = handshakeController != null && handshakeController.hasExecutor() ? 0 : FLAG_INLINE_TASKS;
         sourceConduit.setReadReadyHandler(readReady);
         sinkConduit.setWriteReadyHandler(writeReady);
     }
@@ -202,6 +210,26 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     /** write needs unwrap to proceed */
     private static final int WRITE_FLAG_NEEDS_READ = 0b00000_100000000_00000000;
 
+    // handshake admission states
+
+    /** no handshake was counted */
+    private static final int ADMISSION_NONE        = 0;
+    /** waiting for a handshake permit */
+    private static final int ADMISSION_PARKED      = 1;
+    /** the handshake holds a permit */
+    private static final int ADMISSION_ADMITTED    = 2;
+    /** the permit was released */
+    private static final int ADMISSION_DONE        = 3;
+
+    // peer verification states
+
+    /** no peer verification is pending */
+    private static final int VERIFICATION_NONE     = 0;
+    /** waiting for the peer verifier */
+    private static final int VERIFICATION_PENDING  = 1;
+    /** the peer verifier rejected the peer */
+    private static final int VERIFICATION_FAILED   = 2;
+
     public String getStatus() {
         final StringBuilder b = new StringBuilder();
         b.append("General flags:");
@@ -321,22 +349,211 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
 
     // non-public
 
+    private void checkBufferSizes(final SSLSession session) {
+        if (socketBufferPool.getSize() < session.getPacketBufferSize()) {
+            throw msg.socketBufferTooSmall();
+        }
+        if (applicationBufferPool.getSize() < session.getApplicationBufferSize()) {
+            throw msg.appBufferTooSmall();
+        }
+    }
+
     void beginHandshake() throws IOException {
-        final int state = this.state;
+        beginHandshake(null);
+    }
+
+    /**
+     * Begin the handshake, taking over the TLS records which were read before the upgrade.
+     *
+     * @param received the records which were read, or {@code null} if there are none
+     */
+    void beginHandshake(final ByteBuffer received) throws IOException {
+        int state = this.state;
         if (anyAreSet(state, READ_FLAG_EOF | WRITE_FLAG_SHUTDOWN)) {
             throw new ClosedChannelException();
         }
+        final SSLEngine engine = getEngine();
+        if (received != null && received.hasRemaining()) {
+            if (allAreSet(state, FLAG_TLS)) {
+                throw new IllegalStateException();
+            }
+            this.received = received;
+            // the records are there already, so the handlers must not wait for the connection to become readable
+            state |= READ_FLAG_READY;
+        }
         if (allAreClear(state, FLAG_TLS)) {
             this.state = state | FLAG_TLS;
         }
+        final HandshakeController handshakeController = this.handshakeController;
+        if (handshakeController != null && admission == ADMISSION_NONE) {
+            if (handshakeController.tryAdmit()) {
+                handshakeStart = System.nanoTime();
+                admission = ADMISSION_ADMITTED;
+            } else {
+                // reads are suspended by the ready handlers until the handshake is admitted
+                admission = ADMISSION_PARKED;
+                handshakeController.park(this);
+            }
+        }
+        if (handshakeEvent == null) {
+            handshakeEvent = SslEvents.beginHandshake();
+        }
         engine.beginHandshake();
     }
 
+    /**
+     * Called by the handshake controller once a parked handshake holds a permit.
+     */
+    void handshakeAdmitted() {
+        getReadThread().execute(new Runnable() {
+            public void run() {
+                synchronized (JsseStreamConduit.this) {
+                    if (admission != ADMISSION_PARKED) {
+                        // closed in the meantime
+                        handshakeController.release();
+                        return;
+                    }
+                    handshakeStart = System.nanoTime();
+                    admission = ADMISSION_ADMITTED;
+                    JsseStreamConduit.this.notifyAll();
+                }
+                resumeAfterBlocking();
+            }
+        });
+    }
+
+    /**
+     * Let the peer verifier verify the peer of the finished handshake.  I/O is blocked until it is done.
+     */
+    private void verifyPeer(final SslPeerVerifier peerVerifier) {
+        verification = VERIFICATION_PENDING;
+        IoFuture<Void> future;
+        try {
+            future = peerVerifier.verifyPeer(engine);
+        } catch (RuntimeException e) {
+            peerVerified(new IOException(e));
+            return;
+        }
+        future.addNotifier(new IoFuture.HandlingNotifier<Void, Void>() {
+            public void handleCancelled(final Void attachment) {
+                peerVerified(new IOException(msg.opCancelled()));
+            }
+
+            public void handleFailed(final IOException exception, final Void attachment) {
+                peerVerified(exception);
+            }
+
+            public void handleDone(final Void data, final Void attachment) {
+                peerVerified(null);
+            }
+        }, null);
+    }
+
+    /**
+     * Called once the peer verifier is done, from any thread.
+     *
+     * @param failure the reason why the peer was rejected, or {@code null} if it was verified
+     */
+    private void peerVerified(final IOException failure) {
+        getReadThread().execute(new Runnable() {
+            public void run() {
+                synchronized (JsseStreamConduit.this) {
+                    if (verification != VERIFICATION_PENDING) {
+                        // closed in the meantime
+                        return;
+                    }
+                    verificationFailure = failure;
+                    verification = failure == null ? VERIFICATION_NONE : VERIFICATION_FAILED;
+                    // so that blocked callers retry their operation rather than wait for the peer
+                    state |= READ_FLAG_READY | WRITE_FLAG_READY;
+                    JsseStreamConduit.this.notifyAll();
+                }
+                if (failure == null) {
+                    connection.invokeHandshakeListener();
+                }
+                resumeAfterBlocking();
+            }
+        });
+    }
+
+    private void handshakeFinished(final boolean resumed) {
+        if (admission == ADMISSION_ADMITTED) {
+            admission = ADMISSION_DONE;
+            handshakeController.handshakeFinished(handshakeStart, resumed);
+        }
+    }
+
+    private void tasksComplete() {
+        final int state = this.state;
+        if (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
+            synchronized (this) {
+                if (tasks != 0) {
+                    return;
+                }
+            }
+            this.state = state & ~FLAG_NEED_ENGINE_TASK;
+        }
+        resumeAfterBlocking();
+    }
+
+    /**
+     * I/O is blocked while delegated tasks run or while the handshake is suspended.
+     */
+    private boolean isBlocked(final int state) {
+        return allAreSet(state, FLAG_NEED_ENGINE_TASK) || isSuspended();
+    }
+
+    /**
+     * The handshake is suspended while it is parked or while the peer is verified.
+     */
+    private boolean isSuspended() {
+        return admission == ADMISSION_PARKED || verification == VERIFICATION_PENDING;
+    }
+
+    /**
+     * Restore the upstream conduits which were suspended while blocked, and let the handlers retry.
+     */
+    private void resumeAfterBlocking() {
+        int state = this.state;
+        if (isBlocked(state) || allAreSet(state, READ_FLAG_SHUTDOWN | WRITE_FLAG_FINISHED)) {
+            return;
+        }
+        state |= READ_FLAG_READY | WRITE_FLAG_READY;
+        this.state = state;
+        if (allAreSet(state, READ_FLAG_UP_RESUMED)) {
+            sourceConduit.resumeReads();
+        }
+        if (allAreSet(state, WRITE_FLAG_UP_RESUMED)) {
+            sinkConduit.resumeWrites();
+        }
+        if (allAreClear(state, FLAG_TASK_QUEUED)) {
+            run();
+        }
+    }
+
     SSLSession getSslSession() {
         return allAreSet(state, FLAG_TLS) ? engine.getSession() : null;
     }
 
+    /**
+     * Get the SSL engine, creating it if it was not created yet.
+     *
+     * @return the SSL engine
+     */
     SSLEngine getEngine() {
+        SSLEngine engine = this.engine;
+        if (engine == null) {
+            // the options may be set from another thread than the one starting the handshake
+            synchronized (this) {
+                engine = this.engine;
+                if (engine == null) {
+                    lastHandshakeTime = System.currentTimeMillis();
+                    engine = engineSupplier.createEngine();
+                    checkBufferSizes(engine.getSession());
+                    this.engine = engine;
+                }
+            }
+        }
         return engine;
     }
 
@@ -345,9 +562,42 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     }
 
     boolean markTerminated() {
-        ByteBufferPool.free(readBuffer);
-        ByteBufferPool.free(receiveBuffer);
-        ByteBufferPool.free(sendBuffer);
+        if (wrappedRecordBytes != 0L || unwrappedRecordBytes != 0L) {
+            SslEvents.connectionClosed(engine, wrappedBytes, wrappedRecordBytes, unwrappedBytes, unwrappedRecordBytes);
+            wrappedBytes = wrappedRecordBytes = unwrappedBytes = unwrappedRecordBytes = 0L;
+        }
+        if (readBuffer != null) {
+            ByteBufferPool.free(readBuffer);
+            readBuffer = null;
+        }
+        if (receiveBuffer != null) {
+            ByteBufferPool.free(receiveBuffer);
+            receiveBuffer = null;
+        }
+        received = null;
+        if (sendBuffer != null) {
+            ByteBufferPool.free(sendBuffer);
+            sendBuffer = null;
+        }
+        if (handshakeController != null) {
+            synchronized (this) {
+                final int admission = this.admission;
+                if (admission == ADMISSION_ADMITTED) {
+                    this.admission = ADMISSION_DONE;
+                    handshakeController.release();
+                } else if (admission == ADMISSION_PARKED) {
+                    // if it was admitted already, the pending admission releases the permit
+                    this.admission = ADMISSION_DONE;
+                    handshakeController.unpark(this);
+                    notifyAll();
+                }
+                if (verification == VERIFICATION_PENDING) {
+                    // the pending verification is ignored
+                    verification = VERIFICATION_NONE;
+                    notifyAll();
+                }
+            }
+        }
         if (anyAreClear(state, READ_FLAG_SHUTDOWN | WRITE_FLAG_FINISHED)) {
             state |= READ_FLAG_SHUTDOWN | WRITE_FLAG_SHUTDOWN | WRITE_FLAG_SHUTDOWN2 | WRITE_FLAG_SHUTDOWN3 | WRITE_FLAG_FINISHED;
             return true;
@@ -370,9 +620,10 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
         boolean queueTask = false;
         state &= ~FLAG_TASK_QUEUED;
         try {
-            // task(s)
-            if (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
-                throw new UnsupportedOperationException();
+            // task(s) or parked handshake; the handlers are called again once I/O is possible
+            if (isBlocked(state)) {
+                modify = true;
+                return;
             }
             // write side
             if (anyAreSet(state, WRITE_FLAG_WAKEUP) || allAreSet(state, WRITE_FLAG_RESUMED | WRITE_FLAG_READY)) {
@@ -516,6 +767,10 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
      */
     public void writeReady() {
         int state = this.state;
+        if (isBlocked(state)) {
+            sinkConduit.suspendWrites();
+            return;
+        }
         state |= WRITE_FLAG_READY;
         if (allAreSet(state, READ_FLAG_NEEDS_WRITE)) {
             state |= READ_FLAG_READY;
@@ -539,6 +794,10 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
      */
     public void readReady() {
         int state = this.state;
+        if (isBlocked(state)) {
+            sourceConduit.suspendReads();
+            return;
+        }
         state |= READ_FLAG_READY;
         if (allAreSet(state, WRITE_FLAG_NEEDS_READ)) {
             state |= WRITE_FLAG_READY;
@@ -694,6 +953,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     // await
 
     public void awaitWritable() throws IOException {
+        awaitResumed(Long.MAX_VALUE);
         int state = this.state;
         while (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
             synchronized (this) {
@@ -719,8 +979,11 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     }
 
     public void awaitWritable(final long time, final TimeUnit timeUnit) throws IOException {
+        long nanos = awaitResumed(timeUnit.toNanos(time));
+        if (nanos <= 0L && isSuspended()) {
+            return;
+        }
         int state = this.state;
-        long nanos = timeUnit.toNanos(time);
         while (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
             synchronized (this) {
                 long start = System.nanoTime();
@@ -749,6 +1012,37 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
         }
     }
 
+    /**
+     * Wait until a suspended handshake is admitted and its peer verified.
+     *
+     * @param nanos the time to wait, or {@link Long#MAX_VALUE} to wait indefinitely
+     * @return the remaining time
+     */
+    private long awaitResumed(long nanos) throws InterruptedIOException {
+        if (! isSuspended()) {
+            return nanos;
+        }
+        synchronized (this) {
+            long start = System.nanoTime();
+            while (isSuspended()) {
+                try {
+                    if (nanos == Long.MAX_VALUE) {
+                        wait();
+                    } else if (nanos <= 0L) {
+                        return 0L;
+                    } else {
+                        wait(nanos / 1_000_000, (int) (nanos % 1_000_000));
+                        nanos -= -start + (start = System.nanoTime());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        return nanos;
+    }
+
     // reads
 
     public void suspendReads() {
@@ -839,7 +1133,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                         this.state |= READ_FLAG_EOF;
                     }
                 }
-                if (allAreClear(this.state, READ_FLAG_EOF) || this.receiveBuffer.hasRemaining()) {
+                if (allAreClear(this.state, READ_FLAG_EOF) || this.receiveBuffer != null && this.receiveBuffer.hasRemaining() || this.received != null) {
                     // potentially unread data :(
                     final EOFException exception = msg.connectionClosedEarly();
                     try {
@@ -868,6 +1162,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     // await
 
     public void awaitReadable() throws IOException {
+        awaitResumed(Long.MAX_VALUE);
         int state = this.state;
         while (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
             synchronized (this) {
@@ -893,8 +1188,11 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
     }
 
     public void awaitReadable(final long time, final TimeUnit timeUnit) throws IOException {
+        long nanos = awaitResumed(timeUnit.toNanos(time));
+        if (nanos <= 0L && isSuspended()) {
+            return;
+        }
         int state = this.state;
-        long nanos = timeUnit.toNanos(time);
         while (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
             synchronized (this) {
                 long start = System.nanoTime();
@@ -938,14 +1236,15 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
         }
         if (anyAreSet(state, READ_FLAG_EOF)) {
             // read data
-            if (readBuffer.position() > 0) {
-                final ByteBuffer readBufferResource = readBuffer;
+            final ByteBuffer readBufferResource = readBuffer;
+            if (readBufferResource != null && readBufferResource.position() > 0) {
                 readBufferResource.flip();
                 try {
                     if (TRACE_SSL) msg.tracef("TLS copy unwrapped data from %s to %s", Buffers.debugString(readBufferResource), Buffers.debugString(dst));
                     return Buffers.copy(dst, readBufferResource);
                 } finally {
                     readBufferResource.compact();
+                    releaseBuffers();
                 }
             }
             return -1;
@@ -977,14 +1276,15 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
         if (anyAreSet(state, READ_FLAG_SHUTDOWN)) {
             return -1;
         } else if (anyAreSet(state, READ_FLAG_EOF)){
-            if (readBuffer.position() > 0) {
-                final ByteBuffer readBufferResource = readBuffer;
+            final ByteBuffer readBufferResource = readBuffer;
+            if (readBufferResource != null && readBufferResource.position() > 0) {
                 readBufferResource.flip();
                 try {
                     if (TRACE_SSL) msg.tracef("TLS copy unwrapped data from %s to %s", Buffers.debugString(readBufferResource), Buffers.debugString(dsts, offs, len));
                     return Buffers.copy(dsts, offs, len, readBufferResource);
                 } finally {
                     readBufferResource.compact();
+                    releaseBuffers();
                 }
             }
             return -1;
@@ -1120,8 +1420,57 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
         if (allAreClear(state, FLAG_TLS)) {
             return sinkConduit.transferFrom(src, position, count);
         } else {
-            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+            return transferFromFile(src, position, count);
+        }
+    }
+
+    /**
+     * Transfer a file region through the engine.  The region is read one write batch at a time into pooled direct
+     * buffers, which are wrapped straight into the send buffer; the transfer stops as soon as the socket blocks.
+     */
+    private long transferFromFile(final FileChannel src, final long position, final long count) throws IOException {
+        if (allAreSet(state, WRITE_FLAG_SHUTDOWN)) {
+            throw new ClosedChannelException();
+        }
+        if (count <= 0L) {
+            return 0L;
         }
+        // medium buffers which add up to a batch, rather than a large buffer of which a batch would use a fraction
+        final ByteBuffer[] buffers = new ByteBuffer[TRANSFER_BUFFER_COUNT];
+        ByteBufferPool.MEDIUM_DIRECT.allocate(buffers, 0);
+        long xfer = 0L;
+        try {
+            while (xfer < count) {
+                final long batch = min(count - xfer, WRAP_BATCH_SIZE);
+                long read = 0L;
+                int cnt = 0;
+                while (cnt < buffers.length && read < batch) {
+                    final ByteBuffer buffer = buffers[cnt];
+                    buffer.clear();
+                    buffer.limit((int) min(batch - read, buffer.capacity()));
+                    final int res = src.read(buffer, position + xfer + read);
+                    if (res <= 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    read += res;
+                    cnt ++;
+                }
+                if (cnt == 0) {
+                    break;
+                }
+                performIO(IO_GOAL_WRITE, buffers, 0, cnt, NO_BUFFERS, 0, 0);
+                final long remaining = Buffers.remaining(buffers, 0, cnt);
+                xfer += read - remaining;
+                if (remaining > 0L || read < batch) {
+                    // the rest of the region is read again by the next call
+                    break;
+                }
+            }
+        } finally {
+            ByteBufferPool.free(buffers, 0, buffers.length);
+        }
+        return xfer;
     }
 
     public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
@@ -1140,6 +1489,14 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
 
     private static final ByteBuffer[] NO_BUFFERS = new ByteBuffer[0];
 
+    /**
+     * The number of bytes of wrapped records which are queued in the send buffer before they are written, for writes of more
+     * than one record worth of data.  Large enough to fill several TCP segments per write, small enough to not delay
+     * the first bytes of a large write.
+     */
+    private static final int WRAP_BATCH_SIZE = 0x10000;
+    private static final int TRANSFER_BUFFER_COUNT = WRAP_BATCH_SIZE / ByteBufferPool.MEDIUM_SIZE;
+
     private static final int IO_GOAL_READ          = 0;
     private static final int IO_GOAL_WRITE         = 1;
     private static final int IO_GOAL_FLUSH         = 2;
@@ -1168,11 +1525,17 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
         int state = this.state;
         // this contradiction should never occur
         assert ! allAreSet(state, READ_FLAG_NEEDS_WRITE | WRITE_FLAG_NEEDS_READ);
-        if (allAreSet(state, FLAG_NEED_ENGINE_TASK)) {
-            // can't do anything until the task is done
+        if (verification == VERIFICATION_FAILED) {
+            throw msg.peerVerificationFailed(verificationFailure);
+        }
+        if (isBlocked(state)) {
+            // can't do anything until the task is done or the handshake is admitted and verified
             return 0L;
         }
         final SSLEngine engine = this.engine;
+        final boolean outermost = ! performingIO;
+        performingIO = true;
+        allocateBuffers();
         final ByteBuffer sendBuffer = this.sendBuffer;
         final ByteBuffer receiveBuffer = this.receiveBuffer;
         final ByteBuffer readBuffer = this.readBuffer;
@@ -1219,6 +1582,8 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                 if (wrap) {
                     if (TRACE_SSL) msg.tracef("TLS wrap from %s to %s", Buffers.debugString(srcs, srcOff, srcLen), Buffers.debugString(sendBuffer));
                     result = engine.wrap(srcs, srcOff, srcLen, sendBuffer);
+                    wrappedBytes += result.bytesConsumed();
+                    wrappedRecordBytes += result.bytesProduced();
                     WRAP_RESULT: switch (result.getStatus()) {
                         case BUFFER_UNDERFLOW: {
                             assert result.bytesConsumed() == 0;
@@ -1235,6 +1600,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                                 // our buffer is empty, and definitely large enough, so just throw an exception
                                 throw msg.wrongBufferExpansion();
                             } else {
+                                SslEvents.bufferRetry("wrap", result.getStatus());
                                 // there's some data in there, so send it first
                                 sendBuffer.flip();
                                 try {
@@ -1315,6 +1681,14 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                                 }
                                 xfer += consumed;
                                 remaining -= consumed;
+                                if (consumed > 0 && remaining > 0 && allAreClear(state, WRITE_FLAG_SHUTDOWN)
+                                    && result.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING
+                                    && sendBuffer.position() < WRAP_BATCH_SIZE && sendBuffer.remaining() >= result.bytesProduced()) {
+                                    // queue the next record behind this one so that they all go out in one write
+                                    if (TRACE_SSL) msg.tracef("TLS wrap operation batched %s", Buffers.debugString(sendBuffer));
+                                    wrap = true;
+                                    break;
+                                }
                             }
                             // try to send the generated bytes
                             sendBuffer.flip();
@@ -1366,14 +1740,32 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                         }
                     }
                 } else if (unwrap) {
-                    if (TRACE_SSL) msg.tracef("TLS unwrap from %s to %s", Buffers.debugString(receiveBuffer), Buffers.debugString(realDsts, 0, dstLen + 1));
+                    // the records read before the upgrade come first
+                    final ByteBuffer received = this.received;
+                    final ByteBuffer unwrapSource = received != null ? received : receiveBuffer;
+                    if (TRACE_SSL) msg.tracef("TLS unwrap from %s to %s", Buffers.debugString(unwrapSource), Buffers.debugString(realDsts, 0, dstLen + 1));
                     // use dstLen + 1 so that any leftovers are unwrapped into our read buffer to avoid underflow
                     // * offset is 0 because realDsts is a copyOfRange of the original dsts with one extra buf at the end
                     assert realDsts.length == 1 || realDsts[0] == dsts[dstOff];
                     assert realDsts[dstLen] == readBuffer;
                     // user-visible counts
                     final long preRem = Buffers.remaining(dsts, dstOff, dstLen);
-                    result = engine.unwrap(receiveBuffer, realDsts, 0, dstLen + 1);
+                    result = engine.unwrap(unwrapSource, realDsts, 0, dstLen + 1);
+                    unwrappedBytes += result.bytesProduced();
+                    unwrappedRecordBytes += result.bytesConsumed();
+                    if (received != null) {
+                        if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                            // the records end with a partial one, which is completed from the connection
+                            if (TRACE_SSL) msg.tracef("TLS unwrap moves partial record %s", Buffers.debugString(received));
+                            receiveBuffer.clear();
+                            receiveBuffer.put(received).flip();
+                            this.received = null;
+                            continue;
+                        }
+                        if (! received.hasRemaining()) {
+                            this.received = null;
+                        }
+                    }
                     final long userProduced = preRem - Buffers.remaining(dsts, dstOff, dstLen);
                     switch (result.getStatus()) {
                         case BUFFER_OVERFLOW: {
@@ -1381,6 +1773,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                             assert result.bytesProduced() == 0;
                             assert userProduced == 0;
                             if (TRACE_SSL) msg.trace("TLS unwrap operation OVERFLOW");
+                            SslEvents.bufferRetry("unwrap", result.getStatus());
                             // not enough space in destination buffer; caller should consume the data they have first
                             if (!copiedUnwrappedBytes) { // realDsts is too small for message to unwrap 
                                 return actualIOResult(xfer, goal, flushed, eof);
@@ -1393,6 +1786,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                             assert result.bytesProduced() == 0;
                             assert userProduced == 0;
                             if (TRACE_SSL) msg.trace("TLS unwrap operation UNDERFLOW");
+                            SslEvents.bufferRetry("unwrap", result.getStatus());
                             // fill the rest of the buffer, then retry!
                             receiveBuffer.compact();
                             try {
@@ -1503,11 +1897,38 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                 }
                 // now handle handshake
                 handshakeStatus = result.getHandshakeStatus();
+                if (handshakeEvent == null && handshakeStatus != HandshakeStatus.NOT_HANDSHAKING && handshakeStatus != HandshakeStatus.FINISHED) {
+                    // the peer started the handshake
+                    handshakeEvent = SslEvents.beginHandshake();
+                }
                 HS: for (;;) {
                     switch (handshakeStatus) {
 
                         case FINISHED: {
                             if (TRACE_SSL) msg.trace("TLS handshake FINISHED");
+                            final SslEvents.Handshake handshakeEvent = this.handshakeEvent;
+                            final long handshakeTime = lastHandshakeTime;
+                            lastHandshakeTime = System.currentTimeMillis();
+                            if (handshakeController != null || handshakeEvent != null) {
+                                final boolean resumed = HandshakeController.isResumed(engine.getSession(), handshakeTime);
+                                if (handshakeController != null) {
+                                    handshakeFinished(resumed);
+                                }
+                                if (handshakeEvent != null) {
+                                    this.handshakeEvent = null;
+                                    SslEvents.endHandshake(handshakeEvent, engine, resumed);
+                                }
+                            }
+                            final SslPeerVerifier peerVerifier = handshakeController == null ? null : handshakeController.getPeerVerifier();
+                            if (peerVerifier != null) {
+                                // the peer may wait for our last handshake message before it sends anything else
+                                if (allAreSet(state, FLAG_FLUSH_NEEDED) && sendBuffer.position() == 0 && (flushed = sinkConduit.flush())) {
+                                    state &= ~FLAG_FLUSH_NEEDED;
+                                }
+                                // no application data moves until the peer is verified; the verifier calls the handshake listener
+                                verifyPeer(peerVerifier);
+                                return actualIOResult(xfer, goal, flushed, eof);
+                            }
                             connection.invokeHandshakeListener();
                             // try original op again
                             // fall thru!
@@ -1533,7 +1954,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                                         break;
                                     }
                                     try {
-                                        task.run();
+                                        SslEvents.runTask(task);
                                     } catch (Throwable cause) {
                                         throw new SSLException("Delegated task threw an exception", cause);
                                     }
@@ -1562,7 +1983,7 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
                                 // use indexes to avoid iterator creation (which does the same thing anyway)
                                 //noinspection ForLoopReplaceableByForEach
                                 for (int i = 0; i < size; i ++) {
-                                    getWorker().execute(new TaskWrapper(tasks.get(i)));
+                                    handshakeController.execute(new TaskWrapper(tasks.get(i)));
                                 }
                                 return actualIOResult(xfer, goal, flushed, eof);
                             }
@@ -1600,12 +2021,53 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
             }
         } finally {
             this.state = state;
+            if (outermost) {
+                performingIO = false;
+                releaseBuffers();
+            }
             if (wakeupReads) {
                 wakeupReads();
             }
         }
     }
 
+    private void allocateBuffers() {
+        if (receiveBuffer == null) {
+            receiveBuffer = socketBufferPool.allocate();
+            receiveBuffer.limit(0);
+        }
+        if (sendBuffer == null) {
+            sendBuffer = socketBufferPool.allocate();
+        }
+        if (readBuffer == null) {
+            readBuffer = applicationBufferPool.allocate();
+        }
+    }
+
+    /**
+     * Return the buffers which hold no data to their pools.
+     */
+    private void releaseBuffers() {
+        if (performingIO) {
+            return;
+        }
+        final ByteBuffer receiveBuffer = this.receiveBuffer;
+        if (receiveBuffer != null && ! receiveBuffer.hasRemaining()) {
+            this.receiveBuffer = null;
+            ByteBufferPool.free(receiveBuffer);
+        }
+        final ByteBuffer sendBuffer = this.sendBuffer;
+        if (sendBuffer != null && sendBuffer.position() == 0) {
+            this.sendBuffer = null;
+            ByteBufferPool.free(sendBuffer);
+        }
+        final ByteBuffer readBuffer = this.readBuffer;
+        if (readBuffer != null && readBuffer.position() == 0) {
+            this.readBuffer = null;
+            ByteBufferPool.free(readBuffer);
+        }
+    }
+
     class TaskWrapper implements Runnable {
         private final Runnable task;
 
@@ -1615,10 +2077,19 @@ final class JsseStreamConduit implements StreamSourceConduit, StreamSinkConduit,
 
         public void run() {
             try {
-                task.run();
+                SslEvents.runTask(task);
             } finally {
+                final boolean last;
                 synchronized (JsseStreamConduit.this) {
-                    if (tasks -- == 1) JsseStreamConduit.this.notifyAll();
+                    if (last = tasks -- == 1) JsseStreamConduit.this.notifyAll();
+                }
+                if (last) {
+                    // resume on the I/O thread, unless an await method got there first
+                    getReadThread().execute(new Runnable() {
+                        public void run() {
+                            tasksComplete();
+                        }
+                    });
                 }
             }
         }
@@ -23,6 +23,7 @@ import static java.security.AccessController.doPrivileged;
 import static org.xnio.IoUtils.safeClose;
 import static org.xnio._private.Messages.msg;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
@@ -31,6 +32,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.PrivilegedAction;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -56,15 +58,33 @@ import org.xnio.channels.ConnectedStreamChannel;
 
 /**
  * An XNIO SSL provider based on JSSE.  Works with any XNIO provider.
+ * <p>
+ * All connections of a provider instance share its SSL context, and with it the session caches and session ticket
+ * keys, regardless of the worker they belong to.  Client sessions are cached per destination host name and port (see
+ * {@link Options#SSL_PEER_HOST_NAME} and {@link Options#SSL_PEER_PORT}), so further connections to the same
+ * destination resume them.  Resumption hits and misses are counted if {@link Options#SSL_HANDSHAKE_STATISTICS} is
+ * enabled.
+ * <p>
+ * The SSL engines are created by the SSL context, unless another {@link SslEngineFactory} is given.  The first server
+ * created with {@link Options#SSL_PREWARM_HANDSHAKES} runs that many handshakes between engines of the factory in
+ * memory before it accepts connections, so that the handshake code is compiled by the time the first peers connect.
+ * <p>
+ * A {@link SslPeerVerifier} may complement the trust managers with a verification which does not block any thread,
+ * such as a revocation check over the network; the connections of the provider wait for its result once their
+ * handshake finished.  Only the conduit based SSL connections ({@code org.xnio.ssl.new=true}) call a verifier, so a
+ * provider with a verifier cannot be created otherwise.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  * @author <a href="mailto:frainone@redhat.com">Flavia Rainone</a>
  */
-public final class JsseXnioSsl extends XnioSsl {
+public final class JsseXnioSsl extends XnioSsl implements Closeable {
     public static final boolean NEW_IMPL = doPrivileged((PrivilegedAction<Boolean>) () -> Boolean.valueOf(Boolean.parseBoolean(System.getProperty("org.xnio.ssl.new", "false")))).booleanValue();
 
     static final ByteBufferPool bufferPool = ByteBufferPool.LARGE_DIRECT;
     private final SSLContext sslContext;
+    private final SslEngineFactory engineFactory;
+    private final HandshakeController handshakeController;
+    private final AtomicBoolean prewarmed = new AtomicBoolean();
 
     /**
      * Construct a new instance.
@@ -87,8 +107,46 @@ public final class JsseXnioSsl extends XnioSsl {
      * @param sslContext the SSL context to use for this instance
      */
     public JsseXnioSsl(final Xnio xnio, final OptionMap optionMap, final SSLContext sslContext) {
+        this(xnio, optionMap, sslContext, SslEngineFactory.of(sslContext));
+    }
+
+    /**
+     * Construct a new instance whose SSL engines are created by the given factory.
+     *
+     * @param xnio the XNIO instance to associate with
+     * @param optionMap the options for this provider
+     * @param sslContext the SSL context of this instance
+     * @param engineFactory the factory of the SSL engines of this instance
+     * @since 3.10
+     */
+    public JsseXnioSsl(final Xnio xnio, final OptionMap optionMap, final SSLContext sslContext, final SslEngineFactory engineFactory) {
+        this(xnio, optionMap, sslContext, engineFactory, null);
+    }
+
+    /**
+     * Construct a new instance whose SSL engines are created by the given factory, and whose peers are verified by the
+     * given verifier once their handshake finished.
+     *
+     * @param xnio the XNIO instance to associate with
+     * @param optionMap the options for this provider
+     * @param sslContext the SSL context of this instance
+     * @param engineFactory the factory of the SSL engines of this instance
+     * @param peerVerifier the verifier of the peers of this instance, or {@code null} to rely on the trust managers only
+     * @throws IllegalArgumentException if a peer verifier is given while the conduit based SSL connections are disabled
+     * @since 3.10
+     */
+    public JsseXnioSsl(final Xnio xnio, final OptionMap optionMap, final SSLContext sslContext, final SslEngineFactory engineFactory, final SslPeerVerifier peerVerifier) {
         super(xnio, sslContext, optionMap);
+        if (engineFactory == null) {
+            throw msg.nullParameter("engineFactory");
+        }
+        if (peerVerifier != null && ! NEW_IMPL) {
+            // the legacy connections would never consult the verifier, and accept every peer
+            throw msg.peerVerifierUnsupported();
+        }
         this.sslContext = sslContext;
+        this.engineFactory = engineFactory;
+        handshakeController = HandshakeController.create(xnio.getName(), optionMap, peerVerifier);
     }
 
     /**
@@ -101,6 +159,29 @@ public final class JsseXnioSsl extends XnioSsl {
         return sslContext;
     }
 
+    /**
+     * Close this provider instance.  The MBean of its handshake statistics, if any, is unregistered, and its handshake
+     * executor, if any, is shut down once the queued tasks are done.  Connections which are still open keep working;
+     * their delegated tasks are run by the thread which submits them.
+     *
+     * @since 3.10
+     */
+    public void close() {
+        if (handshakeController != null) {
+            handshakeController.close();
+        }
+    }
+
+    /**
+     * Get the factory of the SSL engines of this provider instance.
+     *
+     * @return the SSL engine factory
+     * @since 3.10
+     */
+    public SslEngineFactory getEngineFactory() {
+        return engineFactory;
+    }
+
     /**
      * Get the SSL engine for a given connection.
      *
@@ -154,11 +235,20 @@ public final class JsseXnioSsl extends XnioSsl {
         final FutureResult<SslConnection> futureResult = new FutureResult<>(ioThread);
         final IoFuture<StreamConnection> connection = ioThread.openStreamConnection(bindAddress, destination, new ChannelListener<StreamConnection>() {
             public void handleEvent(final StreamConnection connection) {
-                final SSLEngine sslEngine = JsseSslUtils.createSSLEngine(sslContext, optionMap, destination);
                 final boolean startTls = optionMap.get(Options.SSL_STARTTLS, false);
                 final SslConnection wrappedConnection;
                 try {
-                    wrappedConnection = NEW_IMPL ? new JsseSslConnection(connection, sslEngine, bufferPool, bufferPool) : new JsseSslStreamConnection(connection, sslEngine, bufferPool, bufferPool, startTls);
+                    if (NEW_IMPL && startTls) {
+                        // the engine is only created if the connection is upgraded
+                        wrappedConnection = new JsseSslConnection(connection, new EngineSupplier() {
+                            public SSLEngine createEngine() {
+                                return JsseSslUtils.createSSLEngine(engineFactory, optionMap, destination);
+                            }
+                        }, bufferPool, bufferPool, handshakeController);
+                    } else {
+                        final SSLEngine sslEngine = JsseSslUtils.createSSLEngine(engineFactory, optionMap, destination);
+                        wrappedConnection = NEW_IMPL ? new JsseSslConnection(connection, sslEngine, bufferPool, bufferPool, handshakeController) : new JsseSslStreamConnection(connection, sslEngine, bufferPool, bufferPool, startTls);
+                    }
                 } catch (RuntimeException e) {
                     futureResult.setCancelled();
                     throw e;
@@ -279,7 +369,12 @@ public final class JsseXnioSsl extends XnioSsl {
     }
 
     public AcceptingChannel<SslConnection> createSslConnectionServer(final XnioWorker worker, final InetSocketAddress bindAddress, final ChannelListener<? super AcceptingChannel<SslConnection>> acceptListener, final OptionMap optionMap) throws IOException {
-       final JsseAcceptingSslStreamConnection server = new JsseAcceptingSslStreamConnection(sslContext, worker.createStreamConnectionServer(bindAddress,  null,  optionMap), optionMap, bufferPool, bufferPool, optionMap.get(Options.SSL_STARTTLS, false));
+        final int prewarmHandshakes = optionMap.get(Options.SSL_PREWARM_HANDSHAKES, 0);
+        if (prewarmHandshakes > 0 && prewarmed.compareAndSet(false, true)) {
+            // before the server accepts its first connection
+            EnginePrewarmer.prewarm(engineFactory, prewarmHandshakes);
+        }
+       final JsseAcceptingSslStreamConnection server = new JsseAcceptingSslStreamConnection(engineFactory, worker.createStreamConnectionServer(bindAddress,  null,  optionMap), optionMap, bufferPool, bufferPool, optionMap.get(Options.SSL_STARTTLS, false), handshakeController);
         if (acceptListener != null) server.getAcceptSetter().set(acceptListener);
         return server;
     }
@@ -17,7 +17,10 @@
  */
 package org.xnio.ssl;
 
+import static org.xnio._private.Messages.msg;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import javax.net.ssl.SSLSession;
 
@@ -54,6 +57,27 @@ public abstract class SslConnection extends StreamConnection implements SslChann
      */
     public abstract void startHandshake() throws IOException;
 
+    /**
+     * Start the SSL/TLS handshake of a {@link Options#SSL_STARTTLS} connection, handing over the first TLS records
+     * which were already read from the connection before the upgrade, for instance by a protocol reader which read
+     * past the upgrade command.  The records are unwrapped before anything else is read from the connection.  The
+     * buffer must not be used by the caller after this method returns, since the connection may read from it for as
+     * long as it holds any records.
+     * <p>
+     * The connections of XNIO take over the records.  Other subclasses should override this method, since the
+     * records have to be fed beneath the SSL/TLS layer; the default implementation fails if any records were given.
+     *
+     * @param received the buffer holding the records which were already read
+     * @throws IOException if an I/O error occurs, or if records were given and this connection cannot take them over
+     * @since 3.10
+     */
+    public void startHandshake(ByteBuffer received) throws IOException {
+        if (received.hasRemaining()) {
+            throw msg.receivedRecordsUnsupported();
+        }
+        startHandshake();
+    }
+
     /**
      * Get the current {@code SSLSession} for this channel.
      *
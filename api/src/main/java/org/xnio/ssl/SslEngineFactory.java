@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+/**
+ * A factory of the SSL engines of a {@link JsseXnioSsl} provider.  By default, the engines are created by the SSL
+ * context of the provider; an alternative factory may create engines backed by another TLS implementation, or stubs
+ * for testing.  The provider configures each engine it is given from its option maps, as it would configure an engine
+ * created by the SSL context.
+ *
+ * @since 3.10
+ */
+public interface SslEngineFactory {
+
+    /**
+     * Create a new SSL engine.
+     *
+     * @param peerHost the non-authoritative name of the peer host, or {@code null} if unknown
+     * @param peerPort the non-authoritative port of the peer, or {@code -1} if unknown
+     * @return the new SSL engine
+     */
+    SSLEngine createSSLEngine(String peerHost, int peerPort);
+
+    /**
+     * Get a factory which creates the engines of an SSL context.
+     *
+     * @param sslContext the SSL context
+     * @return the engine factory
+     */
+    static SslEngineFactory of(final SSLContext sslContext) {
+        return new SslEngineFactory() {
+            public SSLEngine createSSLEngine(final String peerHost, final int peerPort) {
+                return sslContext.createSSLEngine(peerHost, peerPort);
+            }
+
+            public String toString() {
+                return "SSL engine factory of " + sslContext;
+            }
+        };
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLSession;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder events of the SSL conduits.  Each method creates its event only to check whether it is enabled,
+ * which the JIT compiles away while recording is off, so the call sites stay in the I/O paths unconditionally.  No
+ * event is created before the Flight Recorder is initialized, since loading the first event class would otherwise
+ * stall the calling I/O thread, nor if the {@code jdk.jfr} module is not present.
+ */
+final class SslEvents {
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private SslEvents() {
+    }
+
+    private static boolean isRecorderInitialized() {
+        return AVAILABLE && FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Begin timing a handshake.
+     *
+     * @return the handshake event, or {@code null} if it is not enabled
+     */
+    static Handshake beginHandshake() {
+        if (isRecorderInitialized()) {
+            final Handshake event = new Handshake();
+            if (event.isEnabled()) {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Commit a handshake event once the handshake is finished.
+     *
+     * @param event the event returned by {@link #beginHandshake()}
+     * @param engine the engine which finished the handshake
+     * @param resumed {@code true} if the handshake resumed a session
+     */
+    static void endHandshake(final Handshake event, final SSLEngine engine, final boolean resumed) {
+        event.end();
+        if (event.shouldCommit()) {
+            final SSLSession session = engine.getSession();
+            event.peerHost = engine.getPeerHost();
+            event.peerPort = engine.getPeerPort();
+            event.client = engine.getUseClientMode();
+            event.protocol = session.getProtocol();
+            event.cipherSuite = session.getCipherSuite();
+            event.resumed = resumed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Run a delegated task of the engine, timing it.
+     *
+     * @param task the delegated task
+     */
+    static void runTask(final Runnable task) {
+        if (isRecorderInitialized()) {
+            final DelegatedTask event = new DelegatedTask();
+            event.begin();
+            try {
+                task.run();
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.task = task.getClass().getName();
+                    event.commit();
+                }
+            }
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Record a wrap or unwrap operation which must be retried after the buffers are drained or filled.
+     *
+     * @param operation {@code "wrap"} or {@code "unwrap"}
+     * @param status the status of the engine result
+     */
+    static void bufferRetry(final String operation, final SSLEngineResult.Status status) {
+        if (isRecorderInitialized()) {
+            final BufferRetry event = new BufferRetry();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.status = status.name();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Record the traffic of a connection once it is closed.
+     *
+     * @param engine the engine of the connection
+     * @param wrapped the amount of application data wrapped
+     * @param wrappedRecords the amount of TLS record data produced by wrapping
+     * @param unwrapped the amount of application data unwrapped
+     * @param unwrappedRecords the amount of TLS record data consumed by unwrapping
+     */
+    static void connectionClosed(final SSLEngine engine, final long wrapped, final long wrappedRecords, final long unwrapped, final long unwrappedRecords) {
+        if (isRecorderInitialized()) {
+            final ConnectionTraffic event = new ConnectionTraffic();
+            if (event.shouldCommit()) {
+                event.peerHost = engine.getPeerHost();
+                event.peerPort = engine.getPeerPort();
+                event.wrapped = wrapped;
+                event.wrappedRecords = wrappedRecords;
+                event.unwrapped = unwrapped;
+                event.unwrappedRecords = unwrappedRecords;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("org.xnio.ssl.Handshake")
+    @Label("TLS Handshake")
+    @Category({ "XNIO", "TLS" })
+    @Description("A TLS handshake, from its start to its completion")
+    static final class Handshake extends Event {
+        @Label("Peer Host")
+        String peerHost;
+
+        @Label("Peer Port")
+        int peerPort;
+
+        @Label("Client Mode")
+        boolean client;
+
+        @Label("Protocol")
+        String protocol;
+
+        @Label("Cipher Suite")
+        String cipherSuite;
+
+        @Label("Resumed")
+        @Description("Whether a cached session or a session ticket was resumed")
+        boolean resumed;
+    }
+
+    @Name("org.xnio.ssl.DelegatedTask")
+    @Label("TLS Delegated Task")
+    @Category({ "XNIO", "TLS" })
+    @Description("The execution of a delegated task of the SSL engine")
+    static final class DelegatedTask extends Event {
+        @Label("Task Class")
+        String task;
+    }
+
+    @Name("org.xnio.ssl.BufferRetry")
+    @Label("TLS Buffer Retry")
+    @Category({ "XNIO", "TLS" })
+    @Description("A wrap or unwrap operation which has to be retried because a buffer is full or holds a partial record")
+    static final class BufferRetry extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Status")
+        String status;
+    }
+
+    @Name("org.xnio.ssl.ConnectionTraffic")
+    @Label("TLS Connection Traffic")
+    @Category({ "XNIO", "TLS" })
+    @Description("The amount of data wrapped and unwrapped by a TLS connection over its lifetime")
+    static final class ConnectionTraffic extends Event {
+        @Label("Peer Host")
+        String peerHost;
+
+        @Label("Peer Port")
+        int peerPort;
+
+        @Label("Wrapped")
+        @DataAmount
+        long wrapped;
+
+        @Label("Wrapped Records")
+        @DataAmount
+        long wrappedRecords;
+
+        @Label("Unwrapped")
+        @DataAmount
+        long unwrapped;
+
+        @Label("Unwrapped Records")
+        @DataAmount
+        long unwrappedRecords;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import javax.net.ssl.SSLEngine;
+
+import org.xnio.IoFuture;
+
+/**
+ * An asynchronous verifier of the peers of the connections of a {@link JsseXnioSsl} provider.  Key and trust managers
+ * are called synchronously by the delegated tasks of the SSL engine, so one which has to call out, for instance to
+ * check the revocation status of a certificate, blocks the thread which runs the task.  A peer verifier instead is
+ * called once the engine finished the handshake, and returns immediately; the connection neither reads nor writes
+ * application data, and its handshake listener is not called, until the returned future is done.  If the future fails
+ * or is cancelled, the next I/O operation of the connection fails with an {@link javax.net.ssl.SSLHandshakeException}.
+ * <p>
+ * Peer verifiers are only called by the conduit based SSL connections ({@code org.xnio.ssl.new=true}); without them,
+ * {@link JsseXnioSsl} rejects a verifier rather than accept every peer.
+ *
+ * @since 3.10
+ */
+public interface SslPeerVerifier {
+
+    /**
+     * Begin the verification of the peer of a connection whose handshake finished.  This method is called by the I/O
+     * thread of the connection, so it must not block.
+     *
+     * @param engine the SSL engine of the connection, whose session holds the peer certificates
+     * @return the future result of the verification, which fails if the peer is not trusted
+     */
+    IoFuture<Void> verifyPeer(SSLEngine engine);
+}
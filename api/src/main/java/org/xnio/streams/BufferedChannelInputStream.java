@@ -21,6 +21,7 @@ package org.xnio.streams;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import static java.lang.Math.min;
 import static org.xnio._private.Messages.msg;
@@ -29,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import org.xnio.Bits;
 import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
 import org.xnio.channels.Channels;
 import org.xnio.channels.StreamSourceChannel;
 
@@ -42,7 +44,8 @@ import org.xnio.channels.StreamSourceChannel;
  */
 public class BufferedChannelInputStream extends InputStream {
     private final StreamSourceChannel channel;
-    private final ByteBuffer buffer;
+    private final boolean pooled;
+    private ByteBuffer buffer;
     @SuppressWarnings("unused")
     private volatile int flags;
     private volatile long timeout;
@@ -66,10 +69,63 @@ public class BufferedChannelInputStream extends InputStream {
             throw msg.parameterOutOfRange("bufferSize");
         }
         this.channel = channel;
+        pooled = false;
         buffer = ByteBuffer.allocate(bufferSize);
         buffer.limit(0);
     }
 
+    /**
+     * Construct a new instance whose internal buffer is taken from a pool, and released when the stream is closed.
+     * When the channel is backed by a socket, a buffer from a direct pool spares the copy of every read through a
+     * temporary direct buffer of the JDK.
+     *
+     * @param channel the channel to wrap
+     * @param pool the pool to take the internal buffer from
+     * @since 3.10
+     */
+    public BufferedChannelInputStream(final StreamSourceChannel channel, final ByteBufferPool pool) {
+        if (channel == null) {
+            throw msg.nullParameter("channel");
+        }
+        if (pool == null) {
+            throw msg.nullParameter("pool");
+        }
+        this.channel = channel;
+        pooled = true;
+        buffer = pool.allocate();
+        buffer.limit(0);
+    }
+
+    /**
+     * Construct a new instance whose internal buffer is taken from a pool, and released when the stream is closed.
+     *
+     * @param channel the channel to wrap
+     * @param pool the pool to take the internal buffer from
+     * @param timeout the initial read timeout, or O for none
+     * @param unit the time unit for the read timeout
+     * @since 3.10
+     */
+    public BufferedChannelInputStream(final StreamSourceChannel channel, final ByteBufferPool pool, final long timeout, final TimeUnit unit) {
+        if (channel == null) {
+            throw msg.nullParameter("channel");
+        }
+        if (pool == null) {
+            throw msg.nullParameter("pool");
+        }
+        if (unit == null) {
+            throw msg.nullParameter("unit");
+        }
+        if (timeout < 0L) {
+            throw msg.parameterOutOfRange("timeout");
+        }
+        this.channel = channel;
+        pooled = true;
+        buffer = pool.allocate();
+        buffer.limit(0);
+        final long calcTimeout = unit.toNanos(timeout);
+        this.timeout = timeout == 0L ? 0L : calcTimeout < 1L ? 1L : calcTimeout;
+    }
+
     /**
      * Construct a new instance.
      *
@@ -92,6 +148,7 @@ public class BufferedChannelInputStream extends InputStream {
             throw msg.parameterOutOfRange("timeout");
         }
         this.channel = channel;
+        pooled = false;
         buffer = ByteBuffer.allocate(bufferSize);
         buffer.limit(0);
         final long calcTimeout = unit.toNanos(timeout);
@@ -267,6 +324,158 @@ public class BufferedChannelInputStream extends InputStream {
         }
     }
 
+    /**
+     * Read bytes into a sequence of buffers.  The buffered bytes are copied first; the rest is read from the channel
+     * straight into the given buffers, without going through the internal buffer.
+     *
+     * @param dsts the destination buffers
+     * @return the number of bytes read, or -1 if the end of the stream has been reached
+     * @throws IOException if an I/O error occurs
+     * @since 3.10
+     */
+    public long read(final ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    /**
+     * Read bytes into a sequence of buffers.  The buffered bytes are copied first; the rest is read from the channel
+     * straight into the given buffers, without going through the internal buffer.
+     *
+     * @param dsts the destination buffers
+     * @param offs the offset into the buffer array
+     * @param len the number of buffers to fill
+     * @return the number of bytes read, or -1 if the end of the stream has been reached
+     * @throws IOException if an I/O error occurs
+     * @since 3.10
+     */
+    public long read(final ByteBuffer[] dsts, final int offs, final int len) throws IOException {
+        if (! Buffers.hasRemaining(dsts, offs, len)) {
+            return 0L;
+        }
+        boolean eof = enter();
+        try {
+            long total = 0L;
+            // empty buffer
+            final ByteBuffer buffer = this.buffer;
+            if (buffer.hasRemaining()) {
+                total += Buffers.copy(dsts, offs, len, buffer);
+                // either the user buffers are full, or the source buffer is empty
+                if (! Buffers.hasRemaining(dsts, offs, len)) {
+                    return total;
+                }
+            }
+            if (eof) return total == 0L ? -1L : total;
+            // read the rest directly into the user buffers
+            final StreamSourceChannel channel = this.channel;
+            long timeout;
+            long start = System.nanoTime();
+            long elapsed = 0L;
+            long res;
+            for (;;) {
+                res = channel.read(dsts, offs, len);
+                if (res == -1L) {
+                    eof = true;
+                    return total == 0L ? -1L : total;
+                }
+                total += res;
+                if (total > 0L) {
+                    return total;
+                }
+                timeout = this.timeout;
+                if (timeout == 0L) {
+                    channel.awaitReadable();
+                } else if (timeout < elapsed) {
+                    throw msg.readTimeout();
+                } else {
+                    channel.awaitReadable(timeout - elapsed, TimeUnit.NANOSECONDS);
+                }
+                elapsed = System.nanoTime() - start;
+            }
+        } finally {
+            exit(eof);
+        }
+    }
+
+    /**
+     * Transfer the rest of the stream to an output stream.  The internal buffer is filled from the channel and written
+     * out as is, without the intermediate array of {@link InputStream#transferTo(OutputStream)}; only a direct internal
+     * buffer is copied out in chunks.  The read timeout applies to each wait for more bytes.
+     *
+     * @param out the output stream
+     * @return the number of bytes transferred
+     * @throws IOException if an I/O error occurs
+     * @since 3.10
+     */
+    public long transferTo(final OutputStream out) throws IOException {
+        if (out == null) {
+            throw msg.nullParameter("out");
+        }
+        boolean eof = enter();
+        try {
+            final StreamSourceChannel channel = this.channel;
+            final ByteBuffer buffer = this.buffer;
+            final byte[] chunk = buffer.hasArray() ? null : new byte[min(buffer.capacity(), 8192)];
+            long total = 0L;
+            long timeout;
+            long start = System.nanoTime();
+            long elapsed = 0L;
+            int res;
+            for (;;) {
+                total += drain(buffer, out, chunk);
+                if (eof) {
+                    return total;
+                }
+                buffer.clear();
+                try {
+                    res = channel.read(buffer);
+                } finally {
+                    buffer.flip();
+                }
+                if (res == -1) {
+                    eof = true;
+                    return total;
+                }
+                if (res > 0) {
+                    start = System.nanoTime();
+                    elapsed = 0L;
+                    continue;
+                }
+                timeout = this.timeout;
+                try {
+                    if (timeout == 0L) {
+                        channel.awaitReadable();
+                    } else if (timeout < elapsed) {
+                        throw msg.readTimeout();
+                    } else {
+                        channel.awaitReadable(timeout - elapsed, TimeUnit.NANOSECONDS);
+                    }
+                } catch (InterruptedIOException e) {
+                    e.bytesTransferred = (int) min(total, (long) Integer.MAX_VALUE);
+                    throw e;
+                }
+                elapsed = System.nanoTime() - start;
+            }
+        } finally {
+            exit(eof);
+        }
+    }
+
+    private static int drain(final ByteBuffer buffer, final OutputStream out, final byte[] chunk) throws IOException {
+        final int rem = buffer.remaining();
+        if (chunk == null) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), rem);
+            buffer.position(buffer.limit());
+        } else {
+            int cnt;
+            while (buffer.hasRemaining()) {
+                cnt = min(buffer.remaining(), chunk.length);
+                buffer.get(chunk, 0, cnt);
+                out.write(chunk, 0, cnt);
+            }
+        }
+        return rem;
+    }
+
     /**
      * Skip bytes in the stream.
      *
@@ -364,14 +573,22 @@ public class BufferedChannelInputStream extends InputStream {
     }
 
     /**
-     * Close the stream.  Shuts down the channel's read side.
+     * Close the stream.  Shuts down the channel's read side, and releases the internal buffer if it was taken from a
+     * pool.
      *
      * @throws IOException if an I/O error occurs
      */
     public void close() throws IOException {
         enter();
         try {
-            buffer.clear().flip();
+            final ByteBuffer buffer = this.buffer;
+            if (! pooled) {
+                buffer.clear().flip();
+            } else if (buffer != Buffers.EMPTY_BYTE_BUFFER) {
+                // later reads find an empty buffer and the end of the stream
+                this.buffer = Buffers.EMPTY_BYTE_BUFFER;
+                ByteBufferPool.free(buffer);
+            }
             channel.shutdownReads();
         } finally {
             exit(true);
@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.streams;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Copies runs of characters which a character set maps onto bytes of the same value: the ASCII range of UTF-8 and
+ * US-ASCII, and the whole range of ISO-8859-1.  The character streams copy such runs between their arrays, and only
+ * pass the characters in between to the generic coder.
+ */
+final class DirectRuns {
+
+    /**
+     * The highest character of a character set without direct runs.
+     */
+    static final int NONE = -1;
+
+    private static final int ASCII = 0x7f;
+    private static final int LATIN_1 = 0xff;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private DirectRuns() {
+    }
+
+    /**
+     * Get the highest character which a character set maps onto a byte of the same value, and every lower one too.
+     *
+     * @param charset the character set
+     * @return the highest character, or {@link #NONE} if the character set has no direct runs
+     */
+    static int maxDirect(final Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)) {
+            return ASCII;
+        } else if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            return LATIN_1;
+        } else {
+            return NONE;
+        }
+    }
+
+    /**
+     * Encode the run of direct characters at the start of a range.
+     *
+     * @param src the characters
+     * @param srcPos the start of the characters
+     * @param srcLim the end of the characters
+     * @param dst the bytes
+     * @param dstPos the start of the room for the bytes
+     * @param dstLim the end of the room for the bytes
+     * @param max the highest direct character
+     * @return the number of characters encoded, which is also the number of bytes
+     */
+    static int encode(final char[] src, final int srcPos, final int srcLim, final byte[] dst, final int dstPos, final int dstLim, final int max) {
+        final int n = Math.min(srcLim - srcPos, dstLim - dstPos);
+        int i = 0;
+        // one test per block of eight characters
+        while (i + 8 <= n) {
+            final int s = srcPos + i;
+            if ((src[s] | src[s + 1] | src[s + 2] | src[s + 3] | src[s + 4] | src[s + 5] | src[s + 6] | src[s + 7]) > max) {
+                break;
+            }
+            final int d = dstPos + i;
+            for (int j = 0; j < 8; j ++) {
+                dst[d + j] = (byte) src[s + j];
+            }
+            i += 8;
+        }
+        while (i < n && src[srcPos + i] <= max) {
+            dst[dstPos + i] = (byte) src[srcPos + i];
+            i ++;
+        }
+        return i;
+    }
+
+    /**
+     * Decode the run of direct bytes at the start of a range.
+     *
+     * @param src the bytes
+     * @param srcPos the start of the bytes
+     * @param srcLim the end of the bytes
+     * @param dst the characters
+     * @param dstPos the start of the room for the characters
+     * @param dstLim the end of the room for the characters
+     * @param max the highest direct character
+     * @return the number of bytes decoded, which is also the number of characters
+     */
+    static int decode(final byte[] src, final int srcPos, final int srcLim, final char[] dst, final int dstPos, final int dstLim, final int max) {
+        final int n = Math.min(srcLim - srcPos, dstLim - dstPos);
+        int i = 0;
+        if (max == LATIN_1) {
+            for (; i < n; i ++) {
+                dst[dstPos + i] = (char) (src[srcPos + i] & 0xff);
+            }
+            return i;
+        }
+        // test eight bytes at once for a high bit
+        while (i + 8 <= n && ((long) LONGS.get(src, srcPos + i) & HIGH_BITS) == 0L) {
+            final int s = srcPos + i;
+            final int d = dstPos + i;
+            for (int j = 0; j < 8; j ++) {
+                dst[d + j] = (char) src[s + j];
+            }
+            i += 8;
+        }
+        while (i < n && src[srcPos + i] >= 0) {
+            dst[dstPos + i] = (char) src[srcPos + i];
+            i ++;
+        }
+        return i;
+    }
+
+    /**
+     * Find the end of the run of characters which are not direct at the start of a range.
+     *
+     * @param src the characters
+     * @param pos the start of the characters
+     * @param lim the end of the characters
+     * @param max the highest direct character
+     * @return the position of the next direct character, or {@code lim} if there is none
+     */
+    static int encodedRunEnd(final char[] src, int pos, final int lim, final int max) {
+        while (pos < lim && src[pos] > max) {
+            pos ++;
+        }
+        return pos;
+    }
+
+    /**
+     * Find the end of the run of bytes which are not direct at the start of a range.
+     *
+     * @param src the bytes
+     * @param pos the start of the bytes
+     * @param lim the end of the bytes
+     * @param max the highest direct character
+     * @return the position of the next direct byte, or {@code lim} if there is none
+     */
+    static int decodedRunEnd(final byte[] src, int pos, final int lim, final int max) {
+        while (pos < lim && (src[pos] & 0xff) > max) {
+            pos ++;
+        }
+        return pos;
+    }
+}
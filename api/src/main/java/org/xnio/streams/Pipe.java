@@ -29,7 +29,8 @@ import java.io.PipedInputStream;
 
 /**
  * An in-VM pipe between an input stream and an output stream, which does not suffer from the
- * bugs in {@link PipedInputStream}.
+ * bugs in {@link PipedInputStream}.  A pipe between exactly one reading and one writing thread is cheaper as a
+ * {@link SpscPipe}.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
@@ -39,6 +39,7 @@ public final class ReaderInputStream extends InputStream {
 
     private final Reader reader;
     private final CharsetEncoder encoder;
+    private final int maxDirect;
     private final CharBuffer charBuffer;
     private final ByteBuffer byteBuffer;
 
@@ -101,6 +102,7 @@ public final class ReaderInputStream extends InputStream {
         }
         this.reader = reader;
         this.encoder = encoder;
+        maxDirect = DirectRuns.maxDirect(encoder.charset());
         charBuffer = CharBuffer.wrap(new char[bufferSize]);
         byteBuffer = ByteBuffer.wrap(new byte[(int) ((float)bufferSize * encoder.averageBytesPerChar() + 0.5f)]);
         charBuffer.flip();
@@ -152,7 +154,7 @@ public final class ReaderInputStream extends InputStream {
         try {
             while (byteBuffer.hasRemaining()) {
                 while (charBuffer.hasRemaining()) {
-                    final CoderResult result = encoder.encode(charBuffer, byteBuffer, false);
+                    final CoderResult result = encode();
                     if (result.isOverflow()) {
                         return true;
                     }
@@ -188,6 +190,50 @@ public final class ReaderInputStream extends InputStream {
         }
     }
 
+    /**
+     * Encode as many characters as fit, copying the runs of characters which the character set maps onto bytes of
+     * the same value, and passing only the characters in between to the encoder.
+     *
+     * @return the result, as of {@link CharsetEncoder#encode(CharBuffer, ByteBuffer, boolean)}
+     */
+    private CoderResult encode() {
+        final CharBuffer charBuffer = this.charBuffer;
+        final ByteBuffer byteBuffer = this.byteBuffer;
+        final int maxDirect = this.maxDirect;
+        if (maxDirect == DirectRuns.NONE) {
+            return encoder.encode(charBuffer, byteBuffer, false);
+        }
+        final char[] chars = charBuffer.array();
+        final byte[] bytes = byteBuffer.array();
+        for (;;) {
+            final int cnt = DirectRuns.encode(chars, charBuffer.position(), charBuffer.limit(), bytes, byteBuffer.position(), byteBuffer.limit(), maxDirect);
+            charBuffer.position(charBuffer.position() + cnt);
+            byteBuffer.position(byteBuffer.position() + cnt);
+            if (! charBuffer.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            if (! byteBuffer.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            final int start = charBuffer.position();
+            final int limit = charBuffer.limit();
+            final CoderResult result;
+            charBuffer.limit(DirectRuns.encodedRunEnd(chars, start, limit, maxDirect));
+            try {
+                result = encoder.encode(charBuffer, byteBuffer, false);
+            } finally {
+                charBuffer.limit(limit);
+            }
+            if (! result.isUnderflow()) {
+                return result;
+            }
+            if (charBuffer.position() == start) {
+                // the run ends with an incomplete sequence, which only the characters after it complete or break
+                return encoder.encode(charBuffer, byteBuffer, false);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     public long skip(long n) throws IOException {
         final ByteBuffer byteBuffer = this.byteBuffer;
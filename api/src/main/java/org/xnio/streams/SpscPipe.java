@@ -0,0 +1,370 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.streams;
+
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.unpark;
+import static org.xnio._private.Messages.msg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * An in-VM pipe between exactly one reading and one writing thread.  Unlike {@link Pipe}, the two halves share no
+ * lock: each half owns the count of the bytes it transferred, and only reads the count of the other half when its
+ * cached copy does not cover the bytes it is asked to transfer.  A thread which finds the ring empty or full spins for
+ * a short while before it parks, and is only unparked by the other half if it actually parked.
+ * <p>
+ * The input stream must not be used by more than one thread at a time, and neither must the output stream; a pipe
+ * which is shared by several readers or several writers must be a {@link Pipe}.
+ *
+ * @since 3.10
+ */
+public final class SpscPipe {
+
+    // spinning is pointless if the other half cannot run meanwhile
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 10 : 0;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    /** the number of bytes written so far, advanced by the writer **/
+    private final Sequence written = new Sequence();
+    /** the number of bytes read so far, advanced by the reader **/
+    private final Sequence read = new Sequence();
+    private volatile boolean writeClosed;
+    private volatile boolean readClosed;
+    private final CountDownLatch readClosedLatch = new CountDownLatch(1);
+    private final InputStream in;
+    private final OutputStream out;
+
+    /**
+     * Construct a new instance backed by a heap buffer.
+     *
+     * @param bufferSize the buffer size to use
+     */
+    public SpscPipe(int bufferSize) {
+        this(bufferSize, false);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param bufferSize the buffer size to use
+     * @param direct {@code true} to back the pipe by a direct buffer, {@code false} to back it by a heap buffer
+     */
+    public SpscPipe(int bufferSize, boolean direct) {
+        if (bufferSize < 1) {
+            throw msg.parameterOutOfRange("bufferSize");
+        }
+        buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        capacity = bufferSize;
+        in = new PipeInputStream();
+        out = new PipeOutputStream();
+    }
+
+    /**
+     * Wait for the read side to close.  Used when the writer needs to know when
+     * the reader finishes consuming a message.
+     */
+    public void await() {
+        boolean intr = false;
+        try {
+            for (;;) {
+                try {
+                    readClosedLatch.await();
+                    return;
+                } catch (InterruptedException e) {
+                    intr = true;
+                }
+            }
+        } finally {
+            if (intr) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait until a sequence moves past the given value, or the pipe is closed.
+     *
+     * @param sequence the sequence
+     * @param value the value of the sequence seen by the caller
+     * @return {@code true} if the sequence moved or the pipe was closed, {@code false} if the thread was interrupted
+     */
+    private boolean awaitChange(final Sequence sequence, final long value) {
+        for (int i = 0; i < SPINS; i ++) {
+            if (sequence.value != value || writeClosed) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        final Thread thread = Thread.currentThread();
+        // publish the waiter before the last check, so that the other half either sees it or is seen
+        sequence.waiter = thread;
+        try {
+            while (sequence.value == value && ! writeClosed) {
+                if (thread.isInterrupted()) {
+                    return false;
+                }
+                park(this);
+            }
+            return true;
+        } finally {
+            sequence.waiter = null;
+        }
+    }
+
+    private void wakeAll() {
+        written.signal();
+        read.signal();
+    }
+
+    private final class PipeInputStream extends InputStream {
+        private final ByteBuffer view = buffer.duplicate();
+        /** the number of bytes read so far **/
+        private long position;
+        /** the number of written bytes, as last seen by the reader **/
+        private long limit;
+
+        /**
+         * Wait for bytes to read.  The count of written bytes is only read again if the last seen count does not cover
+         * the wanted bytes.
+         *
+         * @param wanted the number of bytes the caller wants to read
+         * @return the number of bytes which can be read without waiting, or -1 if the pipe is closed and drained
+         * @throws IOException if the thread is interrupted
+         */
+        private int awaitReadable(final int wanted) throws IOException {
+            if (readClosed) {
+                return -1;
+            }
+            final long position = this.position;
+            long limit = this.limit;
+            if (limit - position < wanted) {
+                while ((limit = written.value) == position) {
+                    if (writeClosed) {
+                        // the writer closes after it published its last bytes
+                        if ((limit = written.value) == position) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    if (! awaitChange(written, position)) {
+                        throw msg.interruptedIO();
+                    }
+                    if (readClosed) {
+                        return -1;
+                    }
+                }
+                this.limit = limit;
+            }
+            return (int) (limit - position);
+        }
+
+        public int read() throws IOException {
+            if (awaitReadable(1) == -1) {
+                return -1;
+            }
+            final long position = this.position;
+            final int b = view.get((int) (position % capacity)) & 0xff;
+            read.advance(this.position = position + 1);
+            return b;
+        }
+
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return readClosed || writeClosed && written.value == position ? -1 : 0;
+            }
+            final int readable = awaitReadable(len);
+            if (readable == -1) {
+                return -1;
+            }
+            final ByteBuffer view = this.view;
+            final long position = this.position;
+            final int cnt = Math.min(len, readable);
+            final int index = (int) (position % capacity);
+            final int firstLen = Math.min(cnt, capacity - index);
+            view.clear();
+            view.position(index);
+            view.get(b, off, firstLen);
+            if (firstLen < cnt) {
+                // wrapped
+                view.clear();
+                view.get(b, off + firstLen, cnt - firstLen);
+            }
+            read.advance(this.position = position + cnt);
+            return cnt;
+        }
+
+        public int available() throws IOException {
+            return readClosed ? 0 : (int) (written.value - position);
+        }
+
+        public void close() throws IOException {
+            writeClosed = true;
+            readClosed = true;
+            readClosedLatch.countDown();
+            // the remaining bytes are dropped; the writer fails, and so does a reader if this is another thread
+            wakeAll();
+        }
+
+        public String toString() {
+            return "Pipe read half";
+        }
+    }
+
+    private final class PipeOutputStream extends OutputStream {
+        private final ByteBuffer view = buffer.duplicate();
+        /** the number of bytes written so far **/
+        private long position;
+        /** the number of bytes which can be written before the reader must be checked again **/
+        private long limit = capacity;
+
+        /**
+         * Wait for room to write.  The count of read bytes is only read again if the last seen count does not leave
+         * room for the wanted bytes.
+         *
+         * @param wanted the number of bytes the caller wants to write
+         * @return the number of bytes which can be written without waiting, or -1 if the thread is interrupted
+         * @throws IOException if the pipe is closed
+         */
+        private int awaitWritable(final int wanted) throws IOException {
+            if (writeClosed) {
+                throw msg.streamClosed();
+            }
+            final long position = this.position;
+            long limit = this.limit;
+            if (limit - position < wanted) {
+                while ((limit = read.value + capacity) == position) {
+                    if (! awaitChange(read, position - capacity)) {
+                        return -1;
+                    }
+                    if (writeClosed) {
+                        throw msg.streamClosed();
+                    }
+                }
+                this.limit = limit;
+            }
+            return (int) (limit - position);
+        }
+
+        public void write(final int b) throws IOException {
+            if (awaitWritable(1) == -1) {
+                throw msg.interruptedIO();
+            }
+            final long position = this.position;
+            view.put((int) (position % capacity), (byte) b);
+            written.advance(this.position = position + 1);
+        }
+
+        public void write(final byte[] b, int off, final int len) throws IOException {
+            final ByteBuffer view = this.view;
+            int remaining = len;
+            if (writeClosed) {
+                throw msg.streamClosed();
+            }
+            while (remaining > 0) {
+                final int writable = awaitWritable(remaining);
+                if (writable == -1) {
+                    throw msg.interruptedIO(len - remaining);
+                }
+                final long position = this.position;
+                final int cnt = Math.min(remaining, writable);
+                final int index = (int) (position % capacity);
+                final int firstLen = Math.min(cnt, capacity - index);
+                view.clear();
+                view.position(index);
+                view.put(b, off, firstLen);
+                if (firstLen < cnt) {
+                    // wrapped
+                    view.clear();
+                    view.put(b, off + firstLen, cnt - firstLen);
+                }
+                off += cnt;
+                remaining -= cnt;
+                written.advance(this.position = position + cnt);
+            }
+        }
+
+        public void close() throws IOException {
+            writeClosed = true;
+            wakeAll();
+        }
+
+        public String toString() {
+            return "Pipe write half";
+        }
+    }
+
+    /**
+     * Get the input (read) side of the pipe.
+     *
+     * @return the input side
+     */
+    public InputStream getIn() {
+        return in;
+    }
+
+    /**
+     * Get the output (write) side of the pipe.
+     *
+     * @return the output side
+     */
+    public OutputStream getOut() {
+        return out;
+    }
+
+    // the sequences are padded on both sides, so that the reader and the writer do not write to the same cache line
+
+    @SuppressWarnings("unused")
+    private static class SequencePadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private static class SequenceFields extends SequencePadding {
+        volatile long value;
+        /** the thread which is parked until the value changes, if any **/
+        volatile Thread waiter;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Sequence extends SequenceFields {
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        /**
+         * Publish a new value, waking the thread which waits for it, if any.
+         *
+         * @param value the new value
+         */
+        void advance(final long value) {
+            this.value = value;
+            signal();
+        }
+
+        void signal() {
+            final Thread waiter = this.waiter;
+            if (waiter != null) {
+                unpark(waiter);
+            }
+        }
+    }
+}
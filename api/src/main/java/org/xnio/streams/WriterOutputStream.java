@@ -38,6 +38,7 @@ public final class WriterOutputStream extends OutputStream {
 
     private final Writer writer;
     private final CharsetDecoder decoder;
+    private final int maxDirect;
     private final ByteBuffer byteBuffer;
     private final char[] chars;
     private volatile boolean closed;
@@ -80,6 +81,7 @@ public final class WriterOutputStream extends OutputStream {
         }
         this.writer = writer;
         this.decoder = decoder;
+        maxDirect = DirectRuns.maxDirect(decoder.charset());
         byteBuffer = ByteBuffer.allocate(bufferSize);
         chars = new char[(int) ((float)bufferSize * decoder.maxCharsPerByte() + 0.5f)];
     }
@@ -144,11 +146,10 @@ public final class WriterOutputStream extends OutputStream {
     private void doFlush(final boolean eof) throws IOException {
         final CharBuffer charBuffer = CharBuffer.wrap(chars);
         final ByteBuffer byteBuffer = this.byteBuffer;
-        final CharsetDecoder decoder = this.decoder;
         byteBuffer.flip();
         try {
             while (byteBuffer.hasRemaining()) {
-                final CoderResult result = decoder.decode(byteBuffer, charBuffer, eof);
+                final CoderResult result = decode(charBuffer, eof);
                 if (result.isOverflow()) {
                     writer.write(chars, 0, charBuffer.position());
                     charBuffer.clear();
@@ -176,6 +177,53 @@ public final class WriterOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Decode as many bytes as fit, copying the runs of bytes which the character set maps onto characters of the
+     * same value, and passing only the bytes in between to the decoder.
+     *
+     * @param charBuffer the buffer to decode into
+     * @param eof {@code true} if no more bytes follow
+     * @return the result, as of {@link CharsetDecoder#decode(ByteBuffer, CharBuffer, boolean)}
+     */
+    private CoderResult decode(final CharBuffer charBuffer, final boolean eof) {
+        final ByteBuffer byteBuffer = this.byteBuffer;
+        final CharsetDecoder decoder = this.decoder;
+        final int maxDirect = this.maxDirect;
+        if (maxDirect == DirectRuns.NONE) {
+            return decoder.decode(byteBuffer, charBuffer, eof);
+        }
+        final byte[] bytes = byteBuffer.array();
+        final char[] chars = charBuffer.array();
+        for (;;) {
+            final int cnt = DirectRuns.decode(bytes, byteBuffer.position(), byteBuffer.limit(), chars, charBuffer.position(), charBuffer.limit(), maxDirect);
+            byteBuffer.position(byteBuffer.position() + cnt);
+            charBuffer.position(charBuffer.position() + cnt);
+            if (! byteBuffer.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            if (! charBuffer.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            final int start = byteBuffer.position();
+            final int limit = byteBuffer.limit();
+            final int end = DirectRuns.decodedRunEnd(bytes, start, limit, maxDirect);
+            final CoderResult result;
+            byteBuffer.limit(end);
+            try {
+                result = decoder.decode(byteBuffer, charBuffer, eof && end == limit);
+            } finally {
+                byteBuffer.limit(limit);
+            }
+            if (! result.isUnderflow()) {
+                return result;
+            }
+            if (byteBuffer.position() == start) {
+                // the run ends with an incomplete sequence, which only the bytes after it complete or break
+                return decoder.decode(byteBuffer, charBuffer, eof);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     public void flush() throws IOException {
         if (closed) throw msg.streamClosed();
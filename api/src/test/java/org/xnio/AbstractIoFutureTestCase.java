@@ -19,18 +19,27 @@
 
 package org.xnio;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.xnio.IoFuture.Notifier;
 import org.xnio.IoFuture.Status;
 
 /**
@@ -559,6 +568,105 @@ public class AbstractIoFutureTestCase {
         assertFalse(cancelHandler3.isInvoked());
     }
 
+    @Test
+    public void completionStageDone() throws Exception {
+        final CompletableFuture<String> stage = future.toCompletionStage().toCompletableFuture();
+        final AtomicReference<Thread> completingThread = new AtomicReference<>();
+        final CompletableFuture<Integer> length = stage.thenApply(new Function<String, Integer>() {
+            public Integer apply(final String result) {
+                completingThread.set(Thread.currentThread());
+                return result.length();
+            }
+        });
+        assertFalse(stage.isDone());
+        assertTrue(future.setResult("result"));
+        // dependent actions run in the completing thread
+        assertSame(Thread.currentThread(), completingThread.get());
+        assertEquals(Integer.valueOf(6), length.getNow(null));
+        assertEquals("result", future.toCompletionStage().toCompletableFuture().getNow(null));
+    }
+
+    @Test
+    public void completionStageFailed() throws Exception {
+        final CompletableFuture<String> stage = future.toCompletionStage().toCompletableFuture();
+        final IOException exception = new IOException("test");
+        assertTrue(future.setException(exception));
+        assertTrue(stage.isCompletedExceptionally());
+        try {
+            stage.join();
+            fail("CompletionException expected");
+        } catch (CompletionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertTrue(future.toCompletionStage().toCompletableFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void completionStageCancelled() throws Exception {
+        final CompletableFuture<String> stage = future.toCompletionStage().toCompletableFuture();
+        future.cancel();
+        assertTrue(stage.isCancelled());
+        assertTrue(future.toCompletionStage().toCompletableFuture().isCancelled());
+    }
+
+    @Test
+    public void cancelCompletionStage() throws Exception {
+        final CompletableFuture<String> stage = future.toCompletionStage().toCompletableFuture();
+        assertTrue(stage.cancel(false));
+        assertSame(Status.CANCELLED, future.getStatus());
+        assertTrue(stage.isCancelled());
+    }
+
+    @Test
+    public void notifierRacesWithCompletion() throws Exception {
+        for (int i = 0; i < 1000; i ++) {
+            final TestIoFuture future = new TestIoFuture();
+            final AtomicInteger calls = new AtomicInteger();
+            final Notifier<Object, AtomicInteger> notifier = new Notifier<Object, AtomicInteger>() {
+                public void notify(final IoFuture<?> ioFuture, final AtomicInteger attachment) {
+                    assertSame(Status.DONE, ioFuture.getStatus());
+                    attachment.incrementAndGet();
+                }
+            };
+            final Thread adder = new Thread(new Runnable() {
+                public void run() {
+                    future.addNotifier(notifier, calls);
+                    future.addNotifier(notifier, calls);
+                }
+            });
+            adder.start();
+            future.setResult("result");
+            adder.join();
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    public void notifiersThroughExecutor() {
+        final AtomicInteger executions = new AtomicInteger();
+        final TestIoFuture future = new TestIoFuture() {
+            protected Executor getNotifierExecutor() {
+                return new Executor() {
+                    public void execute(final Runnable command) {
+                        executions.incrementAndGet();
+                        command.run();
+                    }
+                };
+            }
+        };
+        final TestNotifier notifier1 = new TestNotifier();
+        final TestNotifier notifier2 = new TestNotifier();
+        future.addNotifier(notifier1, "first");
+        future.addNotifier(notifier2, "second");
+        assertEquals(0, executions.get());
+        future.setResult("result");
+        assertEquals(2, executions.get());
+        assertSame(future, notifier1.getFuture());
+        assertSame(future, notifier2.getFuture());
+        future.addNotifier(notifier1, "third");
+        assertEquals(3, executions.get());
+    }
+
     private static class TestIoFuture extends AbstractIoFuture<String> {
 
         @Override
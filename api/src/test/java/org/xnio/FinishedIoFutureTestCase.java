@@ -19,10 +19,12 @@
 
 package org.xnio;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
@@ -92,4 +94,11 @@ public class FinishedIoFutureTestCase {
             return attachment;
         }
     }
+
+    @Test
+    public void completionStage() throws Exception {
+        final FinishedIoFuture<String> future = new FinishedIoFuture<String>("future result");
+        final CompletableFuture<String> stage = future.toCompletionStage().toCompletableFuture();
+        assertEquals("future result", stage.getNow(null));
+    }
 }
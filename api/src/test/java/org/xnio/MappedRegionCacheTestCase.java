@@ -0,0 +1,245 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.channels.Channels;
+import org.xnio.mock.ConnectedStreamChannelMock;
+
+/**
+ * Test for {@link MappedRegionCache}.
+ */
+public class MappedRegionCacheTestCase {
+
+    private final List<File> files = new ArrayList<>();
+
+    @Before
+    public void createFiles() throws IOException {
+        for (int i = 0; i < 4; i ++) {
+            final File file = File.createTempFile("xnio", ".txt");
+            write(file, text((char) ('a' + i), 100));
+            files.add(file);
+        }
+    }
+
+    @After
+    public void deleteFiles() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void hitAndMiss() throws IOException {
+        final MappedRegionCache cache = new MappedRegionCache(1000);
+        try (MappedRegionCache.Region region = cache.acquire(files.get(0), 10, 20)) {
+            assertEquals(text('a', 20), read(region));
+        }
+        try (MappedRegionCache.Region region = cache.acquire(files.get(0), 10, 20)) {
+            assertEquals(text('a', 20), read(region));
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(20, cache.getMappedBytes());
+        // another range of the same file is another region
+        cache.acquire(files.get(0), 0, 20).close();
+        assertEquals(2, cache.getMissCount());
+        assertEquals(40, cache.getMappedBytes());
+        cache.close();
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction() throws IOException {
+        final MappedRegionCache cache = new MappedRegionCache(300);
+        cache.acquire(files.get(0), 0, 100).close();
+        cache.acquire(files.get(1), 0, 100).close();
+        cache.acquire(files.get(2), 0, 100).close();
+        cache.acquire(files.get(0), 0, 100).close();
+        assertEquals(1, cache.getHitCount());
+        // the second file is the least recently used one
+        cache.acquire(files.get(3), 0, 100).close();
+        assertEquals(300, cache.getMappedBytes());
+        cache.acquire(files.get(0), 0, 100).close();
+        cache.acquire(files.get(2), 0, 100).close();
+        assertEquals(3, cache.getHitCount());
+        cache.acquire(files.get(1), 0, 100).close();
+        assertEquals(3, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+        cache.close();
+    }
+
+    @Test
+    public void regionInUseIsNotEvicted() throws IOException {
+        final MappedRegionCache cache = new MappedRegionCache(100);
+        final MappedRegionCache.Region first = cache.acquire(files.get(0), 0, 100);
+        final MappedRegionCache.Region second = cache.acquire(files.get(1), 0, 100);
+        assertEquals(200, cache.getMappedBytes());
+        assertEquals(text('a', 100), read(first));
+        first.close();
+        // closing twice must not release the region twice
+        first.close();
+        second.close();
+        cache.acquire(files.get(2), 0, 100).close();
+        assertEquals(100, cache.getMappedBytes());
+        cache.acquire(files.get(2), 0, 100).close();
+        assertEquals(1, cache.getHitCount());
+        cache.close();
+    }
+
+    @Test
+    public void regionTooLargeIsNotCached() throws IOException {
+        final MappedRegionCache cache = new MappedRegionCache(50);
+        try (MappedRegionCache.Region region = cache.acquire(files.get(0), 0, 100)) {
+            assertEquals(text('a', 100), read(region));
+            assertEquals(0, cache.getMappedBytes());
+        }
+        cache.close();
+    }
+
+    @Test
+    public void invalidate() throws IOException {
+        final MappedRegionCache cache = new MappedRegionCache(1000);
+        final File file = files.get(0);
+        final MappedRegionCache.Region inUse = cache.acquire(file, 0, 10);
+        cache.acquire(file, 50, 10).close();
+        assertEquals(20, cache.getMappedBytes());
+        cache.invalidate(file);
+        assertEquals(0, cache.getMappedBytes());
+        // the region stays readable until its user closes it
+        assertEquals(text('a', 10), read(inUse));
+        inUse.close();
+        write(file, text('z', 100));
+        try (MappedRegionCache.Region region = cache.acquire(file, 0, 10)) {
+            assertEquals(text('z', 10), read(region));
+        }
+        assertEquals(3, cache.getMissCount());
+        cache.close();
+    }
+
+    @Test
+    public void invalidateOnChange() throws IOException {
+        final WatcherStub watcher = new WatcherStub();
+        final MappedRegionCache cache = new MappedRegionCache(1000, watcher);
+        final File file = files.get(0);
+        cache.acquire(file, 0, 10).close();
+        cache.acquire(files.get(1), 0, 10).close();
+        assertEquals(Collections.singletonList(file.getAbsoluteFile().getParentFile()), watcher.watched);
+        write(file, text('z', 100));
+        watcher.callback.handleChanges(Collections.singletonList(new FileChangeEvent(file, FileChangeEvent.Type.MODIFIED)));
+        assertEquals(10, cache.getMappedBytes());
+        try (MappedRegionCache.Region region = cache.acquire(file, 0, 10)) {
+            assertEquals(text('z', 10), read(region));
+        }
+        assertEquals(3, cache.getMissCount());
+        cache.close();
+        assertEquals(watcher.watched, watcher.unwatched);
+    }
+
+    @Test
+    public void watchNestedDirectories() throws IOException {
+        final File root = Files.createTempDirectory("xnio").toFile().getAbsoluteFile();
+        final File nested = new File(root, "nested");
+        assertTrue(nested.mkdir());
+        final File nestedFile = new File(nested, "a.txt");
+        final File otherNestedFile = new File(nested, "b.txt");
+        final File rootFile = new File(root, "c.txt");
+        files.addAll(Arrays.asList(nestedFile, otherNestedFile, rootFile, nested, root));
+        for (File file : Arrays.asList(nestedFile, otherNestedFile, rootFile)) {
+            write(file, text('x', 100));
+        }
+        final WatcherStub watcher = new WatcherStub();
+        final MappedRegionCache cache = new MappedRegionCache(1000, watcher);
+        cache.acquire(nestedFile, 0, 10).close();
+        assertEquals(Collections.singletonList(nested), watcher.watched);
+        // the watch of the root covers the nested directory, which is not watched on its own any more
+        cache.acquire(rootFile, 0, 10).close();
+        assertEquals(Arrays.asList(nested, root), watcher.watched);
+        assertEquals(Collections.singletonList(nested), watcher.unwatched);
+        cache.acquire(otherNestedFile, 0, 10).close();
+        assertEquals(Arrays.asList(nested, root), watcher.watched);
+        cache.close();
+        assertEquals(Arrays.asList(nested, root), watcher.unwatched);
+    }
+
+    @Test
+    public void transferBlocking() throws IOException {
+        final MappedRegionCache cache = new MappedRegionCache(1000);
+        final ConnectedStreamChannelMock channel = new ConnectedStreamChannelMock();
+        Channels.transferBlocking(channel, cache, files.get(1), 25, 50);
+        Channels.transferBlocking(channel, cache, files.get(1), 25, 50);
+        assertEquals(text('b', 100), channel.getWrittenText());
+        assertEquals(1, cache.getHitCount());
+        cache.close();
+    }
+
+    private static String read(final MappedRegionCache.Region region) {
+        final ByteBuffer buffer = region.getBuffer().duplicate();
+        assertTrue(buffer.isReadOnly());
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+
+    private static void write(final File file, final String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String text(final char c, final int length) {
+        final char[] chars = new char[length];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static class WatcherStub implements FileSystemWatcher {
+        private final List<File> watched = new ArrayList<>();
+        private final List<File> unwatched = new ArrayList<>();
+        private FileChangeCallback callback;
+
+        public void watchPath(final File file, final FileChangeCallback callback) {
+            if (this.callback != null) {
+                assertSame(this.callback, callback);
+            }
+            this.callback = callback;
+            watched.add(file);
+        }
+
+        public void unwatchPath(final File file, final FileChangeCallback callback) {
+            assertSame(this.callback, callback);
+            unwatched.add(file);
+        }
+
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the incremental scans of {@link PollingFileSystemWatcher}.
+ */
+public class PollingFileSystemWatcherTestCase {
+
+    private File root;
+    private long past;
+
+    @Before
+    public void createTree() throws IOException {
+        root = Files.createTempDirectory("xnio-watcher").toFile().getAbsoluteFile();
+        // modification times which are well before the scans, so that the listings are trusted
+        past = System.currentTimeMillis() - 60000L;
+        for (int i = 0; i < 3; i ++) {
+            final File directory = new File(root, "dir" + i);
+            directory.mkdir();
+            for (int j = 0; j < 5; j ++) {
+                touch(new File(directory, "file" + j));
+            }
+            directory.setLastModified(past);
+        }
+        touch(new File(root, "top"));
+        root.setLastModified(past);
+    }
+
+    @After
+    public void deleteTree() {
+        FileSystemWatcherTestCase.deleteRecursive(root);
+    }
+
+    @Test
+    public void unchangedTree() {
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(root);
+        assertTrue(state.rescan().isEmpty());
+        assertTrue(state.rescan().isEmpty());
+    }
+
+    @Test
+    public void modifiedFileInUnchangedDirectory() {
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(root);
+        final File file = new File(root, "dir1/file3");
+        file.setLastModified(past + 5000L);
+        assertEvents(state.rescan(), event(file, FileChangeEvent.Type.MODIFIED));
+        assertTrue(state.rescan().isEmpty());
+    }
+
+    @Test
+    public void addedAndRemovedFiles() throws IOException {
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(root);
+        final File added = new File(root, "dir0/added");
+        touch(added);
+        final File removed = new File(root, "dir2/file1");
+        removed.delete();
+        assertEvents(state.rescan(), event(added, FileChangeEvent.Type.ADDED), event(removed, FileChangeEvent.Type.REMOVED));
+        assertTrue(state.rescan().isEmpty());
+    }
+
+    @Test
+    public void removedFileInTrustedDirectory() {
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(root);
+        final File directory = new File(root, "dir1");
+        final File removed = new File(directory, "file0");
+        removed.delete();
+        // as if the removal happened within the resolution of the modification time
+        directory.setLastModified(past);
+        assertEvents(state.rescan(), event(removed, FileChangeEvent.Type.REMOVED));
+    }
+
+    @Test
+    public void addedAndRemovedDirectories() throws IOException {
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(root);
+        final File added = new File(root, "new");
+        final File nested = new File(added, "nested");
+        nested.mkdirs();
+        final File file = new File(nested, "file");
+        touch(file);
+        final File removed = new File(root, "dir0");
+        final Set<FileChangeEvent> expected = new HashSet<>();
+        expected.add(event(added, FileChangeEvent.Type.ADDED));
+        expected.add(event(nested, FileChangeEvent.Type.ADDED));
+        expected.add(event(file, FileChangeEvent.Type.ADDED));
+        expected.add(event(removed, FileChangeEvent.Type.REMOVED));
+        for (File child : removed.listFiles()) {
+            expected.add(event(child, FileChangeEvent.Type.REMOVED));
+        }
+        FileSystemWatcherTestCase.deleteRecursive(removed);
+        assertEvents(state.rescan(), expected.toArray(new FileChangeEvent[0]));
+        assertTrue(state.rescan().isEmpty());
+    }
+
+    @Test
+    public void fileReplacedByDirectory() throws IOException {
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(root);
+        final File replaced = new File(root, "top");
+        replaced.delete();
+        replaced.mkdir();
+        final File file = new File(replaced, "file");
+        touch(file);
+        assertEvents(state.rescan(), event(replaced, FileChangeEvent.Type.REMOVED), event(replaced, FileChangeEvent.Type.ADDED), event(file, FileChangeEvent.Type.ADDED));
+    }
+
+    @Test
+    public void watchedFile() throws IOException {
+        final File file = new File(root, "top");
+        final PollingFileSystemWatcher.TreeState state = new PollingFileSystemWatcher.TreeState(file);
+        assertTrue(state.rescan().isEmpty());
+        file.setLastModified(past);
+        assertEvents(state.rescan(), event(file, FileChangeEvent.Type.MODIFIED));
+        file.delete();
+        assertEvents(state.rescan(), event(file, FileChangeEvent.Type.REMOVED));
+        touch(file);
+        assertEvents(state.rescan(), event(file, FileChangeEvent.Type.ADDED));
+    }
+
+    private static void assertEvents(final List<FileChangeEvent> actual, final FileChangeEvent... expected) {
+        final Set<String> expectedSet = new HashSet<>();
+        for (FileChangeEvent event : expected) {
+            expectedSet.add(event.getType() + " " + event.getFile());
+        }
+        final Set<String> actualSet = new HashSet<>();
+        for (FileChangeEvent event : actual) {
+            actualSet.add(event.getType() + " " + event.getFile());
+        }
+        assertEquals(expectedSet, actualSet);
+        assertEquals(expected.length, actual.size());
+    }
+
+    private static FileChangeEvent event(final File file, final FileChangeEvent.Type type) {
+        return new FileChangeEvent(file, type);
+    }
+
+    private static void touch(final File file) throws IOException {
+        Files.write(file.toPath(), file.getName().getBytes());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.channels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.ByteBufferPool;
+import org.xnio.mock.ConnectedStreamChannelMock;
+import org.xnio.mock.XnioIoThreadMock;
+
+/**
+ * Test for {@link ChannelPublisher}.
+ */
+public class ChannelPublisherTestCase {
+
+    private ConnectedStreamChannelMock channel;
+    private ChannelPublisher publisher;
+
+    @Before
+    public void createPublisher() {
+        channel = new ConnectedStreamChannelMock();
+        channel.enableRead(true);
+        ((XnioIoThreadMock) channel.getIoThread()).start();
+        publisher = ChannelPublisher.create(channel, ByteBufferPool.SMALL_HEAP);
+    }
+
+    @After
+    public void closeIoThread() {
+        ((XnioIoThreadMock) channel.getIoThread()).closeIoThread();
+    }
+
+    @Test
+    public void demandDrivesReads() {
+        final String data = text(150);
+        channel.setReadData(data);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        assertFalse(channel.isReadResumed());
+        subscriber.subscription.request(2);
+        assertTrue(channel.isReadResumed());
+        readReady();
+        assertEquals(2, subscriber.items.size());
+        assertFalse(channel.isReadResumed());
+        subscriber.subscription.request(5);
+        assertTrue(channel.isReadResumed());
+        readReady();
+        assertEquals(3, subscriber.items.size());
+        // nothing more to read yet, so the reads stay resumed
+        assertTrue(channel.isReadResumed());
+        assertFalse(subscriber.completed);
+        channel.setEof();
+        readReady();
+        assertTrue(subscriber.completed);
+        assertFalse(channel.isReadResumed());
+        assertNull(subscriber.error);
+        assertEquals(data, subscriber.received());
+    }
+
+    @Test
+    public void requestFromOnNext() {
+        final String data = text(180);
+        channel.setReadData(data);
+        channel.setEof();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        readReady();
+        assertEquals(3, subscriber.items.size());
+        assertTrue(subscriber.completed);
+        assertEquals(data, subscriber.received());
+    }
+
+    @Test
+    public void unboundedDemand() {
+        final String data = text(100);
+        channel.setReadData(data);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        readReady();
+        assertEquals(2, subscriber.items.size());
+        assertTrue(channel.isReadResumed());
+        assertEquals(data, subscriber.received());
+    }
+
+    @Test
+    public void yieldReadThread() {
+        final String data = text(ByteBufferPool.SMALL_SIZE * 40);
+        channel.setReadData(data);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        // one read event is enough: the listener resumes on the read thread after each batch of reads
+        readReady();
+        assertEquals(40, subscriber.items.size());
+        assertEquals(data, subscriber.received());
+    }
+
+    @Test
+    public void cancel() {
+        channel.setReadData("data");
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        assertFalse(channel.isReadResumed());
+        readReady();
+        assertTrue(subscriber.items.isEmpty());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    public void nonPositiveRequest() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        // reported by a task of the read thread, without a read event
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertFalse(channel.isReadResumed());
+    }
+
+    @Test
+    public void readFailure() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        channel.close();
+        readReady();
+        assertTrue(subscriber.error instanceof ClosedChannelException);
+        assertFalse(channel.isReadResumed());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullSubscriber() {
+        publisher.subscribe(null);
+    }
+
+    @Test
+    public void secondSubscriber() {
+        final RecordingSubscriber first = new RecordingSubscriber(0);
+        publisher.subscribe(first);
+        final RecordingSubscriber second = new RecordingSubscriber(0);
+        publisher.subscribe(second);
+        assertNull(first.error);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    private void readReady() {
+        channel.getReadListener().handleEvent(channel);
+    }
+
+    private static String text(final int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i ++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        return builder.toString();
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final long requestPerItem;
+        private final List<ByteBuffer> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        RecordingSubscriber(final long requestPerItem) {
+            this.requestPerItem = requestPerItem;
+        }
+
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public void onNext(final ByteBuffer item) {
+            items.add(item);
+            if (requestPerItem > 0) {
+                subscription.request(requestPerItem);
+            }
+        }
+
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        public void onComplete() {
+            completed = true;
+        }
+
+        String received() {
+            final StringBuilder builder = new StringBuilder();
+            for (ByteBuffer item : items) {
+                builder.append(StandardCharsets.UTF_8.decode(item));
+            }
+            return builder.toString();
+        }
+    }
+}
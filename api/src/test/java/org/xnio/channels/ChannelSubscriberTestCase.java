@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.channels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.ByteBufferPool;
+import org.xnio.IoFuture;
+import org.xnio.mock.ConnectedStreamChannelMock;
+
+/**
+ * Test for {@link ChannelSubscriber}.
+ */
+public class ChannelSubscriberTestCase {
+
+    private ConnectedStreamChannelMock channel;
+    private RecordingSubscription subscription;
+
+    @Before
+    public void createChannel() {
+        channel = new ConnectedStreamChannelMock();
+        subscription = new RecordingSubscription();
+    }
+
+    @Test
+    public void writeAndComplete() {
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 4, false);
+        subscriber.onSubscribe(subscription);
+        assertEquals(List.of(4L), subscription.requests);
+        subscriber.onNext(buffer("abc"));
+        subscriber.onNext(buffer("def"));
+        assertEquals(List.of(4L), subscription.requests);
+        subscriber.onNext(buffer("ghi"));
+        // three quarters of the requested buffers were written
+        assertEquals(List.of(4L, 3L), subscription.requests);
+        assertEquals(IoFuture.Status.WAITING, subscriber.getIoFuture().getStatus());
+        subscriber.onComplete();
+        assertTrue(channel.isShutdownWrites());
+        assertTrue(channel.isFlushed());
+        assertEquals(IoFuture.Status.DONE, subscriber.getIoFuture().getStatus());
+        assertEquals("abcdefghi", channel.getWrittenText());
+    }
+
+    @Test
+    public void writeWhenWritable() {
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 2, false);
+        subscriber.onSubscribe(subscription);
+        channel.enableWrite(false);
+        subscriber.onNext(buffer("abc"));
+        subscriber.onNext(buffer("def"));
+        assertTrue(channel.isWriteResumed());
+        assertEquals(List.of(2L), subscription.requests);
+        channel.enableWrite(true);
+        channel.enableFlush(false);
+        subscriber.onComplete();
+        writeReady();
+        assertEquals(List.of(2L, 2L), subscription.requests);
+        // the channel is not flushed yet
+        assertTrue(channel.isWriteResumed());
+        assertEquals(IoFuture.Status.WAITING, subscriber.getIoFuture().getStatus());
+        channel.enableFlush(true);
+        writeReady();
+        assertFalse(channel.isWriteResumed());
+        assertEquals(IoFuture.Status.DONE, subscriber.getIoFuture().getStatus());
+        assertEquals("abcdef", channel.getWrittenText());
+    }
+
+    @Test
+    public void publisherFailure() {
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 2, false);
+        subscriber.onSubscribe(subscription);
+        final IOException exception = new IOException("publisher failed");
+        subscriber.onError(exception);
+        assertFalse(channel.isOpen());
+        assertEquals(IoFuture.Status.FAILED, subscriber.getIoFuture().getStatus());
+        assertSame(exception, subscriber.getIoFuture().getException());
+        assertFalse(subscription.cancelled);
+    }
+
+    @Test
+    public void writeFailure() throws IOException {
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 2, true);
+        subscriber.onSubscribe(subscription);
+        channel.close();
+        subscriber.onNext(ByteBufferPool.SMALL_HEAP.allocate());
+        assertTrue(subscription.cancelled);
+        assertEquals(IoFuture.Status.FAILED, subscriber.getIoFuture().getStatus());
+        assertTrue(subscriber.getIoFuture().getException() instanceof ClosedChannelException);
+        // buffers which are still delivered are dropped
+        subscriber.onNext(ByteBufferPool.SMALL_HEAP.allocate());
+        subscriber.onComplete();
+        assertEquals(IoFuture.Status.FAILED, subscriber.getIoFuture().getStatus());
+    }
+
+    @Test
+    public void nullSignals() {
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 2, false);
+        try {
+            subscriber.onSubscribe(null);
+            fail("NullPointerException expected");
+        } catch (NullPointerException expected) {
+        }
+        subscriber.onSubscribe(subscription);
+        try {
+            subscriber.onNext(null);
+            fail("NullPointerException expected");
+        } catch (NullPointerException expected) {
+        }
+        try {
+            subscriber.onError(null);
+            fail("NullPointerException expected");
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void secondSubscription() {
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 2, false);
+        subscriber.onSubscribe(subscription);
+        final RecordingSubscription second = new RecordingSubscription();
+        subscriber.onSubscribe(second);
+        assertTrue(second.cancelled);
+        assertTrue(second.requests.isEmpty());
+        assertFalse(subscription.cancelled);
+    }
+
+    @Test
+    public void fromPublisher() {
+        final ConnectedStreamChannelMock source = new ConnectedStreamChannelMock();
+        source.enableRead(true);
+        source.setReadData("publish", "ed through", " the subscriber of another channel");
+        source.setEof();
+        final ChannelSubscriber subscriber = ChannelSubscriber.create(channel, 1, true);
+        ChannelPublisher.create(source, ByteBufferPool.SMALL_HEAP).subscribe(subscriber);
+        assertTrue(source.isReadResumed());
+        source.getReadListener().handleEvent(source);
+        assertFalse(source.isReadResumed());
+        assertEquals(IoFuture.Status.DONE, subscriber.getIoFuture().getStatus());
+        assertEquals("published through the subscriber of another channel", channel.getWrittenText());
+    }
+
+    private void writeReady() {
+        channel.getWriteListener().handleEvent(channel);
+    }
+
+    private static ByteBuffer buffer(final String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingSubscription implements Flow.Subscription {
+        private final List<Long> requests = new ArrayList<>();
+        private boolean cancelled;
+
+        public void request(final long n) {
+            requests.add(n);
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
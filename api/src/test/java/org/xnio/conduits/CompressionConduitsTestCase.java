@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
+import org.xnio.ZlibPool;
+import org.xnio.mock.ConduitMock;
+import org.xnio.mock.XnioIoThreadMock;
+import org.xnio.mock.XnioWorkerMock;
+
+/**
+ * Test for {@link DeflatingStreamSinkConduit} and {@link InflatingStreamSourceConduit}.
+ */
+public class CompressionConduitsTestCase {
+
+    private static final byte[] DICTIONARY = "the quick brown fox jumps over the lazy dog".getBytes(UTF_8);
+
+    private XnioWorkerMock worker;
+    private XnioIoThreadMock threadMock;
+
+    @Before
+    public void init() {
+        worker = new XnioWorkerMock();
+        threadMock = worker.chooseThread();
+        threadMock.start();
+    }
+
+    private static String createText() {
+        final StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 2000; i ++) {
+            b.append("the quick brown fox ").append(i % 10).append(" jumps over the lazy dog\n");
+        }
+        return b.toString();
+    }
+
+    private ByteBuffer compress(final Deflater deflater, final String text, final boolean direct) throws IOException {
+        final ConduitMock sink = new ConduitMock(worker, threadMock);
+        final DeflatingStreamSinkConduit conduit = new DeflatingStreamSinkConduit(sink, deflater);
+        final byte[] bytes = text.getBytes(UTF_8);
+        final ByteBuffer src = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        src.put(bytes).flip();
+        // write in two slices to exercise both write methods
+        final ByteBuffer first = src.duplicate();
+        first.limit(bytes.length / 2);
+        final ByteBuffer second = src.duplicate();
+        second.position(bytes.length / 2);
+        while (first.hasRemaining()) {
+            conduit.write(first);
+        }
+        final ByteBuffer[] srcs = new ByteBuffer[] { second };
+        while (second.hasRemaining()) {
+            conduit.write(srcs, 0, 1);
+        }
+        conduit.terminateWrites();
+        assertTrue(conduit.flush());
+        assertTrue(sink.isWriteShutdown());
+        // a second flush after the stream is finished is harmless
+        assertTrue(conduit.flush());
+        final ByteBuffer written = sink.getWrittenBytes();
+        written.flip();
+        final ByteBuffer compressed = ByteBuffer.allocate(written.remaining());
+        compressed.put(written).flip();
+        return compressed;
+    }
+
+    private String decompress(final Inflater inflater, final byte[] dictionary, final ByteBuffer compressed, final boolean direct) throws IOException {
+        final ConduitMock source = new ConduitMock(worker, threadMock);
+        source.enableReads(true);
+        source.setEof();
+        final PushBackStreamSourceConduit pushBack = new PushBackStreamSourceConduit(source);
+        pushBack.pushBack(Buffers.pooledWrapper(compressed));
+        final InflatingStreamSourceConduit conduit = new InflatingStreamSourceConduit(pushBack, inflater, ByteBufferPool.SMALL_DIRECT, dictionary);
+        final ByteBuffer dst = direct ? ByteBuffer.allocateDirect(1000) : ByteBuffer.allocate(1000);
+        final ByteBuffer result = ByteBuffer.allocate(200000);
+        int res;
+        while ((res = conduit.read(dst)) != -1) {
+            assertTrue(res > 0);
+            dst.flip();
+            result.put(dst);
+            dst.clear();
+        }
+        conduit.terminateReads();
+        result.flip();
+        return UTF_8.decode(result).toString();
+    }
+
+    @Test
+    public void roundTripHeap() throws IOException {
+        final String text = createText();
+        final ByteBuffer compressed = compress(ZlibPool.allocateDeflater(Deflater.DEFAULT_COMPRESSION, false), text, false);
+        assertTrue(compressed.remaining() < text.length());
+        assertEquals(text, decompress(ZlibPool.allocateInflater(false), null, compressed, false));
+    }
+
+    @Test
+    public void roundTripDirect() throws IOException {
+        final String text = createText();
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final ByteBuffer compressed = compress(deflater, text, true);
+        final Inflater inflater = new Inflater(true);
+        assertEquals(text, decompress(inflater, null, compressed, true));
+        // instances of the caller are ended by the conduits, as they are not pooled
+        try {
+            deflater.getBytesRead();
+            fail("Expected NullPointerException");
+        } catch (NullPointerException expected) {}
+        try {
+            inflater.getBytesWritten();
+            fail("Expected NullPointerException");
+        } catch (NullPointerException expected) {}
+    }
+
+    @Test
+    public void presetDictionary() throws IOException {
+        final String text = createText();
+        final Deflater deflater = ZlibPool.allocateDeflater(Deflater.DEFAULT_COMPRESSION, false);
+        deflater.setDictionary(DICTIONARY);
+        final ByteBuffer compressed = compress(deflater, text, false);
+        assertEquals(text, decompress(ZlibPool.allocateInflater(false), DICTIONARY, compressed.duplicate(), false));
+        try {
+            decompress(ZlibPool.allocateInflater(false), null, compressed, false);
+            fail("Expected IOException");
+        } catch (IOException expected) {}
+    }
+
+    @Test
+    public void writeAfterTruncate() throws IOException {
+        final ConduitMock sink = new ConduitMock(worker, threadMock);
+        final DeflatingStreamSinkConduit conduit = new DeflatingStreamSinkConduit(sink, ZlibPool.allocateDeflater(Deflater.DEFAULT_COMPRESSION, false));
+        conduit.write(ByteBuffer.wrap("test".getBytes(UTF_8)));
+        conduit.truncateWrites();
+        assertTrue(sink.isWriteTruncated());
+        try {
+            conduit.write(ByteBuffer.wrap("test".getBytes(UTF_8)));
+            fail("Expected IOException");
+        } catch (IOException expected) {}
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.ByteBufferPool;
+import org.xnio.mock.XnioIoThreadMock;
+
+/**
+ * Test for {@link FileStreamSourceConduit} and {@link FileStreamSinkConduit}.
+ */
+public class FileConduitsTestCase {
+
+    private File file;
+    private ExecutorService offload;
+    private XnioIoThreadMock thread;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("xnio", ".bin");
+        offload = Executors.newFixedThreadPool(2);
+        thread = new XnioIoThreadMock(null);
+        thread.start();
+    }
+
+    @After
+    public void tearDown() {
+        thread.closeIoThread();
+        offload.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void readFile() throws IOException {
+        final byte[] data = data(100000);
+        Files.write(file.toPath(), data);
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        final FileStreamSourceConduit conduit = new FileStreamSourceConduit(channel, 0, Long.MAX_VALUE, thread, offload, ByteBufferPool.MEDIUM_DIRECT);
+        assertArrayEquals(data, readBlocking(conduit));
+        conduit.terminateReads();
+        assertTrue(conduit.isReadShutdown());
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void readRegion() throws IOException {
+        final byte[] data = data(50000);
+        Files.write(file.toPath(), data);
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        final FileStreamSourceConduit conduit = new FileStreamSourceConduit(channel, 1000, 20000, thread, offload, ByteBufferPool.SMALL_HEAP);
+        assertArrayEquals(Arrays.copyOfRange(data, 1000, 21000), readBlocking(conduit));
+        conduit.terminateReads();
+    }
+
+    @Test
+    public void readWhenReady() throws Exception {
+        final byte[] data = data(20000);
+        Files.write(file.toPath(), data);
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        final FileStreamSourceConduit conduit = new FileStreamSourceConduit(channel, 0, Long.MAX_VALUE, thread, offload, ByteBufferPool.MEDIUM_HEAP);
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Thread> readThread = new AtomicReference<>();
+        conduit.setReadReadyHandler(new ReadReadyHandler() {
+            public void readReady() {
+                readThread.set(Thread.currentThread());
+                final ByteBuffer buffer = ByteBuffer.allocate(5000);
+                try {
+                    int res;
+                    while ((res = conduit.read(buffer)) > 0) {
+                        received.write(buffer.array(), 0, res);
+                        buffer.clear();
+                    }
+                    if (res == -1) {
+                        conduit.suspendReads();
+                        done.countDown();
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            public void forceTermination() {
+            }
+
+            public void terminated() {
+            }
+        });
+        conduit.resumeReads();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(thread, readThread.get());
+        assertArrayEquals(data, received.toByteArray());
+        conduit.terminateReads();
+    }
+
+    @Test
+    public void writeFile() throws IOException {
+        final byte[] data = data(100000);
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        final FileStreamSinkConduit conduit = new FileStreamSinkConduit(channel, 0, thread, offload, ByteBufferPool.MEDIUM_DIRECT);
+        final ByteBuffer src = ByteBuffer.wrap(data);
+        final Random random = new Random(3);
+        while (src.hasRemaining()) {
+            final ByteBuffer chunk = src.duplicate();
+            chunk.limit(Math.min(src.limit(), src.position() + 1 + random.nextInt(3000)));
+            if (conduit.write(chunk) == 0) {
+                conduit.awaitWritable();
+            }
+            src.position(chunk.position());
+        }
+        conduit.terminateWrites();
+        assertTrue(conduit.isWriteShutdown());
+        try {
+            conduit.write(ByteBuffer.allocate(1));
+            fail("EOFException expected");
+        } catch (EOFException expected) {
+        }
+        while (! conduit.flush()) {
+            conduit.awaitWritable();
+        }
+        assertFalse(channel.isOpen());
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void writeRejected() throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        final FileStreamSinkConduit conduit = new FileStreamSinkConduit(channel, 0, thread, new Executor() {
+            public void execute(final Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, ByteBufferPool.SMALL_HEAP);
+        assertEquals(ByteBufferPool.SMALL_SIZE, conduit.write(ByteBuffer.wrap(data(100))));
+        try {
+            conduit.write(ByteBuffer.allocate(1));
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertTrue(expected.getCause() instanceof RejectedExecutionException);
+        }
+        conduit.truncateWrites();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void resumeReadsRepeatedly() throws IOException {
+        Files.write(file.toPath(), data(1000));
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        final QueueingThread readThread = new QueueingThread();
+        final FileStreamSourceConduit conduit = new FileStreamSourceConduit(channel, 0, Long.MAX_VALUE, readThread, DIRECT, ByteBufferPool.SMALL_HEAP);
+        final AtomicInteger calls = new AtomicInteger();
+        conduit.setReadReadyHandler(new ReadReadyHandler() {
+            public void readReady() {
+                calls.incrementAndGet();
+            }
+
+            public void forceTermination() {
+            }
+
+            public void terminated() {
+            }
+        });
+        for (int i = 0; i < 5; i ++) {
+            conduit.resumeReads();
+        }
+        // the buffers filled ahead and the resumes all share one queued call
+        assertEquals(1, readThread.tasks.size());
+        readThread.runTasks();
+        assertEquals(1, calls.get());
+        // the conduit is still readable, so the handler is called again
+        conduit.resumeReads();
+        conduit.wakeupReads();
+        assertEquals(1, readThread.tasks.size());
+        readThread.runTasks();
+        assertEquals(2, calls.get());
+        conduit.suspendReads();
+        readThread.runTasks();
+        assertEquals(2, calls.get());
+        assertTrue(readThread.tasks.isEmpty());
+        conduit.terminateReads();
+    }
+
+    @Test
+    public void resumeWritesRepeatedly() throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        final QueueingThread writeThread = new QueueingThread();
+        final FileStreamSinkConduit conduit = new FileStreamSinkConduit(channel, 0, writeThread, DIRECT, ByteBufferPool.SMALL_HEAP);
+        final AtomicInteger calls = new AtomicInteger();
+        conduit.setWriteReadyHandler(new WriteReadyHandler() {
+            public void writeReady() {
+                calls.incrementAndGet();
+            }
+
+            public void forceTermination() {
+            }
+
+            public void terminated() {
+            }
+        });
+        for (int i = 0; i < 5; i ++) {
+            conduit.resumeWrites();
+        }
+        assertEquals(1, writeThread.tasks.size());
+        writeThread.runTasks();
+        assertEquals(1, calls.get());
+        // the conduit is still writable, so the handler is called again
+        conduit.resumeWrites();
+        conduit.wakeupWrites();
+        assertEquals(1, writeThread.tasks.size());
+        writeThread.runTasks();
+        assertEquals(2, calls.get());
+        conduit.suspendWrites();
+        writeThread.runTasks();
+        assertEquals(2, calls.get());
+        assertTrue(writeThread.tasks.isEmpty());
+        conduit.truncateWrites();
+    }
+
+    private static byte[] readBlocking(final FileStreamSourceConduit conduit) throws IOException {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final ByteBuffer buffer = ByteBuffer.allocate(3000);
+        for (;;) {
+            final int res = conduit.read(buffer);
+            if (res == -1) {
+                return received.toByteArray();
+            } else if (res == 0) {
+                conduit.awaitReadable();
+            } else {
+                received.write(buffer.array(), 0, res);
+                buffer.clear();
+            }
+        }
+    }
+
+    private static final Executor DIRECT = new Executor() {
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * A thread which queues its tasks until they are run by the test.
+     */
+    private static final class QueueingThread extends XnioIoThreadMock {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        QueueingThread() {
+            super(null);
+        }
+
+        public void execute(final Runnable command) {
+            tasks.add(command);
+        }
+
+        /**
+         * Run the tasks queued so far, but not those which they queue.
+         */
+        void runTasks() {
+            for (int i = tasks.size(); i > 0; i --) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static byte[] data(final int length) {
+        final byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.Buffers;
+import org.xnio.mock.ConduitMock;
+import org.xnio.mock.XnioIoThreadMock;
+import org.xnio.mock.XnioWorkerMock;
+
+/**
+ * Test for {@link FramingMessageSinkConduit}.
+ */
+public class FramingMessageSinkConduitTestCase {
+
+    private ConduitMock conduitMock;
+
+    @Before
+    public void init() {
+        final XnioWorkerMock worker = new XnioWorkerMock();
+        final XnioIoThreadMock threadMock = worker.chooseThread();
+        threadMock.start();
+        conduitMock = new ConduitMock(worker, threadMock);
+    }
+
+    private static ByteBuffer[] message(final int length, final int value, final int parts) {
+        final ByteBuffer[] message = new ByteBuffer[parts];
+        for (int i = 0; i < parts; i ++) {
+            final int partLength = i == parts - 1 ? length - length / parts * (parts - 1) : length / parts;
+            final ByteBuffer buffer = ByteBuffer.allocate(partLength);
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) value);
+            }
+            message[i] = (ByteBuffer) buffer.flip();
+        }
+        return message;
+    }
+
+    private void assertFramed(final ByteBuffer written, final boolean longLengths, final int... lengths) {
+        int value = 0;
+        for (int length : lengths) {
+            assertEquals(length, longLengths ? written.getInt() : written.getShort() & 0xFFFF);
+            for (int i = 0; i < length; i ++) {
+                assertEquals((byte) value, written.get());
+            }
+            value ++;
+        }
+        assertFalse(written.hasRemaining());
+    }
+
+    private ByteBuffer takeWritten(final ByteBuffer collected) {
+        final ByteBuffer written = conduitMock.getWrittenBytes();
+        written.flip();
+        collected.put(written);
+        written.clear();
+        return collected;
+    }
+
+    @Test
+    public void sendBatch() throws IOException {
+        final FramingMessageSinkConduit conduit = new FramingMessageSinkConduit(conduitMock, true, Buffers.pooledWrapper(ByteBuffer.allocate(512)));
+        final ByteBuffer[][] messages = new ByteBuffer[][] { message(10, 0, 1), message(20, 1, 3), message(1, 2, 1) };
+        assertEquals(3, conduit.sendBatch(messages, 0, 3));
+        for (ByteBuffer[] message : messages) {
+            assertFalse(Buffers.hasRemaining(message));
+        }
+        assertTrue(conduit.flush());
+        assertFramed((ByteBuffer) takeWritten(ByteBuffer.allocate(1000)).flip(), true, 10, 20, 1);
+    }
+
+    @Test
+    public void sendBatchShortLengths() throws IOException {
+        final FramingMessageSinkConduit conduit = new FramingMessageSinkConduit(conduitMock, false, Buffers.pooledWrapper(ByteBuffer.allocate(512)));
+        final ByteBuffer[][] messages = new ByteBuffer[][] { message(300, 0, 2), message(5, 1, 1) };
+        assertEquals(2, conduit.sendBatch(messages, 0, 2));
+        // the batch stops at an empty message
+        assertEquals(1, conduit.sendBatch(new ByteBuffer[][] { message(7, 2, 1), new ByteBuffer[0], message(7, 3, 1) }, 0, 3));
+        assertTrue(conduit.flush());
+        assertFramed((ByteBuffer) takeWritten(ByteBuffer.allocate(1000)).flip(), false, 300, 5, 7);
+    }
+
+    @Test
+    public void sendBatchPartialWrite() throws IOException {
+        // the mock accepts up to 1000 bytes before it has to be drained
+        final FramingMessageSinkConduit conduit = new FramingMessageSinkConduit(conduitMock, true, Buffers.pooledWrapper(ByteBuffer.allocate(512)));
+        final ByteBuffer[][] messages = new ByteBuffer[][] { message(400, 0, 1), message(400, 1, 2), message(400, 2, 1), message(400, 3, 1) };
+        // the third message is cut short, so its remainder goes to the transmit buffer
+        assertEquals(3, conduit.sendBatch(messages, 0, 4));
+        assertTrue(Buffers.hasRemaining(messages[3]));
+        final ByteBuffer collected = ByteBuffer.allocate(2000);
+        takeWritten(collected);
+        assertEquals(1, conduit.sendBatch(messages, 3, 1));
+        assertTrue(conduit.flush());
+        takeWritten(collected);
+        assertFramed((ByteBuffer) collected.flip(), true, 400, 400, 400, 400);
+    }
+
+    @Test
+    public void sendBatchBlocked() throws IOException {
+        final FramingMessageSinkConduit conduit = new FramingMessageSinkConduit(conduitMock, true, Buffers.pooledWrapper(ByteBuffer.allocate(512)));
+        final ByteBuffer[][] messages = new ByteBuffer[][] { message(496, 0, 1), message(496, 1, 1), message(10, 2, 1) };
+        // the first two messages fill the mock exactly, so the third one is not started
+        assertEquals(2, conduit.sendBatch(messages, 0, 3));
+        assertEquals(10, Buffers.remaining(messages[2]));
+        conduitMock.enableWrites(false);
+        final ByteBuffer collected = ByteBuffer.allocate(2000);
+        takeWritten(collected);
+        assertEquals(0, conduit.sendBatch(messages, 2, 1));
+        conduitMock.enableWrites(true);
+        assertEquals(1, conduit.sendBatch(messages, 2, 1));
+        assertTrue(conduit.flush());
+        takeWritten(collected);
+        assertFramed((ByteBuffer) collected.flip(), true, 496, 496, 10);
+    }
+
+    @Test
+    public void sendVarintLengths() throws IOException {
+        final FramingMessageSinkConduit conduit = new FramingMessageSinkConduit(conduitMock, LengthPrefix.VARINT, Buffers.pooledWrapper(ByteBuffer.allocate(512)));
+        assertTrue(conduit.send(message(100, 0, 1)[0]));
+        assertEquals(2, conduit.sendBatch(new ByteBuffer[][] { message(200, 1, 2), message(5, 2, 1) }, 0, 2));
+        assertTrue(conduit.flush());
+        final ByteBuffer written = (ByteBuffer) takeWritten(ByteBuffer.allocate(1000)).flip();
+        // 1 + 100 + 2 + 200 + 1 + 5
+        assertEquals(309, written.remaining());
+        int value = 0;
+        for (int length : new int[] { 100, 200, 5 }) {
+            assertEquals(length, LengthPrefix.VARINT.read(written));
+            for (int i = 0; i < length; i ++) {
+                assertEquals((byte) value, written.get());
+            }
+            value ++;
+        }
+    }
+
+    @Test
+    public void flushEmpty() throws IOException {
+        final FramingMessageSinkConduit conduit = new FramingMessageSinkConduit(conduitMock, true, Buffers.pooledWrapper(ByteBuffer.allocate(512)));
+        assertTrue(conduit.flush());
+        assertEquals(0, conduitMock.getWrittenBytes().position());
+    }
+}
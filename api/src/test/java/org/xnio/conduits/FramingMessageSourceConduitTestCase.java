@@ -0,0 +1,226 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.Buffers;
+import org.xnio.mock.ConduitMock;
+import org.xnio.mock.XnioIoThreadMock;
+import org.xnio.mock.XnioWorkerMock;
+
+/**
+ * Test for {@link FramingMessageSourceConduit}.
+ */
+public class FramingMessageSourceConduitTestCase {
+
+    private ConduitMock conduitMock;
+
+    @Before
+    public void init() {
+        final XnioWorkerMock worker = new XnioWorkerMock();
+        final XnioIoThreadMock threadMock = worker.chooseThread();
+        threadMock.start();
+        conduitMock = new ConduitMock(worker, threadMock);
+        conduitMock.enableReads(true);
+        conduitMock.setEof();
+    }
+
+    private FramingMessageSourceConduit createConduit(final ByteBuffer input, final LengthPrefix lengthPrefix, final int bufferSize, final int maxMessageSize) {
+        final PushBackStreamSourceConduit pushBack = new PushBackStreamSourceConduit(conduitMock);
+        pushBack.pushBack(Buffers.pooledWrapper(input));
+        return new FramingMessageSourceConduit(pushBack, Buffers.pooledWrapper(ByteBuffer.allocate(bufferSize)), lengthPrefix, maxMessageSize);
+    }
+
+    private static ByteBuffer frame(final LengthPrefix lengthPrefix, final int... lengths) {
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        int value = 0;
+        for (int length : lengths) {
+            lengthPrefix.write(buffer, length);
+            for (int i = 0; i < length; i ++) {
+                buffer.put((byte) value);
+            }
+            value ++;
+        }
+        return (ByteBuffer) buffer.flip();
+    }
+
+    private static void assertMessage(final ByteBuffer message, final int length, final int value) {
+        assertEquals(length, message.remaining());
+        while (message.hasRemaining()) {
+            assertEquals((byte) value, message.get());
+        }
+    }
+
+    @Test
+    public void lengthPrefixes() throws IOException {
+        for (LengthPrefix lengthPrefix : LengthPrefix.values()) {
+            final int[] lengths = lengthPrefix == LengthPrefix.ONE_BYTE ? new int[] { 1, 255, 0, 127 } : new int[] { 1, 127, 128, 300, 0, 1000 };
+            final FramingMessageSourceConduit conduit = createConduit(frame(lengthPrefix, lengths), lengthPrefix, 2048, 1024);
+            final ByteBuffer dst = ByteBuffer.allocate(1024);
+            for (int i = 0; i < lengths.length; i ++) {
+                assertEquals(lengths[i], conduit.receive(dst));
+                dst.flip();
+                assertMessage(dst, lengths[i], i);
+                dst.clear();
+            }
+            assertEquals(-1, conduit.receive(dst));
+            assertTrue(conduit.isEndOfStream());
+        }
+    }
+
+    @Test
+    public void varintSizes() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(5);
+        for (int length : new int[] { 0, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456, Integer.MAX_VALUE }) {
+            buffer.clear();
+            LengthPrefix.VARINT.write(buffer, length);
+            assertEquals(LengthPrefix.VARINT.getSize(length), buffer.position());
+            buffer.flip();
+            assertEquals(length, LengthPrefix.VARINT.read(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+        // a sixth byte would be needed
+        buffer.clear();
+        buffer.put(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F }).flip();
+        try {
+            LengthPrefix.VARINT.read(buffer);
+            fail("Expected IOException");
+        } catch (IOException expected) {}
+        // incomplete
+        buffer.clear();
+        buffer.put((byte) 0x80).flip();
+        assertEquals(-1, LengthPrefix.VARINT.read(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void receiveViews() throws IOException {
+        final FramingMessageSourceConduit conduit = createConduit(frame(LengthPrefix.VARINT, 10, 200, 3), LengthPrefix.VARINT, 512, 512);
+        final FramingMessageSourceConduit.MessageView first = conduit.receiveView();
+        final FramingMessageSourceConduit.MessageView second = conduit.receiveView();
+        final FramingMessageSourceConduit.MessageView third = conduit.receiveView();
+        assertNotNull(third);
+        assertNull(conduit.receiveView());
+        assertTrue(conduit.isEndOfStream());
+        // the views stay valid while further messages are received
+        assertMessage(first.getBuffer(), 10, 0);
+        assertMessage(second.getBuffer(), 200, 1);
+        assertMessage(third.getBuffer(), 3, 2);
+        try {
+            first.getBuffer().put(0, (byte) 1);
+            fail("Expected ReadOnlyBufferException");
+        } catch (ReadOnlyBufferException expected) {}
+        first.close();
+        try {
+            first.getBuffer();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {}
+        second.close();
+        third.close();
+    }
+
+    @Test
+    public void viewsPinReceiveBuffer() throws IOException {
+        // the buffer holds the first two messages only; the third one needs the space of the first
+        final ByteBuffer input = frame(LengthPrefix.TWO_BYTES, 40, 40, 40);
+        final ByteBuffer firstPart = input.duplicate();
+        firstPart.limit(84);
+        input.position(84);
+        final PushBackStreamSourceConduit pushBack = new PushBackStreamSourceConduit(conduitMock);
+        pushBack.pushBack(Buffers.pooledWrapper(input));
+        pushBack.pushBack(Buffers.pooledWrapper(firstPart));
+        final FramingMessageSourceConduit conduit = new FramingMessageSourceConduit(pushBack, Buffers.pooledWrapper(ByteBuffer.allocate(100)), LengthPrefix.TWO_BYTES, 100);
+        final FramingMessageSourceConduit.MessageView first = conduit.receiveView();
+        final FramingMessageSourceConduit.MessageView second = conduit.receiveView();
+        assertNull(conduit.receiveView());
+        assertFalse(conduit.isEndOfStream());
+        first.close();
+        assertNull(conduit.receiveView());
+        assertMessage(second.getBuffer(), 40, 1);
+        second.close();
+        final FramingMessageSourceConduit.MessageView third = conduit.receiveView();
+        assertMessage(third.getBuffer(), 40, 2);
+        third.close();
+    }
+
+    @Test
+    public void closingLastPinningViewWakesReads() throws IOException {
+        final ByteBuffer input = frame(LengthPrefix.TWO_BYTES, 40, 40, 40);
+        final ByteBuffer firstPart = input.duplicate();
+        firstPart.limit(84);
+        input.position(84);
+        final PushBackStreamSourceConduit pushBack = new PushBackStreamSourceConduit(conduitMock);
+        pushBack.pushBack(Buffers.pooledWrapper(input));
+        pushBack.pushBack(Buffers.pooledWrapper(firstPart));
+        final FramingMessageSourceConduit conduit = new FramingMessageSourceConduit(pushBack, Buffers.pooledWrapper(ByteBuffer.allocate(84)), LengthPrefix.TWO_BYTES, 82);
+        final FramingMessageSourceConduit.MessageView first = conduit.receiveView();
+        final FramingMessageSourceConduit.MessageView second = conduit.receiveView();
+        // the buffer is full of pinned messages
+        assertNull(conduit.receiveView());
+        conduitMock.resumeReads();
+        first.close();
+        assertFalse(conduitMock.isReadAwaken());
+        second.close();
+        // closing twice must not release the view twice
+        second.close();
+        assertTrue(conduitMock.isReadAwaken());
+        final FramingMessageSourceConduit.MessageView third = conduit.receiveView();
+        assertMessage(third.getBuffer(), 40, 2);
+        third.close();
+    }
+
+    @Test
+    public void maxMessageSize() throws IOException {
+        // only the length field of the oversized message has arrived
+        final ByteBuffer input = ByteBuffer.allocate(16);
+        LengthPrefix.VARINT.write(input, 5);
+        input.put(new byte[5]);
+        LengthPrefix.VARINT.write(input, 1000);
+        input.flip();
+        final FramingMessageSourceConduit conduit = createConduit(input, LengthPrefix.VARINT, 2048, 100);
+        assertEquals(5, conduit.receive(ByteBuffer.allocate(10)));
+        try {
+            conduit.receive(ByteBuffer.allocate(10));
+            fail("Expected IOException");
+        } catch (IOException expected) {}
+    }
+
+    @Test
+    public void truncatedMessage() throws IOException {
+        final ByteBuffer input = frame(LengthPrefix.FOUR_BYTES, 10, 20);
+        input.limit(input.limit() - 1);
+        final FramingMessageSourceConduit conduit = createConduit(input, LengthPrefix.FOUR_BYTES, 100, 100);
+        final ByteBuffer dst = ByteBuffer.allocate(4);
+        // the rest of a message which does not fit is dropped
+        assertEquals(4, conduit.receive(dst));
+        assertEquals(-1, conduit.receive(ByteBuffer.allocate(100)));
+    }
+}
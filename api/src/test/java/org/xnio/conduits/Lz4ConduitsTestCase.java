@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.conduits;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.Buffers;
+import org.xnio.mock.ConduitMock;
+import org.xnio.mock.XnioIoThreadMock;
+import org.xnio.mock.XnioWorkerMock;
+
+/**
+ * Test for {@link Lz4StreamSinkConduit} and {@link Lz4StreamSourceConduit}.
+ */
+public class Lz4ConduitsTestCase {
+
+    private XnioWorkerMock worker;
+    private XnioIoThreadMock threadMock;
+
+    @Before
+    public void init() {
+        worker = new XnioWorkerMock();
+        threadMock = worker.chooseThread();
+        threadMock.start();
+    }
+
+    private static byte[] createData(final int length) {
+        final Random random = new Random(42);
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i ++) {
+            // mostly compressible text, with an incompressible stretch in the middle
+            data[i] = i > length / 3 && i < length / 2 ? (byte) random.nextInt() : (byte) "abcdefgh".charAt(random.nextInt(8));
+        }
+        return data;
+    }
+
+    private static void collect(final ConduitMock sink, final ByteBuffer out) {
+        final ByteBuffer written = sink.getWrittenBytes();
+        written.flip();
+        out.put(written);
+        written.clear();
+    }
+
+    private ByteBuffer compress(final byte[] data, final int level) throws IOException {
+        final ConduitMock sink = new ConduitMock(worker, threadMock);
+        final Lz4StreamSinkConduit conduit = new Lz4StreamSinkConduit(sink, level);
+        final ByteBuffer out = ByteBuffer.allocate(data.length * 2 + 100);
+        final ByteBuffer src = ByteBuffer.wrap(data);
+        // write in two slices to exercise both write methods
+        final ByteBuffer first = src.duplicate();
+        first.limit(data.length / 2);
+        final ByteBuffer second = src.duplicate();
+        second.position(data.length / 2);
+        while (first.hasRemaining()) {
+            conduit.write(first);
+            collect(sink, out);
+        }
+        final ByteBuffer[] srcs = new ByteBuffer[] { second };
+        while (second.hasRemaining()) {
+            conduit.write(srcs, 0, 1);
+            collect(sink, out);
+        }
+        conduit.terminateWrites();
+        while (! conduit.flush()) {
+            collect(sink, out);
+        }
+        collect(sink, out);
+        assertTrue(sink.isWriteShutdown());
+        out.flip();
+        return out;
+    }
+
+    private byte[] decompress(final ByteBuffer compressed, final int maxLength) throws IOException {
+        final ConduitMock source = new ConduitMock(worker, threadMock);
+        source.enableReads(true);
+        source.setEof();
+        final PushBackStreamSourceConduit pushBack = new PushBackStreamSourceConduit(source);
+        pushBack.pushBack(Buffers.pooledWrapper(compressed));
+        final Lz4StreamSourceConduit conduit = new Lz4StreamSourceConduit(pushBack);
+        final ByteBuffer dst = ByteBuffer.allocate(1000);
+        final ByteBuffer result = ByteBuffer.allocate(maxLength);
+        int res;
+        while ((res = conduit.read(dst)) != -1) {
+            assertTrue(res > 0);
+            dst.flip();
+            result.put(dst);
+            dst.clear();
+        }
+        conduit.terminateReads();
+        return Arrays.copyOf(result.array(), result.position());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final byte[] data = createData(700000);
+        for (int level : new int[] { -1, 0, 1, 9 }) {
+            final ByteBuffer compressed = compress(data, level);
+            if (level != 0) {
+                assertTrue(compressed.remaining() < data.length);
+            }
+            assertArrayEquals(data, decompress(compressed, data.length));
+        }
+    }
+
+    @Test
+    public void emptyFrame() throws IOException {
+        final ByteBuffer compressed = compress(new byte[0], -1);
+        // magic, descriptor and end mark
+        assertEquals(11, compressed.remaining());
+        assertEquals(0, decompress(compressed, 10).length);
+    }
+
+    @Test
+    public void checksumsAndSkippableFrames() throws IOException {
+        final byte[] content = "hello, hello, hello, hello".getBytes(US_ASCII);
+        final ByteBuffer frame = ByteBuffer.allocate(100).order(ByteOrder.LITTLE_ENDIAN);
+        // a skippable frame, followed by a frame with linked blocks and block and content checksums
+        frame.putInt(Lz4.SKIPPABLE_MAGIC | 3).putInt(3).put(new byte[3]);
+        frame.putInt(Lz4.MAGIC);
+        final byte[] descriptor = new byte[] { (byte) (Lz4.FLG_VERSION | Lz4.FLG_BLOCK_CHECKSUM | Lz4.FLG_CONTENT_CHECKSUM), (byte) Lz4.BD_64KB };
+        frame.put(descriptor).put((byte) (Lz4.xxh32(descriptor, 0, 2) >>> 8));
+        // first block: stored "hello, "
+        frame.putInt(7 | Lz4.UNCOMPRESSED_BLOCK).put(content, 0, 7).putInt(Lz4.xxh32(content, 0, 7));
+        // second block: a match 7 bytes back into the first block, then the last literals
+        final byte[] block = new byte[] { (byte) 0x0A, 7, 0, (byte) 0x50, 'h', 'e', 'l', 'l', 'o' };
+        frame.putInt(block.length).put(block).putInt(Lz4.xxh32(block, 0, block.length));
+        frame.putInt(0).putInt(Lz4.xxh32(content, 0, content.length));
+        frame.flip();
+        assertArrayEquals(content, decompress(frame.duplicate(), 100));
+
+        frame.put(frame.limit() - 1, (byte) (frame.get(frame.limit() - 1) + 1));
+        try {
+            decompress(frame, 100);
+            fail("Expected IOException");
+        } catch (IOException expected) {}
+    }
+
+    @Test
+    public void truncatedFrame() throws IOException {
+        final ByteBuffer compressed = compress(createData(1000), -1);
+        compressed.limit(compressed.limit() - 2);
+        try {
+            decompress(compressed, 1000);
+            fail("Expected EOFException");
+        } catch (EOFException expected) {}
+    }
+
+    @Test
+    public void xxh32() {
+        assertEquals(0x02CC5D05, Lz4.xxh32(new byte[0], 0, 0));
+        final byte[] data = createData(1000);
+        for (int split : new int[] { 0, 3, 16, 999 }) {
+            final Lz4.Xxh32 xxh32 = new Lz4.Xxh32();
+            xxh32.update(data, 0, split);
+            xxh32.update(data, split, data.length - split);
+            assertEquals(Lz4.xxh32(data, 0, data.length), xxh32.digest());
+        }
+    }
+
+    @Test
+    public void writeAfterTerminate() throws IOException {
+        final ConduitMock sink = new ConduitMock(worker, threadMock);
+        final Lz4StreamSinkConduit conduit = new Lz4StreamSinkConduit(sink, -1);
+        conduit.terminateWrites();
+        assertFalse(sink.isWriteShutdown());
+        try {
+            conduit.write(ByteBuffer.allocate(1));
+            fail("Expected IOException");
+        } catch (IOException expected) {}
+    }
+}
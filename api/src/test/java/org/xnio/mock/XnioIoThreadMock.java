@@ -94,7 +94,8 @@ public class XnioIoThreadMock extends XnioIoThread implements XnioExecutor {
         synchronized (this) {
             while (this.command != null) {
                 try {
-                    Thread.sleep(100);
+                    // release the lock, so that the pending command can be taken
+                    wait(100);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                     throw new RuntimeException(e);
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.sasl;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.security.sasl.SaslClient;
+import javax.security.sasl.SaslServer;
+
+import org.junit.Test;
+
+/**
+ * Test for the wrapping and unwrapping methods of {@link SaslUtils}.
+ */
+public class SaslUtilsTestCase {
+
+    private static final byte[] MESSAGE = "..header..message..trailer..".getBytes(US_ASCII);
+
+    /**
+     * Create a heap buffer whose array offset and position are not zero, and which encompasses the message only.
+     */
+    private static ByteBuffer offsetBuffer() {
+        final ByteBuffer slice = ByteBuffer.wrap(MESSAGE, 2, MESSAGE.length - 2).slice();
+        // "..header.." minus the first two bytes
+        slice.position(8);
+        slice.limit(slice.position() + "message".length());
+        assertNotEquals(0, slice.arrayOffset());
+        return slice;
+    }
+
+    @Test
+    public void clientWrap() throws Exception {
+        final ByteBuffer source = offsetBuffer();
+        assertEquals("message", new String(SaslUtils.wrap(new EchoClient(), source), US_ASCII));
+        assertEquals(0, source.remaining());
+    }
+
+    @Test
+    public void clientUnwrap() throws Exception {
+        final ByteBuffer source = offsetBuffer();
+        assertEquals("message", new String(SaslUtils.unwrap(new EchoClient(), source), US_ASCII));
+        assertEquals(0, source.remaining());
+    }
+
+    @Test
+    public void serverWrap() throws Exception {
+        final ByteBuffer source = offsetBuffer();
+        assertEquals("message", new String(SaslUtils.wrap(new EchoServer(), source), US_ASCII));
+        assertEquals(0, source.remaining());
+    }
+
+    @Test
+    public void serverUnwrap() throws Exception {
+        final ByteBuffer source = offsetBuffer();
+        assertEquals("message", new String(SaslUtils.unwrap(new EchoServer(), source), US_ASCII));
+        assertEquals(0, source.remaining());
+    }
+
+    @Test
+    public void wrapToDestination() throws Exception {
+        final ByteBuffer source = offsetBuffer();
+        final ByteBuffer destination = ByteBuffer.allocate(20);
+        SaslUtils.wrap(new EchoClient(), destination, source);
+        destination.flip();
+        assertEquals("message", US_ASCII.decode(destination).toString());
+        assertEquals(0, source.remaining());
+    }
+
+    @Test
+    public void unwrapToDestination() throws Exception {
+        final ByteBuffer source = offsetBuffer();
+        final ByteBuffer destination = ByteBuffer.allocate(20);
+        SaslUtils.unwrap(new EchoServer(), destination, source);
+        destination.flip();
+        assertEquals("message", US_ASCII.decode(destination).toString());
+        assertEquals(0, source.remaining());
+    }
+
+    /**
+     * A client whose wrapping and unwrapping return the given bytes.
+     */
+    private static final class EchoClient implements SaslClient {
+        public String getMechanismName() {
+            return "ECHO";
+        }
+
+        public boolean hasInitialResponse() {
+            return false;
+        }
+
+        public byte[] evaluateChallenge(final byte[] challenge) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean isComplete() {
+            return true;
+        }
+
+        public byte[] unwrap(final byte[] incoming, final int offset, final int len) {
+            return Arrays.copyOfRange(incoming, offset, offset + len);
+        }
+
+        public byte[] wrap(final byte[] outgoing, final int offset, final int len) {
+            return Arrays.copyOfRange(outgoing, offset, offset + len);
+        }
+
+        public Object getNegotiatedProperty(final String propName) {
+            return null;
+        }
+
+        public void dispose() {
+        }
+    }
+
+    /**
+     * A server whose wrapping and unwrapping return the given bytes.
+     */
+    private static final class EchoServer implements SaslServer {
+        public String getMechanismName() {
+            return "ECHO";
+        }
+
+        public byte[] evaluateResponse(final byte[] response) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean isComplete() {
+            return true;
+        }
+
+        public String getAuthorizationID() {
+            return null;
+        }
+
+        public byte[] unwrap(final byte[] incoming, final int offset, final int len) {
+            return Arrays.copyOfRange(incoming, offset, offset + len);
+        }
+
+        public byte[] wrap(final byte[] outgoing, final int offset, final int len) {
+            return Arrays.copyOfRange(outgoing, offset, offset + len);
+        }
+
+        public Object getNegotiatedProperty(final String propName) {
+            return null;
+        }
+
+        public void dispose() {
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.FINISH;
+import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.NEED_TASK;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.ByteBufferPool;
+import org.xnio.ChannelListener;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.mock.ConduitMock;
+import org.xnio.mock.StreamConnectionMock;
+import org.xnio.mock.XnioIoThreadMock;
+import org.xnio.mock.XnioWorkerMock;
+import org.xnio.ssl.mock.PeerVerifierMock;
+import org.xnio.ssl.mock.SSLEngineMock;
+
+/**
+ * Test for {@link HandshakeController}.
+ */
+public class HandshakeControllerTestCase {
+
+    private Mockery context;
+    private SSLEngineMock engineMock;
+    private XnioWorkerMock worker;
+    private XnioIoThreadMock threadMock;
+
+    @Before
+    public void init() {
+        context = new JUnit4Mockery() {{
+            setThreadingPolicy(new Synchroniser());
+        }};
+        engineMock = new SSLEngineMock(new JUnit4Mockery());
+        worker = new XnioWorkerMock();
+        threadMock = worker.chooseThread();
+        threadMock.start();
+    }
+
+    @After
+    public void closeIoThread() {
+        threadMock.closeIoThread();
+        context.assertIsSatisfied();
+    }
+
+    private JsseSslConnection createConnection(final SSLEngineMock engine, final HandshakeController controller) {
+        final ConduitMock conduitMock = new ConduitMock(worker, threadMock);
+        return new JsseSslConnection(new StreamConnectionMock(conduitMock), engine, ByteBufferPool.LARGE_HEAP, ByteBufferPool.LARGE_HEAP, controller);
+    }
+
+    @Test
+    public void notConfigured() {
+        assertNull(HandshakeController.create("test", OptionMap.EMPTY));
+        assertNull(HandshakeController.create("test", OptionMap.create(Options.SSL_HANDSHAKE_THREADS, 0)));
+        final HandshakeController controller = HandshakeController.create("test", OptionMap.create(Options.SSL_HANDSHAKE_STATISTICS, true));
+        assertFalse(controller.hasExecutor());
+        assertEquals(0, controller.getMaxConcurrentHandshakes());
+        controller.close();
+    }
+
+    @Test
+    public void closeUnregistersMBean() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName pattern = new ObjectName("org.xnio:type=Xnio,provider=" + ObjectName.quote("closeTest") + ",ssl=*");
+        final HandshakeController controller = HandshakeController.create("closeTest", OptionMap.create(Options.SSL_HANDSHAKE_THREADS, 1));
+        assertEquals(1, server.queryNames(pattern, null).size());
+        controller.close();
+        assertTrue(server.queryNames(pattern, null).isEmpty());
+        // delegated tasks submitted after the close are run by the submitting thread
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        controller.execute(new Runnable() {
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        });
+        assertEquals(Thread.currentThread(), thread.get());
+        controller.close();
+    }
+
+    @Test
+    public void resumption() {
+        final HandshakeController controller = new HandshakeController("test", 0, 0);
+        for (int i = 0; i < 3; i ++) {
+            assertTrue(controller.tryAdmit());
+            controller.handshakeFinished(System.nanoTime(), i > 0);
+        }
+        assertEquals(3L, controller.getCompletedHandshakeCount());
+        assertEquals(2L, controller.getResumptionHitCount());
+        assertEquals(1L, controller.getResumptionMissCount());
+    }
+
+    @Test
+    public void resumedSessionsTls13() throws Exception {
+        checkResumedSessions("TLSv1.3");
+    }
+
+    @Test
+    public void resumedSessionsTls12() throws Exception {
+        checkResumedSessions("TLSv1.2");
+    }
+
+    /**
+     * Check that the handshakes of real engines are found to resume the session of the first handshake from then on,
+     * on both sides, although the server decodes the session from a stateless session ticket by default.
+     */
+    private static void checkResumedSessions(final String protocol) throws Exception {
+        final SSLContext context = createSSLContext();
+        for (int i = 0; i < 3; i ++) {
+            // the engines are created the way the connections mark them
+            final long since = System.currentTimeMillis();
+            final SSLEngine client = context.createSSLEngine("localhost", 8443);
+            client.setUseClientMode(true);
+            client.setEnabledProtocols(new String[] { protocol });
+            final SSLEngine server = context.createSSLEngine();
+            server.setUseClientMode(false);
+            server.setEnabledProtocols(new String[] { protocol });
+            handshake(client, server);
+            assertEquals(protocol, server.getSession().getProtocol());
+            assertEquals("client of handshake " + i, i > 0, HandshakeController.isResumed(client.getSession(), since));
+            assertEquals("server of handshake " + i, i > 0, HandshakeController.isResumed(server.getSession(), since));
+            // the creation times have a millisecond resolution
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Create a context with the key store of the tests, without the default key managers which the JDK caches.
+     */
+    private static SSLContext createSSLContext() throws Exception {
+        final char[] password = "apiTest".toCharArray();
+        final KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream stream = HandshakeControllerTestCase.class.getClassLoader().getResourceAsStream("keystore.jks")) {
+            keyStore.load(stream, password);
+        }
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, password);
+        final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+        return context;
+    }
+
+    /**
+     * Run a handshake between two engines, until neither of them has anything left to send, such as the session
+     * tickets which follow a TLSv1.3 handshake.
+     */
+    private static void handshake(final SSLEngine client, final SSLEngine server) throws SSLException {
+        final ByteBuffer clientRecords = ByteBuffer.allocate(0x10000);
+        final ByteBuffer serverRecords = ByteBuffer.allocate(0x10000);
+        client.beginHandshake();
+        server.beginHandshake();
+        boolean progress;
+        do {
+            progress = transfer(client, clientRecords, serverRecords);
+            progress |= transfer(server, serverRecords, clientRecords);
+        } while (progress);
+        assertEquals(HandshakeStatus.NOT_HANDSHAKING, client.getHandshakeStatus());
+        assertEquals(HandshakeStatus.NOT_HANDSHAKING, server.getHandshakeStatus());
+    }
+
+    private static boolean transfer(final SSLEngine engine, final ByteBuffer sent, final ByteBuffer received) throws SSLException {
+        boolean progress = false;
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+            progress = true;
+        }
+        progress |= engine.wrap(ByteBuffer.allocate(0), sent).bytesProduced() > 0;
+        received.flip();
+        try {
+            progress |= engine.unwrap(received, ByteBuffer.allocate(engine.getSession().getApplicationBufferSize())).bytesConsumed() > 0;
+        } finally {
+            received.compact();
+        }
+        return progress;
+    }
+
+    @Test
+    public void admission() {
+        final HandshakeController controller = new HandshakeController("test", 0, 2);
+        assertFalse(controller.hasExecutor());
+        assertTrue(controller.tryAdmit());
+        assertTrue(controller.tryAdmit());
+        assertFalse(controller.tryAdmit());
+        assertEquals(2, controller.getActiveHandshakeCount());
+        controller.release();
+        controller.handshakeFinished(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5), false);
+        assertEquals(0, controller.getActiveHandshakeCount());
+        assertEquals(1L, controller.getCompletedHandshakeCount());
+        assertTrue(controller.getAverageHandshakeTime() >= 5000L);
+        assertEquals(controller.getAverageHandshakeTime(), controller.getMaxHandshakeTime());
+        assertTrue(controller.tryAdmit());
+    }
+
+    @Test
+    public void parkedHandshake() throws IOException {
+        final HandshakeController controller = new HandshakeController("test", 0, 1);
+        final JsseSslConnection first = createConnection(engineMock, controller);
+        final JsseSslConnection second = createConnection(new SSLEngineMock(new JUnit4Mockery()), controller);
+        first.startHandshake();
+        second.startHandshake();
+        assertEquals(1, controller.getActiveHandshakeCount());
+        assertEquals(1, controller.getParkedHandshakeCount());
+        // no I/O until the handshake is admitted
+        assertEquals(0, second.getSourceChannel().read(ByteBuffer.allocate(10)));
+        controller.handshakeFinished(System.nanoTime(), false);
+        assertEquals(1, controller.getActiveHandshakeCount());
+        assertEquals(0, controller.getParkedHandshakeCount());
+        // the closed connection gives its permit back
+        second.getSourceChannel().getConduit().terminateReads();
+        ((JsseStreamConduit) second.getSourceChannel().getConduit()).markTerminated();
+        assertEquals(0, controller.getActiveHandshakeCount());
+    }
+
+    @Test
+    public void parkedHandshakeClosed() throws IOException {
+        final HandshakeController controller = new HandshakeController("test", 0, 1);
+        final JsseSslConnection first = createConnection(engineMock, controller);
+        final JsseSslConnection second = createConnection(new SSLEngineMock(new JUnit4Mockery()), controller);
+        first.startHandshake();
+        second.startHandshake();
+        ((JsseStreamConduit) second.getSourceChannel().getConduit()).markTerminated();
+        assertEquals(0, controller.getParkedHandshakeCount());
+        controller.handshakeFinished(System.nanoTime(), false);
+        assertEquals(0, controller.getActiveHandshakeCount());
+    }
+
+    @Test
+    public void delegatedTasks() throws Exception {
+        final HandshakeController controller = new HandshakeController("test", 1, 0);
+        final AtomicReference<String> threadName = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        controller.execute(new Runnable() {
+            public void run() {
+                threadName.set(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10L, TimeUnit.SECONDS));
+        assertTrue(threadName.get(), threadName.get().startsWith("xnio-ssl-handshake-"));
+        assertEquals(1L, controller.getDelegatedTaskCount());
+    }
+
+    @Test
+    public void handshakeWithDelegatedTask() throws IOException {
+        engineMock.setHandshakeActions(NEED_TASK, FINISH);
+        final HandshakeController controller = new HandshakeController("test", 1, 0);
+        final JsseSslConnection connection = createConnection(engineMock, controller);
+        connection.startHandshake();
+        final ByteBuffer buffer = ByteBuffer.allocate(10);
+        // the task runs on the handshake executor
+        assertEquals(0, connection.getSourceChannel().read(buffer));
+        connection.getSourceChannel().awaitReadable(10L, TimeUnit.SECONDS);
+        connection.getSourceChannel().read(buffer);
+        assertEquals(1L, controller.getDelegatedTaskCount());
+        assertEquals(1L, controller.getCompletedHandshakeCount());
+        assertEquals(1L, controller.getResumptionMissCount());
+        assertEquals(0, controller.getActiveHandshakeCount());
+    }
+
+    @Test
+    public void peerVerified() throws Exception {
+        engineMock.setHandshakeActions(FINISH);
+        final PeerVerifierMock verifier = new PeerVerifierMock(50L, TimeUnit.MILLISECONDS, true);
+        final HandshakeController controller = HandshakeController.create("test", OptionMap.EMPTY, verifier);
+        assertNotNull(controller);
+        final JsseSslConnection connection = createConnection(engineMock, controller);
+        final CountDownLatch handshake = new CountDownLatch(1);
+        connection.getHandshakeSetter().set(new ChannelListener<SslConnection>() {
+            public void handleEvent(final SslConnection channel) {
+                handshake.countDown();
+            }
+        });
+        connection.startHandshake();
+        final ByteBuffer buffer = ByteBuffer.allocate(10);
+        // the handshake finishes, but nothing moves until the peer is verified
+        assertEquals(0, connection.getSourceChannel().read(buffer));
+        assertEquals(1, verifier.getVerificationCount());
+        assertEquals(1, handshake.getCount());
+        assertEquals(0, connection.getSourceChannel().read(buffer));
+        // the verifier calls the handshake listener
+        assertTrue(handshake.await(10L, TimeUnit.SECONDS));
+        connection.getSourceChannel().read(buffer);
+        assertEquals(1, verifier.getVerificationCount());
+    }
+
+    @Test
+    public void peerRejected() throws IOException {
+        engineMock.setHandshakeActions(FINISH);
+        final PeerVerifierMock verifier = new PeerVerifierMock(0L, TimeUnit.MILLISECONDS, false);
+        final JsseSslConnection connection = createConnection(engineMock, HandshakeController.create("test", OptionMap.EMPTY, verifier));
+        connection.startHandshake();
+        final ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertEquals(0, connection.getSourceChannel().read(buffer));
+        connection.getSourceChannel().awaitReadable(10L, TimeUnit.SECONDS);
+        try {
+            connection.getSourceChannel().read(buffer);
+            fail("Expected SSLHandshakeException");
+        } catch (SSLHandshakeException expected) {
+            assertEquals("Peer rejected by mock", expected.getCause().getMessage());
+        }
+    }
+}
@@ -34,8 +34,12 @@ import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.NEED_WRAP;
 import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.PERFORM_REQUESTED_ACTION;
 
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 
@@ -438,4 +442,20 @@ public class JsseSslStreamSinkConduitTestCase extends AbstractSslConnectionTest
         sourceConduit.terminateReads();
         assertWrittenMessage("abc", CLOSE_MSG);
     }
+
+    @Test
+    public void transferFromFile() throws IOException {
+        engineMock.addWrapEntry("MockTest", "WRAPPED_MOCK_TEST");
+        final File file = File.createTempFile("transfer", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "skip MockTest".getBytes("UTF-8"));
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the region is wrapped as if it had been written from a buffer
+            assertEquals(8L, sinkConduit.transferFrom(fileChannel, 5L, 100L));
+            assertEquals(0L, fileChannel.position());
+            assertEquals(0L, sinkConduit.transferFrom(fileChannel, 13L, 100L));
+        }
+        sourceConduit.terminateReads();
+        assertWrittenMessage("WRAPPED_MOCK_TEST", CLOSE_MSG);
+    }
 }
@@ -27,13 +27,20 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
 import java.net.URL;
 import java.nio.channels.Channel;
+import java.security.KeyStore;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManagerFactory;
 
 import org.junit.After;
 import org.junit.Before;
@@ -53,6 +60,7 @@ import org.xnio.channels.ConnectedSslStreamChannel;
 import org.xnio.channels.ConnectedStreamChannel;
 import org.xnio.mock.XnioIoThreadMock;
 import org.xnio.mock.XnioWorkerMock;
+import org.xnio.ssl.mock.PeerVerifierMock;
 
 /**
  * Test for {@link JsseXnioSsl}.
@@ -192,6 +200,20 @@ public class JsseXnioSslTestCase {
         assertNull(server.getOption(Options.WORKER_NAME));
     }
 
+    @Test
+    public void peerVerifierRequiresConduitConnections() throws Exception {
+        final SSLContext sslContext = JsseSslUtils.createSSLContext(OptionMap.EMPTY);
+        final PeerVerifierMock verifier = new PeerVerifierMock(0L, TimeUnit.MILLISECONDS, true);
+        try {
+            final JsseXnioSsl provider = new JsseXnioSsl(xnio, OptionMap.EMPTY, sslContext, SslEngineFactory.of(sslContext), verifier);
+            assertTrue(JsseXnioSsl.NEW_IMPL);
+            provider.close();
+        } catch (IllegalArgumentException expected) {
+            // the legacy connections would skip the verification
+            assertFalse(JsseXnioSsl.NEW_IMPL);
+        }
+    }
+
     @Test
     public void connectSsl1() throws Exception {
         final TestChannelListener<StreamConnection> openListener = new TestChannelListener<StreamConnection>();
@@ -469,6 +491,53 @@ public class JsseXnioSslTestCase {
         assertNotNull(context);
     }
 
+    // the default context is not configured with the test key store if another test created it first
+    private static SSLContext createTestContext() throws Exception {
+        final KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream stream = JsseXnioSslTestCase.class.getClassLoader().getResourceAsStream(DEFAULT_KEY_STORE)) {
+            keyStore.load(stream, DEFAULT_KEY_STORE_PASSWORD.toCharArray());
+        }
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, DEFAULT_KEY_STORE_PASSWORD.toCharArray());
+        final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        return JsseSslUtils.createSSLContext(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null, OptionMap.create(Options.SSL_PROTOCOL, "TLS"));
+    }
+
+    @Test
+    public void engineFactory() throws Exception {
+        final SSLContext context = createTestContext();
+        final AtomicInteger engines = new AtomicInteger();
+        final SslEngineFactory engineFactory = new SslEngineFactory() {
+            public SSLEngine createSSLEngine(final String peerHost, final int peerPort) {
+                engines.incrementAndGet();
+                return context.createSSLEngine(peerHost, peerPort);
+            }
+        };
+        final JsseXnioSsl xnioSsl = new JsseXnioSsl(xnio, OptionMap.EMPTY, context, engineFactory);
+        assertSame(engineFactory, xnioSsl.getEngineFactory());
+        final OptionMap optionMap = OptionMap.create(Options.SSL_PREWARM_HANDSHAKES, 2);
+        final AcceptingChannel<SslConnection> server = xnioSsl.createSslConnectionServer(worker, serverAddress, null, optionMap);
+        // two engines per pre-warming handshake
+        assertEquals(4, engines.get());
+        assertNotNull(server.accept());
+        assertEquals(5, engines.get());
+        // only the first server is pre-warmed
+        xnioSsl.createSslConnectionServer(worker, serverAddress, null, optionMap);
+        assertEquals(5, engines.get());
+        assertNotNull(xnioSsl.openSslConnection(worker, serverAddress, null, OptionMap.EMPTY).get());
+        assertEquals(6, engines.get());
+    }
+
+    @Test
+    public void prewarm() throws Exception {
+        assertEquals(3, EnginePrewarmer.prewarm(SslEngineFactory.of(createTestContext()), 3));
+        // an engine factory of a context without a certificate cannot complete a handshake
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        assertEquals(0, EnginePrewarmer.prewarm(SslEngineFactory.of(context), 3));
+    }
+
     private static class TestChannelListener<C extends Channel> implements ChannelListener<C> {
 
         private C channel;
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.FINISH;
+import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.NEED_TASK;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.net.ssl.SSLEngineResult;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.ByteBufferPool;
+import org.xnio.mock.ConduitMock;
+import org.xnio.mock.StreamConnectionMock;
+import org.xnio.mock.XnioIoThreadMock;
+import org.xnio.mock.XnioWorkerMock;
+import org.xnio.ssl.mock.SSLEngineMock;
+
+/**
+ * Test for the Flight Recorder events of {@link SslEvents}.
+ */
+public class SslEventsTestCase {
+
+    private SSLEngineMock engineMock;
+    private XnioWorkerMock worker;
+    private XnioIoThreadMock threadMock;
+    private Recording recording;
+
+    @Before
+    public void init() {
+        engineMock = new SSLEngineMock(new JUnit4Mockery() {{
+            setThreadingPolicy(new Synchroniser());
+        }});
+        worker = new XnioWorkerMock();
+        threadMock = worker.chooseThread();
+        threadMock.start();
+        recording = new Recording();
+        recording.enable("org.xnio.ssl.Handshake");
+        recording.enable("org.xnio.ssl.DelegatedTask");
+        recording.enable("org.xnio.ssl.BufferRetry");
+        recording.enable("org.xnio.ssl.ConnectionTraffic");
+    }
+
+    @After
+    public void closeIoThread() {
+        threadMock.closeIoThread();
+        recording.close();
+    }
+
+    private List<RecordedEvent> stopRecording(final String name) throws IOException {
+        recording.stop();
+        final Path file = Files.createTempFile("xnio-ssl", ".jfr");
+        try {
+            recording.dump(file);
+            final List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(name)) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void handshake() throws IOException {
+        engineMock.setHandshakeActions(NEED_TASK, FINISH);
+        final ConduitMock conduitMock = new ConduitMock(worker, threadMock);
+        final JsseSslConnection connection = new JsseSslConnection(new StreamConnectionMock(conduitMock), engineMock, ByteBufferPool.LARGE_HEAP, ByteBufferPool.LARGE_HEAP);
+        recording.start();
+        connection.startHandshake();
+        connection.getSourceChannel().read(ByteBuffer.allocate(10));
+        final List<RecordedEvent> events = stopRecording("org.xnio.ssl.Handshake");
+        assertEquals(1, events.size());
+        final RecordedEvent event = events.get(0);
+        assertEquals("TLSv1.3", event.getString("protocol"));
+        assertEquals("TLS_AES_128_GCM_SHA256", event.getString("cipherSuite"));
+        assertFalse(event.getBoolean("resumed"));
+        assertFalse(event.getDuration().isNegative());
+    }
+
+    @Test
+    public void delegatedTask() throws IOException {
+        final Runnable task = new Runnable() {
+            public void run() {
+            }
+        };
+        recording.start();
+        SslEvents.runTask(task);
+        final List<RecordedEvent> events = stopRecording("org.xnio.ssl.DelegatedTask");
+        assertEquals(1, events.size());
+        assertEquals(task.getClass().getName(), events.get(0).getString("task"));
+    }
+
+    @Test
+    public void bufferRetry() throws IOException {
+        recording.start();
+        SslEvents.bufferRetry("unwrap", SSLEngineResult.Status.BUFFER_UNDERFLOW);
+        final List<RecordedEvent> events = stopRecording("org.xnio.ssl.BufferRetry");
+        assertEquals(1, events.size());
+        assertEquals("unwrap", events.get(0).getString("operation"));
+        assertEquals("BUFFER_UNDERFLOW", events.get(0).getString("status"));
+    }
+
+    @Test
+    public void connectionTraffic() throws IOException {
+        final ConduitMock conduitMock = new ConduitMock(worker, threadMock);
+        final JsseSslConnection connection = new JsseSslConnection(new StreamConnectionMock(conduitMock), engineMock, ByteBufferPool.LARGE_HEAP, ByteBufferPool.LARGE_HEAP);
+        recording.start();
+        connection.startHandshake();
+        assertEquals(8, connection.getSinkChannel().write(ByteBuffer.wrap("MockTest".getBytes(StandardCharsets.UTF_8))));
+        connection.close();
+        final List<RecordedEvent> events = stopRecording("org.xnio.ssl.ConnectionTraffic");
+        assertEquals(1, events.size());
+        assertEquals(8L, events.get(0).getLong("wrapped"));
+        assertTrue(events.get(0).getLong("wrappedRecords") >= 8L);
+    }
+
+    @Test
+    public void disabled() throws IOException {
+        recording.close();
+        recording = new Recording();
+        assertNull(SslEvents.beginHandshake());
+    }
+}
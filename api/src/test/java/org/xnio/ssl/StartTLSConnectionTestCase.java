@@ -34,6 +34,7 @@ import static org.xnio.ssl.mock.SSLEngineMock.HandshakeAction.NEED_WRAP;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 
 import org.jmock.Expectations;
@@ -485,6 +486,95 @@ public class StartTLSConnectionTestCase extends AbstractSslConnectionTest {
         assertTrue(conduitMock.isFlushed());
     }
 
+    @Test
+    public void engineCreatedOnUpgrade() throws IOException {
+        final int[] engines = new int[1];
+        final SslConnection connection = new JsseSslConnection(new StreamConnectionMock(conduitMock), new EngineSupplier() {
+            public SSLEngine createEngine() {
+                engines[0] ++;
+                return engineMock;
+            }
+        }, ByteBufferPool.LARGE_HEAP, ByteBufferPool.LARGE_HEAP, null);
+        conduitMock.enableWrites(true);
+        final ByteBuffer buffer = ByteBuffer.allocate(100);
+        buffer.put("MSG".getBytes("UTF-8")).flip();
+        assertEquals(3, connection.getSinkChannel().write(buffer));
+        assertEquals(0, engines[0]);
+        assertNull(connection.getSslSession());
+        connection.startHandshake();
+        assertEquals(1, engines[0]);
+        assertNotNull(connection.getSslSession());
+        connection.startHandshake();
+        assertEquals(1, engines[0]);
+    }
+
+    @Test
+    public void handOverReceivedRecords() throws IOException {
+        engineMock.setHandshakeActions(NEED_UNWRAP, FINISH);
+        conduitMock.enableReads(false);
+        // the peer sent its first handshake message and some data right after the upgrade command, which were read
+        final ByteBuffer received = ByteBuffer.wrap((HANDSHAKE_MSG + "MSG").getBytes("UTF-8"));
+        connection.startHandshake(received);
+        sourceConduit = connection.getSourceChannel().getConduit();
+        final ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertEquals(3, sourceConduit.read(buffer));
+        assertEquals("MSG", new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+        assertFalse(received.hasRemaining());
+        assertSame(HandshakeStatus.NOT_HANDSHAKING, engineMock.getHandshakeStatus());
+        // nothing was read from the connection
+        assertEquals(0, sourceConduit.read(buffer));
+    }
+
+    @Test
+    public void handOverPartialRecord() throws IOException {
+        engineMock.setHandshakeActions(NEED_UNWRAP, FINISH);
+        engineMock.addWrapEntry("MSG", "{data}");
+        engineMock.enablePartialRecords(true);
+        // the records read before the upgrade end with the beginning of a record, whose rest is read afterwards
+        conduitMock.setReadData("ta}");
+        conduitMock.enableReads(true);
+        final ByteBuffer received = ByteBuffer.wrap((HANDSHAKE_MSG + "{da").getBytes("UTF-8"));
+        connection.startHandshake(received);
+        sourceConduit = connection.getSourceChannel().getConduit();
+        final ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertEquals(3, sourceConduit.read(buffer));
+        assertEquals("MSG", new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+        assertSame(HandshakeStatus.NOT_HANDSHAKING, engineMock.getHandshakeStatus());
+        assertTrue(conduitMock.allReadDataConsumed());
+    }
+
+    @Test
+    public void handOverReceivedRecordsToStreamConnection() throws IOException {
+        engineMock.setHandshakeActions(NEED_UNWRAP, FINISH);
+        conduitMock.enableReads(false);
+        final SslConnection connection = new JsseSslStreamConnection(new StreamConnectionMock(conduitMock), engineMock, ByteBufferPool.LARGE_HEAP, ByteBufferPool.LARGE_HEAP, true);
+        final ByteBuffer received = ByteBuffer.wrap((HANDSHAKE_MSG + "MSG").getBytes("UTF-8"));
+        connection.startHandshake(received);
+        assertFalse(received.hasRemaining());
+        final ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertEquals(3, connection.getSourceChannel().read(buffer));
+        assertEquals("MSG", new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+        assertSame(HandshakeStatus.NOT_HANDSHAKING, engineMock.getHandshakeStatus());
+        // nothing was read from the connection
+        assertEquals(0, connection.getSourceChannel().read(buffer));
+    }
+
+    @Test
+    public void handOverPartialRecordToStreamConnection() throws IOException {
+        engineMock.setHandshakeActions(NEED_UNWRAP, FINISH);
+        engineMock.addWrapEntry("MSG", "{data}");
+        engineMock.enablePartialRecords(true);
+        conduitMock.setReadData("ta}");
+        conduitMock.enableReads(true);
+        final SslConnection connection = new JsseSslStreamConnection(new StreamConnectionMock(conduitMock), engineMock, ByteBufferPool.LARGE_HEAP, ByteBufferPool.LARGE_HEAP, true);
+        connection.startHandshake(ByteBuffer.wrap((HANDSHAKE_MSG + "{da").getBytes("UTF-8")));
+        final ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertEquals(3, connection.getSourceChannel().read(buffer));
+        assertEquals("MSG", new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+        assertSame(HandshakeStatus.NOT_HANDSHAKING, engineMock.getHandshakeStatus());
+        assertTrue(conduitMock.allReadDataConsumed());
+    }
+
     private void startHandshake() throws IOException {
         connection.startHandshake();
         // update sinkConduits
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.ssl.mock;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLEngine;
+
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.ssl.SslPeerVerifier;
+
+/**
+ * A stand-in for a peer verifier which calls out, such as a revocation check: it accepts or rejects every peer after
+ * a fixed latency, without blocking the calling thread.
+ */
+public class PeerVerifierMock implements SslPeerVerifier {
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "peer verifier mock");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final long latency;
+    private final TimeUnit unit;
+    private final boolean accept;
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    /**
+     * Create a new instance.
+     *
+     * @param latency the time it takes to verify a peer
+     * @param unit the unit of {@code latency}
+     * @param accept {@code true} to accept every peer, {@code false} to reject every peer
+     */
+    public PeerVerifierMock(final long latency, final TimeUnit unit, final boolean accept) {
+        this.latency = latency;
+        this.unit = unit;
+        this.accept = accept;
+    }
+
+    public IoFuture<Void> verifyPeer(final SSLEngine engine) {
+        verifications.incrementAndGet();
+        final FutureResult<Void> result = new FutureResult<>();
+        timer.schedule(new Runnable() {
+            public void run() {
+                if (accept) {
+                    result.setResult(null);
+                } else {
+                    result.setException(new IOException("Peer rejected by mock"));
+                }
+            }
+        }, latency, unit);
+        return result.getIoFuture();
+    }
+
+    /**
+     * Get the number of peers which were verified so far.
+     *
+     * @return the number of verifications
+     */
+    public int getVerificationCount() {
+        return verifications.get();
+    }
+}
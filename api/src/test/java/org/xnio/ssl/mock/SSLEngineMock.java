@@ -106,6 +106,8 @@ public class SSLEngineMock extends SSLEngine {
     private boolean needClientAuth = false;
     // want client auth
     private boolean wantClientAuth = false;
+    // indicates whether the beginning of a wrapped entry is reported as a partial record
+    private boolean partialRecords = false;
 
     /**
      * Determines the handshake action this mock should take when requested to wrap/unwrap a message
@@ -179,6 +181,17 @@ public class SSLEngineMock extends SSLEngine {
         wrapper.put(unwrappedData, wrappedData);
     }
 
+    /**
+     * Enables the detection of partial records.  Once enabled, this mock reports a {@link Status#BUFFER_UNDERFLOW}
+     * when requested to unwrap only the beginning of the wrapped data of a {@link #addWrapEntry(String, String) wrap
+     * entry}, as a real engine does with a record which was not entirely received, instead of unwrapping it as is.
+     *
+     * @param enable {@code true} to detect partial records
+     */
+    public void enablePartialRecords(boolean enable) {
+        partialRecords = enable;
+    }
+
     /**
      * Does nothing.
      */
@@ -266,6 +279,17 @@ public class SSLEngineMock extends SSLEngine {
                     will(returnValue(16916));
                     allowing(sessionMock).getApplicationBufferSize();
                     will(returnValue(16921));
+                    allowing(sessionMock).getCreationTime();
+                    will(returnValue(System.currentTimeMillis()));
+                    allowing(sessionMock).getProtocol();
+                    will(returnValue("TLSv1.3"));
+                    allowing(sessionMock).getCipherSuite();
+                    will(returnValue("TLS_AES_128_GCM_SHA256"));
+                    allowing(sessionMock).getId();
+                    will(returnValue(new byte[0]));
+                    allowing(sessionMock).getValue(with(any(String.class)));
+                    will(returnValue(null));
+                    allowing(sessionMock).putValue(with(any(String.class)), with(any(Object.class)));
                 }});
             }
             return sessionMock;
@@ -454,6 +478,13 @@ public class SSLEngineMock extends SSLEngine {
             int initialSrcRemaining = src.remaining();
             int bytesProduced = 0;
             while (src.hasRemaining()) {
+                if (partialRecords && isPartialRecord(src)) {
+                    int bytesConsumed = initialSrcRemaining - src.remaining();
+                    if (bytesProduced == 0 && bytesConsumed == 0) {
+                        return new SSLEngineResult(Status.BUFFER_UNDERFLOW, getHandshakeStatus(), 0, 0);
+                    }
+                    return new SSLEngineResult(okStatus, getHandshakeStatus(), bytesConsumed, bytesProduced);
+                }
                 String unwrapped = unwrapBytes(dsts, offset, length, src, needUnwrap);
                 int bytesConsumed = initialSrcRemaining - src.remaining();
                 if (unwrapped == null) {
@@ -490,6 +521,16 @@ public class SSLEngineMock extends SSLEngine {
             return new SSLEngineResult(okStatus, getHandshakeStatus(), bytesConsumed, bytesProduced);
         }
 
+        private boolean isPartialRecord(ByteBuffer src) {
+            final String wrapped = new String(Buffers.take(src.duplicate()), StandardCharsets.ISO_8859_1);
+            for (Map.Entry<String, String> entry: unwrapMap.entrySet()) {
+                if (entry.getValue().length() > 0 && entry.getKey().length() > wrapped.length() && entry.getKey().startsWith(wrapped)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private String unwrapBytes(ByteBuffer[] dsts, int offset, int length, ByteBuffer src, boolean readHandshakeMsg) {
             // define unwrapped data to be written to dsts
             String wrapped = new String(Buffers.take(src), StandardCharsets.ISO_8859_1);
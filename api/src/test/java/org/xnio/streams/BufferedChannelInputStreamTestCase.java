@@ -22,12 +22,17 @@ package org.xnio.streams;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.xnio.AssertReadWrite.assertReadMessage;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.xnio.Buffers;
+import org.xnio.ByteBufferPool;
 import org.xnio.channels.StreamSourceChannel;
 import org.xnio.mock.ConnectedStreamChannelMock;
 
@@ -164,6 +169,80 @@ public class BufferedChannelInputStreamTestCase extends AbstractChannelInputStre
         assertEquals(0, stream.skip(3));
     }
 
+    @Test
+    public void pooledBuffer() throws IOException {
+        final ConnectedStreamChannelMock channelMock = new ConnectedStreamChannelMock();
+        final BufferedChannelInputStream stream = new BufferedChannelInputStream(channelMock, ByteBufferPool.SMALL_DIRECT);
+        channelMock.setReadData("pooled");
+        channelMock.enableRead(true);
+        assertEquals(6, stream.available());
+        assertEquals('p', stream.read());
+        final byte[] bytes = new byte[10];
+        assertEquals(5, stream.read(bytes));
+        assertReadMessage(bytes, "ooled");
+        stream.close();
+        channelMock.setReadData("more");
+        assertEquals(0, stream.available());
+        assertEquals(-1, stream.read());
+        assertEquals(-1, stream.read(bytes));
+        assertEquals(0, stream.skip(3));
+        // close is idempotent
+        stream.close();
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void readIntoBuffers() throws IOException {
+        final ConnectedStreamChannelMock channelMock = new ConnectedStreamChannelMock();
+        final BufferedChannelInputStream stream = new BufferedChannelInputStream(channelMock, ByteBufferPool.SMALL_DIRECT);
+        channelMock.setReadData("buffered", "vectored");
+        channelMock.enableRead(true);
+        assertEquals('b', stream.read());
+        final ByteBuffer[] buffers = new ByteBuffer[] {ByteBuffer.allocate(3), ByteBuffer.allocateDirect(20)};
+        // the buffered bytes are returned first
+        assertEquals(15, stream.read(buffers));
+        assertEquals(0, stream.read(new ByteBuffer[] {ByteBuffer.allocate(0)}));
+        channelMock.setEof();
+        assertEquals(-1, stream.read(buffers));
+        buffers[0].flip();
+        buffers[1].flip();
+        assertEquals("uff", Buffers.getModifiedUtf8(buffers[0]));
+        assertEquals("eredvectored", Buffers.getModifiedUtf8(buffers[1]));
+        stream.close();
+    }
+
+    @Test
+    public void transferTo() throws IOException {
+        final ConnectedStreamChannelMock channelMock = new ConnectedStreamChannelMock();
+        final BufferedChannelInputStream stream = createChannelInputStream(channelMock, 4);
+        channelMock.setReadData("transfer ", "all ", "this");
+        channelMock.enableRead(true);
+        channelMock.setEof();
+        assertEquals('t', stream.read());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(16, stream.transferTo(out));
+        assertEquals("ransfer all this", out.toString("UTF-8"));
+        assertEquals(0, stream.transferTo(out));
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void transferToFromDirectBuffer() throws IOException {
+        final ConnectedStreamChannelMock channelMock = new ConnectedStreamChannelMock();
+        final BufferedChannelInputStream stream = new BufferedChannelInputStream(channelMock, ByteBufferPool.SMALL_DIRECT);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i ++) {
+            builder.append(i).append(',');
+        }
+        channelMock.setReadData(builder.toString());
+        channelMock.enableRead(true);
+        channelMock.setEof();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(builder.length(), stream.transferTo(out));
+        assertEquals(builder.toString(), out.toString("UTF-8"));
+        stream.close();
+    }
+
     @Override
     protected BufferedChannelInputStream createChannelInputStream(StreamSourceChannel sourceChannel, int internalBufferSize) {
         return new BufferedChannelInputStream(sourceChannel, internalBufferSize);
@@ -19,14 +19,18 @@
 
 package org.xnio.streams;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 import org.junit.Test;
 
@@ -347,4 +351,31 @@ public class ReaderInputStreamTestCase {
         assertNotNull(expected);
         assertNotNull(stream.toString());
     }
+
+    @Test
+    public void encodeMixedText() throws IOException {
+        final String text = "plain text, then \u00e9t\u00e9 \u00fcber, then \u65e5\u672c\u8a9e, a pair \ud83d\ude00 and a lone \ud800 surrogate; ";
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20; i ++) {
+            builder.append(text).append(i);
+        }
+        final String mixed = builder.toString();
+        for (Charset charset : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII, StandardCharsets.UTF_16BE}) {
+            final byte[] expected = mixed.getBytes(charset);
+            for (int bufferSize : new int[] {5, 7, 64, 1024}) {
+                final CharsetEncoder encoder = charset.newEncoder();
+                encoder.onMalformedInput(CodingErrorAction.REPLACE);
+                encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+                final ReaderInputStream stream = new ReaderInputStream(new StringReader(mixed), encoder, bufferSize);
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] bytes = new byte[13];
+                int res;
+                while ((res = stream.read(bytes)) != -1) {
+                    out.write(bytes, 0, res);
+                }
+                assertArrayEquals(charset + " with buffer size " + bufferSize, expected, out.toByteArray());
+                stream.close();
+            }
+        }
+    }
 }
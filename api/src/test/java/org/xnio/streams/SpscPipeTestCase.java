@@ -0,0 +1,383 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.xnio.AssertReadWrite.assertReadMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link SpscPipe}.
+ */
+public class SpscPipeTestCase {
+
+    @Test
+    public void readAndWriteBytes() throws IOException {
+        final SpscPipe pipe = new SpscPipe(100);
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        assertNotNull(inputStream.toString());
+        assertNotNull(outputStream.toString());
+        outputStream.write('a');
+        assertEquals(1, inputStream.available());
+        assertEquals('a', inputStream.read());
+        assertEquals(0, inputStream.available());
+        close(outputStream);
+        close(inputStream);
+    }
+
+    @Test
+    public void readAndWriteByteArray() throws IOException {
+        final SpscPipe pipe = new SpscPipe(100);
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        outputStream.write("array".getBytes());
+        byte[] bytes = new byte[10];
+        assertEquals(5, inputStream.read(bytes));
+        assertReadMessage(bytes, "array");
+        close(outputStream);
+        close(inputStream);
+    }
+
+    @Test
+    public void wrappedBytes() throws IOException {
+        wrappedBytes(new SpscPipe(10));
+    }
+
+    @Test
+    public void wrappedBytesDirect() throws IOException {
+        wrappedBytes(new SpscPipe(10, true));
+    }
+
+    private void wrappedBytes(final SpscPipe pipe) throws IOException {
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        outputStream.write("12345".getBytes());
+        byte[] bytes = new byte[20];
+        assertEquals(5, inputStream.read(bytes));
+        assertReadMessage(bytes, "12345");
+
+        outputStream.write("6789012345".getBytes());
+        assertEquals(10, inputStream.read(bytes, 5, 15));
+        assertReadMessage(bytes, "12345", "67890", "12345");
+
+        outputStream.write("12345678".getBytes());
+        assertEquals(0, inputStream.read(bytes, 15, 0));
+        assertEquals(5, inputStream.read(bytes, 15, 5));
+        assertReadMessage(bytes, "12345", "67890", "12345", "12345");
+
+        assertEquals('6', inputStream.read());
+        assertEquals('7', inputStream.read());
+        assertEquals('8', inputStream.read());
+
+        outputStream.write("9012345".getBytes());
+        outputStream.write("678".getBytes());
+        assertEquals(10, inputStream.read(bytes));
+        outputStream.write("0123456".getBytes());
+        assertEquals(5, inputStream.read(bytes, 10, 5));
+        assertReadMessage(bytes, "9012345", "678", "01234");
+        outputStream.write("7890123".getBytes());
+        assertEquals(9, inputStream.read(bytes));
+        assertReadMessage(bytes, "56", "7890123");
+    }
+
+    @Test
+    public void readBlocksUntilWriteAndCloseOutput() throws Exception {
+        final SpscPipe pipe = new SpscPipe(100);
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        final byte[] bytes = new byte[5];
+        final ReadTask readTask = new ReadTask(inputStream, bytes);
+        final Thread readThread = new Thread(readTask);
+        readThread.start();
+        readThread.join(200);
+        assertTrue(readThread.isAlive());
+        outputStream.write('a');
+        outputStream.close();
+        readThread.join();
+        assertEquals(1, readTask.getReadResult());
+        assertReadMessage(bytes, "a");
+        assertEquals(-1, inputStream.read(bytes));
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void readBlocksUntilCloseInput() throws Exception {
+        final SpscPipe pipe = new SpscPipe(100);
+        final InputStream inputStream = pipe.getIn();
+        final ReadTask readTask = new ReadTask(inputStream, new byte[3]);
+        final Thread readThread = new Thread(readTask);
+        readThread.start();
+        readThread.join(200);
+        assertTrue(readThread.isAlive());
+        inputStream.close();
+        readThread.join();
+        assertEquals(-1, readTask.getReadResult());
+    }
+
+    @Test
+    public void writeBlocksUntilRead() throws Exception {
+        final SpscPipe pipe = new SpscPipe(5);
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        outputStream.write("12345".getBytes());
+        final WriteTask writeTask = new WriteTask(outputStream, "67890".getBytes());
+        final Thread writeThread = new Thread(writeTask);
+        writeThread.start();
+        writeThread.join(200);
+        assertTrue(writeThread.isAlive());
+        final byte[] bytes = new byte[10];
+        int read = 0;
+        while (read < 10) {
+            read += inputStream.read(bytes, read, 10 - read);
+        }
+        writeThread.join();
+        assertNull(writeTask.getWriteException());
+        assertReadMessage(bytes, "1234567890");
+        close(inputStream);
+        close(outputStream);
+    }
+
+    @Test
+    public void writeBlocksUntilCloseInput() throws Exception {
+        final SpscPipe pipe = new SpscPipe(1);
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        outputStream.write('1');
+        final WriteTask writeTask = new WriteTask(outputStream, "2".getBytes());
+        final Thread writeThread = new Thread(writeTask);
+        writeThread.start();
+        writeThread.join(200);
+        assertTrue(writeThread.isAlive());
+        close(inputStream);
+        writeThread.join();
+        assertNotNull(writeTask.getWriteException());
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void writeBlocksUntilCloseOutput() throws Exception {
+        final SpscPipe pipe = new SpscPipe(3);
+        final InputStream inputStream = pipe.getIn();
+        final OutputStream outputStream = pipe.getOut();
+        outputStream.write("123".getBytes());
+        final WriteTask writeTask = new WriteTask(outputStream, "45".getBytes());
+        final Thread writeThread = new Thread(writeTask);
+        writeThread.start();
+        writeThread.join(200);
+        assertTrue(writeThread.isAlive());
+        close(outputStream);
+        writeThread.join();
+        assertNotNull(writeTask.getWriteException());
+        final byte[] bytes = new byte[5];
+        assertEquals(3, inputStream.read(bytes));
+        assertReadMessage(bytes, "123");
+        assertEquals(-1, inputStream.read(bytes));
+    }
+
+    @Test
+    public void interruptedRead() throws Exception {
+        final SpscPipe pipe = new SpscPipe(100);
+        final InputStream inputStream = pipe.getIn();
+        final ReadTask readTask = new ReadTask(inputStream, new byte[3]);
+        final Thread readThread = new Thread(readTask);
+        readThread.start();
+        readThread.join(200);
+        assertTrue(readThread.isAlive());
+        readThread.interrupt();
+        readThread.join();
+        assertTrue(readTask.getReadException() instanceof InterruptedIOException);
+    }
+
+    @Test
+    public void awaitReadCloses() throws Exception {
+        final SpscPipe pipe = new SpscPipe(100);
+        final Thread awaitThread = new Thread(new Runnable() {
+            public void run() {
+                pipe.await();
+            }
+        });
+        awaitThread.start();
+        awaitThread.join(200);
+        assertTrue(awaitThread.isAlive());
+        close(pipe.getOut());
+        awaitThread.join(200);
+        assertTrue(awaitThread.isAlive());
+        close(pipe.getIn());
+        awaitThread.join();
+    }
+
+    @Test
+    public void transfer() throws Exception {
+        transfer(new SpscPipe(64));
+        transfer(new SpscPipe(4096));
+    }
+
+    @Test
+    public void transferDirect() throws Exception {
+        transfer(new SpscPipe(64, true));
+        transfer(new SpscPipe(4096, true));
+    }
+
+    private void transfer(final SpscPipe pipe) throws Exception {
+        final byte[] data = new byte[1 << 20];
+        new Random(17).nextBytes(data);
+        final OutputStream outputStream = pipe.getOut();
+        final Thread writeThread = new Thread(new Runnable() {
+            public void run() {
+                final Random random = new Random(42);
+                try {
+                    int off = 0;
+                    while (off < data.length) {
+                        if (random.nextInt(8) == 0) {
+                            outputStream.write(data[off ++]);
+                        } else {
+                            final int len = Math.min(data.length - off, random.nextInt(300));
+                            outputStream.write(data, off, len);
+                            off += len;
+                        }
+                    }
+                    outputStream.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        writeThread.start();
+        final InputStream inputStream = pipe.getIn();
+        final byte[] received = new byte[data.length];
+        final Random random = new Random(7);
+        int off = 0;
+        for (;;) {
+            if (random.nextInt(8) == 0) {
+                final int b = inputStream.read();
+                if (b == -1) {
+                    break;
+                }
+                received[off ++] = (byte) b;
+            } else {
+                final int res = inputStream.read(received, off, Math.min(received.length - off, 1 + random.nextInt(300)));
+                if (res == -1) {
+                    break;
+                }
+                off += res;
+            }
+        }
+        writeThread.join();
+        assertEquals(data.length, off);
+        assertArrayEquals(data, received);
+        inputStream.close();
+    }
+
+    private void close(OutputStream stream) throws IOException {
+        stream.close();
+        try {
+            stream.write('a');
+            fail("IOException expected");
+        } catch (IOException expected) {}
+        try {
+            stream.write("abc".getBytes("UTF-8"));
+            fail("IOException expected");
+        } catch (IOException expected) {}
+        // close must be idempotent
+        stream.close();
+        try {
+            stream.write('a');
+            fail("IOException expected");
+        } catch (IOException expected) {}
+    }
+
+    private void close(InputStream stream) throws IOException {
+        stream.close();
+        assertEquals(-1, stream.read());
+        assertEquals(-1, stream.read(new byte[10]));
+        assertEquals(-1, stream.read(new byte[10], 1, 7));
+        // close must be idempotent
+        stream.close();
+        assertEquals(-1, stream.read());
+        assertEquals(-1, stream.read(new byte[10], 0, 0));
+    }
+
+    private static class ReadTask implements Runnable {
+
+        private final InputStream stream;
+        private final byte[] bytes;
+        private int readResult;
+        private IOException exception;
+
+        public ReadTask(InputStream s, byte[] b) {
+            stream = s;
+            bytes = b;
+        }
+
+        @Override
+        public void run() {
+            try {
+                readResult = stream.read(bytes);
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+
+        public int getReadResult() {
+            return readResult;
+        }
+
+        public IOException getReadException() {
+            return exception;
+        }
+    }
+
+    private static class WriteTask implements Runnable {
+
+        private final OutputStream stream;
+        private final byte[] bytes;
+        private IOException exception;
+
+        public WriteTask(OutputStream s, byte[] b) {
+            stream = s;
+            bytes = b;
+        }
+
+        @Override
+        public void run() {
+            try {
+                stream.write(bytes);
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+
+        public IOException getWriteException() {
+            return exception;
+        }
+    }
+}
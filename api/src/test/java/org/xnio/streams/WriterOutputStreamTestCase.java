@@ -22,10 +22,14 @@ package org.xnio.streams;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 import org.junit.Test;
 
@@ -240,4 +244,44 @@ public class WriterOutputStreamTestCase {
         assertEquals(writtenString, writer.getBuffer().toString());
         assertNotNull(stream.toString());
     }
+
+    @Test
+    public void decodeMixedText() throws IOException {
+        final String text = "plain text, then \u00e9t\u00e9 \u00fcber, then \u65e5\u672c\u8a9e, a pair \ud83d\ude00; ";
+        final ByteArrayOutputStream builder = new ByteArrayOutputStream();
+        for (Charset charset : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII, StandardCharsets.UTF_16BE}) {
+            builder.reset();
+            for (int i = 0; i < 20; i ++) {
+                builder.write(text.getBytes(charset));
+                // a truncated sequence followed by a plain character
+                builder.write(0xc3);
+                builder.write('0' + i % 10);
+            }
+            final byte[] bytes = builder.toByteArray();
+            final CharsetDecoder expectedDecoder = charset.newDecoder();
+            expectedDecoder.onMalformedInput(CodingErrorAction.REPLACE);
+            expectedDecoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+            expectedDecoder.replaceWith("?");
+            final String expected = expectedDecoder.decode(ByteBuffer.wrap(bytes)).toString();
+            for (int bufferSize : new int[] {4, 7, 64, 1024}) {
+                final CharsetDecoder decoder = charset.newDecoder();
+                decoder.onMalformedInput(CodingErrorAction.REPLACE);
+                decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+                decoder.replaceWith("?");
+                final StringWriter writer = new StringWriter();
+                final WriterOutputStream stream = new WriterOutputStream(writer, decoder, bufferSize);
+                for (int off = 0; off < bytes.length; off += 11) {
+                    if (off % 2 == 0) {
+                        stream.write(bytes, off, Math.min(11, bytes.length - off));
+                    } else {
+                        for (int i = off; i < Math.min(off + 11, bytes.length); i ++) {
+                            stream.write(bytes[i]);
+                        }
+                    }
+                }
+                stream.close();
+                assertEquals(charset + " with buffer size " + bufferSize, expected, writer.toString());
+            }
+        }
+    }
 }
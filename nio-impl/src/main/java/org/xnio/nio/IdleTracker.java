@@ -0,0 +1,205 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.nio;
+
+import static java.lang.System.nanoTime;
+
+import java.security.AccessController;
+import java.util.concurrent.TimeUnit;
+
+import org.xnio.ReadPropertyAction;
+import org.xnio.XnioExecutor;
+
+/**
+ * The idle connection tracker of a single I/O thread.  Tracked conduits are linked directly into the buckets of a
+ * hashed timer wheel, so there is no timer object per connection.  I/O activity merely stamps the conduit with the
+ * tracker's current time; a conduit is only examined, and then re-bucketed for its next possible idle deadline, when
+ * its bucket comes up.  The wheel only ticks while conduits are tracked.
+ * <p>
+ * All methods other than {@link #getTime()} must be called from the owning I/O thread.
+ */
+final class IdleTracker implements Runnable {
+    static final long TICK_MILLIS;
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    static final int UNTRACKED = -1;
+    private static final int EXPIRING = -2;
+
+    static {
+        String value = AccessController.doPrivileged(new ReadPropertyAction("xnio.nio.idle-tick-millis", "100"));
+        long val;
+        try {
+            val = Long.parseLong(value);
+        } catch (NumberFormatException ignored) {
+            val = 100L;
+        }
+        TICK_MILLIS = Math.max(1L, val);
+    }
+
+    private final WorkerThread thread;
+    private final long startTime = nanoTime();
+    private final NioSocketConduit[] wheel = new NioSocketConduit[WHEEL_SIZE];
+    // conduits taken out of the current bucket which have not been examined yet
+    private NioSocketConduit expiring;
+    private long lastTick;
+    private int count;
+    private XnioExecutor.Key tickKey;
+    private volatile long time;
+
+    IdleTracker(final WorkerThread thread) {
+        this.thread = thread;
+    }
+
+    /**
+     * Get the coarse current time of this tracker, in milliseconds.  The value is refreshed on every tick and may
+     * be read from any thread.
+     *
+     * @return the current time
+     */
+    long getTime() {
+        return time;
+    }
+
+    long updateTime() {
+        final long now = (nanoTime() - startTime) / 1_000_000L;
+        time = now;
+        return now;
+    }
+
+    /**
+     * Start or refresh the tracking of the given conduit, according to its current idle timeouts.
+     *
+     * @param conduit the conduit
+     */
+    void track(final NioSocketConduit conduit) {
+        remove(conduit);
+        final long deadline = conduit.getNextIdleDeadline();
+        if (deadline != Long.MAX_VALUE) {
+            insert(conduit, deadline);
+        }
+    }
+
+    /**
+     * Stop tracking the given conduit.
+     *
+     * @param conduit the conduit
+     */
+    void untrack(final NioSocketConduit conduit) {
+        remove(conduit);
+    }
+
+    /**
+     * Get the number of conduits currently tracked.
+     *
+     * @return the number of tracked conduits
+     */
+    int getCount() {
+        return count;
+    }
+
+    public void run() {
+        final long now = updateTime();
+        final long nowTick = now / TICK_MILLIS;
+        // if we fell behind by a whole rotation, every bucket only needs to be visited once
+        long tick = Math.max(lastTick + 1, nowTick - WHEEL_MASK);
+        for (; tick <= nowTick; tick ++) {
+            lastTick = tick;
+            expireBucket((int) (tick & WHEEL_MASK), now);
+        }
+        if (count == 0) {
+            stopTicking();
+        }
+    }
+
+    private void expireBucket(final int bucket, final long now) {
+        NioSocketConduit conduit = wheel[bucket];
+        if (conduit == null) {
+            return;
+        }
+        wheel[bucket] = null;
+        expiring = conduit;
+        for (NioSocketConduit c = conduit; c != null; c = c.idleNext) {
+            c.idleBucket = EXPIRING;
+        }
+        while ((conduit = expiring) != null) {
+            remove(conduit);
+            // may invoke the idle listener, which in turn may close or re-track any conduit of this thread
+            final long deadline = conduit.checkIdle(now);
+            if (deadline != Long.MAX_VALUE && conduit.idleBucket == UNTRACKED) {
+                insert(conduit, deadline);
+            }
+        }
+    }
+
+    private void insert(final NioSocketConduit conduit, final long deadline) {
+        startTicking();
+        long deadlineTick = (deadline + TICK_MILLIS - 1) / TICK_MILLIS;
+        if (deadlineTick <= lastTick) {
+            deadlineTick = lastTick + 1;
+        }
+        final int bucket = (int) (deadlineTick & WHEEL_MASK);
+        final NioSocketConduit head = wheel[bucket];
+        conduit.idlePrev = null;
+        conduit.idleNext = head;
+        if (head != null) {
+            head.idlePrev = conduit;
+        }
+        wheel[bucket] = conduit;
+        conduit.idleBucket = bucket;
+        count ++;
+    }
+
+    private void remove(final NioSocketConduit conduit) {
+        final int bucket = conduit.idleBucket;
+        if (bucket == UNTRACKED) {
+            return;
+        }
+        final NioSocketConduit prev = conduit.idlePrev;
+        final NioSocketConduit next = conduit.idleNext;
+        if (prev != null) {
+            prev.idleNext = next;
+        } else if (bucket == EXPIRING) {
+            expiring = next;
+        } else {
+            wheel[bucket] = next;
+        }
+        if (next != null) {
+            next.idlePrev = prev;
+        }
+        conduit.idlePrev = conduit.idleNext = null;
+        conduit.idleBucket = UNTRACKED;
+        count --;
+    }
+
+    private void startTicking() {
+        if (tickKey == null) {
+            lastTick = updateTime() / TICK_MILLIS;
+            tickKey = thread.executeAtInterval(this, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopTicking() {
+        final XnioExecutor.Key key = tickKey;
+        if (key != null) {
+            tickKey = null;
+            key.remove();
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
 import org.jboss.logging.annotations.Transform;
 import org.xnio.ClosedWorkerException;
+import org.xnio.IdleListener;
 import org.xnio.channels.ReadTimeoutException;
 import org.xnio.channels.WriteTimeoutException;
 
@@ -130,6 +131,10 @@ interface Log extends BasicLogger {
     @Message(id = 8001, value = "Socket accept failed, backing off for %2$d milliseconds: %1$s")
     void acceptFailed(IOException problem, int backOffTime);
 
+    @LogMessage(level = ERROR)
+    @Message(id = 8002, value = "Idle listener %s failed with an exception")
+    void idleListenerFailed(IdleListener listener, @Cause Throwable cause);
+
     // Trace
 
     @LogMessage(level = TRACE)
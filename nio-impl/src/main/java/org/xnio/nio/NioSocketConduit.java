@@ -18,6 +18,7 @@
 
 package org.xnio.nio;
 
+import static org.xnio.IoUtils.safeClose;
 import static org.xnio.nio.Log.log;
 
 import java.io.IOException;
@@ -28,9 +29,13 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.xnio.Bits;
+import org.xnio.IdleListener;
+import org.xnio.IdleState;
 import org.xnio.Xnio;
 import org.xnio.XnioIoThread;
 import org.xnio.XnioWorker;
@@ -64,6 +69,30 @@ final class NioSocketConduit extends NioHandle implements StreamSourceConduit, S
     @SuppressWarnings("rawtypes")
     private static final AtomicIntegerFieldUpdater<NioSocketConduit> writeTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioSocketConduit.class, "writeTimeout");
 
+    @SuppressWarnings("unused")
+    private volatile int readIdleTimeout;
+    @SuppressWarnings("unused")
+    private volatile int writeIdleTimeout;
+    @SuppressWarnings("unused")
+    private volatile int idleTimeout;
+    private volatile IdleListener idleListener;
+
+    private static final AtomicIntegerFieldUpdater<NioSocketConduit> readIdleTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioSocketConduit.class, "readIdleTimeout");
+    private static final AtomicIntegerFieldUpdater<NioSocketConduit> writeIdleTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioSocketConduit.class, "writeIdleTimeout");
+    private static final AtomicIntegerFieldUpdater<NioSocketConduit> idleTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioSocketConduit.class, "idleTimeout");
+    private static final AtomicReferenceFieldUpdater<NioSocketConduit, IdleListener> idleListenerUpdater = AtomicReferenceFieldUpdater.newUpdater(NioSocketConduit.class, IdleListener.class, "idleListener");
+
+    // idle tracking state; the activity stamps are written by whichever thread performs the I/O, the rest is owned by the I/O thread
+    private volatile IdleTracker idleTracker;
+    private long lastReadActivity;
+    private long lastWriteActivity;
+    private long lastReadIdle;
+    private long lastWriteIdle;
+    private long lastAllIdle;
+    NioSocketConduit idlePrev;
+    NioSocketConduit idleNext;
+    int idleBucket = IdleTracker.UNTRACKED;
+
     NioSocketConduit(final WorkerThread workerThread, final SelectionKey selectionKey, final NioSocketStreamConnection connection) {
         super(workerThread, selectionKey);
         this.connection = connection;
@@ -126,6 +155,10 @@ final class NioSocketConduit extends NioHandle implements StreamSourceConduit, S
     }
 
     private void checkWriteTimeout(final boolean xfer) throws WriteTimeoutException {
+        if (xfer) {
+            final IdleTracker tracker = idleTracker;
+            if (tracker != null) lastWriteActivity = tracker.getTime();
+        }
         int timeout = writeTimeout;
         if (timeout > 0) {
             if (xfer) {
@@ -260,6 +293,10 @@ final class NioSocketConduit extends NioHandle implements StreamSourceConduit, S
     }
 
     private void checkReadTimeout(final boolean xfer) throws ReadTimeoutException {
+        if (xfer) {
+            final IdleTracker tracker = idleTracker;
+            if (tracker != null) lastReadActivity = tracker.getTime();
+        }
         int timeout = readTimeout;
         if (timeout > 0) {
             if (xfer) {
@@ -371,6 +408,136 @@ final class NioSocketConduit extends NioHandle implements StreamSourceConduit, S
         this.readReadyHandler = handler;
     }
 
+    // Idle methods
+
+    int getAndSetReadIdleTimeout(int newVal) {
+        try {
+            return readIdleTimeoutUpdater.getAndSet(this, newVal);
+        } finally {
+            idleSettingsChanged();
+        }
+    }
+
+    int getReadIdleTimeout() {
+        return readIdleTimeout;
+    }
+
+    int getAndSetWriteIdleTimeout(int newVal) {
+        try {
+            return writeIdleTimeoutUpdater.getAndSet(this, newVal);
+        } finally {
+            idleSettingsChanged();
+        }
+    }
+
+    int getWriteIdleTimeout() {
+        return writeIdleTimeout;
+    }
+
+    int getAndSetIdleTimeout(int newVal) {
+        try {
+            return idleTimeoutUpdater.getAndSet(this, newVal);
+        } finally {
+            idleSettingsChanged();
+        }
+    }
+
+    int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    IdleListener getAndSetIdleListener(IdleListener newVal) {
+        return idleListenerUpdater.getAndSet(this, newVal);
+    }
+
+    IdleListener getIdleListener() {
+        return idleListener;
+    }
+
+    void idleSettingsChanged() {
+        final WorkerThread thread = getWorkerThread();
+        if (Thread.currentThread() == thread) {
+            updateIdleTracking();
+        } else if (idleTracker != null || readIdleTimeout > 0 || writeIdleTimeout > 0 || idleTimeout > 0) try {
+            thread.execute(this::updateIdleTracking);
+        } catch (RejectedExecutionException ignored) {
+            // the thread is exiting, and is closing this connection anyway
+        }
+    }
+
+    private void updateIdleTracking() {
+        IdleTracker tracker = idleTracker;
+        if (connection.isOpen() && (readIdleTimeout > 0 || writeIdleTimeout > 0 || idleTimeout > 0)) {
+            if (tracker == null) {
+                tracker = getWorkerThread().getIdleTracker();
+                final long now = tracker.updateTime();
+                lastReadActivity = now;
+                lastWriteActivity = now;
+                idleTracker = tracker;
+            }
+            tracker.track(this);
+        } else if (tracker != null) {
+            idleTracker = null;
+            tracker.untrack(this);
+        }
+    }
+
+    long getNextIdleDeadline() {
+        long deadline = Long.MAX_VALUE;
+        int timeout;
+        if ((timeout = readIdleTimeout) > 0) {
+            deadline = Math.min(deadline, Math.max(lastReadActivity, lastReadIdle) + timeout);
+        }
+        if ((timeout = writeIdleTimeout) > 0) {
+            deadline = Math.min(deadline, Math.max(lastWriteActivity, lastWriteIdle) + timeout);
+        }
+        if ((timeout = idleTimeout) > 0) {
+            deadline = Math.min(deadline, Math.max(Math.max(lastReadActivity, lastWriteActivity), lastAllIdle) + timeout);
+        }
+        return deadline;
+    }
+
+    /**
+     * Check this conduit for idleness, raising an idle event for each idle period which has elapsed.  Called by the
+     * idle tracker of the I/O thread.
+     *
+     * @param now the current tracker time
+     * @return the next time at which this conduit could become idle, or {@link Long#MAX_VALUE} to stop tracking
+     */
+    long checkIdle(final long now) {
+        if (! connection.isOpen()) {
+            idleTracker = null;
+            return Long.MAX_VALUE;
+        }
+        int timeout;
+        if ((timeout = readIdleTimeout) > 0 && now - Math.max(lastReadActivity, lastReadIdle) >= timeout) {
+            lastReadIdle = now;
+            if (! idle(IdleState.READ_IDLE)) return Long.MAX_VALUE;
+        }
+        if ((timeout = writeIdleTimeout) > 0 && now - Math.max(lastWriteActivity, lastWriteIdle) >= timeout) {
+            lastWriteIdle = now;
+            if (! idle(IdleState.WRITE_IDLE)) return Long.MAX_VALUE;
+        }
+        if ((timeout = idleTimeout) > 0 && now - Math.max(Math.max(lastReadActivity, lastWriteActivity), lastAllIdle) >= timeout) {
+            lastAllIdle = now;
+            if (! idle(IdleState.ALL_IDLE)) return Long.MAX_VALUE;
+        }
+        return getNextIdleDeadline();
+    }
+
+    private boolean idle(final IdleState state) {
+        final IdleListener listener = idleListener;
+        if (listener == null) {
+            log.tracef("Closing idle connection %s (%s)", connection, state);
+            safeClose(connection);
+        } else try {
+            listener.handleIdle(connection, state);
+        } catch (Throwable t) {
+            log.idleListenerFailed(listener, t);
+        }
+        return connection.isOpen();
+    }
+
     SocketChannel getSocketChannel() {
         return socketChannel;
     }
@@ -58,13 +58,17 @@ final class NioSocketStreamConnection extends AbstractNioStreamConnection {
 
     private static final Set<Option<?>> OPTIONS = Option.setBuilder()
             .add(Options.CLOSE_ABORT)
+            .add(Options.IDLE_LISTENER)
+            .add(Options.IDLE_TIMEOUT)
             .add(Options.IP_TRAFFIC_CLASS)
             .add(Options.KEEP_ALIVE)
+            .add(Options.READ_IDLE_TIMEOUT)
             .add(Options.READ_TIMEOUT)
             .add(Options.RECEIVE_BUFFER)
             .add(Options.SEND_BUFFER)
             .add(Options.TCP_NODELAY)
             .add(Options.TCP_OOB_INLINE)
+            .add(Options.WRITE_IDLE_TIMEOUT)
             .add(Options.WRITE_TIMEOUT)
             .create();
 
@@ -75,10 +79,16 @@ final class NioSocketStreamConnection extends AbstractNioStreamConnection {
     public <T> T getOption(final Option<T> option) throws IOException {
         if (option == Options.CLOSE_ABORT) {
             return option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getSoLinger() == 0));
+        } else if (option == Options.IDLE_LISTENER) {
+            return option.cast(conduit.getIdleListener());
+        } else if (option == Options.IDLE_TIMEOUT) {
+            return option.cast(Integer.valueOf(conduit.getIdleTimeout()));
         } else if (option == Options.IP_TRAFFIC_CLASS) {
             return option.cast(Integer.valueOf(conduit.getSocketChannel().socket().getTrafficClass()));
         } else if (option == Options.KEEP_ALIVE) {
             return option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getKeepAlive()));
+        } else if (option == Options.READ_IDLE_TIMEOUT) {
+            return option.cast(Integer.valueOf(conduit.getReadIdleTimeout()));
         } else if (option == Options.READ_TIMEOUT) {
             return option.cast(Integer.valueOf(conduit.getReadTimeout()));
         } else if (option == Options.RECEIVE_BUFFER) {
@@ -89,6 +99,8 @@ final class NioSocketStreamConnection extends AbstractNioStreamConnection {
             return option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getTcpNoDelay()));
         } else if (option == Options.TCP_OOB_INLINE) {
             return option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getOOBInline()));
+        } else if (option == Options.WRITE_IDLE_TIMEOUT) {
+            return option.cast(Integer.valueOf(conduit.getWriteIdleTimeout()));
         } else if (option == Options.WRITE_TIMEOUT) {
             return option.cast(Integer.valueOf(conduit.getWriteTimeout()));
         } else {
@@ -101,12 +113,18 @@ final class NioSocketStreamConnection extends AbstractNioStreamConnection {
         if (option == Options.CLOSE_ABORT) {
             result = option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getSoLinger() == 0));
             conduit.getSocketChannel().socket().setSoLinger(Options.CLOSE_ABORT.cast(value, Boolean.FALSE).booleanValue(), 0);
+        } else if (option == Options.IDLE_LISTENER) {
+            result = option.cast(conduit.getAndSetIdleListener(Options.IDLE_LISTENER.cast(value)));
+        } else if (option == Options.IDLE_TIMEOUT) {
+            result = option.cast(Integer.valueOf(conduit.getAndSetIdleTimeout(value == null ? 0 : Options.IDLE_TIMEOUT.cast(value).intValue())));
         } else if (option == Options.IP_TRAFFIC_CLASS) {
             result = option.cast(Integer.valueOf(conduit.getSocketChannel().socket().getTrafficClass()));
             conduit.getSocketChannel().socket().setTrafficClass(Options.IP_TRAFFIC_CLASS.cast(value).intValue());
         } else if (option == Options.KEEP_ALIVE) {
             result = option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getKeepAlive()));
             conduit.getSocketChannel().socket().setKeepAlive(Options.KEEP_ALIVE.cast(value, Boolean.FALSE).booleanValue());
+        } else if (option == Options.READ_IDLE_TIMEOUT) {
+            result = option.cast(Integer.valueOf(conduit.getAndSetReadIdleTimeout(value == null ? 0 : Options.READ_IDLE_TIMEOUT.cast(value).intValue())));
         } else if (option == Options.READ_TIMEOUT) {
             result = option.cast(Integer.valueOf(conduit.getAndSetReadTimeout(value == null ? 0 : Options.READ_TIMEOUT.cast(value).intValue())));
         } else if (option == Options.RECEIVE_BUFFER) {
@@ -121,6 +139,8 @@ final class NioSocketStreamConnection extends AbstractNioStreamConnection {
         } else if (option == Options.TCP_OOB_INLINE) {
             result = option.cast(Boolean.valueOf(conduit.getSocketChannel().socket().getOOBInline()));
             conduit.getSocketChannel().socket().setOOBInline(Options.TCP_OOB_INLINE.cast(value, Boolean.FALSE).booleanValue());
+        } else if (option == Options.WRITE_IDLE_TIMEOUT) {
+            result = option.cast(Integer.valueOf(conduit.getAndSetWriteIdleTimeout(value == null ? 0 : Options.WRITE_IDLE_TIMEOUT.cast(value).intValue())));
         } else if (option == Options.WRITE_TIMEOUT) {
             result = option.cast(Integer.valueOf(conduit.getAndSetWriteTimeout(value == null ? 0 : Options.WRITE_TIMEOUT.cast(value).intValue())));
         } else {
@@ -135,6 +155,7 @@ final class NioSocketStreamConnection extends AbstractNioStreamConnection {
             conduit.getSocketChannel().close();
         } catch (ClosedChannelException ignored) {
         } finally {
+            conduit.idleSettingsChanged();
             final ChannelClosed closedHandle = this.closedHandle;
             if (closedHandle!= null) closedHandle.channelClosed();
         }
@@ -38,9 +38,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.jboss.logging.Logger;
 import org.xnio.ChannelListener;
+import org.xnio.IdleListener;
 import org.xnio.ManagementRegistration;
 import org.xnio.IoUtils;
 import org.xnio.LocalSocketAddress;
@@ -76,6 +78,10 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
             .add(Options.CONNECTION_LOW_WATER)
             .add(Options.READ_TIMEOUT)
             .add(Options.WRITE_TIMEOUT)
+            .add(Options.READ_IDLE_TIMEOUT)
+            .add(Options.WRITE_IDLE_TIMEOUT)
+            .add(Options.IDLE_TIMEOUT)
+            .add(Options.IDLE_LISTENER)
             .create();
 
     @SuppressWarnings("unused")
@@ -92,6 +98,13 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
     private volatile int readTimeout;
     @SuppressWarnings("unused")
     private volatile int writeTimeout;
+    @SuppressWarnings("unused")
+    private volatile int readIdleTimeout;
+    @SuppressWarnings("unused")
+    private volatile int writeIdleTimeout;
+    @SuppressWarnings("unused")
+    private volatile int idleTimeout;
+    private volatile IdleListener idleListener;
     private volatile int tokenConnectionCount;
     volatile boolean resumed;
 
@@ -110,6 +123,10 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
     private static final AtomicIntegerFieldUpdater<NioTcpServer> sendBufferUpdater = AtomicIntegerFieldUpdater.newUpdater(NioTcpServer.class, "sendBuffer");
     private static final AtomicIntegerFieldUpdater<NioTcpServer> readTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioTcpServer.class, "readTimeout");
     private static final AtomicIntegerFieldUpdater<NioTcpServer> writeTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioTcpServer.class, "writeTimeout");
+    private static final AtomicIntegerFieldUpdater<NioTcpServer> readIdleTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioTcpServer.class, "readIdleTimeout");
+    private static final AtomicIntegerFieldUpdater<NioTcpServer> writeIdleTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioTcpServer.class, "writeIdleTimeout");
+    private static final AtomicIntegerFieldUpdater<NioTcpServer> idleTimeoutUpdater = AtomicIntegerFieldUpdater.newUpdater(NioTcpServer.class, "idleTimeout");
+    private static final AtomicReferenceFieldUpdater<NioTcpServer, IdleListener> idleListenerUpdater = AtomicReferenceFieldUpdater.newUpdater(NioTcpServer.class, IdleListener.class, "idleListener");
 
     private static final AtomicLongFieldUpdater<NioTcpServer> connectionStatusUpdater = AtomicLongFieldUpdater.newUpdater(NioTcpServer.class, "connectionStatus");
 
@@ -166,6 +183,18 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
         if (optionMap.contains(Options.WRITE_TIMEOUT)) {
             writeTimeoutUpdater.lazySet(this, optionMap.get(Options.WRITE_TIMEOUT, 0));
         }
+        if (optionMap.contains(Options.READ_IDLE_TIMEOUT)) {
+            readIdleTimeoutUpdater.lazySet(this, optionMap.get(Options.READ_IDLE_TIMEOUT, 0));
+        }
+        if (optionMap.contains(Options.WRITE_IDLE_TIMEOUT)) {
+            writeIdleTimeoutUpdater.lazySet(this, optionMap.get(Options.WRITE_IDLE_TIMEOUT, 0));
+        }
+        if (optionMap.contains(Options.IDLE_TIMEOUT)) {
+            idleTimeoutUpdater.lazySet(this, optionMap.get(Options.IDLE_TIMEOUT, 0));
+        }
+        if (optionMap.contains(Options.IDLE_LISTENER)) {
+            idleListenerUpdater.lazySet(this, optionMap.get(Options.IDLE_LISTENER));
+        }
         int perThreadLow, perThreadLowRem;
         int perThreadHigh, perThreadHighRem;
         if (optionMap.contains(Options.CONNECTION_HIGH_WATER) || optionMap.contains(Options.CONNECTION_LOW_WATER)) {
@@ -286,6 +315,14 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
             return option.cast(Integer.valueOf(readTimeout));
         } else if (option == Options.WRITE_TIMEOUT) {
             return option.cast(Integer.valueOf(writeTimeout));
+        } else if (option == Options.READ_IDLE_TIMEOUT) {
+            return option.cast(Integer.valueOf(readIdleTimeout));
+        } else if (option == Options.WRITE_IDLE_TIMEOUT) {
+            return option.cast(Integer.valueOf(writeIdleTimeout));
+        } else if (option == Options.IDLE_TIMEOUT) {
+            return option.cast(Integer.valueOf(idleTimeout));
+        } else if (option == Options.IDLE_LISTENER) {
+            return option.cast(idleListener);
         } else if (option == Options.CONNECTION_HIGH_WATER) {
             return option.cast(Integer.valueOf(getHighWater(connectionStatus)));
         } else if (option == Options.CONNECTION_LOW_WATER) {
@@ -324,6 +361,14 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
             old = Integer.valueOf(readTimeoutUpdater.getAndSet(this, Options.READ_TIMEOUT.cast(value, Integer.valueOf(0)).intValue()));
         } else if (option == Options.WRITE_TIMEOUT) {
             old = Integer.valueOf(writeTimeoutUpdater.getAndSet(this, Options.WRITE_TIMEOUT.cast(value, Integer.valueOf(0)).intValue()));
+        } else if (option == Options.READ_IDLE_TIMEOUT) {
+            old = Integer.valueOf(readIdleTimeoutUpdater.getAndSet(this, Options.READ_IDLE_TIMEOUT.cast(value, Integer.valueOf(0)).intValue()));
+        } else if (option == Options.WRITE_IDLE_TIMEOUT) {
+            old = Integer.valueOf(writeIdleTimeoutUpdater.getAndSet(this, Options.WRITE_IDLE_TIMEOUT.cast(value, Integer.valueOf(0)).intValue()));
+        } else if (option == Options.IDLE_TIMEOUT) {
+            old = Integer.valueOf(idleTimeoutUpdater.getAndSet(this, Options.IDLE_TIMEOUT.cast(value, Integer.valueOf(0)).intValue()));
+        } else if (option == Options.IDLE_LISTENER) {
+            old = idleListenerUpdater.getAndSet(this, Options.IDLE_LISTENER.cast(value));
         } else if (option == Options.CONNECTION_HIGH_WATER) {
             old = Integer.valueOf(getHighWater(updateWaterMark(-1, Options.CONNECTION_HIGH_WATER.cast(value, Integer.valueOf(Integer.MAX_VALUE)).intValue())));
         } else if (option == Options.CONNECTION_LOW_WATER) {
@@ -422,6 +467,14 @@ final class NioTcpServer extends AbstractNioChannel<NioTcpServer> implements Acc
                 final NioSocketStreamConnection newConnection = new NioSocketStreamConnection(ioThread, selectionKey, handle);
                 newConnection.setOption(Options.READ_TIMEOUT, Integer.valueOf(readTimeout));
                 newConnection.setOption(Options.WRITE_TIMEOUT, Integer.valueOf(writeTimeout));
+                final IdleListener idleListener = this.idleListener;
+                if (idleListener != null) newConnection.setOption(Options.IDLE_LISTENER, idleListener);
+                final int readIdleTimeout = this.readIdleTimeout;
+                if (readIdleTimeout > 0) newConnection.setOption(Options.READ_IDLE_TIMEOUT, Integer.valueOf(readIdleTimeout));
+                final int writeIdleTimeout = this.writeIdleTimeout;
+                if (writeIdleTimeout > 0) newConnection.setOption(Options.WRITE_IDLE_TIMEOUT, Integer.valueOf(writeIdleTimeout));
+                final int idleTimeout = this.idleTimeout;
+                if (idleTimeout > 0) newConnection.setOption(Options.IDLE_TIMEOUT, Integer.valueOf(idleTimeout));
                 ok = true;
                 handle.resetBackOff();
                 return newConnection;
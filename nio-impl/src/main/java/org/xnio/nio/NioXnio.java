@@ -33,6 +33,7 @@ import org.xnio.Options;
 import org.xnio.Xnio;
 import org.xnio.OptionMap;
 import org.xnio.XnioWorker;
+import org.xnio.management.XnioFileSystemWatcherMXBean;
 import org.xnio.management.XnioProviderMXBean;
 import org.xnio.management.XnioServerMXBean;
 import org.xnio.management.XnioWorkerMXBean;
@@ -162,7 +163,8 @@ final class NioXnio extends Xnio {
     public FileSystemWatcher createFileSystemWatcher(String name, OptionMap options) {
         try {
             boolean daemonThread = options.get(Options.THREAD_DAEMON, true);
-            return new WatchServiceFileSystemWatcher(name, daemonThread);
+            int debounceInterval = options.get(Options.WATCHER_DEBOUNCE_INTERVAL, 0);
+            return new WatchServiceFileSystemWatcher(getName(), name, daemonThread, debounceInterval);
         } catch (LinkageError e) {
             //ignore
         }
@@ -257,6 +259,10 @@ final class NioXnio extends Xnio {
         return Xnio.register(serverMXBean);
     }
 
+    protected static Closeable register(XnioFileSystemWatcherMXBean watcherMXBean) {
+        return Xnio.register(watcherMXBean);
+    }
+
     private static final class FinalizableSelectorHolder {
         final Selector selector;
 
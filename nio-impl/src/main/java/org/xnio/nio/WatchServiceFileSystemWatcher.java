@@ -21,7 +21,9 @@ import org.xnio.FileChangeCallback;
 import org.xnio.FileChangeEvent;
 import org.xnio.FileSystemWatcher;
 import org.xnio.IoUtils;
+import org.xnio.management.XnioFileSystemWatcherMXBean;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.ClosedWatchServiceException;
@@ -40,9 +42,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
@@ -53,37 +58,77 @@ import static org.xnio.nio.Log.log;
 /**
  * File system watcher service based on JDK7 {@link WatchService}. Instantiating this class will create a new thread,
  * that will run until {@link #close()} is called.
+ * <p>
+ * With a debounce interval, the events of a watched path are collected until none arrives for the interval, or for at
+ * most {@link #MAX_DEBOUNCE_INTERVALS} intervals after the first one, so that a steady stream of changes is still
+ * reported.  The events are merged per file, so that e.g. a file which is added and then modified is reported as
+ * added, and a file which is added and then removed is not reported at all, and each callback gets them in one batch.
+ * <p>
+ * The watcher is registered as an MBean until it is closed.
  *
  * @author Stuart Douglas
  */
-class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable {
+class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable, XnioFileSystemWatcherMXBean {
 
     private static final AtomicInteger threadIdCounter = new AtomicInteger(0);
     public static final String THREAD_NAME = "xnio-file-watcher";
+    static final int MAX_DEBOUNCE_INTERVALS = 10;
 
     private WatchService watchService;
     private final Map<File, PathData> files = Collections.synchronizedMap(new HashMap<File, PathData>());
     private final Map<WatchKey, PathData> pathDataByKey = Collections.synchronizedMap(new IdentityHashMap<WatchKey, PathData>());
 
     private volatile boolean stopped = false;
+    private final String providerName;
     private final Thread watchThread;
+    private final long debounceNanos;
+    private final Closeable mbeanHandle;
+
+    // only used by the watch thread
+
+    /** the watched paths which have debounced events **/
+    private final Set<PathData> debounced = new LinkedHashSet<PathData>();
+    private long firstEventTime;
+    private long lastEventTime;
+
+    // only written by the watch thread
+
+    private volatile long rawEventCount;
+    private volatile long deliveredEventCount;
 
     WatchServiceFileSystemWatcher(final String name, final boolean daemon) {
+        this(name, daemon, 0);
+    }
+
+    WatchServiceFileSystemWatcher(final String name, final boolean daemon, final int debounceInterval) {
+        this("nio", name, daemon, debounceInterval);
+    }
+
+    WatchServiceFileSystemWatcher(final String providerName, final String name, final boolean daemon, final int debounceInterval) {
+        this.providerName = providerName;
+        debounceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, debounceInterval));
         try {
             watchService = FileSystems.getDefault().newWatchService();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        watchThread = new Thread(this, THREAD_NAME + "[" + name + "]-" + threadIdCounter);
+        watchThread = new Thread(this, THREAD_NAME + "[" + name + "]-" + threadIdCounter.getAndIncrement());
         watchThread.setDaemon(daemon);
         watchThread.start();
+        mbeanHandle = NioXnio.register(this);
     }
 
     @Override
     public void run() {
         while (!stopped) {
             try {
-                final WatchKey key = watchService.take();
+                final WatchKey key;
+                if (debounced.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    final long deadline = Math.min(lastEventTime + debounceNanos, firstEventTime + debounceNanos * MAX_DEBOUNCE_INTERVALS);
+                    key = watchService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
                 if (key != null) {
                     try {
                         PathData pathData = pathDataByKey.get(key);
@@ -117,43 +162,12 @@ class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable {
                                 }
                                 results.add(new FileChangeEvent(targetFile, type));
                             }
+                            rawEventCount += results.size();
 
-                            //now we need to prune the results, to remove duplicates
-                            //e.g. if the file is modified after creation we only want to
-                            //show the create event
-                            Iterator<FileChangeEvent> it = results.iterator();
-                            while (it.hasNext()) {
-                                FileChangeEvent event = it.next();
-                                if (event.getType() == FileChangeEvent.Type.MODIFIED) {
-                                    if (addedFiles.contains(event.getFile()) &&
-                                            deletedFiles.contains(event.getFile())) {
-                                        // XNIO-344
-                                        // All file change events (ADDED, REMOVED and MODIFIED) occurred here.
-                                        // This happens when an updated file is moved from the different
-                                        // filesystems or the directory having different project quota on Linux.
-                                        // ADDED and REMOVED events will be removed in the latter conditional branching.
-                                        // So, this MODIFIED event needs to be kept for the file change notification.
-                                        continue;
-                                    }
-                                    if (addedFiles.contains(event.getFile()) ||
-                                            deletedFiles.contains(event.getFile())) {
-                                        it.remove();
-                                    }
-                                } else if (event.getType() == FileChangeEvent.Type.ADDED) {
-                                    if (deletedFiles.contains(event.getFile())) {
-                                        it.remove();
-                                    }
-                                } else if (event.getType() == FileChangeEvent.Type.REMOVED) {
-                                    if (addedFiles.contains(event.getFile())) {
-                                        it.remove();
-                                    }
-                                }
-                            }
-
-                            if (!results.isEmpty()) {
-                                for (FileChangeCallback callback : pathData.callbacks) {
-                                    invokeCallback(callback, results);
-                                }
+                            if (debounceNanos > 0) {
+                                debounce(pathData, results);
+                            } else {
+                                deliver(pathData, results, addedFiles, deletedFiles);
                             }
                         }
                     } finally {
@@ -163,6 +177,12 @@ class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable {
                         }
                     }
                 }
+                if (!debounced.isEmpty()) {
+                    final long now = System.nanoTime();
+                    if (now - lastEventTime >= debounceNanos || now - firstEventTime >= debounceNanos * MAX_DEBOUNCE_INTERVALS) {
+                        deliverDebounced();
+                    }
+                }
             } catch (InterruptedException e) {
                 //ignore
             } catch (ClosedWatchServiceException cwse) {
@@ -173,6 +193,139 @@ class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable {
         }
     }
 
+    /**
+     * Remove the duplicates from a batch of events, and deliver it to the callbacks of its watched path.
+     */
+    private void deliver(PathData pathData, List<FileChangeEvent> results, Set<File> addedFiles, Set<File> deletedFiles) {
+        //now we need to prune the results, to remove duplicates
+        //e.g. if the file is modified after creation we only want to
+        //show the create event
+        Iterator<FileChangeEvent> it = results.iterator();
+        while (it.hasNext()) {
+            FileChangeEvent event = it.next();
+            if (event.getType() == FileChangeEvent.Type.MODIFIED) {
+                if (addedFiles.contains(event.getFile()) &&
+                        deletedFiles.contains(event.getFile())) {
+                    // XNIO-344
+                    // All file change events (ADDED, REMOVED and MODIFIED) occurred here.
+                    // This happens when an updated file is moved from the different
+                    // filesystems or the directory having different project quota on Linux.
+                    // ADDED and REMOVED events will be removed in the latter conditional branching.
+                    // So, this MODIFIED event needs to be kept for the file change notification.
+                    continue;
+                }
+                if (addedFiles.contains(event.getFile()) ||
+                        deletedFiles.contains(event.getFile())) {
+                    it.remove();
+                }
+            } else if (event.getType() == FileChangeEvent.Type.ADDED) {
+                if (deletedFiles.contains(event.getFile())) {
+                    it.remove();
+                }
+            } else if (event.getType() == FileChangeEvent.Type.REMOVED) {
+                if (addedFiles.contains(event.getFile())) {
+                    it.remove();
+                }
+            }
+        }
+
+        if (!results.isEmpty()) {
+            deliveredEventCount += results.size();
+            for (FileChangeCallback callback : pathData.callbacks) {
+                invokeCallback(callback, results);
+            }
+        }
+    }
+
+    /**
+     * Merge a batch of events into the debounced events of their watched path.
+     *
+     * @param pathData the watched path
+     * @param results the events, in the order they were reported
+     */
+    private void debounce(PathData pathData, List<FileChangeEvent> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        for (FileChangeEvent event : results) {
+            coalesce(pathData.pending, event.getFile(), event.getType());
+        }
+        final long now = System.nanoTime();
+        if (debounced.isEmpty()) {
+            firstEventTime = now;
+        }
+        lastEventTime = now;
+        debounced.add(pathData);
+    }
+
+    /**
+     * Merge an event into the pending events of the files of a watched path.
+     *
+     * @param pending the pending event types by file
+     * @param file the file of the event
+     * @param type the type of the event
+     */
+    static void coalesce(Map<File, FileChangeEvent.Type> pending, File file, FileChangeEvent.Type type) {
+        final FileChangeEvent.Type previous = pending.get(file);
+        if (previous == null) {
+            pending.put(file, type);
+            return;
+        }
+        switch (previous) {
+            case ADDED:
+                if (type == FileChangeEvent.Type.REMOVED) {
+                    // the file neither existed before nor does it exist now
+                    pending.remove(file);
+                }
+                break;
+            case MODIFIED:
+                if (type == FileChangeEvent.Type.REMOVED) {
+                    pending.put(file, type);
+                }
+                break;
+            case REMOVED:
+                if (type == FileChangeEvent.Type.ADDED) {
+                    // the file was replaced, e.g. moved in from another file system (XNIO-344)
+                    pending.put(file, FileChangeEvent.Type.MODIFIED);
+                }
+                break;
+        }
+    }
+
+    private void deliverDebounced() {
+        for (PathData pathData : debounced) {
+            if (pathData.pending.isEmpty()) {
+                continue;
+            }
+            final List<FileChangeEvent> results = new ArrayList<FileChangeEvent>(pathData.pending.size());
+            for (Map.Entry<File, FileChangeEvent.Type> entry : pathData.pending.entrySet()) {
+                results.add(new FileChangeEvent(entry.getKey(), entry.getValue()));
+            }
+            pathData.pending.clear();
+            deliveredEventCount += results.size();
+            for (FileChangeCallback callback : pathData.callbacks) {
+                invokeCallback(callback, results);
+            }
+        }
+        debounced.clear();
+    }
+
+    public String getProviderName() {
+        return providerName;
+    }
+
+    public String getName() {
+        return watchThread.getName();
+    }
+
+    public long getRawEventCount() {
+        return rawEventCount;
+    }
+
+    public long getDeliveredEventCount() {
+        return deliveredEventCount;
+    }
+
     @Override
     public synchronized void watchPath(File file, FileChangeCallback callback) {
         try {
@@ -221,6 +374,8 @@ class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable {
         this.stopped = true;
         watchThread.interrupt();
         IoUtils.safeClose(watchService);
+        IoUtils.safeClose(mbeanHandle);
+        log.tracef("Closed file system watcher %s after delivering %d of %d raw events", watchThread.getName(), deliveredEventCount, rawEventCount);
     }
 
 
@@ -256,6 +411,8 @@ class WatchServiceFileSystemWatcher implements FileSystemWatcher, Runnable {
         final Path path;
         final List<FileChangeCallback> callbacks = new ArrayList<FileChangeCallback>();
         final List<WatchKey> keys = new ArrayList<WatchKey>();
+        /** the debounced events by file, only used by the watch thread **/
+        final Map<File, FileChangeEvent.Type> pending = new LinkedHashMap<File, FileChangeEvent.Type>();
 
         private PathData(Path path) {
             this.path = path;
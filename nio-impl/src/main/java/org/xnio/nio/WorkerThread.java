@@ -88,6 +88,7 @@ final class WorkerThread extends XnioIoThread implements XnioExecutor {
 
     private final Queue<Runnable> selectorWorkQueue = new ArrayDeque<Runnable>();
     private final TreeSet<TimeKey> delayWorkQueue = new TreeSet<TimeKey>();
+    private IdleTracker idleTracker;
 
     private volatile int state;
 
@@ -114,6 +115,15 @@ final class WorkerThread extends XnioIoThread implements XnioExecutor {
         return (NioXnioWorker) super.getWorker();
     }
 
+    IdleTracker getIdleTracker() {
+        assert currentThread() == this;
+        IdleTracker idleTracker = this.idleTracker;
+        if (idleTracker == null) {
+            this.idleTracker = idleTracker = new IdleTracker(this);
+        }
+        return idleTracker;
+    }
+
     protected IoFuture<StreamConnection> acceptTcpStreamConnection(final InetSocketAddress destination, final ChannelListener<? super StreamConnection> openListener, final ChannelListener<? super BoundChannel> bindListener, final OptionMap optionMap) {
         try {
             getWorker().checkShutdown();
@@ -197,6 +207,10 @@ final class WorkerThread extends XnioIoThread implements XnioExecutor {
                                 final NioSocketStreamConnection connection = new NioSocketStreamConnection(WorkerThread.this, selectionKey, null);
                                 if (optionMap.contains(Options.READ_TIMEOUT)) connection.setOption(Options.READ_TIMEOUT, optionMap.get(Options.READ_TIMEOUT, 0));
                                 if (optionMap.contains(Options.WRITE_TIMEOUT)) connection.setOption(Options.WRITE_TIMEOUT, optionMap.get(Options.WRITE_TIMEOUT, 0));
+                                if (optionMap.contains(Options.IDLE_LISTENER)) connection.setOption(Options.IDLE_LISTENER, optionMap.get(Options.IDLE_LISTENER));
+                                if (optionMap.contains(Options.READ_IDLE_TIMEOUT)) connection.setOption(Options.READ_IDLE_TIMEOUT, optionMap.get(Options.READ_IDLE_TIMEOUT, 0));
+                                if (optionMap.contains(Options.WRITE_IDLE_TIMEOUT)) connection.setOption(Options.WRITE_IDLE_TIMEOUT, optionMap.get(Options.WRITE_IDLE_TIMEOUT, 0));
+                                if (optionMap.contains(Options.IDLE_TIMEOUT)) connection.setOption(Options.IDLE_TIMEOUT, optionMap.get(Options.IDLE_TIMEOUT, 0));
                                 if (futureResult.setResult(connection)) {
                                     ok = true;
                                     ChannelListeners.invokeChannelListener(connection, openListener);
@@ -263,6 +277,10 @@ final class WorkerThread extends XnioIoThread implements XnioExecutor {
                 final NioSocketStreamConnection connection = new NioSocketStreamConnection(this, key, null);
                 if (optionMap.contains(Options.READ_TIMEOUT)) connection.setOption(Options.READ_TIMEOUT, optionMap.get(Options.READ_TIMEOUT, 0));
                 if (optionMap.contains(Options.WRITE_TIMEOUT)) connection.setOption(Options.WRITE_TIMEOUT, optionMap.get(Options.WRITE_TIMEOUT, 0));
+                if (optionMap.contains(Options.IDLE_LISTENER)) connection.setOption(Options.IDLE_LISTENER, optionMap.get(Options.IDLE_LISTENER));
+                if (optionMap.contains(Options.READ_IDLE_TIMEOUT)) connection.setOption(Options.READ_IDLE_TIMEOUT, optionMap.get(Options.READ_IDLE_TIMEOUT, 0));
+                if (optionMap.contains(Options.WRITE_IDLE_TIMEOUT)) connection.setOption(Options.WRITE_IDLE_TIMEOUT, optionMap.get(Options.WRITE_IDLE_TIMEOUT, 0));
+                if (optionMap.contains(Options.IDLE_TIMEOUT)) connection.setOption(Options.IDLE_TIMEOUT, optionMap.get(Options.IDLE_TIMEOUT, 0));
                 if (bindAddress != null || bindListener != null) {
                     channel.socket().bind(bindAddress);
                     ChannelListeners.invokeChannelListener(connection, bindListener);
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.xnio.FileChangeEvent.Type.ADDED;
+import static org.xnio.FileChangeEvent.Type.MODIFIED;
+import static org.xnio.FileChangeEvent.Type.REMOVED;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.xnio.FileChangeCallback;
+import org.xnio.FileChangeEvent;
+import org.xnio.FileSystemWatcher;
+import org.xnio.OptionMap;
+import org.xnio.Xnio;
+import org.xnio.management.XnioFileSystemWatcherMXBean;
+
+/**
+ * Test for the event merging, the counters and the MBean of {@link WatchServiceFileSystemWatcher}.
+ */
+public class WatchServiceFileSystemWatcherTestCase {
+
+    private static final File FILE = new File("a.txt");
+
+    @Test
+    public void coalesceAdded() {
+        assertEquals(ADDED, coalesce(ADDED, ADDED));
+        assertEquals(ADDED, coalesce(ADDED, MODIFIED));
+        // the file neither existed before nor exists now
+        assertNull(coalesce(ADDED, REMOVED));
+    }
+
+    @Test
+    public void coalesceModified() {
+        assertEquals(MODIFIED, coalesce(MODIFIED, ADDED));
+        assertEquals(MODIFIED, coalesce(MODIFIED, MODIFIED));
+        assertEquals(REMOVED, coalesce(MODIFIED, REMOVED));
+    }
+
+    @Test
+    public void coalesceRemoved() {
+        // the file was replaced
+        assertEquals(MODIFIED, coalesce(REMOVED, ADDED));
+        assertEquals(REMOVED, coalesce(REMOVED, MODIFIED));
+        assertEquals(REMOVED, coalesce(REMOVED, REMOVED));
+    }
+
+    @Test
+    public void coalesceSequence() {
+        final Map<File, FileChangeEvent.Type> pending = new HashMap<>();
+        final File other = new File("b.txt");
+        WatchServiceFileSystemWatcher.coalesce(pending, FILE, REMOVED);
+        WatchServiceFileSystemWatcher.coalesce(pending, other, ADDED);
+        WatchServiceFileSystemWatcher.coalesce(pending, FILE, ADDED);
+        WatchServiceFileSystemWatcher.coalesce(pending, FILE, MODIFIED);
+        WatchServiceFileSystemWatcher.coalesce(pending, other, REMOVED);
+        assertEquals(1, pending.size());
+        assertEquals(MODIFIED, pending.get(FILE));
+    }
+
+    @Test
+    public void eventCounts() throws Exception {
+        final File dir = Files.createTempDirectory("xnio").toFile().getAbsoluteFile();
+        final File file = new File(dir, "a.txt");
+        final BlockingQueue<Collection<FileChangeEvent>> results = new LinkedBlockingQueue<>();
+        final WatchServiceFileSystemWatcher watcher = new WatchServiceFileSystemWatcher("countTest", true, 500);
+        try {
+            assertEquals(0, watcher.getRawEventCount());
+            assertEquals(0, watcher.getDeliveredEventCount());
+            watcher.watchPath(dir, new FileChangeCallback() {
+                public void handleChanges(final Collection<FileChangeEvent> changes) {
+                    results.add(changes);
+                }
+            });
+            for (int i = 0; i < 5; i ++) {
+                write(file, i);
+            }
+            final Collection<FileChangeEvent> events = results.poll(20, TimeUnit.SECONDS);
+            assertNotNull(events);
+            assertEquals(1, events.size());
+            assertEquals(ADDED, events.iterator().next().getType());
+            // the creation and the writes of the file were merged into the single delivered event
+            assertEquals(1, watcher.getDeliveredEventCount());
+            assertTrue(watcher.getRawEventCount() > 1);
+        } finally {
+            watcher.close();
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void registeredAsMBean() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final FileSystemWatcher watcher = Xnio.getInstance("nio").createFileSystemWatcher("mbeanTest", OptionMap.EMPTY);
+        final XnioFileSystemWatcherMXBean watcherMXBean = (XnioFileSystemWatcherMXBean) watcher;
+        final ObjectName objectName = new ObjectName("org.xnio:type=Xnio,provider=" + ObjectName.quote("nio") + ",watcher=" + ObjectName.quote(watcherMXBean.getName()));
+        try {
+            assertEquals("nio", watcherMXBean.getProviderName());
+            assertEquals(0L, server.getAttribute(objectName, "RawEventCount"));
+            assertEquals(0L, server.getAttribute(objectName, "DeliveredEventCount"));
+        } finally {
+            watcher.close();
+        }
+        assertFalse(server.isRegistered(objectName));
+    }
+
+    private static FileChangeEvent.Type coalesce(final FileChangeEvent.Type first, final FileChangeEvent.Type second) {
+        final Map<File, FileChangeEvent.Type> pending = new HashMap<>();
+        WatchServiceFileSystemWatcher.coalesce(pending, FILE, first);
+        WatchServiceFileSystemWatcher.coalesce(pending, FILE, second);
+        return pending.get(FILE);
+    }
+
+    private static void write(final File file, final int i) throws IOException {
+        Files.write(file.toPath(), ("data" + i).getBytes());
+    }
+}
@@ -38,7 +38,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
@@ -198,6 +200,50 @@ public class FileSystemWatcherTestCase {
         results.clear();
     }
 
+    @Test
+    public void testDebounce() throws Exception {
+        File replaced = new File(rootDir, "replacedFile.txt").getAbsoluteFile();
+        touchFile(replaced);
+        try (FileSystemWatcher watcher = createXnio().createFileSystemWatcher(
+                "testWatcher", OptionMap.create(Options.WATCHER_DEBOUNCE_INTERVAL, 1000))) {
+            watcher.watchPath(rootDir, new FileChangeCallback() {
+                @Override
+                public void handleChanges(Collection<FileChangeEvent> changes) {
+                    results.add(changes);
+                }
+            });
+            File added = new File(rootDir, "newlyAddedFile.txt").getAbsoluteFile();
+            touchFile(added);
+            added.setLastModified(500);
+            File temporary = new File(rootDir, "transientFile.txt").getAbsoluteFile();
+            touchFile(temporary);
+            temporary.delete();
+            File removed = new File(rootDir, EXISTING_FILE_NAME).getAbsoluteFile();
+            removed.setLastModified(500);
+            removed.delete();
+            File modified = new File(existingSubDir, EXISTING_FILE_NAME).getAbsoluteFile();
+            touchFile(modified);
+            modified.setLastModified(500);
+            replaced.delete();
+            touchFile(replaced);
+
+            // all the changes are merged into a single batch
+            Collection<FileChangeEvent> events = results.poll(WAIT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertNotNull(events);
+            Map<File, FileChangeEvent.Type> types = new HashMap<>();
+            for (FileChangeEvent e : events) {
+                Assert.assertNull("Duplicate event for " + e.getFile(), types.put(e.getFile(), e.getType()));
+            }
+            Assert.assertEquals(FileChangeEvent.Type.ADDED, types.get(added));
+            Assert.assertFalse(types.containsKey(temporary));
+            Assert.assertEquals(REMOVED, types.get(removed));
+            Assert.assertEquals(MODIFIED, types.get(modified));
+            // removed and then added again
+            Assert.assertEquals(MODIFIED, types.get(replaced));
+        }
+        results.clear();
+    }
+
     private void checkResult(File file, FileChangeEvent.Type type) throws InterruptedException {
         Assert.assertTrue("File " + file + " operation " + type + " not received in results", checkResult(file, type, results));
         Assert.assertTrue("File " + file + " operation " + type + " not received in secondResults", checkResult(file, type, secondResults));
@@ -0,0 +1,212 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2026 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xnio.nio.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.ChannelListener;
+import org.xnio.IdleListener;
+import org.xnio.IdleState;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.StreamConnection;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
+import org.xnio.channels.AcceptingChannel;
+
+/**
+ * Test for the detection of idle connections.
+ */
+public class IdleConnectionTestCase {
+
+    private static final int SERVER_PORT = 12345;
+    private static SocketAddress bindAddress;
+    private static XnioWorker worker;
+
+    @BeforeClass
+    public static void createWorker() throws IOException {
+        final Xnio xnio = Xnio.getInstance("nio", IdleConnectionTestCase.class.getClassLoader());
+        worker = xnio.createWorker(OptionMap.create(Options.WORKER_IO_THREADS, 2));
+        bindAddress = new InetSocketAddress(Inet4Address.getByAddress(new byte[] { 127, 0, 0, 1 }), SERVER_PORT);
+    }
+
+    @AfterClass
+    public static void destroyWorker() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(1L, TimeUnit.MINUTES);
+    }
+
+    private AcceptingChannel<StreamConnection> createServer(final OptionMap optionMap, final BlockingQueue<StreamConnection> accepted) throws IOException {
+        final AcceptingChannel<StreamConnection> server = worker.createStreamConnectionServer(bindAddress, null, optionMap);
+        server.getAcceptSetter().set(new ChannelListener<AcceptingChannel<StreamConnection>>() {
+            public void handleEvent(final AcceptingChannel<StreamConnection> channel) {
+                try {
+                    final StreamConnection connection = channel.accept();
+                    if (connection != null) {
+                        accepted.add(connection);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        server.resumeAccepts();
+        return server;
+    }
+
+    @Test
+    public void idleConnectionIsClosed() throws Exception {
+        final BlockingQueue<StreamConnection> accepted = new LinkedBlockingQueue<>();
+        final AcceptingChannel<StreamConnection> server = createServer(OptionMap.create(Options.IDLE_TIMEOUT, 200), accepted);
+        try {
+            final StreamConnection client = worker.openStreamConnection(bindAddress, null, OptionMap.EMPTY).get();
+            try {
+                final StreamConnection serverConnection = accepted.poll(10L, TimeUnit.SECONDS);
+                final CountDownLatch closed = new CountDownLatch(1);
+                serverConnection.setCloseListener(c -> closed.countDown());
+                assertTrue(closed.await(10L, TimeUnit.SECONDS));
+                assertFalse(serverConnection.isOpen());
+                // the peer sees the close as an EOF
+                final ByteBuffer buffer = ByteBuffer.allocate(16);
+                int res;
+                do {
+                    client.getSourceChannel().awaitReadable(10L, TimeUnit.SECONDS);
+                    res = client.getSourceChannel().read(buffer);
+                } while (res == 0);
+                assertEquals(-1, res);
+            } finally {
+                IoUtils.safeClose(client);
+            }
+        } finally {
+            IoUtils.safeClose(server);
+            IoUtils.safeClose(accepted.toArray(new StreamConnection[0]));
+        }
+    }
+
+    @Test
+    public void idleListenerIsNotifiedRepeatedly() throws Exception {
+        final BlockingQueue<IdleState> events = new LinkedBlockingQueue<>();
+        final IdleListener listener = (connection, state) -> events.add(state);
+        final BlockingQueue<StreamConnection> accepted = new LinkedBlockingQueue<>();
+        final AcceptingChannel<StreamConnection> server = createServer(OptionMap.create(Options.READ_IDLE_TIMEOUT, 200, Options.IDLE_LISTENER, listener), accepted);
+        try {
+            final StreamConnection client = worker.openStreamConnection(bindAddress, null, OptionMap.EMPTY).get();
+            try {
+                final StreamConnection serverConnection = accepted.poll(10L, TimeUnit.SECONDS);
+                assertEquals(IdleState.READ_IDLE, events.poll(10L, TimeUnit.SECONDS));
+                assertEquals(IdleState.READ_IDLE, events.poll(10L, TimeUnit.SECONDS));
+                assertTrue(serverConnection.isOpen());
+                // disabling the timeout stops the notifications
+                serverConnection.setOption(Options.READ_IDLE_TIMEOUT, 0);
+                Thread.sleep(100L);
+                events.clear();
+                assertNull(events.poll(600L, TimeUnit.MILLISECONDS));
+                assertTrue(serverConnection.isOpen());
+            } finally {
+                IoUtils.safeClose(client);
+            }
+        } finally {
+            IoUtils.safeClose(server);
+            IoUtils.safeClose(accepted.toArray(new StreamConnection[0]));
+        }
+    }
+
+    @Test
+    public void activityPostponesIdleness() throws Exception {
+        final BlockingQueue<IdleState> events = new LinkedBlockingQueue<>();
+        final IdleListener listener = (connection, state) -> events.add(state);
+        final BlockingQueue<StreamConnection> accepted = new LinkedBlockingQueue<>();
+        final AcceptingChannel<StreamConnection> server = createServer(OptionMap.create(Options.READ_IDLE_TIMEOUT, 1000, Options.IDLE_LISTENER, listener), accepted);
+        try {
+            final StreamConnection client = worker.openStreamConnection(bindAddress, null, OptionMap.EMPTY).get();
+            try {
+                final StreamConnection serverConnection = accepted.poll(10L, TimeUnit.SECONDS);
+                final ByteBuffer buffer = ByteBuffer.allocate(16);
+                for (int i = 0; i < 10; i ++) {
+                    buffer.clear().put((byte) i).flip();
+                    while (buffer.hasRemaining()) {
+                        client.getSinkChannel().write(buffer);
+                    }
+                    buffer.clear();
+                    int res;
+                    do {
+                        serverConnection.getSourceChannel().awaitReadable(10L, TimeUnit.SECONDS);
+                        res = serverConnection.getSourceChannel().read(buffer);
+                    } while (res == 0);
+                    assertEquals(1, res);
+                    Thread.sleep(200L);
+                }
+                assertNull(events.poll());
+                assertEquals(IdleState.READ_IDLE, events.poll(10L, TimeUnit.SECONDS));
+            } finally {
+                IoUtils.safeClose(client);
+            }
+        } finally {
+            IoUtils.safeClose(server);
+            IoUtils.safeClose(accepted.toArray(new StreamConnection[0]));
+        }
+    }
+
+    @Test
+    public void idleOptions() throws Exception {
+        final IdleListener listener = (connection, state) -> {};
+        final StreamConnection client;
+        final BlockingQueue<StreamConnection> accepted = new LinkedBlockingQueue<>();
+        final AcceptingChannel<StreamConnection> server = createServer(OptionMap.EMPTY, accepted);
+        try {
+            assertEquals(0, (int) server.getOption(Options.IDLE_TIMEOUT));
+            assertEquals(0, (int) server.setOption(Options.IDLE_TIMEOUT, 30000));
+            assertEquals(30000, (int) server.getOption(Options.IDLE_TIMEOUT));
+            assertNull(server.setOption(Options.IDLE_LISTENER, listener));
+            client = worker.openStreamConnection(bindAddress, null, OptionMap.create(Options.WRITE_IDLE_TIMEOUT, 20000)).get();
+            try {
+                assertEquals(20000, (int) client.getOption(Options.WRITE_IDLE_TIMEOUT));
+                assertEquals(0, (int) client.getOption(Options.READ_IDLE_TIMEOUT));
+                assertNull(client.getOption(Options.IDLE_LISTENER));
+                final StreamConnection serverConnection = accepted.poll(10L, TimeUnit.SECONDS);
+                assertEquals(30000, (int) serverConnection.getOption(Options.IDLE_TIMEOUT));
+                assertEquals(listener, serverConnection.getOption(Options.IDLE_LISTENER));
+                assertEquals(30000, (int) serverConnection.setOption(Options.IDLE_TIMEOUT, null));
+                assertEquals(0, (int) serverConnection.getOption(Options.IDLE_TIMEOUT));
+            } finally {
+                IoUtils.safeClose(client);
+            }
+        } finally {
+            IoUtils.safeClose(server);
+            IoUtils.safeClose(accepted.toArray(new StreamConnection[0]));
+        }
+    }
+}